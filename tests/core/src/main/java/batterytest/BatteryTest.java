@@ -20,15 +20,18 @@ package batterytest;
 import hydra.FileUtil;
 import hydra.HostHelper;
 import hydra.HostHelper.OSType;
+import hydra.HydraInternalException;
 import hydra.HydraRuntimeException;
 import hydra.HydraTimeoutException;
 import hydra.Log;
 import hydra.MasterController;
+import hydra.PortHelper;
 import hydra.ProcessMgr;
 import hydra.ProductVersionHelper;
 import hydra.VmPrms;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -52,6 +55,8 @@ import batterytest.greplogs.GrepLogs;
 import batterytest.greplogs.GrepLogs.GrepLogsException;
 
 import org.apache.geode.LogWriter;
+import org.apache.geode.internal.LocalLogWriter;
+import org.apache.geode.internal.LogWriterImpl;
 
 /**
  *  Set up a batterytest by creating a test file containing a list of
@@ -163,6 +168,9 @@ import org.apache.geode.LogWriter;
  *         [-DprovideBugReportTemplate=&lt;true if failed run should create a bug report template file(default:false)&gt;]
  *         [-DprovidePropertiesForJenkins=&lt;true if run should create jenkins.prop file for Jenkins to use(default:false)&gt;]
  *         [-DprovideXMLReport=&lt;true if run should create an XML report(default:false)&gt;]
+ *         [-DparallelTests=&lt;max_number_of_tests_to_run_at_once(default:1)&gt;]
+ *         [-DparallelSlots=&lt;number_of_test_slots_on_this_host(default:number_of_processors)&gt;]
+ *         [-DparallelPortBase=&lt;first_port_reserved_for_parallel_tests(default:20000)&gt;]
  *         batterytest.BatteryTest [options]
  *  Where options are:
  *         -until date/time
@@ -203,6 +211,23 @@ import org.apache.geode.LogWriter;
  *
  *  <p>
  *
+ *  If <code>parallelTests</code> is greater than 1, BatteryTest runs up to
+ *  that many tests at once, starting them in order.  Each test occupies the
+ *  number of slots given by its <code>testSlots</code> property (default 1),
+ *  typically set in the .prop file to the number of VMs it runs on this host,
+ *  and a test is started only when it fits in the free slots out of
+ *  <code>parallelSlots</code>.  Each running test has its own test directory
+ *  and a range of 1000 ports starting at <code>parallelPortBase</code>, which
+ *  hydra uses to select ports for the test (see {@link
+ *  PortHelper#PORT_RANGE_PROPERTY}).  Results are reported as each test
+ *  completes, so the order of the tests in "oneliner.txt" can differ from the
+ *  input file, and the <code>-continue</code> option is only reliable if no
+ *  test was running when the previous run ended.  A hung test stops new
+ *  tests from being started, under the same conditions that would terminate
+ *  a serial run, but the tests already running are allowed to finish.
+ *
+ *  <p>
+ *
  *  The fully expanded list of tests being run is written to "batterytest.bt",
  *  and is overwritten every time batterytest is invoked.  Tests using
  *  "onlyOnPlatforms" are omitted on non-matching platforms.
@@ -278,6 +303,56 @@ public class BatteryTest {
 
   private static final String sep = File.separator;
 
+  /** Test results */
+  private static final int PASSED = 0;
+  private static final int FAILED = 1;
+  private static final int HUNG   = 2;
+
+  /** The test property giving the number of slots a test occupies */
+  public static final String TEST_SLOTS_PROP = "testSlots";
+
+  /** The number of ports in the range reserved for each parallel test */
+  private static final int PORTS_PER_LANE = 1000;
+
+  // batterytest settings, shared by tests running in parallel
+  private static OSType osType;
+  private static String jtests;
+  private static String gemfire;
+  private static String testFileName;
+  private static String extraJtests;
+  private static String hadoopDist;
+  private static String gfmon;
+  private static String regressionDir;
+  private static String releaseDir;
+  private static String jprobe;
+  private static String codeCoverage;
+  private static String localConf;
+  private static String resultDir;
+  private static int masterHeapMB;
+  private static boolean provideRegressionSummary;
+  private static boolean removePassedTest;
+  private static boolean grepLogs;
+  private static Integer grepLogsHeapMB;
+  private static int grepLogsWaitSec;
+  private static boolean nukeHungTest;
+  private static boolean moveRemoteDirs;
+  private static boolean moveHadoopData;
+  private static boolean parseOnly;
+  private static boolean provideBugReportTemplate;
+  private static boolean provideXMLReport;
+  private static int parallelTests;
+  private static int parallelSlots;
+  private static int parallelPortBase;
+  private static Date until;
+  private static boolean interruptTest;
+  private static int maxsize;
+  private static int totalTests;
+
+  // test results so far, guarded by the class
+  private static int passed;
+  private static int failed;
+  private static int hung;
+
   public static void main( String[] args ) {
     try {
       boolean result = runbattery(args);
@@ -335,12 +410,12 @@ public class BatteryTest {
 
   public static boolean runbattery(String[] args) {
 
-    OSType osType = HostHelper.getLocalHostOS();
+    osType = HostHelper.getLocalHostOS();
 
     // get the required settings
-    String jtests = System.getProperty( "JTESTS" );
-    String gemfire = System.getProperty( "GEMFIRE" );
-    String testFileName = System.getProperty( "testFileName" );
+    jtests = System.getProperty( "JTESTS" );
+    gemfire = System.getProperty( "GEMFIRE" );
+    testFileName = System.getProperty( "testFileName" );
     if (jtests == null) {
       usage("Missing JTESTS");
       return false;
@@ -355,15 +430,15 @@ public class BatteryTest {
     }
 
     // get the optional settings
-    String extraJtests = System.getProperty( "EXTRA_JTESTS" );
-    String hadoopDist = System.getProperty( "HADOOP_DIST" );
-    String gfmon = System.getProperty("GFMON");
-    String regressionDir = System.getProperty("REGRESSION_EXTRA_PATH");
-    String releaseDir = System.getProperty("RELEASE_DIR");
-    String jprobe = System.getProperty( "JPROBE" );
-    String codeCoverage = System.getProperty( "codeCoverage", null );
+    extraJtests = System.getProperty( "EXTRA_JTESTS" );
+    hadoopDist = System.getProperty( "HADOOP_DIST" );
+    gfmon = System.getProperty("GFMON");
+    regressionDir = System.getProperty("REGRESSION_EXTRA_PATH");
+    releaseDir = System.getProperty("RELEASE_DIR");
+    jprobe = System.getProperty( "JPROBE" );
+    codeCoverage = System.getProperty( "codeCoverage", null );
     if (codeCoverage != null && codeCoverage.length() == 0) codeCoverage = null;
-    String localConf = System.getProperty("localConf");
+    localConf = System.getProperty("localConf");
     if (localConf == null) {
       if (FileUtil.exists("local.conf")) {
         localConf = FileUtil.absoluteFilenameFor("local.conf");
@@ -374,27 +449,43 @@ public class BatteryTest {
       usage("File not found: " + localConf);
       return false;
     }
-    String resultDir = System.getProperty( "resultDir", System.getProperty( "user.dir" ) );
-    int masterHeapMB = Integer.getInteger( "masterHeapMB", 256 ).intValue();
+    resultDir = System.getProperty( "resultDir", System.getProperty( "user.dir" ) );
+    masterHeapMB = Integer.getInteger( "masterHeapMB", 256 ).intValue();
     int numTimesToRun = Integer.getInteger( "numTimesToRun", new Integer(1) ).intValue();
     String logLevel = System.getProperty( "logLevel", "info" );
-    boolean provideRegressionSummary = Boolean.valueOf(System.getProperty("provideRegressionSummary", "true")).booleanValue();
-    boolean removePassedTest = Boolean.getBoolean( "removePassedTest" );
-    boolean grepLogs = Boolean.getBoolean( "grepLogs" );
-    Integer grepLogsHeapMB = Integer.getInteger( "grepLogsHeapMB" );
-    int grepLogsWaitSec = Integer.getInteger( "grepLogsWaitSec", 3600 );
-    boolean nukeHungTest = Boolean.valueOf(System.getProperty("nukeHungTest","true"));
-    boolean moveRemoteDirs = Boolean.getBoolean("moveRemoteDirs");
-    boolean moveHadoopData = Boolean.getBoolean(MOVE_HADOOP_DATA);
-    boolean parseOnly = Boolean.getBoolean("parseOnly");
-    boolean provideBugReportTemplate = Boolean.valueOf(System.getProperty("provideBugReportTemplate", "false")).booleanValue();
+    provideRegressionSummary = Boolean.valueOf(System.getProperty("provideRegressionSummary", "true")).booleanValue();
+    removePassedTest = Boolean.getBoolean( "removePassedTest" );
+    grepLogs = Boolean.getBoolean( "grepLogs" );
+    grepLogsHeapMB = Integer.getInteger( "grepLogsHeapMB" );
+    grepLogsWaitSec = Integer.getInteger( "grepLogsWaitSec", 3600 );
+    nukeHungTest = Boolean.valueOf(System.getProperty("nukeHungTest","true"));
+    moveRemoteDirs = Boolean.getBoolean("moveRemoteDirs");
+    moveHadoopData = Boolean.getBoolean(MOVE_HADOOP_DATA);
+    parseOnly = Boolean.getBoolean("parseOnly");
+    provideBugReportTemplate = Boolean.valueOf(System.getProperty("provideBugReportTemplate", "false")).booleanValue();
     boolean providePropertiesForJenkins = Boolean.valueOf(System.getProperty("providePropertiesForJenkins", "false")).booleanValue();
-    boolean provideXMLReport = Boolean.valueOf(System.getProperty("provideXMLReport", "false")).booleanValue();
+    provideXMLReport = Boolean.valueOf(System.getProperty("provideXMLReport", "false")).booleanValue();
+    parallelTests = Integer.getInteger( "parallelTests", 1 ).intValue();
+    parallelSlots = Integer.getInteger( "parallelSlots",
+                    Runtime.getRuntime().availableProcessors() ).intValue();
+    parallelPortBase = Integer.getInteger( "parallelPortBase", 20000 ).intValue();
+    if (parallelTests < 1) {
+      usage("parallelTests must be at least 1: " + parallelTests);
+      return false;
+    } else if (parallelSlots < 1) {
+      usage("parallelSlots must be at least 1: " + parallelSlots);
+      return false;
+    } else if (parallelTests > 1 &&
+               parallelPortBase + parallelTests * PORTS_PER_LANE > 65536) {
+      usage("parallelPortBase leaves too few ports for " + parallelTests
+           + " parallel tests: " + parallelPortBase);
+      return false;
+    }
 
     // Parse the command line arguments
-    Date until = new Date(Long.MAX_VALUE);
+    until = new Date(Long.MAX_VALUE);
     int alreadyRun = 0;
-    boolean interruptTest = false;
+    interruptTest = false;
 
     for (int i = 0; i < args.length; i++) {
       if (args[i].equals("-until")) {
@@ -467,11 +558,12 @@ public class BatteryTest {
 
     // open the batterytest log file, append if it already exists
     log = Log.createLogWriter( "batterytest", "batterytest", logLevel, true );
-    log.info(ProcessMgr.processAndBuildInfoString());
-    log.info( "Batterytest PID is " + ProcessMgr.getProcessId() );
+    logLevelCode = LogWriterImpl.levelNameToCode( logLevel );
+    log().info(ProcessMgr.processAndBuildInfoString());
+    log().info( "Batterytest PID is " + ProcessMgr.getProcessId() );
 
     // log the batterytest configuration
-    log.info( "\nJTESTS = " + jtests +
+    log().info( "\nJTESTS = " + jtests +
               "\nEXTRA_JTESTS = " + extraJtests +
               "\nGEMFIRE = " + gemfire +
               "\nHADOOP_DIST = " + hadoopDist +
@@ -496,37 +588,40 @@ public class BatteryTest {
               "\nmoveHadoopData = " + moveHadoopData +
               "\nparseOnly = " + parseOnly +
               "\nprovideBugReportTemplate = " + provideBugReportTemplate +
-              "\nprovideXMLReport = " + provideXMLReport);
+              "\nprovideXMLReport = " + provideXMLReport +
+              "\nparallelTests = " + parallelTests +
+              "\nparallelSlots = " + parallelSlots +
+              "\nparallelPortBase = " + parallelPortBase);
 
     // get the list of tests from the batterytest input file
-    log.info( "Parsing batterytest input file: " + testFileName + "..." );
+    log().info( "Parsing batterytest input file: " + testFileName + "..." );
     Vector tests = null;
     try {
       tests = ConfigParser.parseFile( testFileName );
-      if ( log.fineEnabled() ) {
+      if ( log().fineEnabled() ) {
         for ( int i = 0; i < tests.size(); i++ ) {
-          log.fine( "Test " + i + " = " + tests.get(i) );
+          log().fine( "Test " + i + " = " + tests.get(i) );
         }
       }
     } catch( FileNotFoundException e ) {
-      log.severe( "Batterytest input file not found: " + testFileName, e );
+      log().severe( "Batterytest input file not found: " + testFileName, e );
       return false;
     }
 
     // find the longest test name for later printing
-    int maxsize = 0;
+    maxsize = 0;
     for ( int i = 0; i < tests.size(); i++ ) {
       BatteryTestConfig test = (BatteryTestConfig) tests.elementAt(i);
       maxsize = Math.max( maxsize, test.getName().length() );
     }
 
     // log info about test run
-    log.info( "Number of tests in " + testFileName + " is " + tests.size() + "..." );
-    log.info( "Running test file " + numTimesToRun + " times..." );
-    int totalTests = tests.size() * numTimesToRun;
-    log.info( "Running a total of " + totalTests + " (" + numTimesToRun + "*" + tests.size() + ") tests" );
-    log.info("Will execute tests until " + df.format(until));
-    log.info("Have previously executed " + alreadyRun + " tests");
+    log().info( "Number of tests in " + testFileName + " is " + tests.size() + "..." );
+    log().info( "Running test file " + numTimesToRun + " times..." );
+    totalTests = tests.size() * numTimesToRun;
+    log().info( "Running a total of " + totalTests + " (" + numTimesToRun + "*" + tests.size() + ") tests" );
+    log().info("Will execute tests until " + df.format(until));
+    log().info("Have previously executed " + alreadyRun + " tests");
 
     // touch oneline.txt so we can start tail'ing it immediately
     try {
@@ -536,7 +631,7 @@ public class BatteryTest {
       (new File(dir, "oneliner.txt")).createNewFile();
 
     } catch (IOException ex) {
-      log.severe("Couldn't touch oneliner.txt", ex);
+      log().severe("Couldn't touch oneliner.txt", ex);
     }
 
     // write the properties for jenkins
@@ -545,493 +640,747 @@ public class BatteryTest {
     }
 
     // run the tests
-    int passed = 0;
-    int failed = 0;
-    int hung   = 0;
+    passed = 0;
+    failed = 0;
+    hung   = 0;
+    TestScheduler scheduler = null;
+    if ( parallelTests > 1 ) {
+      scheduler = new TestScheduler( parallelTests, parallelSlots );
+    }
     int testnum = 0;
   OUTER:
     for ( int i = 0; i < numTimesToRun; i++ ) {
       for ( int j = 0; j < tests.size(); j++ ) {
         ++testnum;
         BatteryTestConfig btc = (BatteryTestConfig) tests.elementAt( j );
-        String relativetest = btc.getName();
 
         if (testnum <= alreadyRun) {
-          log.info("Skipping test " + testnum + " of " + totalTests + ": "
+          log().info("Skipping test " + testnum + " of " + totalTests + ": "
                   + btc + " because it has already been run");
           continue;
 
         } else if ((new Date()).after(until)) {
-          log.info("Stopping battery test because it is after " +
+          log().info("Stopping battery test because it is after " +
                    df.format(until));
           break OUTER;
         }
 
-        String test = null;
-	if ( FileUtil.exists( relativetest ) )
-	  test = FileUtil.absoluteFilenameFor( relativetest );
-        else
-          if ( extraJtests != null ) {
-            test = extraJtests + sep + relativetest;
-            if (! FileUtil.exists( test )) {
-              String oldTest = test;
-              test = jtests + sep + relativetest;
-	      log.info( "test file not found in " + oldTest + " trying in " + test);
-            }
-          } else {
-              test = jtests + sep + relativetest;
+        String test = resolveTest( btc );
+        if ( scheduler != null ) {
+          // start the test in the background once it fits
+          if ( ! scheduler.schedule( btc, test, testnum ) ) {
+            break OUTER;
           }
-        // bring in default properties not overridden in the .bt file, if any
-	int index = test.indexOf( ".conf" );
-	if ( index != -1 ) { // hydra test
-	  String propFileName = test.substring( 0, index ) + ".prop";
-          btc.fillInWithDefaultsFrom( propFileName );
+          continue;
         }
 
-	log.info( "Running test " + testnum + " of " + totalTests + ": " + btc );
-
-        // get the host
-	String host = HostHelper.getLocalHost();
-
-	// create the command
-	String cmd = null;
-	String type = null;
-	if ( test.indexOf( ".conf" ) != -1 ) {
-	  type = "hydra";
-	  cmd = System.getProperty( "java.home" ) + sep + "bin" + sep + "java";
-	  String vmType = VmPrms.defaultType();
-	  if ( vmType != null ) {
-	    cmd += " -" + vmType;
-	  }
-	  cmd = cmd + " -classpath "
-                    + System.getProperty( "masterClassPath", "" )
-                    + File.pathSeparator
-                    + System.getProperty( "java.class.path" );
-	  cmd = cmd + " -Xmx" + masterHeapMB + "m";
-          cmd = cmd + " -DJTESTS=" + jtests;
-          if ( hadoopDist != null ) {
-            cmd = cmd + " -DHADOOP_DIST=" + hadoopDist;
-          }
-          if ( extraJtests != null ) {
-            cmd = cmd + " -DEXTRA_JTESTS=" + extraJtests;
-          }
-          if (gfmon != null) {
-	    cmd = cmd + " -DGFMON=" + gfmon;
-          }
-          if (regressionDir != null) {
-	    cmd = cmd + " -DREGRESSION_EXTRA_PATH=" + regressionDir;
-          }
-          if (releaseDir != null) {
-	    cmd = cmd + " -DRELEASE_DIR=" + releaseDir;
-          }
-          if ( jprobe != null )
-	    cmd = cmd +
-	          " -DJPROBE=" + jprobe;
-	  cmd = cmd + " -Dsun.rmi.transport.tcp.handshakeTimeout=3600000";
-
-          if (System.getProperty("java.vm.vendor").startsWith("Sun") 
-          && !System.getProperty("java.version").startsWith("1.4")) {
-            cmd = cmd + " -XX:+HeapDumpOnOutOfMemoryError";
-          }
-          cmd = cmd +
-	        " -Dgemfire.home=" + gemfire +
-	        " -DconfigFileName=" + test +
-	        " -DparseOnly=" + parseOnly +
-	        " -D" + MOVE_HADOOP_DATA + "=" + moveHadoopData +
-		btc.getPropertyString() + "hydra.MasterController";
-        } else if ( test.indexOf( ".pl" ) != -1 ) {
-	  type = "script";
-	  cmd = "perl " + test;
-	} else { // just try to run it
-	  type = "unknown";
-	  cmd = test;
-	}
-
-        // create the working directory
-	String conf = FileUtil.filenameFor( test );
-	String base = resultDir + sep;
-	if ( conf.lastIndexOf( "." ) == -1 )
-	  base = base + conf;
-        else
-	  base = base + conf.substring( 0, conf.lastIndexOf( "." ) );
-	Date d = new Date();
-	String ds = d.toString();
-	String workdir = base + "-" + month( ds.substring(4,7) ) + ds.substring(8,10) +
-	                        "-" + ds.substring(11,13) + ds.substring(14,16) + ds.substring(17,19);
-	FileUtil.mkdir( workdir );
-        if (!parseOnly) logStatus(host, workdir);
-
-        // copy the local.conf file to the working directory
-        if (type.equals("hydra") && (localConf != null || codeCoverage != null)) {
-          String testLocalConf = workdir + sep + "local.conf";
-          if (localConf != null) {
-            FileUtil.copyFile(localConf, testLocalConf);
-          }
-          if (codeCoverage != null) {
-            String cc = "\nhydra.VmPrms-extraVMArgs += \"" + codeCoverage + "\";\n";
-            FileUtil.appendToFile(testLocalConf, cc);
+        int result = runTest( btc, test, testnum, -1 );
+        countResult( result );
+        if ( result == HUNG ) {
+          if ( ! nukeHungTest ) {
+            reportStatus( totalTests, passed, failed, hung );
+            log().severe( "Terminating early, see last test result" );
+            return ( failed + hung == 0 ) ? true : false;
+          } else if ( interruptTest ) {
+            log().severe( "Terminating early due to deadline configured with -for or -until, see last test result" );
+            break OUTER;
           }
         }
-
-        // write the system.properties to the working directory
-	String testname = (new File( base )).getName();
-        btc.writePropertiesToFile( workdir + sep + testname + ".prop" );
-
-        // set the logfile
-	String logfile = null;
-	if ( type.equals("hydra") )
-	  logfile = "bgexecmaster.log";
-        else
-	  logfile = "bgexectest.log";
-
-        // start the test
-        long starttime = System.currentTimeMillis();
-	int pid = ProcessMgr.bgexec( host, cmd, workdir, logfile );
-	log.info( "PID=" + pid );
-	log.info( "DIR=" + workdir );
-	log.info( "Waiting for test to complete..." );
-        if (!parseOnly) {
-	  MasterController.sleepForMs( 15000 ); // give it time to be noticed
+      }
+    }
+    if ( scheduler != null ) {
+      scheduler.waitForTests();
+      if ( scheduler.stoppedEarly() ) {
+        if ( ! nukeHungTest ) {
+          reportStatus( totalTests, passed, failed, hung );
+          log().severe( "Terminating early, see last test result" );
+          return ( failed + hung == 0 ) ? true : false;
+        } else if ( interruptTest ) {
+          log().severe( "Terminating early due to deadline configured with -for or -until, see last test result" );
         }
+      }
+    }
+    reportStatus( totalTests, passed, failed, hung );
+    return ( failed + hung == 0 ) ? true : false;
+  }
 
-        // build monitored filenames
-        String spawnfile      = workdir + sep + "in_master.txt";
-        String inprogressfile = workdir + sep + "in_progress.txt";
-        String hangfile       = workdir + sep + "hang.txt";
-        String errorfile      = workdir + sep + "errors.txt";
-
-        // wait for test to finish
-	boolean progressFileExists = true;
-        boolean masterProcessExists = true;
-        boolean timeoutOnProcessExists = false;
-        boolean hangFileExists = false;
-        try {
-          do {
-            if (interruptTest && (new Date()).after(until)) {
-              // fake a hung test
-              log.info("Interrupting battery test because it is after " +
-                       df.format(until));
-              FileUtil.appendToFile(hangfile,
-                       "Batterytest interrupted test at deadline configured with -for or -until");
-              break;
-            }
-            MasterController.sleepForMs( 2500 );
-            progressFileExists = FileUtil.exists( inprogressfile );
-            masterProcessExists = ProcessMgr.processExists( host, pid );
-          } while ( progressFileExists && masterProcessExists );
-          // now either the progress file or master process is gone
-
-          // make sure master does not hang when test does not hang
-          hangFileExists = FileUtil.exists( hangfile );
-          if ( ! hangFileExists && masterProcessExists ) {
-            log.info( "Master process is no longer in progress, waiting "
-                    + EXIT_WAIT_SEC + " seconds for it to exit" );
-            masterProcessExists =
-                  ! ProcessMgr.waitForDeath( host, pid, EXIT_WAIT_SEC );
-          }
-          // now if the master is still with us, treat as a hang (see below)
-        } catch (HydraTimeoutException e) {
-          timeoutOnProcessExists = true;
-        }
+  /**
+   * Runs the given test, found at the given path, and returns its result, one of {@link #PASSED},
+   * {@link #FAILED}, or {@link #HUNG}.  If <code>lane</code> is not -1, the
+   * test is one of several running in parallel, and its hydra master and
+   * clients select ports from the range reserved for the lane.
+   */
+  private static int runTest( BatteryTestConfig btc, String test,
+                              int testnum, int lane ) {
+    String relativetest = btc.getName();
 
-        // note how long the test took to run
-        long elapsedSec = (System.currentTimeMillis() - starttime)/1000;
-
-        // determine the pass/fail and termination status
-	boolean success = true;
-        boolean terminateEarly = false;
-
-        // make sure the test process really got underway
-        if ( ! FileUtil.exists( spawnfile ) ) {
-	  terminateEarly = false;
-	  success = false;
-          String msg = "Master process failed to get underway, see bgexecmaster_<pid>.log";
-          log.severe( msg );
-        } else { // reduce the noise
-          FileUtil.deleteFile( spawnfile );
-        }
-	// and hasn't reported a possible hang
-        if ( hangFileExists ) {
-	  terminateEarly = true;
-	  success = false;
-          String msg = "Test reported a possible hang, see hang.txt";
-          log.severe( msg );
-        }
-        // and the spawned test process really completed
-        if ( ! hangFileExists && masterProcessExists ) {
-	  terminateEarly = true;
-	  success = false;
-          String msg = "Master process failed to exit within " + EXIT_WAIT_SEC
-                     + " seconds of completion, treating as a hang";
-          log.severe( msg );
-        }
-	// and doesn't claim to still be in progress
-        if (FileUtil.exists(inprogressfile)) {
-	  terminateEarly = true;
-	  success = false;
-          String msg = "Master process died but claims to be in progress, see in_progress.txt";
-          log.severe( msg );
+    log().info( "Running test " + testnum + " of " + totalTests + ": " + btc );
+
+    // get the host
+    String host = HostHelper.getLocalHost();
+
+    // create the command
+    String cmd = null;
+    String type = null;
+    if ( test.indexOf( ".conf" ) != -1 ) {
+      type = "hydra";
+      cmd = System.getProperty( "java.home" ) + sep + "bin" + sep + "java";
+      String vmType = VmPrms.defaultType();
+      if ( vmType != null ) {
+        cmd += " -" + vmType;
+      }
+      cmd = cmd + " -classpath "
+                + System.getProperty( "masterClassPath", "" )
+                + File.pathSeparator
+                + System.getProperty( "java.class.path" );
+      cmd = cmd + " -Xmx" + masterHeapMB + "m";
+      cmd = cmd + " -DJTESTS=" + jtests;
+      if ( hadoopDist != null ) {
+        cmd = cmd + " -DHADOOP_DIST=" + hadoopDist;
+      }
+      if ( extraJtests != null ) {
+        cmd = cmd + " -DEXTRA_JTESTS=" + extraJtests;
+      }
+      if (gfmon != null) {
+        cmd = cmd + " -DGFMON=" + gfmon;
+      }
+      if (regressionDir != null) {
+        cmd = cmd + " -DREGRESSION_EXTRA_PATH=" + regressionDir;
+      }
+      if (releaseDir != null) {
+        cmd = cmd + " -DRELEASE_DIR=" + releaseDir;
+      }
+      if ( jprobe != null )
+        cmd = cmd +
+              " -DJPROBE=" + jprobe;
+      cmd = cmd + " -Dsun.rmi.transport.tcp.handshakeTimeout=3600000";
+
+      if (System.getProperty("java.vm.vendor").startsWith("Sun") 
+      && !System.getProperty("java.version").startsWith("1.4")) {
+        cmd = cmd + " -XX:+HeapDumpOnOutOfMemoryError";
+      }
+      cmd = cmd +
+            " -Dgemfire.home=" + gemfire +
+            " -DconfigFileName=" + test +
+            " -DparseOnly=" + parseOnly +
+            " -D" + MOVE_HADOOP_DATA + "=" + moveHadoopData;
+      if ( lane != -1 ) {
+        cmd = cmd + " -D" + PortHelper.PORT_RANGE_PROPERTY + "="
+                  + portRangeFor( lane );
+      }
+      cmd = cmd +
+            btc.getPropertyString() + "hydra.MasterController";
+    } else if ( test.indexOf( ".pl" ) != -1 ) {
+      type = "script";
+      cmd = "perl " + test;
+    } else { // just try to run it
+      type = "unknown";
+      cmd = test;
+    }
+
+    // create the working directory
+    String conf = FileUtil.filenameFor( test );
+    String base = resultDir + sep;
+    if ( conf.lastIndexOf( "." ) == -1 )
+      base = base + conf;
+    else
+      base = base + conf.substring( 0, conf.lastIndexOf( "." ) );
+    String workdir = createWorkdir( base );
+    if (!parseOnly) logStatus(host, workdir);
+
+    // copy the local.conf file to the working directory
+    if (type.equals("hydra") && (localConf != null || codeCoverage != null)) {
+      String testLocalConf = workdir + sep + "local.conf";
+      if (localConf != null) {
+        FileUtil.copyFile(localConf, testLocalConf);
+      }
+      if (codeCoverage != null) {
+        String cc = "\nhydra.VmPrms-extraVMArgs += \"" + codeCoverage + "\";\n";
+        FileUtil.appendToFile(testLocalConf, cc);
+      }
+    }
+
+    // write the system.properties to the working directory
+    String testname = (new File( base )).getName();
+    btc.writePropertiesToFile( workdir + sep + testname + ".prop" );
+
+    // set the logfile
+    String logfile = null;
+    if ( type.equals("hydra") )
+      logfile = "bgexecmaster.log";
+    else
+      logfile = "bgexectest.log";
+
+    // start the test
+    long starttime = System.currentTimeMillis();
+    int pid = ProcessMgr.bgexec( host, cmd, workdir, logfile );
+    log().info( "PID=" + pid );
+    log().info( "DIR=" + workdir );
+    log().info( "Waiting for test to complete..." );
+    if (!parseOnly) {
+      MasterController.sleepForMs( 15000 ); // give it time to be noticed
+    }
+
+    // build monitored filenames
+    String spawnfile      = workdir + sep + "in_master.txt";
+    String inprogressfile = workdir + sep + "in_progress.txt";
+    String hangfile       = workdir + sep + "hang.txt";
+    String errorfile      = workdir + sep + "errors.txt";
+
+    // wait for test to finish
+    boolean progressFileExists = true;
+    boolean masterProcessExists = true;
+    boolean timeoutOnProcessExists = false;
+    boolean hangFileExists = false;
+    try {
+      do {
+        if (interruptTest && (new Date()).after(until)) {
+          // fake a hung test
+          log().info("Interrupting battery test because it is after " +
+                   df.format(until));
+          FileUtil.appendToFile(hangfile,
+                   "Batterytest interrupted test at deadline configured with -for or -until");
+          break;
         }
-        // and hasn't documented any errors
-        if ( FileUtil.exists( errorfile ) ) {
-	  success = false;
-          String msg = "Test failed with errors, see errors.txt";
-          log.severe( msg );
+        MasterController.sleepForMs( 2500 );
+        progressFileExists = FileUtil.exists( inprogressfile );
+        masterProcessExists = ProcessMgr.processExists( host, pid );
+      } while ( progressFileExists && masterProcessExists );
+      // now either the progress file or master process is gone
+
+      // make sure master does not hang when test does not hang
+      hangFileExists = FileUtil.exists( hangfile );
+      if ( ! hangFileExists && masterProcessExists ) {
+        log().info( "Master process is no longer in progress, waiting "
+                + EXIT_WAIT_SEC + " seconds for it to exit" );
+        masterProcessExists =
+              ! ProcessMgr.waitForDeath( host, pid, EXIT_WAIT_SEC );
+      }
+      // now if the master is still with us, treat as a hang (see below)
+    } catch (HydraTimeoutException e) {
+      timeoutOnProcessExists = true;
+    }
+
+    // note how long the test took to run
+    long elapsedSec = (System.currentTimeMillis() - starttime)/1000;
+
+    // determine the pass/fail and termination status
+    boolean success = true;
+    boolean terminateEarly = false;
+
+    // make sure the test process really got underway
+    if ( ! FileUtil.exists( spawnfile ) ) {
+      terminateEarly = false;
+      success = false;
+      String msg = "Master process failed to get underway, see bgexecmaster_<pid>.log";
+      log().severe( msg );
+    } else { // reduce the noise
+      FileUtil.deleteFile( spawnfile );
+    }
+    // and hasn't reported a possible hang
+    if ( hangFileExists ) {
+      terminateEarly = true;
+      success = false;
+      String msg = "Test reported a possible hang, see hang.txt";
+      log().severe( msg );
+    }
+    // and the spawned test process really completed
+    if ( ! hangFileExists && masterProcessExists ) {
+      terminateEarly = true;
+      success = false;
+      String msg = "Master process failed to exit within " + EXIT_WAIT_SEC
+                 + " seconds of completion, treating as a hang";
+      log().severe( msg );
+    }
+    // and doesn't claim to still be in progress
+    if (FileUtil.exists(inprogressfile)) {
+      terminateEarly = true;
+      success = false;
+      String msg = "Master process died but claims to be in progress, see in_progress.txt";
+      log().severe( msg );
+    }
+    // and hasn't documented any errors
+    if ( FileUtil.exists( errorfile ) ) {
+      success = false;
+      String msg = "Test failed with errors, see errors.txt";
+      log().severe( msg );
+    }
+    // and doesn't report a failure
+    if ( FileUtil.exists(workdir + sep + "failed.txt") ) {
+      success = false;
+      String msg = "Test reported failure";
+      log().severe( msg );
+    }
+    // and batterytest wasn't unable to determine whether master exists
+    if (timeoutOnProcessExists) {
+      terminateEarly = true;
+      success = false;
+      String msg = "Timed out trying to determine whether master process "
+                 + "exists: " + pid + ", possibly due to machine overload, "
+                 + "treating as hang";
+      log().severe( msg );
+    }
+
+    // report result to oneliner.txt
+    StringBuffer oneliner = new StringBuffer( 100 );
+    StringBuffer dir = new StringBuffer( relativetest );
+    for ( int n = 0; n < maxsize - relativetest.length(); n++ )
+      dir.append( " " );
+    oneliner.append( dir.toString() ).append( "    " );
+    int result;
+    if ( success ) {
+      log().info( "RESULT: Test PASSED" );
+      oneliner.append( "P    " );
+      result = PASSED;
+    } else if ( terminateEarly ) {
+      log().info( "RESULT: Test HUNG" );
+      oneliner.append( "H    " );
+      result = HUNG;
+    } else {
+      log().info( "RESULT: Test FAILED" );
+      oneliner.append( "F    " );
+      result = FAILED;
+    }
+
+    // oneliner.append( elapsedSec ).append( "    " ).append( workdir );
+    NumberFormat nf = NumberFormat.getIntegerInstance();
+    nf.setMinimumIntegerDigits(2);
+    String hrs = "00";
+    if (elapsedSec >= 3600)
+            hrs = nf.format(elapsedSec / 3600).toString();
+    String mins = "00";
+    if (elapsedSec >= 60)
+            mins = nf.format((elapsedSec % 3600) / 60).toString();
+    String secs = nf.format(elapsedSec % 60).toString();
+    oneliner.append(hrs + ":" + mins + ":" + secs + "    " + workdir);
+    writeOneliner( oneliner.toString() );
+
+    // terminate early if conditions warrant
+    if ( terminateEarly ) {
+      if ( nukeHungTest ) {
+        if (interruptTest) {
+          log().severe( "Interrupting due to deadline configured with -for or -until, nuking test processes for currently running test" );
+        } else {
+          log().severe( "Proceeding past hung test, nuking test processes" );
         }
-        // and doesn't report a failure
-        if ( FileUtil.exists(workdir + sep + "failed.txt") ) {
-          success = false;
-          String msg = "Test reported failure";
-          log.severe( msg );
+        try {
+          if (osType == OSType.windows) {
+            log().severe(ProcessMgr.fgexec(workdir + sep + "nukerun.bat", 1800));
+          } else {         
+            log().severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukerun.sh", 600));
+          }
+        } catch( HydraRuntimeException e ) {
+          log().severe( "Automatic nuke failed -- clean up manually", e );
         }
-        // and batterytest wasn't unable to determine whether master exists
-        if (timeoutOnProcessExists) {
-	  terminateEarly = true;
-          success = false;
-          String msg = "Timed out trying to determine whether master process "
-                     + "exists: " + pid + ", possibly due to machine overload, "
-                     + "treating as hang";
-          log.severe( msg );
+        try {
+          if (osType == OSType.windows) {
+            log().severe(ProcessMgr.fgexec(workdir + sep + "nukehadoop.bat", 1800));
+          } else {         
+            log().severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukehadoop.sh", 600));
+          }
+        } catch( HydraRuntimeException e ) {
+          log().severe( "Automatic nuke failed -- clean up manually", e );
         }
 
-	// report result to oneliner.txt
-	StringBuffer oneliner = new StringBuffer( 100 );
-	StringBuffer dir = new StringBuffer( relativetest );
-	for ( int n = 0; n < maxsize - relativetest.length(); n++ )
-	  dir.append( " " );
-	oneliner.append( dir.toString() ).append( "    " );
-        if ( success ) {
-	  log.info( "RESULT: Test PASSED" );
-	  oneliner.append( "P    " );
-	  ++passed;
-	} else if ( terminateEarly ) {
-	  log.info( "RESULT: Test HUNG" );
-	  oneliner.append( "H    " );
-	  ++hung;
-	} else {
-	  log.info( "RESULT: Test FAILED" );
-	  oneliner.append( "F    " );
-	  ++failed;
-	}
-
-	// oneliner.append( elapsedSec ).append( "    " ).append( workdir );
-	NumberFormat nf = NumberFormat.getIntegerInstance();
-	nf.setMinimumIntegerDigits(2);
-	String hrs = "00";
-	if (elapsedSec >= 3600)
-		hrs = nf.format(elapsedSec / 3600).toString();
-	String mins = "00";
-	if (elapsedSec >= 60)
-		mins = nf.format((elapsedSec % 3600) / 60).toString();
-	String secs = nf.format(elapsedSec % 60).toString();
-	oneliner.append(hrs + ":" + mins + ":" + secs + "    " + workdir);
-	FileOutputStream fos = null;
-	try {
-	  fos = new FileOutputStream( resultDir + sep + "oneliner.txt", true );
-	} catch( FileNotFoundException e ) {
-	  log.severe( "Unable to open oneliner.txt", e );
-	}
-	PrintWriter pw = new PrintWriter( fos );
-	pw.println( oneliner.toString() );
-	pw.close();
-
-	// terminate early if conditions warrant
-        if ( terminateEarly ) {
-          if ( nukeHungTest ) {
-            if (interruptTest) {
-              log.severe( "Interrupting due to deadline configured with -for or -until, nuking test processes for currently running test" );
-            } else {
-              log.severe( "Proceeding past hung test, nuking test processes" );
-            }
-	    try {
-	      if (osType == OSType.windows) {
-	        log.severe(ProcessMgr.fgexec(workdir + sep + "nukerun.bat", 1800));
-	      } else {         
-	        log.severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukerun.sh", 600));
-              }
-	    } catch( HydraRuntimeException e ) {
-	      log.severe( "Automatic nuke failed -- clean up manually", e );
-	    }
-	    try {
-	      if (osType == OSType.windows) {
-	        log.severe(ProcessMgr.fgexec(workdir + sep + "nukehadoop.bat", 1800));
-	      } else {         
-	        log.severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukehadoop.sh", 600));
-              }
-	    } catch( HydraRuntimeException e ) {
-	      log.severe( "Automatic nuke failed -- clean up manually", e );
-	    }
-
-	  } else {
-            reportStatus( totalTests, passed, failed, hung );
-            log.severe( "Terminating early, see last test result" );
-            if (!parseOnly) logStatus(host, workdir);
-            return ( failed + hung == 0 ) ? true : false;
-	  }
-        }
+      } else {
+        if (!parseOnly) logStatus(host, workdir);
+        return result;
+      }
+    }
 
-        // at this point, we've already nuked a hung test or exited due to a hang
-        // so it's OK to move the jacoco file in all cases
-        if (!parseOnly) {
-          String jacocofn = workdir + sep + JACOCO_FN;
-          if (FileUtil.exists(jacocofn)) {
-            if (osType == OSType.unix) {
-              try {
-                log.severe("Moving jacoco output to batterytest directory");
-	        String jacocofn2 = resultDir + sep + (new File(workdir)).getName() + "_" + JACOCO_FN;
-                log.severe(ProcessMgr.fgexec("/bin/mv " + jacocofn + " " + jacocofn2, 120));
-              } catch (HydraRuntimeException e) {
-                log.severe("Automatic move for jacoco failed -- move file manually", e);
-              }
-            } else {
-              log.severe("Automatic move for jacoco not supported on this platform -- move file manually");
-            }
+    // at this point, we've already nuked a hung test or exited due to a hang
+    // so it's OK to move the jacoco file in all cases
+    if (!parseOnly) {
+      String jacocofn = workdir + sep + JACOCO_FN;
+      if (FileUtil.exists(jacocofn)) {
+        if (osType == OSType.unix) {
+          try {
+            log().severe("Moving jacoco output to batterytest directory");
+            String jacocofn2 = resultDir + sep + (new File(workdir)).getName() + "_" + JACOCO_FN;
+            log().severe(ProcessMgr.fgexec("/bin/mv " + jacocofn + " " + jacocofn2, 120));
+          } catch (HydraRuntimeException e) {
+            log().severe("Automatic move for jacoco failed -- move file manually", e);
           }
+        } else {
+          log().severe("Automatic move for jacoco not supported on this platform -- move file manually");
         }
+      }
+    }
 
-        { //network cleanup (always do this)
-          String script = null;
-          if (sep.equals("/")) {
-            script = workdir + sep + "netclean.sh";
+    { //network cleanup (always do this)
+      String script = null;
+      if (sep.equals("/")) {
+        script = workdir + sep + "netclean.sh";
+      } else {
+        script = workdir + sep + "netclean.bat";
+      }
+      if (FileUtil.exists(script)) {
+        log().severe("Cleaning up network connections");
+        try {
+          if (osType == OSType.windows) {
+            log().severe(ProcessMgr.fgexec(script, 300));
           } else {
-            script = workdir + sep + "netclean.bat";
+            log().severe(ProcessMgr.fgexec("sh " + script, 300));
           }
-          if (FileUtil.exists(script)) {
-            log.severe("Cleaning up network connections");
-            try {
-              if (osType == OSType.windows) {
-                log.severe(ProcessMgr.fgexec(script, 300));
-              } else {
-                log.severe(ProcessMgr.fgexec("sh " + script, 300));
-              }
-	    } catch (HydraRuntimeException e) {
-	      log.severe("Automatic network connection cleanup failed -- clean up manually", e);
-	    }
-	  }
+        } catch (HydraRuntimeException e) {
+          log().severe("Automatic network connection cleanup failed -- clean up manually", e);
         }
+      }
+    }
 
-        if (!parseOnly && moveRemoteDirs && (!terminateEarly || nukeHungTest)) {
-
-          log.severe("Moving remote directories to test result directory");
-	  try {
-            if (osType == OSType.windows) {
-              log.severe(ProcessMgr.fgexec(workdir + sep + "movedirs.bat", 600));
-            } else {
-              log.severe(ProcessMgr.fgexec("sh " + workdir + sep + "movedirs.sh", 600));
-            }
-	  } catch (HydraRuntimeException e) {
-	    log.severe("Automatic move failed -- clean up manually", e);
-	  }
+    if (!parseOnly && moveRemoteDirs && (!terminateEarly || nukeHungTest)) {
+
+      log().severe("Moving remote directories to test result directory");
+      try {
+        if (osType == OSType.windows) {
+          log().severe(ProcessMgr.fgexec(workdir + sep + "movedirs.bat", 600));
+        } else {
+          log().severe(ProcessMgr.fgexec("sh " + workdir + sep + "movedirs.sh", 600));
         }
+      } catch (HydraRuntimeException e) {
+        log().severe("Automatic move failed -- clean up manually", e);
+      }
+    }
 
-        { // always nuke and clean hadoop no matter what
-          try {
-            if (osType == OSType.windows) {
-              log.severe(ProcessMgr.fgexec(workdir + sep + "nukehadoop.bat", 1800));
-            } else {         
-              log.severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukehadoop.sh", 600));
-            }
-          } catch (HydraRuntimeException e) {
-            log.severe("Automatic nuke failed -- clean up manually", e);
-          }
-          if (moveHadoopData) {
-            log.severe("Moving Hadoop log and data directories to the test result directory");
-          } else {
-            log.severe("Moving Hadoop log directories to the test result directory and removing Hadoop data directories");
-          }
-          try {
-            if (osType == OSType.windows) {
-              log.severe(ProcessMgr.fgexec(workdir + sep + "movehadoop.bat", 600));
-            } else {
-              log.severe(ProcessMgr.fgexec("sh " + workdir + sep + "movehadoop.sh", 600));
-            }
-          } catch (HydraRuntimeException e) {
-            log.severe("Automatic clean failed -- clean up manually", e);
-          }
+    { // always nuke and clean hadoop no matter what
+      try {
+        if (osType == OSType.windows) {
+          log().severe(ProcessMgr.fgexec(workdir + sep + "nukehadoop.bat", 1800));
+        } else {         
+          log().severe(ProcessMgr.fgexec("sh " + workdir + sep + "nukehadoop.sh", 600));
+        }
+      } catch (HydraRuntimeException e) {
+        log().severe("Automatic nuke failed -- clean up manually", e);
+      }
+      if (moveHadoopData) {
+        log().severe("Moving Hadoop log and data directories to the test result directory");
+      } else {
+        log().severe("Moving Hadoop log directories to the test result directory and removing Hadoop data directories");
+      }
+      try {
+        if (osType == OSType.windows) {
+          log().severe(ProcessMgr.fgexec(workdir + sep + "movehadoop.bat", 600));
+        } else {
+          log().severe(ProcessMgr.fgexec("sh " + workdir + sep + "movehadoop.sh", 600));
         }
+      } catch (HydraRuntimeException e) {
+        log().severe("Automatic clean failed -- clean up manually", e);
+      }
+    }
+
+    log().severe("Adding read permission to all files in test result directory");
+    try {
+      ProcessMgr.setReadPermission(workdir);
+    } catch (Exception e) {
+      // don't let any exceptions keep battery test from moving on
+      log().severe(TestHelper.getStackTrace(e));
+      log().severe("Failed to add read permission to all files in test result directory. Please change permissions manually.");
+    }
+
+    if (!parseOnly) logStatus(host, workdir);
 
-        log.severe("Adding read permission to all files in test result directory");
+    writeReports(btc, workdir);
+
+    if (provideBugReportTemplate) {
+      if (!success || terminateEarly) { // test failed
         try {
-          ProcessMgr.setReadPermission(workdir);
+          log().info("Creating bug report template file for " + workdir + "...");
+          long startTime = System.currentTimeMillis();
+          BugReportTemplate.createTemplateFile(workdir, false);
+          long endTime = System.currentTimeMillis();
+          log().info("Bug report template generated in " + 
+              (endTime - startTime) + " ms");
         } catch (Exception e) {
           // don't let any exceptions keep battery test from moving on
-          log.severe(TestHelper.getStackTrace(e));
-          log.severe("Failed to add read permission to all files in test result directory. Please change permissions manually.");
+          log().info(TestHelper.getStackTrace(e));
         }
+      }
+    }
 
-        if (!parseOnly) logStatus(host, workdir);
+    // only grep on successful runs; we don't need to see more suspect strings
+    // on failed runs because we analyze all failures anyway
+    if (grepLogs && success) {
+      try {
+        javaGrepLogs(workdir, grepLogsHeapMB, grepLogsWaitSec);
+      } catch (HydraRuntimeException hre) {
+        log().severe(TestHelper.getStackTrace(hre));
+      } catch (HydraTimeoutException hte) {
+        log().severe(TestHelper.getStackTrace(hte));
+      }
+    } 
 
-        if (provideRegressionSummary) {
-          // update the regression summary file after each run so results
-          // can be deleted (see removePassedTest below)
-          Log.getLogWriter().info("Generating summary file...");
-          try {
-             RegressionSummary regrSumm =
-               new RegressionSummary(RegressionSummary.ContinueFromExisting,
-                                     resultDir, resultDir);
-             regrSumm.doSummary();
-          } catch (Exception e) {
-             // don't let any exceptions keep battery test from moving on
-             log.info(TestHelper.getStackTrace(e));
-          }
-        }
+    // delete test results if indicated
+    if (removePassedTest && success) {
+      log().info("Test passed, deleting " + workdir);
+      if(! FileUtil.rmdir(workdir, false)) {
+        log().warning("Problems deleting: " + workdir);
+      }
+    }
+    return result;
+  }
 
-        if (provideXMLReport) {
-          log.info("Generating XML report for " + workdir + "...");
-          try {
-            XMLReport.createReport(btc.getName(), btc.toTestProps(),
-                                   localConf, workdir, testFileName);
-          } catch (Exception e) {
-            // don't let any exceptions keep battery test from moving on
-            log.warning("XML report generation failed for " + workdir
-                       + "\n" + TestHelper.getStackTrace(e));
-          }
+  /**
+   * Returns the path to the given test, relative to the current directory,
+   * $EXTRA_JTESTS, or $JTESTS, and brings in default properties for the test
+   * not overridden in the .bt file, if any.
+   */
+  private static String resolveTest( BatteryTestConfig btc ) {
+    String relativetest = btc.getName();
+    String test = null;
+    if ( FileUtil.exists( relativetest ) )
+      test = FileUtil.absoluteFilenameFor( relativetest );
+    else
+      if ( extraJtests != null ) {
+        test = extraJtests + sep + relativetest;
+        if (! FileUtil.exists( test )) {
+          String oldTest = test;
+          test = jtests + sep + relativetest;
+          log().info( "test file not found in " + oldTest + " trying in " + test);
         }
+      } else {
+          test = jtests + sep + relativetest;
+      }
+    // bring in default properties not overridden in the .bt file, if any
+    int index = test.indexOf( ".conf" );
+    if ( index != -1 ) { // hydra test
+      String propFileName = test.substring( 0, index ) + ".prop";
+      btc.fillInWithDefaultsFrom( propFileName );
+    }
+    return test;
+  }
 
-        if (provideBugReportTemplate) {
-          if (!success || terminateEarly) { // test failed
-            try {
-              log.info("Creating bug report template file for " + workdir + "...");
-              long startTime = System.currentTimeMillis();
-              BugReportTemplate.createTemplateFile(workdir, false);
-              long endTime = System.currentTimeMillis();
-              log.info("Bug report template generated in " + 
-                  (endTime - startTime) + " ms");
-            } catch (Exception e) {
-              // don't let any exceptions keep battery test from moving on
-              log.info(TestHelper.getStackTrace(e));
-            }
-          }
+  /**
+   * Creates and returns a new working directory for a test, named for the
+   * given base and the current time.  Waits for the time to change if a test
+   * run in parallel already has a directory by that name.
+   */
+  private static synchronized String createWorkdir( String base ) {
+    while ( true ) {
+      Date d = new Date();
+      String ds = d.toString();
+      String workdir = base + "-" + month( ds.substring(4,7) ) + ds.substring(8,10) +
+                              "-" + ds.substring(11,13) + ds.substring(14,16) + ds.substring(17,19);
+      if ( ! FileUtil.exists( workdir ) || parallelTests == 1 ) {
+        FileUtil.mkdir( workdir );
+        return workdir;
+      }
+      MasterController.sleepForMs( 1000 );
+    }
+  }
+
+  /**
+   * Appends the given test result to oneliner.txt.
+   */
+  private static synchronized void writeOneliner( String oneliner ) {
+    FileOutputStream fos = null;
+    try {
+      fos = new FileOutputStream( resultDir + sep + "oneliner.txt", true );
+    } catch( FileNotFoundException e ) {
+      log().severe( "Unable to open oneliner.txt", e );
+    }
+    PrintWriter pw = new PrintWriter( fos );
+    pw.println( oneliner );
+    pw.close();
+  }
+
+  /**
+   * Updates the regression summary and the XML report for a test.  Both
+   * rewrite files shared by tests run in parallel.
+   */
+  private static synchronized void writeReports( BatteryTestConfig btc,
+                                                 String workdir ) {
+    if (provideRegressionSummary) {
+      // update the regression summary file after each run so results
+      // can be deleted (see removePassedTest below)
+      Log.getLogWriter().info("Generating summary file...");
+      try {
+         RegressionSummary regrSumm =
+           new RegressionSummary(RegressionSummary.ContinueFromExisting,
+                                 resultDir, resultDir);
+         regrSumm.doSummary();
+      } catch (Exception e) {
+         // don't let any exceptions keep battery test from moving on
+         log().info(TestHelper.getStackTrace(e));
+      }
+    }
+
+    if (provideXMLReport) {
+      log().info("Generating XML report for " + workdir + "...");
+      try {
+        XMLReport.createReport(btc.getName(), btc.toTestProps(),
+                               localConf, workdir, testFileName);
+      } catch (Exception e) {
+        // don't let any exceptions keep battery test from moving on
+        log().warning("XML report generation failed for " + workdir
+                   + "\n" + TestHelper.getStackTrace(e));
+      }
+    }
+  }
+
+  /**
+   * Adds the given test result to the totals.
+   */
+  private static synchronized void countResult( int result ) {
+    switch ( result ) {
+      case PASSED: ++passed; break;
+      case FAILED: ++failed; break;
+      case HUNG:   ++hung;   break;
+      default: throw new HydraInternalException( "Unknown result: " + result );
+    }
+  }
+
+  /**
+   * Returns the number of slots occupied by the given test, as declared by
+   * its {@link #TEST_SLOTS_PROP} property.  Defaults to one slot.
+   */
+  private static int slotsFor( BatteryTestConfig btc ) {
+    String val = (String) btc.getPropertyVal( TEST_SLOTS_PROP );
+    if ( val != null ) {
+      try {
+        int slots = Integer.parseInt( val );
+        if ( slots > 0 ) {
+          return slots;
         }
+      } catch( NumberFormatException e ) {
+      }
+      log().warning( "Ignoring illegal " + TEST_SLOTS_PROP + "=" + val
+                 + " for " + btc.getName() + ", using 1" );
+    }
+    return 1;
+  }
 
-        // only grep on successful runs; we don't need to see more suspect strings
-        // on failed runs because we analyze all failures anyway
-        if (grepLogs && success) {
-          try {
-            javaGrepLogs(workdir, grepLogsHeapMB, grepLogsWaitSec);
-          } catch (HydraRuntimeException hre) {
-            log.severe(TestHelper.getStackTrace(hre));
-          } catch (HydraTimeoutException hte) {
-            log.severe(TestHelper.getStackTrace(hte));
-          }
-        } 
+  /**
+   * Returns the port range reserved for tests running in the given lane,
+   * in the form used by {@link PortHelper#PORT_RANGE_PROPERTY}.
+   */
+  private static String portRangeFor( int lane ) {
+    int low = parallelPortBase + lane * PORTS_PER_LANE;
+    return low + "-" + ( low + PORTS_PER_LANE - 1 );
+  }
 
-        // delete test results if indicated
-        if (removePassedTest && success) {
-          log.info("Test passed, deleting " + workdir);
-          if(! FileUtil.rmdir(workdir, false)) {
-            log.warning("Problems deleting: " + workdir);
+  /**
+   * Runs tests in the background, each in its own thread, starting them in
+   * order as long as there are fewer than the maximum number of tests running
+   * and the test fits in the free slots.  A test that needs more than all of
+   * the slots runs once all of the slots are free.  Each running test gets a
+   * lane, numbered from 0, which reserves a range of ports for its hydra run.
+   */
+  private static class TestScheduler {
+    private final int maxTests;
+    private final int maxSlots;
+    private final boolean[] lanes;
+    private int runningTests = 0;
+    private int usedSlots = 0;
+    private boolean stopped = false;
+    private Throwable error = null;
+
+    TestScheduler( int maxTests, int maxSlots ) {
+      this.maxTests = maxTests;
+      this.maxSlots = maxSlots;
+      this.lanes = new boolean[ maxTests ];
+    }
+
+    /**
+     * Waits for room to run the test, then starts it.  Returns false without
+     * starting the test if scheduling has stopped due to a hung test or an
+     * error.
+     */
+    synchronized boolean schedule( final BatteryTestConfig btc,
+                                   final String test, final int testnum ) {
+      final int slots = Math.min( slotsFor( btc ), this.maxSlots );
+      while ( ! this.stopped && ( this.runningTests == this.maxTests
+                           || this.usedSlots + slots > this.maxSlots ) ) {
+        waitForChange();
+      }
+      if ( this.stopped ) {
+        return false;
+      }
+      int lane = 0;
+      while ( this.lanes[lane] ) {
+        ++lane;
+      }
+      this.lanes[lane] = true;
+      this.usedSlots += slots;
+      ++this.runningTests;
+
+      // the test's own output goes to the log as one block when it completes
+      log.info( "Starting test " + testnum + " of " + totalTests + " in lane "
+              + lane + ": " + btc );
+      final int testLane = lane;
+      Thread t = new Thread( new Runnable() {
+        public void run() {
+          int result = FAILED;
+          Throwable error = null;
+          ByteArrayOutputStream buf = new ByteArrayOutputStream();
+          testLog.set( new LocalLogWriter( logLevelCode,
+                                           new PrintStream( buf, true ) ) );
+          try {
+            result = runTest( btc, test, testnum, testLane );
+          } catch( VirtualMachineError e ) {
+            throw e;
+          } catch( Throwable e ) {
+            logError( TestHelper.getStackTrace( e ) );
+            error = e;
+          } finally {
+            testLog.remove();
+            writeTestLog( buf );
+            finished( testLane, slots, result, error );
           }
         }
-        if (terminateEarly && interruptTest) {
-          log.severe( "Terminating early due to deadline configured with -for or -until, see last test result" );
-          break OUTER;
+      }, "Battery Test " + testnum );
+      t.start();
+      return true;
+    }
+
+    /**
+     * Releases the lane and slots used by a test and records its result.
+     */
+    private synchronized void finished( int lane, int slots, int result,
+                                        Throwable t ) {
+      if ( t == null ) {
+        countResult( result );
+        if ( result == HUNG && ( ! nukeHungTest || interruptTest ) ) {
+          this.stopped = true;
         }
+      } else if ( this.error == null ) {
+        this.error = t;
+        this.stopped = true;
+      }
+      this.lanes[lane] = false;
+      this.usedSlots -= slots;
+      --this.runningTests;
+      notifyAll();
+    }
+
+    /**
+     * Waits for all running tests to complete.  Throws an exception if a
+     * test could not be run.
+     */
+    synchronized void waitForTests() {
+      while ( this.runningTests > 0 ) {
+        waitForChange();
+      }
+      if ( this.error != null ) {
+        throw new HydraRuntimeException( "Unable to run test", this.error );
+      }
+    }
+
+    /**
+     * Answers whether scheduling stopped due to a hung test.
+     */
+    synchronized boolean stoppedEarly() {
+      return this.stopped;
+    }
+
+    private void waitForChange() {
+      try {
+        wait();
+      } catch( InterruptedException e ) {
+        throw new HydraRuntimeException( "Interrupted waiting for tests", e );
       }
     }
-    reportStatus( totalTests, passed, failed, hung );
-    return ( failed + hung == 0 ) ? true : false;
   }
+
   private static void reportStatus( int total, int passed, int failed, int hung ) {
     StringBuffer msg = new StringBuffer( 100 );
     msg.append( "\n" ).append( "==== STATUS REPORT ====" );
@@ -1042,7 +1391,7 @@ public class BatteryTest {
     msg.append( "  Hung: " ).append( hung );
     msg.append( "  Remaining: " ).append( total - (passed + failed + hung) );
     msg.append( "  ====" );
-    log.info( msg.toString() );
+    log().info( msg.toString() );
   }
 
   private static void providePropertiesForJenkins() {
@@ -1072,7 +1421,7 @@ public class BatteryTest {
     try {
       FileUtil.writeToFile("jenkins.prop", sb.toString());
     } catch (HydraRuntimeException e) {
-      log.severe(TestHelper.getStackTrace(e));
+      log().severe(TestHelper.getStackTrace(e));
     }
   }
 
@@ -1106,6 +1455,9 @@ public class BatteryTest {
     out.println("  [-DprovideBugReportTemplate=<whether_to_create_bug_report_template(default:false)>] ");
     out.println("  [-DprovidePropertiesForJenkins=<whether_to_create_properties_file_for_Jenkins(default:false)>] ");
     out.println("  [-DprovideXMLReport=<whether_to_create_XML_report(default:false)>] ");
+    out.println("  [-DparallelTests=<max_number_of_tests_to_run_at_once(default:1)>] ");
+    out.println("  [-DparallelSlots=<number_of_test_slots_on_this_host(default:number_of_processors)>] ");
+    out.println("  [-DparallelPortBase=<first_port_reserved_for_parallel_tests(default:20000)>] ");
     out.println("batterytest.BatteryTest [options]");
     out.println("");
     out.println("Where options are:");
@@ -1171,9 +1523,33 @@ public class BatteryTest {
     if ( log == null )
       System.err.println( msg );
     else
-      log.severe( msg );
+      log().severe( msg );
   }
   private static LogWriter log;
+  private static int logLevelCode;
+
+  /** The buffered log for a test running in parallel, if any */
+  private static final ThreadLocal testLog = new ThreadLocal();
+
+  /**
+   * Returns the log for the current thread: the buffered log of the test it
+   * is running in parallel, if any, otherwise the batterytest log.
+   */
+  private static LogWriter log() {
+    LogWriter lw = (LogWriter)testLog.get();
+    return lw == null ? log : lw;
+  }
+
+  /**
+   * Writes the buffered log of a test that ran in parallel to the
+   * batterytest log as one block, so that the output of concurrent tests
+   * does not interleave.
+   */
+  private static synchronized void writeTestLog( ByteArrayOutputStream buf ) {
+    PrintStream out = System.out; // the batterytest log
+    out.write( buf.toByteArray(), 0, buf.size() );
+    out.flush();
+  }
 
   /**
    * Invoke the GrepLogs utility.
@@ -1193,7 +1569,7 @@ public class BatteryTest {
 
     String xmx = (maxHeap == null) ? "" : "-Xmx" + maxHeap + "m ";
 
-    log.info("Grepping logs for suspect strings: " + workdir);
+    log().info("Grepping logs for suspect strings: " + workdir);
     String cmd = System.getProperty("java.home") + sep + "bin" + sep + "java "
                + "-classpath " + System.getProperty("java.class.path") + " "
                + "-Duser.dir=" + userDir + " " + xmx
@@ -1201,7 +1577,7 @@ public class BatteryTest {
                + grepOutput + " " + workdir;
     int pid = ProcessMgr.bgexec(cmd, bgexecDir, null);
 
-    log.info("Waiting " + maxWaitSec + " seconds for greplogs PID=" + pid
+    log().info("Waiting " + maxWaitSec + " seconds for greplogs PID=" + pid
             + " to complete");
     String host = HostHelper.getLocalHost();
     if (!ProcessMgr.waitForDeath(host, pid, maxWaitSec)) {
@@ -1214,6 +1590,6 @@ public class BatteryTest {
         throw new HydraTimeoutException(err + ", failed to kill process");
       }
     }
-    log.info("greplogs PID=" + pid + " has completed");
+    log().info("greplogs PID=" + pid + " has completed");
   }
 }
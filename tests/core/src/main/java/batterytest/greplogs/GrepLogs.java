@@ -36,6 +36,7 @@ public class GrepLogs {
   private int threshold = 0;
   private int errorLimit = 5000;
   private int repeatLimit = 5;
+  private int numThreads = LogScanner.getDefaultNumThreads();
   
   /** All gfxd unittest result directories start with this prefix */
   private static String GFXD_UNITTEST_PREFIX = "gemfirexd-";
@@ -142,6 +143,11 @@ public GrepLogs(String[] cmdLine) throws GrepLogsException {
           usage(); //out of arguments
         }
         repeatLimit = Integer.parseInt(cmdLine[i]);
+      } else if(cmdLine[i].equals("-threads")) {
+        if(++i == cmdLine.length) {
+          usage(); //out of arguments
+        }
+        numThreads = Integer.parseInt(cmdLine[i]);
       } else if(cmdLine[i].equals("-threshold")) {
         if(++i == cmdLine.length) {
           usage(); //out of arguments
@@ -174,9 +180,13 @@ public int grepForErrors() {
   int errorCount = 0;
   Set logs = new HashSet();
   findAllLogs(resultPath, logs);
+  List exams = new ArrayList();
   for(Iterator iter = logs.iterator(); iter.hasNext(); ) {
-    File log = (File) iter.next();
-    errorCount += examineLog(log);
+    exams.add(new LogExamination((File) iter.next()));
+  }
+  LogScanner.scan(exams, numThreads);
+  for(Iterator iter = exams.iterator(); iter.hasNext(); ) {
+    errorCount += ((LogExamination) iter.next()).report();
     if ( errorCount > errorLimit) {
       output.println("\n\nError count limit exceeded limit of " + errorLimit);
       output.println("Stopping grepLogs to prevent filling disk.");
@@ -188,63 +198,74 @@ public int grepForErrors() {
   return errorCount;
 }
 
-private int examineLog(File log) {
-  
-  int count = 0 ;
-  LineNumberReader reader = null;
-  
-  try {
-    reader = new LineNumberReader(new FileReader(log));
-  } catch( FileNotFoundException fnfe) {
-    if ( ! hydraMode) {
-      System.err.println("ERROR: cannot open " + log.getAbsolutePath());
+/**
+ * Examines one log file for suspect strings.  Logs are scanned in parallel,
+ * then reported in order, so each examination saves what it finds.
+ */
+private class LogExamination extends LogScanner.FileScan {
+
+  private final LogConsumer consumer;
+  private final StringBuilder buffer = new StringBuilder();
+  private int count = 0;
+  private boolean failed = false;
+
+  LogExamination(File log) {
+    super(log);
+    this.consumer = new LogConsumer(skipLogMsgs, testExpectStrs, log.getAbsolutePath(), repeatLimit);
+  }
+
+  protected boolean line(String line) {
+    StringBuilder suspectString = consumer.consume(line);
+    if(suspectString != null) {
+      count++;
+      buffer.append(suspectString);
+      // This stops printing if we hit a global error count limit which
+      // is defined at the top of this script
+      if ( count == errorLimit ) {
+        buffer.append("\n\nError count limit exceeded limit of ")
+              .append(errorLimit)
+              .append("\nStopping grepLogs to prevent filling disk.\n")
+              .append("errorcntlimit=")
+              .append(errorLimit)
+              .append("errors=")
+              .append(count)
+              .append("\n");
+        return false;
+      }
     }
-    return count++;
+    return true;
   }
-  
-  LogConsumer consumer = new LogConsumer(skipLogMsgs, testExpectStrs, log.getAbsolutePath(), repeatLimit);
-  
-  StringBuilder buffer = new StringBuilder();
-  
-  String line = null;
-  try { 
-    while( (line = reader.readLine()) != null) {
-      StringBuilder suspectString = consumer.consume(line);
-      if(suspectString != null) {
-        count++;
-        buffer.append(suspectString);
-     // This stops printing if we hit a global error count limit which
-        // is defined at the top of this script
-        if ( count == errorLimit ) {
-           buffer.append("\n\nError count limit exceeded limit of ")
-                .append(errorLimit)
-                .append("\nStopping grepLogs to prevent filling disk.\n")
-                .append("errorcntlimit=")
-                .append(errorLimit)
-                .append("errors=")
-                .append(count)
-                .append("\n");
-          output.print(buffer.toString());
-          return count;
-        }
+
+  protected void end() {
+    StringBuilder suspectString = consumer.close();
+    if(suspectString != null) {
+      buffer.append(suspectString);
+      count++;
+    }
+  }
+
+  protected void failed(IOException e, int lineNumber) {
+    failed = true;
+    if ( ! hydraMode) {
+      if (e instanceof FileNotFoundException) {
+        System.err.println("ERROR: cannot open " + file.getAbsolutePath());
+      } else {
+        System.err.println("ERROR: reading " + file.getAbsolutePath() 
+                           + "near line " + lineNumber);
       }
-    } 
-  } catch(IOException ioe) {
-    if ( ! hydraMode ) {
-      System.err.println("ERROR: reading " + log.getAbsolutePath() 
-                         + "near line " + reader.getLineNumber());
     }
-    return count++;
-  } finally {
-    if ( reader != null) try { reader.close(); } catch (IOException ignore) {}
   }
-  StringBuilder suspectString = consumer.close();
-  if(suspectString != null) {
-    buffer.append(suspectString);
-    count++;
+
+  /**
+   * Prints what was found, unless the log could not be read, and returns
+   * the number of suspect strings.
+   */
+  int report() {
+    if ( ! failed ) {
+      output.print(buffer.toString());
+    }
+    return count;
   }
-  output.print(buffer.toString());
-  return count;
 }
 
 private void findAllLogs(File search, Set logs) {
@@ -275,6 +296,8 @@ private static void usage() throws GrepLogsException {
                        + "(default is 0)");
     System.err.println("-limit <num>     maximum number of errors");
     System.err.println("-repeats <num>   Stop counting after <num> hits");
+    System.err.println("-threads <num>   number of logs to scan at a time "
+                       + "(default is the number of processors)");
     System.err.println("-type <str>      test type, one of:");
     System.err.println("   junit, dunit, java, query, smoke, moresmoke, perf");
     System.err.println("   battery.  Default based on directory name.");
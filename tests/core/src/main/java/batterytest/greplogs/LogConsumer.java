@@ -17,6 +17,7 @@
 package batterytest.greplogs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -58,6 +59,34 @@ public class LogConsumer {
   private static final Pattern misformatedI18nMessagePattern = Pattern.compile("[^\\d]\\{\\d+\\}");
   private static final Pattern rvvBitSetMessagePattern = Pattern.compile("RegionVersionVector.+bsv\\d+.+bs=\\{\\d+\\}");
   private static final Pattern joinOrderMessagePattern = Pattern.compile("^\\s*(Considering|Remembering) join order");
+
+  /**
+   * Literals that must occur in a line for the corresponding patterns to
+   * match.  All of them are found in one pass over each line, so most lines
+   * are never handed to a regex.
+   */
+  private static final MultiStringMatcher literals = new MultiStringMatcher(
+      Arrays.asList(new String[] {
+        "<ExpectedException action=",
+        "<IgnoreGrepLogsStart/>",
+        "<IgnoreGrepLogsStop/>",
+        "Caused by",
+        "Wrote exception:",
+        "WARNING: Failed to ",
+        "java.lang.",
+        "Exception:",
+        "{"
+      }));
+  private static final long EXPECTED_EXCEPTION = 1L << 0;
+  private static final long IGNORE_START = 1L << 1;
+  private static final long IGNORE_STOP = 1L << 2;
+  private static final long CAUSED_BY = 1L << 3;
+  private static final long WROTE_EXCEPTION = 1L << 4;
+  private static final long RMI_WARNING = 1L << 5;
+  private static final long JAVA_LANG = 1L << 6;
+  private static final long EXCEPTION = 1L << 7;
+  private static final long BRACE = 1L << 8;
+
   /** Limit long errors to this many lines */
   private static int ERROR_BUFFER_LIMIT = 50;
   
@@ -74,8 +103,10 @@ public class LogConsumer {
   }
 
   public StringBuilder consume(CharSequence line) {
-    {
-      lineNumber++;
+    long found = literals.match(line);
+    boolean bracketed = line.length() > 0 && line.charAt(0) == '[';
+    lineNumber++;
+    if ((found & EXPECTED_EXCEPTION) != 0) {
       Matcher m = ExpectedExceptionPattern.matcher(line);
       if (m.find()) {
         if ( m.group(1).equals("add")) {
@@ -89,15 +120,15 @@ public class LogConsumer {
     }
     {
       if (ignoreGrepLines) {
-        Matcher i = IgnoreGrepLogsEndPattern.matcher(line);
-        if (i.find()) {
+        if ((found & IGNORE_STOP) != 0
+            && IgnoreGrepLogsEndPattern.matcher(line).find()) {
           ignoreGrepLines = false;
         }
         return null;
       }
       else {
-        Matcher i = IgnoreGrepLogsStartPattern.matcher(line);
-        if (i.find()) {
+        if ((found & IGNORE_START) != 0
+            && IgnoreGrepLogsStartPattern.matcher(line).find()) {
           ignoreGrepLines = true;
           return null;
         }
@@ -105,7 +136,7 @@ public class LogConsumer {
     }
     if(skipLogMsgs) {
       if(infoMsgFlag) {
-        if(logPattern.matcher(line).find()) {
+        if(bracketed && logPattern.matcher(line).find()) {
           infoMsgFlag = false;
         } else if (blankPattern.matcher(line).matches()) {
           infoMsgFlag = false;
@@ -114,7 +145,7 @@ public class LogConsumer {
           return null;
         }
       }
-      if (infoOrFinePattern.matcher(line).find()){
+      if (bracketed && infoOrFinePattern.matcher(line).find()){
         infoMsgFlag = true;
         return null;
       }
@@ -124,7 +155,7 @@ public class LogConsumer {
       eatLines--;
       return null;
     } else {
-      if(saveFlag || severeOrErrorPattern.matcher(line).find()) {
+      if(saveFlag || (bracketed && severeOrErrorPattern.matcher(line).find())) {
         if(! saveFlag) {
           saveFlag = true;
           tmpErrFlag = true;   
@@ -140,7 +171,8 @@ public class LogConsumer {
             savelinenum = lineNumber;
           }
         } else {
-          if (causedByPattern.matcher(line).find()) {
+          if ((found & CAUSED_BY) != 0
+              && causedByPattern.matcher(line).find()) {
             tmpErrFlag = false;
             tmpErrLines = 0;
             saveFlag = false;
@@ -208,17 +240,22 @@ public class LogConsumer {
       //[fine 2005/10/25 17:53:13.586 PDT gemfire2 Server connection from hobbes.gemstone.com:34466-0xf4 nid=0x23e40f1] Server connection from hobbes.gemstone.com:34466: Wrote exception:
       //com.gemstone.gemfire.cache.EntryNotFoundException: remote-destroy-key
       // also now handles a JMX WARNING
-      } else if(wroteExceptionPattern.matcher(line).find() 
-                || rmiWarnPattern.matcher(line).find()) {
+      } else if(((found & WROTE_EXCEPTION) != 0
+                 && wroteExceptionPattern.matcher(line).find())
+                || ((found & RMI_WARNING) != 0
+                    && rmiWarnPattern.matcher(line).find())) {
         //Eat only the single EntryNotFound Exception
         eatLines=1;
         // if we are here then the line didn't have severe or error in it and      
         // didn't meet any special cases that require eating lines      
         // Check for other kinds of exceptions. This is by no means inclusive      
         //of all types of exceptions that could occur and some ARE missed.               
-      } else if (exceptionPattern.matcher(line).find()
-                 || javaLangErrorPattern.matcher(line).find()
-                 || (misformatedI18nMessagePattern.matcher(line).find()
+      } else if (((found & EXCEPTION) != 0
+                  && exceptionPattern.matcher(line).find())
+                 || ((found & JAVA_LANG) != 0
+                     && javaLangErrorPattern.matcher(line).find())
+                 || ((found & BRACE) != 0
+                     && misformatedI18nMessagePattern.matcher(line).find()
                      && !(infoOrFinePattern.matcher(line).find()
                          && rvvBitSetMessagePattern.matcher(line).find()
                          && joinOrderMessagePattern.matcher(line).find())) ) {
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package batterytest.greplogs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Scans log files line by line, several files at a time.  Used by
+ * {@link GrepLogs} and {@link util.LogChecker}.
+ * <p>
+ * Each file is read through a memory-mapped window rather than a reader, and
+ * is split into lines the way {@link java.io.BufferedReader#readLine} does,
+ * using the platform default charset like {@link java.io.FileReader}.  The
+ * lines of a file are handed to its {@link FileScan} in order, on a single
+ * thread, so a scan needs no synchronization of its own.
+ */
+public class LogScanner {
+
+  /** The system property for the number of files to scan at a time */
+  public static final String THREADS_PROPERTY = "logScanThreads";
+
+  /** The largest part of a file that is mapped at once */
+  private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * The scan of one file.  Subclasses look at each line and remember what
+   * they find, to be reported once all files have been scanned.
+   */
+  public static abstract class FileScan {
+
+    protected final File file;
+
+    protected FileScan(File file) {
+      this.file = file;
+    }
+
+    public File getFile() {
+      return this.file;
+    }
+
+    /**
+     * Looks at the next line of the file.
+     * @return false to stop reading the file.
+     */
+    protected abstract boolean line(String line);
+
+    /**
+     * Invoked after the last line, if the whole file was read.
+     */
+    protected void end() {
+    }
+
+    /**
+     * Invoked if the file cannot be opened or read.  The default rethrows
+     * the exception.
+     * @param lineNumber the number of lines read before the failure.
+     */
+    protected void failed(IOException e, int lineNumber) {
+      throw new RuntimeException("Unable to read " + this.file, e);
+    }
+  }
+
+  /**
+   * Returns the number of files to scan at a time, from the {@link
+   * #THREADS_PROPERTY} system property.  Defaults to the number of
+   * processors.
+   */
+  public static int getDefaultNumThreads() {
+    int n = Integer.getInteger(THREADS_PROPERTY,
+                    Runtime.getRuntime().availableProcessors()).intValue();
+    return Math.max(n, 1);
+  }
+
+  /**
+   * Runs the given scans, using up to the given number of threads, and
+   * returns when all of them are done.
+   * @throws RuntimeException if a scan throws an exception.
+   */
+  public static void scan(List scans, int numThreads) {
+    int n = Math.min(numThreads, scans.size());
+    if (n <= 1) {
+      for (int i = 0; i < scans.size(); i++) {
+        read((FileScan)scans.get(i));
+      }
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(n,
+      new ThreadFactory() {
+        private int count = 0;
+        public synchronized Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Log Scanner " + (++count));
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    try {
+      List futures = new ArrayList();
+      for (int i = 0; i < scans.size(); i++) {
+        final FileScan scan = (FileScan)scans.get(i);
+        futures.add(pool.submit(new Runnable() {
+          public void run() {
+            read(scan);
+          }
+        }));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          getUninterruptibly((Future)futures.get(i));
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+          } else if (cause instanceof Error) {
+            throw (Error)cause;
+          } else {
+            throw new RuntimeException(cause);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads the file for the given scan, handing it each line.
+   */
+  public static void read(FileScan scan) {
+    int lineNumber = 0;
+    FileInputStream fis;
+    try {
+      fis = new FileInputStream(scan.file);
+    } catch (IOException e) {
+      scan.failed(e, lineNumber);
+      return;
+    }
+    Charset charset = Charset.defaultCharset();
+    byte[] line = new byte[256];
+    int len = 0;
+    boolean skipLF = false;
+    try {
+      FileChannel channel = fis.getChannel();
+      long size = channel.size();
+      for (long pos = 0; pos < size; pos += WINDOW_SIZE) {
+        int windowSize = (int)Math.min(size - pos, WINDOW_SIZE);
+        MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, pos, windowSize);
+        for (int i = 0; i < windowSize; i++) {
+          byte b = window.get(i);
+          if (skipLF) {
+            skipLF = false;
+            if (b == '\n') {
+              continue;
+            }
+          }
+          if (b == '\n' || b == '\r') {
+            skipLF = (b == '\r');
+            ++lineNumber;
+            if (!scan.line(new String(line, 0, len, charset))) {
+              return;
+            }
+            len = 0;
+          } else {
+            if (len == line.length) {
+              byte[] tmp = new byte[len * 2];
+              System.arraycopy(line, 0, tmp, 0, len);
+              line = tmp;
+            }
+            line[len++] = b;
+          }
+        }
+      }
+      if (len > 0) {
+        ++lineNumber;
+        if (!scan.line(new String(line, 0, len, charset))) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      scan.failed(e, lineNumber);
+      return;
+    } finally {
+      try {
+        fis.close();
+      } catch (IOException ignore) {
+      }
+    }
+    scan.end();
+  }
+
+  private static void getUninterruptibly(Future future)
+  throws ExecutionException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          future.get();
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package batterytest.greplogs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Finds which of up to 64 literal strings occur in a line in a single pass,
+ * using an Aho-Corasick automaton.  The automaton is immutable once built, so
+ * one instance can be shared by any number of threads.
+ * <p>
+ * Characters are mapped to a compact alphabet made of the characters that
+ * occur in the strings, plus one symbol for all other characters, so the
+ * transition table stays small and matching is exact for any characters.
+ */
+public class MultiStringMatcher {
+
+  /** The maximum number of strings, one per bit of the result mask */
+  public static final int MAX_STRINGS = 64;
+
+  /** Symbols for ASCII characters, 0 for characters not in any string */
+  private final int[] asciiSymbols = new int[128];
+
+  /** Sorted non-ASCII characters in the strings, and their symbols */
+  private final char[] otherChars;
+  private final int[] otherSymbols;
+
+  /** The number of symbols, including 0 */
+  private final int alphabetSize;
+
+  /** The transition table, indexed by state * alphabetSize + symbol */
+  private final int[] delta;
+
+  /** The mask of strings that end at each state */
+  private final long[] output;
+
+  /**
+   * Creates a matcher for the given strings.  Bit i of each mask returned by
+   * {@link #match} is set when string i occurs.
+   * @throws IllegalArgumentException if there are more than
+   *         {@link #MAX_STRINGS} strings.
+   */
+  public MultiStringMatcher(List strings) {
+    if (strings.size() > MAX_STRINGS) {
+      throw new IllegalArgumentException("Too many strings: " + strings.size()
+                                       + " (max is " + MAX_STRINGS + ")");
+    }
+    // assign symbols to the characters in the strings
+    StringBuilder others = new StringBuilder();
+    int numSymbols = 1;
+    for (int i = 0; i < strings.size(); i++) {
+      String s = (String)strings.get(i);
+      for (int j = 0; j < s.length(); j++) {
+        char c = s.charAt(j);
+        if (c < 128) {
+          if (this.asciiSymbols[c] == 0) {
+            this.asciiSymbols[c] = numSymbols++;
+          }
+        } else if (others.indexOf(String.valueOf(c)) == -1) {
+          others.append(c);
+        }
+      }
+    }
+    this.otherChars = others.toString().toCharArray();
+    Arrays.sort(this.otherChars);
+    this.otherSymbols = new int[this.otherChars.length];
+    for (int i = 0; i < this.otherChars.length; i++) {
+      this.otherSymbols[i] = numSymbols++;
+    }
+    this.alphabetSize = numSymbols;
+
+    // build the trie
+    List gotos = new ArrayList();
+    List outputs = new ArrayList();
+    gotos.add(newTransitions());
+    outputs.add(Long.valueOf(0));
+    for (int i = 0; i < strings.size(); i++) {
+      String s = (String)strings.get(i);
+      int state = 0;
+      for (int j = 0; j < s.length(); j++) {
+        int[] transitions = (int[])gotos.get(state);
+        int symbol = symbolFor(s.charAt(j));
+        if (transitions[symbol] == -1) {
+          transitions[symbol] = gotos.size();
+          gotos.add(newTransitions());
+          outputs.add(Long.valueOf(0));
+        }
+        state = transitions[symbol];
+      }
+      long mask = ((Long)outputs.get(state)).longValue() | (1L << i);
+      outputs.set(state, Long.valueOf(mask));
+    }
+
+    // turn the trie into a complete automaton, breadth first
+    int numStates = gotos.size();
+    this.delta = new int[numStates * this.alphabetSize];
+    this.output = new long[numStates];
+    int[] fail = new int[numStates];
+    for (int state = 0; state < numStates; state++) {
+      this.output[state] = ((Long)outputs.get(state)).longValue();
+    }
+    LinkedList queue = new LinkedList();
+    queue.add(Integer.valueOf(0));
+    while (!queue.isEmpty()) {
+      int state = ((Integer)queue.removeFirst()).intValue();
+      int[] transitions = (int[])gotos.get(state);
+      for (int symbol = 0; symbol < this.alphabetSize; symbol++) {
+        int next = transitions[symbol];
+        int failNext = (state == 0) ? 0
+                     : this.delta[fail[state] * this.alphabetSize + symbol];
+        if (next == -1) {
+          this.delta[state * this.alphabetSize + symbol] = failNext;
+        } else {
+          this.delta[state * this.alphabetSize + symbol] = next;
+          fail[next] = failNext;
+          this.output[next] |= this.output[failNext];
+          queue.add(Integer.valueOf(next));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the mask of the strings that occur in the given text.
+   */
+  public long match(CharSequence text) {
+    long mask = this.output[0];
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      state = this.delta[state * this.alphabetSize + symbolFor(text.charAt(i))];
+      mask |= this.output[state];
+    }
+    return mask;
+  }
+
+  /**
+   * Answers whether any of the strings occur in the given text.
+   */
+  public boolean matchesAny(CharSequence text) {
+    if (this.output[0] != 0) {
+      return true;
+    }
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      state = this.delta[state * this.alphabetSize + symbolFor(text.charAt(i))];
+      if (this.output[state] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int symbolFor(char c) {
+    if (c < 128) {
+      return this.asciiSymbols[c];
+    }
+    int i = Arrays.binarySearch(this.otherChars, c);
+    return (i < 0) ? 0 : this.otherSymbols[i];
+  }
+
+  private int[] newTransitions() {
+    int[] transitions = new int[this.alphabetSize];
+    Arrays.fill(transitions, -1);
+    return transitions;
+  }
+}
@@ -17,15 +17,24 @@
 
 package cacheperf;
 
-import org.apache.geode.internal.NanoTimer;
 import cacheperf.CachePerfStats;
 import hydra.*;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import objects.ObjectHelper;
 import util.*;
 
 /**
  * Abstract superclass for cache listeners that record message latency
  * statistics on updates.  Adjusts for clock skew and drift between hosts.
+ * <p>
+ * Latencies are recorded without locking.  Each thread delivering events
+ * to a listener adds to its own {@link Accumulator}, and a daemon thread
+ * merges the accumulators into the statistics every {@link
+ * #MERGE_INTERVAL_MS} milliseconds and once more when the listener is
+ * closed, so listener threads never wait on each other.  Merges hold a
+ * single lock, since listeners share the statistics instance.
  *
  * @author lises
  * @since 5.0
@@ -35,12 +44,36 @@ public abstract class AbstractLatencyListener {
 
   public static final long LATENCY_SPIKE_THRESHOLD = 10000000;
 
+  /** How often accumulated latencies are merged into the statistics */
+  public static final long MERGE_INTERVAL_MS = 100;
+
+  /** Listeners whose accumulators are merged by the merger thread */
+  private static final List listeners = new CopyOnWriteArrayList();
+
+  /** Thread that merges accumulated latencies into the statistics */
+  private static Thread merger;
+
+  /** Held while merging into the statistics */
+  private static final Object mergeLock = new Object();
+
   /** Used to report application-defined statistics */
   CachePerfStats statistics;
 
   /** The host where this listener resides */
   String localhost;
 
+  /** The accumulators for threads that have delivered events */
+  private final List accumulators = new CopyOnWriteArrayList();
+
+  /** The accumulator for the current thread */
+  private final ThreadLocal accumulator = new ThreadLocal() {
+    protected Object initialValue() {
+      Accumulator a = new Accumulator();
+      accumulators.add(a);
+      return a;
+    }
+  };
+
   //----------------------------------------------------------------------------
   // Constructors
   //----------------------------------------------------------------------------
@@ -51,6 +84,7 @@ public abstract class AbstractLatencyListener {
   protected AbstractLatencyListener() {
     this.statistics = CachePerfStats.getInstance();
     this.localhost = HostHelper.getLocalHost();
+    register(this);
   }
 
   //----------------------------------------------------------------------------
@@ -58,20 +92,76 @@ public abstract class AbstractLatencyListener {
   //----------------------------------------------------------------------------
 
   protected void recordLatency( Object obj ) {
-    long now = NanoTimer.getTime();
+    long now = RemoteTestModule.correctedNanoTime();
     long then = ObjectHelper.getTimestamp(obj);
-    long latency = now - then - RemoteTestModule.getClockSkew();
-    synchronized( AbstractLatencyListener.class ) {
-      if (latency > LATENCY_SPIKE_THRESHOLD) {
-        this.statistics.incLatencySpikes( 1 );
+    long latency = now - then;
+    ((Accumulator)this.accumulator.get()).record(latency);
+  }
+
+  /**
+   *  Stops merging for this listener, then merges the latencies recorded
+   *  since the last merge into the statistics.
+   */
+  public void close() {
+    unregister(this);
+    merge();
+  }
+
+  /**
+   *  Merges the latencies accumulated since the last merge into the
+   *  statistics.  Invoked by the merger thread and on {@link #close}.
+   */
+  private void merge() {
+    synchronized (mergeLock) {
+      for (Iterator i = this.accumulators.iterator(); i.hasNext();) {
+        ((Accumulator)i.next()).mergeInto(this.statistics);
       }
-      if (latency < 0) {
-        this.statistics.incNegativeLatencies(1);
-      } else {
-        this.statistics.incUpdateLatency(latency);
+    }
+  }
+
+  /**
+   *  Adds the listener to those merged by the merger thread, starting the
+   *  thread if it is not already running.
+   */
+  private static synchronized void register(AbstractLatencyListener listener) {
+    listeners.add(listener);
+    if (merger == null) {
+      merger = new Thread("Latency Listener Merger") {
+        public void run() {
+          while (!isInterrupted()) {
+            for (Iterator i = listeners.iterator(); i.hasNext();) {
+              ((AbstractLatencyListener)i.next()).merge();
+            }
+            try {
+              Thread.sleep(MERGE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+              return; // stopped by unregister
+            }
+          }
+        }
+      };
+      merger.setDaemon(true);
+      merger.start();
+    }
+  }
+
+  /**
+   *  Removes the listener from those merged by the merger thread, stopping
+   *  the thread and waiting for it to exit if no listeners remain.
+   */
+  private static synchronized void unregister(AbstractLatencyListener listener) {
+    listeners.remove(listener);
+    if (listeners.isEmpty() && merger != null) {
+      merger.interrupt();
+      try {
+        merger.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
+      merger = null;
     }
   }
+
   protected void doNonCacheWork() { 
     if ( CpuLoadPrms.doWorkTask() ) {
       RandomValues randVals = new RandomValues();
@@ -83,5 +173,56 @@ public abstract class AbstractLatencyListener {
       int int3 = int1 * int2;
     }
   }
-}
 
+  /**
+   *  Latencies recorded by one thread.  The counters are written only by the
+   *  owning thread and read by the merger thread, which remembers how much it
+   *  has already merged.
+   */
+  private static class Accumulator {
+    private volatile long events;
+    private volatile long latency;
+    private volatile long spikes;
+    private volatile long negatives;
+
+    private long mergedEvents;
+    private long mergedLatency;
+    private long mergedSpikes;
+    private long mergedNegatives;
+
+    void record(long amount) {
+      if (amount > LATENCY_SPIKE_THRESHOLD) {
+        this.spikes = this.spikes + 1;
+      }
+      if (amount < 0) {
+        this.negatives = this.negatives + 1;
+      } else {
+        // make non-zero to ensure non-flatline
+        this.latency = this.latency + (amount == 0 ? 1 : amount);
+        this.events = this.events + 1;
+      }
+    }
+
+    void mergeInto(CachePerfStats statistics) {
+      // read the events before the latency so no event is merged without it
+      long e = this.events;
+      long l = this.latency;
+      long s = this.spikes;
+      long n = this.negatives;
+      if (s != this.mergedSpikes) {
+        statistics.incLatencySpikes((int)(s - this.mergedSpikes));
+        this.mergedSpikes = s;
+      }
+      if (n != this.mergedNegatives) {
+        statistics.incNegativeLatencies((int)(n - this.mergedNegatives));
+        this.mergedNegatives = n;
+      }
+      if (e != this.mergedEvents) {
+        statistics.incUpdateLatency((int)(e - this.mergedEvents),
+                                    l - this.mergedLatency);
+        this.mergedEvents = e;
+        this.mergedLatency = l;
+      }
+    }
+  }
+}
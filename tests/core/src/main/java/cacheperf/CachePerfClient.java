@@ -1294,10 +1294,11 @@ public class CachePerfClient {
     if (this.useTransactions) {
       this.begin();
     }
+    boolean openLoop = beginOpenLoop();
     boolean batchDone = false;
     do {
       int n = 1;
-      if ( this.sleepBeforeOp ) {
+      if ( this.sleepBeforeOp && !openLoop ) {
         MasterController.sleepForMs( CachePerfPrms.getSleepMs() );
 	n = CachePerfPrms.getSleepOpCount();
       }
@@ -1305,6 +1306,7 @@ public class CachePerfClient {
         int key = getNextKey();
         executeTaskTerminator();   // commits at task termination
         executeWarmupTerminator(); // commits at warmup termination
+        awaitNextOp();
         put( key );
         this.batchCount += this.optimizationCount;
         ++this.count;
@@ -1318,7 +1320,7 @@ public class CachePerfClient {
     Object key = ObjectHelper.createName( this.keyType, i );
     String objectType = CachePerfPrms.getObjectType();
     Object val = ObjectHelper.createObject( objectType, i );
-    long start = this.statistics.startPut();
+    long start = opStartTime(this.statistics.startPut());
     if (this.optimizationCount == 1) {
       this.cache.put(key, val);
     } else {
@@ -1407,13 +1409,15 @@ public class CachePerfClient {
     if (this.useTransactions) {
       this.begin();
     }
+    boolean openLoop = beginOpenLoop();
     do {
       int key = getNextKey();
       executeTaskTerminator();   // commits at task termination
       executeWarmupTerminator(); // commits at warmup termination
-      if ( this.sleepBeforeOp ) {
+      if ( this.sleepBeforeOp && !openLoop ) {
         MasterController.sleepForMs( CachePerfPrms.getSleepMs() );
       }
+      awaitNextOp();
       get( key );
       this.batchCount += this.optimizationCount;
       ++this.count;
@@ -1423,7 +1427,7 @@ public class CachePerfClient {
   }
   protected void get( int i ) {
     Object key = ObjectHelper.createName( this.keyType, i );
-    long start = this.statistics.startGet();
+    long start = opStartTime(this.statistics.startGet());
     Object val = null;
     if (this.optimizationCount == 1) {
       val = this.cache.get(key);
@@ -1535,13 +1539,15 @@ public class CachePerfClient {
     if (this.useTransactions) {
       this.begin();
     }
+    boolean openLoop = beginOpenLoop();
     do {
       int key = getNextKey();
       executeTaskTerminator();   // commits at task termination
       executeWarmupTerminator(); // commits at warmup termination
-      if ( this.sleepBeforeOp ) {
+      if ( this.sleepBeforeOp && !openLoop ) {
         MasterController.sleepForMs( CachePerfPrms.getSleepMs() );
       }
+      awaitNextOp();
       mixPutGet( key, putPercentage );
       this.batchCount += this.optimizationCount;
       ++this.count;
@@ -1555,7 +1561,7 @@ public class CachePerfClient {
     if ( n <= putPercentage ) {
       String objectType = CachePerfPrms.getObjectType();
       Object val = ObjectHelper.createObject( objectType, i );
-      long start = this.statistics.startPut();
+      long start = opStartTime(this.statistics.startPut());
       if (this.optimizationCount == 1) {
         this.cache.put(key, val);
       } else {
@@ -1574,7 +1580,7 @@ public class CachePerfClient {
                                                             this.histogram);
 
     } else {
-      long start = this.statistics.startGet();
+      long start = opStartTime(this.statistics.startGet());
       Object val = null;
       if (this.optimizationCount == 1) {
         val = this.cache.get(key);
@@ -3527,6 +3533,55 @@ public class CachePerfClient {
     this.taskTerminatorFrequency   = CachePerfPrms.getTaskTerminatorFrequency();
   }
 
+  //----------------------------------------------------------------------------
+  //  Open-loop support
+  //----------------------------------------------------------------------------
+
+  /** Intended start of the current open-loop operation, or -1 */
+  protected long intendedStartTime = -1;
+
+  /**
+   *  Answers whether this task runs open-loop, as configured by {@link
+   *  CachePerfPrms#openLoopOpsPerSec}.  If so, gets the arrival schedule for
+   *  this thread, creating it on the first batch of the task.  Later batches
+   *  continue the same schedule, so operations that fall behind it between
+   *  batches are still timed from their intended starts.
+   */
+  protected boolean beginOpenLoop() {
+    if ( CachePerfPrms.getOpenLoopOpsPerSec() == 0 ) {
+      return false;
+    }
+    this.openLoopSchedule = getOpenLoopSchedule();
+    if ( this.openLoopSchedule == null ) {
+      this.openLoopSchedule = new OpenLoopSchedule();
+      setOpenLoopSchedule( this.openLoopSchedule );
+      log().info( "Running open-loop with " + this.openLoopSchedule );
+    }
+    return true;
+  }
+
+  /**
+   *  In an open-loop task, waits for the intended start of the next operation
+   *  and saves it for {@link #opStartTime}.  Does nothing in a closed-loop
+   *  task.
+   */
+  protected void awaitNextOp() {
+    if ( this.openLoopSchedule != null ) {
+      this.intendedStartTime = this.openLoopSchedule.awaitNext();
+    }
+  }
+
+  /**
+   *  Returns the time to measure the current operation from, given the time
+   *  it actually started.  This is the intended start in an open-loop task,
+   *  which is used up by the operation.
+   */
+  protected long opStartTime( long start ) {
+    long intendedStart = this.intendedStartTime;
+    this.intendedStartTime = -1;
+    return ( intendedStart == -1 ) ? start : intendedStart;
+  }
+
   //----------------------------------------------------------------------------
   //  Hydra thread locals and their instance field counterparts
   //----------------------------------------------------------------------------
@@ -3534,6 +3589,7 @@ public class CachePerfClient {
   public TestTask task;
   public CachePerfStats statistics;
   public HistogramStats histogram;
+  public LatencyHistogramStats latencyHistogram;
   public Map trimIntervals;
   public DistCache cache;
   public CacheTransactionManager tm; 
@@ -3553,10 +3609,12 @@ public class CachePerfClient {
   public long numPseudoRandomKeys;  // used for pseudo-random unique keys
   public long currentSequenceNumber;  // used for pseudo-random unique keys
   public long currentNumPseudoRandomKeys; // used for pseudo-random unique keys
+  public OpenLoopSchedule openLoopSchedule; // used for open-loop tasks
 
   private static HydraThreadLocal localtask = new HydraThreadLocal();
   private static HydraThreadLocal localstatistics = new HydraThreadLocal();
   private static HydraThreadLocal localhistogram = new HydraThreadLocal();
+  private static HydraThreadLocal locallatencyhistogram = new HydraThreadLocal();
   private static HydraThreadLocal localtrimintervals = new HydraThreadLocal();
   private static HydraThreadLocal localcache = new HydraThreadLocal();
   private static HydraThreadLocal localrng = new HydraThreadLocal();
@@ -3577,6 +3635,7 @@ public class CachePerfClient {
   private static HydraThreadLocal localnumpseudorandomkeys = new HydraThreadLocal();
   private static HydraThreadLocal localcurrentsequencenum = new HydraThreadLocal();
   private static HydraThreadLocal localcurrentnumpseudorandomkeys = new HydraThreadLocal();
+  private static HydraThreadLocal localopenloopschedule = new HydraThreadLocal();
 
   protected void initHydraThreadLocals() {
     // read-only
@@ -3600,6 +3659,10 @@ public class CachePerfClient {
     // updated in special tasks
     this.statistics = getStatistics();
     this.histogram = getHistogram(); // derived
+    this.latencyHistogram = getLatencyHistogram(); // derived
+    if (this.statistics != null) {
+      this.statistics.setLatencyHistogram(this.latencyHistogram);
+    }
     this.cache = getCache();
     this.tm = getTxMgr();
 
@@ -3635,15 +3698,27 @@ public class CachePerfClient {
     locallastwarmupterminatortime.set( null );
     locallasttaskterminatortime.set( null );
     localstarttime.set( null );
+    localopenloopschedule.set( null );
     HistogramStats h = (HistogramStats)localhistogram.get();
     if (h != null) {
       h.close();
       localhistogram.set(null);
     }
+    LatencyHistogramStats lh =
+      (LatencyHistogramStats)locallatencyhistogram.get();
+    if (lh != null) {
+      CachePerfStats stats = getStatistics();
+      if (stats != null) {
+        stats.setLatencyHistogram(null);
+      }
+      lh.close();
+      locallatencyhistogram.set(null);
+    }
   }
   protected void updateHydraThreadLocals() {
     setStatistics( this.statistics );
     setHistogram( this.histogram );
+    setLatencyHistogram( this.latencyHistogram );
     setCache( this.cache );
     setTxMgr( this.tm );
     TestTask task = RemoteTestModule.getCurrentThread().getCurrentTask();
@@ -3715,6 +3790,50 @@ public class CachePerfClient {
   protected void setHistogram(HistogramStats h) {
     localhistogram.set(h);
   }
+  /**
+   * Gets the per-thread latency histogram statistics instance, opening it if
+   * latency histograms are enabled for the task.
+   */
+  protected LatencyHistogramStats getLatencyHistogram() {
+    LatencyHistogramStats h =
+      (LatencyHistogramStats)locallatencyhistogram.get();
+    if (h == null && recordsLatencyHistogram()) {
+      if (this.trimInterval != -1) {
+        String instanceName = nameFor(this.trimInterval);
+        log().info("Opening latency histogram for " + instanceName);
+        h = LatencyHistogramStats.getInstance(instanceName);
+        log().info("Opened latency histogram for " + instanceName);
+      }
+      locallatencyhistogram.set(h);
+    }
+    return h;
+  }
+  /**
+   * Answers whether the current task records a latency histogram.  Open-loop
+   * tasks always do, so their corrected latencies yield percentiles.
+   */
+  protected boolean recordsLatencyHistogram() {
+    return HistogramStatsPrms.enableLatencyHistogram()
+        || CachePerfPrms.getOpenLoopOpsPerSec() != 0;
+  }
+  /**
+   *  Sets the per-thread latency histogram instance.
+   */
+  protected void setLatencyHistogram(LatencyHistogramStats h) {
+    locallatencyhistogram.set(h);
+  }
+  /**
+   *  Gets the per-thread open-loop arrival schedule for the current task.
+   */
+  protected OpenLoopSchedule getOpenLoopSchedule() {
+    return (OpenLoopSchedule)localopenloopschedule.get();
+  }
+  /**
+   *  Sets the per-thread open-loop arrival schedule for the current task.
+   */
+  protected void setOpenLoopSchedule(OpenLoopSchedule schedule) {
+    localopenloopschedule.set(schedule);
+  }
   /**
    *  Gets the map of trim intervals.
    */
@@ -445,6 +445,120 @@ public class CachePerfPrms extends BasePrms {
     return val;
   }
 
+  //----------------------------------------------------------------------------
+  //  Open-loop workloads
+  //----------------------------------------------------------------------------
+
+  /**
+   *  (double)
+   *  The target rate, in operations per second per thread, at which to issue
+   *  operations in {@link CachePerfClient#putDataTask}, {@link
+   *  CachePerfClient#getDataTask}, and {@link
+   *  CachePerfClient#mixPutGetDataTask}.  Defaults to 0, which runs the task
+   *  closed-loop, issuing each operation as soon as the previous one returns.
+   *  <p>
+   *  When positive, the task runs open-loop.  Operations are scheduled to
+   *  arrive at the target rate regardless of how long earlier operations
+   *  take, and each is timed from its intended start rather than when it was
+   *  actually issued.  The latency statistics and histograms then include the
+   *  time an operation spent queued behind slow ones, which closed-loop tasks
+   *  omit.  Open-loop tasks always record these latencies in a {@link
+   *  perffmwk.LatencyHistogramStats}, so their percentiles are reported.  See {@link #openLoopRateSchedule} for varying the rate over the
+   *  course of the task.  Takes precedence over {@link #sleepBeforeOp}.
+   *  Not for use with oneof or range.
+   */
+  public static Long openLoopOpsPerSec;
+  public static double getOpenLoopOpsPerSec() {
+    Long key = openLoopOpsPerSec;
+    double val = tasktab().doubleAt( key, tab().doubleAt( key, 0 ) );
+    if ( val < 0 ) {
+      throw new HydraConfigException( "Illegal value for " + nameForKey( key ) + ": " + val );
+    }
+    return val;
+  }
+
+  /**
+   *  (String)
+   *  How the target rate changes over the course of an open-loop task (see
+   *  {@link #openLoopOpsPerSec}), measured from the time each thread starts
+   *  the task.  Defaults to "constant".  Not for use with oneof or range.
+   *  <ul>
+   *  <li>"constant": the rate is {@link #openLoopOpsPerSec} throughout.
+   *  <li>"ramp": the rate increases linearly from {@link #openLoopOpsPerSec}
+   *      to {@link #openLoopFinalOpsPerSec} over {@link
+   *      #openLoopRateChangeSec} seconds, then stays there.
+   *  <li>"step": the rate increases from {@link #openLoopOpsPerSec} to
+   *      {@link #openLoopFinalOpsPerSec} in {@link #openLoopNumSteps} equal
+   *      steps, holding each rate for {@link #openLoopRateChangeSec} seconds,
+   *      then stays at the final rate.
+   *  </ul>
+   */
+  public static Long openLoopRateSchedule;
+  public static final int CONSTANT_RATE = 0;
+  public static final int RAMP_RATE     = 1;
+  public static final int STEP_RATE     = 2;
+  public static int getOpenLoopRateSchedule() {
+    Long key = openLoopRateSchedule;
+    String val = tasktab().stringAt( key, tab().stringAt( key, "constant" ) );
+    if ( val.equalsIgnoreCase( "constant" ) ) {
+      return CONSTANT_RATE;
+    } else if ( val.equalsIgnoreCase( "ramp" ) ) {
+      return RAMP_RATE;
+    } else if ( val.equalsIgnoreCase( "step" ) ) {
+      return STEP_RATE;
+    } else {
+      throw new HydraConfigException( "Illegal value for " + nameForKey( key ) + ": " + val );
+    }
+  }
+
+  /**
+   *  (double)
+   *  The final target rate, in operations per second per thread, for a "ramp"
+   *  or "step" {@link #openLoopRateSchedule}.  Defaults to {@link
+   *  #openLoopOpsPerSec}.  Not for use with oneof or range.
+   */
+  public static Long openLoopFinalOpsPerSec;
+  public static double getOpenLoopFinalOpsPerSec() {
+    Long key = openLoopFinalOpsPerSec;
+    double val = tasktab().doubleAt( key, tab().doubleAt( key, getOpenLoopOpsPerSec() ) );
+    if ( val <= 0 ) {
+      throw new HydraConfigException( "Illegal value for " + nameForKey( key ) + ": " + val );
+    }
+    return val;
+  }
+
+  /**
+   *  (int)
+   *  The number of seconds over which a "ramp" {@link #openLoopRateSchedule}
+   *  reaches its final rate, or that a "step" schedule holds each rate.
+   *  Defaults to 60.  Not for use with oneof or range.
+   */
+  public static Long openLoopRateChangeSec;
+  public static int getOpenLoopRateChangeSec() {
+    Long key = openLoopRateChangeSec;
+    int val = tasktab().intAt( key, tab().intAt( key, 60 ) );
+    if ( val <= 0 ) {
+      throw new HydraConfigException( "Illegal value for " + nameForKey( key ) + ": " + val );
+    }
+    return val;
+  }
+
+  /**
+   *  (int)
+   *  The number of rates in a "step" {@link #openLoopRateSchedule}, including
+   *  the initial and final rates.  Defaults to 5.  Not for use with oneof or
+   *  range.
+   */
+  public static Long openLoopNumSteps;
+  public static int getOpenLoopNumSteps() {
+    Long key = openLoopNumSteps;
+    int val = tasktab().intAt( key, tab().intAt( key, 5 ) );
+    if ( val < 2 ) {
+      throw new HydraConfigException( "Illegal value for " + nameForKey( key ) + ": " + val );
+    }
+    return val;
+  }
+
 
   //----------------------------------------------------------------------------
   //  Gateways
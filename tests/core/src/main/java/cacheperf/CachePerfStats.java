@@ -23,6 +23,7 @@ import org.apache.geode.internal.NanoTimer;
 import distcache.DistCache;
 
 import perffmwk.HistogramStats;
+import perffmwk.LatencyHistogramStats;
 import perffmwk.PerformanceStatistics;
 
 /**
@@ -685,13 +686,29 @@ public class CachePerfStats extends PerformanceStatistics {
   
   /////////////////// Updating stats /////////////////////////
 
+  /** The optional latency histogram for this thread, see incHistogram */
+  private LatencyHistogramStats latencyHistogram;
+
+  /**
+   * Sets the optional latency histogram that records the time of each
+   * operation ended on this instance, or null to stop recording.
+   */
+  public void setLatencyHistogram(LatencyHistogramStats h) {
+    this.latencyHistogram = h;
+  }
+
   /**
-   * increase the time on the optional histogram by the supplied amount
+   * increase the time on the optional histogram by the supplied amount,
+   * and record it in the optional latency histogram
    */
   public void incHistogram(HistogramStats histogram, long amount) {
     if (histogram != null) {
       histogram.incBin(amount);
     }
+    LatencyHistogramStats h = this.latencyHistogram;
+    if (h != null) {
+      h.record(amount);
+    }
   }
 
   /**
@@ -1329,6 +1346,14 @@ public class CachePerfStats extends PerformanceStatistics {
     statistics().incInt(UPDATE_EVENTS, 1);
     statistics().incLong(UPDATE_LATENCY, nonZeroAmount);
   }
+  /**
+   * increase the count of cache update events and their latency by the
+   * supplied amounts, for callers that accumulate latencies in batches
+   */
+  public void incUpdateLatency(int events, long amount) {
+    statistics().incInt(UPDATE_EVENTS, events);
+    statistics().incLong(UPDATE_LATENCY, amount);
+  }
 
   /**
    * increases the count of latency spikes.
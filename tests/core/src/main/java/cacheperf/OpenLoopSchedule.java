@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package cacheperf;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.geode.internal.NanoTimer;
+
+/**
+ * The arrival schedule for a thread running an open-loop task, as configured
+ * by {@link CachePerfPrms#openLoopOpsPerSec} and related parameters.
+ * <p>
+ * The schedule hands out the intended start time of each operation.  The
+ * interval between operations is the inverse of the target rate at the time
+ * of the previous intended start, so the schedule does not slow down when an
+ * operation runs long.  An operation that is issued late is still timed from
+ * its intended start, which is what makes the measured latency include the
+ * time spent waiting behind earlier operations.
+ * <p>
+ * The schedule is anchored when the thread first runs the task and is kept
+ * for all of its batches.  Operations whose intended starts passed while the
+ * thread was between batches are issued back to back when it returns, each
+ * timed from its intended start, so no backlog is dropped.
+ */
+public class OpenLoopSchedule {
+
+  private final int scheduleType;
+  private final double initialOpsPerSec;
+  private final double finalOpsPerSec;
+  private final long rateChangeNanos;
+  private final int numSteps;
+
+  /** Time the thread started the task, in nanoseconds */
+  private final long startTime;
+
+  /** Intended start of the next operation, in nanoseconds */
+  private long nextTime;
+
+  /**
+   * Creates a schedule for the current task using the current parameters,
+   * starting now.
+   */
+  public OpenLoopSchedule() {
+    this.scheduleType = CachePerfPrms.getOpenLoopRateSchedule();
+    this.initialOpsPerSec = CachePerfPrms.getOpenLoopOpsPerSec();
+    if (this.scheduleType == CachePerfPrms.CONSTANT_RATE) {
+      this.finalOpsPerSec = this.initialOpsPerSec;
+      this.rateChangeNanos = 0;
+      this.numSteps = 1;
+    } else {
+      this.finalOpsPerSec = CachePerfPrms.getOpenLoopFinalOpsPerSec();
+      this.rateChangeNanos = CachePerfPrms.getOpenLoopRateChangeSec()
+                           * 1000000000L;
+      this.numSteps = (this.scheduleType == CachePerfPrms.STEP_RATE)
+                    ? CachePerfPrms.getOpenLoopNumSteps() : 1;
+    }
+    this.startTime = NanoTimer.getTime();
+    this.nextTime = this.startTime;
+  }
+
+  /**
+   * Waits until the intended start of the next operation, if it is in the
+   * future, then returns it and advances the schedule.
+   */
+  public long awaitNext() {
+    long intendedStart = this.nextTime;
+    long now;
+    while ((now = NanoTimer.getTime()) < intendedStart) {
+      LockSupport.parkNanos(intendedStart - now);
+    }
+    double rate = getOpsPerSec(intendedStart - this.startTime);
+    this.nextTime = intendedStart + (long)(1000000000d / rate);
+    return intendedStart;
+  }
+
+  /**
+   * Returns the target rate the given number of nanoseconds into the task.
+   */
+  protected double getOpsPerSec(long elapsed) {
+    switch (this.scheduleType) {
+      case CachePerfPrms.CONSTANT_RATE:
+        return this.initialOpsPerSec;
+      case CachePerfPrms.RAMP_RATE:
+        if (elapsed >= this.rateChangeNanos) {
+          return this.finalOpsPerSec;
+        }
+        return this.initialOpsPerSec + (this.finalOpsPerSec - this.initialOpsPerSec)
+                                     * elapsed / this.rateChangeNanos;
+      case CachePerfPrms.STEP_RATE:
+        long step = Math.min(elapsed / this.rateChangeNanos, this.numSteps - 1);
+        return this.initialOpsPerSec + (this.finalOpsPerSec - this.initialOpsPerSec)
+                                     * step / (this.numSteps - 1);
+      default:
+        throw new CachePerfException("Unknown schedule: " + this.scheduleType);
+    }
+  }
+
+  public String toString() {
+    return "OpenLoopSchedule(type=" + this.scheduleType
+         + " initialOpsPerSec=" + this.initialOpsPerSec
+         + " finalOpsPerSec=" + this.finalOpsPerSec
+         + " rateChangeNanos=" + this.rateChangeNanos
+         + " numSteps=" + this.numSteps + ")";
+  }
+}
@@ -45,5 +45,6 @@ implements CqListener {
   }
 
   public void close() {
+    super.close();
   }
 }
@@ -57,5 +57,6 @@ implements CacheListener {
   public void afterRegionLive(RegionEvent event) {
   }  
   public void close() {
+    super.close();
   }
 }
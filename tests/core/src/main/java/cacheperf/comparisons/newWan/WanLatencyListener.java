@@ -82,6 +82,7 @@ public class WanLatencyListener extends AbstractLatencyListener
   public void afterRegionLive( RegionEvent event ) {
   }
   public void close() {
+    super.close();
   }
   private boolean isWanRemoteEvent(EntryEvent event){
     int dsid = TestConfig.getInstance().getGemFireDescription(
@@ -77,5 +77,6 @@ public class GatewayLatencyListener extends AbstractLatencyListener
   }
 
   public void close() {
+    super.close();
   }
 }
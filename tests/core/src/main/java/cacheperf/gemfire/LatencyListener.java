@@ -82,5 +82,6 @@ public class LatencyListener extends AbstractLatencyListener
   public void afterRegionLive( RegionEvent event ) {
   }
   public void close() {
+    super.close();
   }
 }
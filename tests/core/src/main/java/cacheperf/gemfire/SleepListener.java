@@ -68,5 +68,6 @@ public class SleepListener extends AbstractLatencyListener implements CacheListe
   public void afterRegionLive( RegionEvent event ) {
   }  
   public void close() {
+    super.close();
   }
 }
@@ -88,5 +88,6 @@ public class UseCase14Listener extends AbstractLatencyListener
   public void afterRegionLive( RegionEvent event ) {
   }
   public void close() {
+    super.close();
   }
 }
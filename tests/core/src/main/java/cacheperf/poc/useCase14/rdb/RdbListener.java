@@ -67,5 +67,6 @@ public class RdbListener extends AbstractLatencyListener
   public void afterRegionLive( RegionEvent event ) {
   }
   public void close() {
+    super.close();
   }
 }
@@ -19,7 +19,6 @@ package cacheperf.poc.useCase3_2;
 
 import cacheperf.poc.useCase3_2.UseCase3Prms.RegionName;
 import org.apache.geode.cache.Region;
-import org.apache.geode.internal.NanoTimer;
 import hydra.*;
 import objects.ObjectHelper;
 import util.*;
@@ -55,9 +54,9 @@ public abstract class AbstractLatencyListener {
   //----------------------------------------------------------------------------
 
   protected void recordLatency(Region region, Object obj) {
-    long now = NanoTimer.getTime();
+    long now = RemoteTestModule.correctedNanoTime();
     long then = ObjectHelper.getTimestamp(obj);
-    long latency = now - then - RemoteTestModule.getClockSkew();
+    long latency = now - then;
     RegionName regionName = RegionName.toRegionName(region.getName());
     synchronized( AbstractLatencyListener.class ) {
       if (latency > LATENCY_SPIKE_THRESHOLD) {
@@ -81,5 +81,6 @@ public class LatencyListener extends AbstractLatencyListener
   public void afterRegionLive( RegionEvent event ) {
   }
   public void close() {
+    super.close();
   }
 }
@@ -38,7 +38,7 @@ import util.ValueHolder;
 
 public class WANCQCacheListener extends SilenceListener {
   public void afterUpdate(EntryEvent event) {
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
     
     Long oldValue = ((QueryObject)event.getOldValue()).aLong;
     Long newValue = ((QueryObject)event.getNewValue()).aLong;
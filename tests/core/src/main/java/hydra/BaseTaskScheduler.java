@@ -183,6 +183,7 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
         ++count;
       }
     }
+    this.seenResultCount = getResultCount();
     if ( this.tasks != null ) {
       log.info( "Executing " + this.tasks.size() + " " + this.name
               + " on " + count + " clients");
@@ -327,7 +328,8 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
 
   /**
    *  Returns true if a client has finished its task or encountered a failure.
-   *  If not, prints a report then pauses to avoid running hot.
+   *  If not, prints a report then pauses until a task result arrives or it is
+   *  time to check again for failures.
    */
   protected boolean isFinished( ClientRecord client, long now ) {
     if ( ! client.isBusy() || hadFatalTaskErrorAndHaltOrder() ||
@@ -354,6 +356,7 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
       }
     }
     setTermination( "a client had a fatal task error" );
+    signalResult();
   }
 
   /**
@@ -373,6 +376,7 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
    */
   protected static void setStatMonitorError( Throwable t ) {
     HadStatMonitorError = true;
+    signalResult();
     String msg = null;
     if ( t.getMessage() == null ) {
       msg = "Statistics monitoring error: " + t.getClass().getName();
@@ -421,6 +425,7 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
    */
   protected static void setDynamicActionError( Throwable t ) {
     HadDynamicActionError = true;
+    signalResult();
     String msg = null;
     if ( t.getMessage() == null ) {
       msg = "Problem during dynamic action: " + t.getClass().getName();
@@ -436,6 +441,7 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
    */
   protected static void setDynamicActionHang( Throwable t ) {
     HadDynamicActionHang = true;
+    signalResult();
     String msg = null;
     if ( t.getMessage() == null ) {
       msg = "Timeout during dynamic action: " + t.getClass().getName();
@@ -664,6 +670,9 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
             task.logTaskResult( client, result );
           }
 
+          // wake up schedulers waiting on the client
+          signalResult();
+
         } else {
           // @todo lises treat this as an internal fatal error
           String s = client + " already reported the result for " + task;
@@ -680,6 +689,58 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
     }
   }
 
+  /**
+   *  Returns the number of task results reported so far to all schedulers.
+   */
+  protected static long getResultCount() {
+    synchronized( ResultLock ) {
+      return ResultCount;
+    }
+  }
+
+  /**
+   *  Records the arrival of a task result, or an error that should end the
+   *  wait for one, and wakes up any schedulers waiting in {@link
+   *  #awaitResult(long,long)}.
+   */
+  private static void signalResult() {
+    synchronized( ResultLock ) {
+      ++ResultCount;
+      ResultLock.notifyAll();
+    }
+  }
+
+  /**
+   *  Wakes up any schedulers waiting in {@link #pauseBlocking} for dynamic
+   *  actions to complete.  Invoked when a dynamic action ends.
+   */
+  protected static void signalDynamicActionEnd() {
+    signalResult();
+  }
+
+  /**
+   *  Waits up to the given number of milliseconds for the result count to
+   *  move past the given count, that is, for a result to be reported since
+   *  the caller last looked.  Returns the current result count.
+   */
+  protected static long awaitResult( long count, long ms ) {
+    long deadline = System.currentTimeMillis() + ms;
+    synchronized( ResultLock ) {
+      while ( ResultCount == count ) {
+        long remaining = deadline - System.currentTimeMillis();
+        if ( remaining <= 0 ) {
+          break;
+        }
+        try {
+          ResultLock.wait( remaining );
+        } catch( InterruptedException e ) {
+          break;
+        }
+      }
+      return ResultCount;
+    }
+  }
+
   /**
    *  Called by dynamic stopper threads to fake task results for the busy
    *  clients in a killed vm so the scheduler will not wait for them to finish.
@@ -742,10 +803,11 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
 
   /**
    *  Used to pause an active scheduler when it has had an unfruitful pass
-   *  through the live client list.
+   *  through the live client list.  Returns as soon as a client reports a
+   *  task result, since that client might now be eligible for a task.
    */
   protected void pauseScheduling() {
-    MasterController.sleepForMs( 200 );
+    this.seenResultCount = awaitResult( this.seenResultCount, 200 );
   }
 
   /**
@@ -768,10 +830,11 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
 
   /**
    *  Used to pause a terminating scheduler when it is waiting for currently
-   *  busy clients to complete their tasks.
+   *  busy clients to complete their tasks.  Returns as soon as a client
+   *  reports a task result, else periodically to check for hangs.
    */
   protected void pauseWaiting() {
-    MasterController.sleepForMs( 2000 );
+    this.seenResultCount = awaitResult( this.seenResultCount, 2000 );
   }
 
   /**
@@ -793,10 +856,11 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
 
   /**
    *  Used to pause a terminating scheduler when it is waiting for dynamic
-   *  schedulers to complete.
+   *  schedulers to complete.  Returns as soon as a dynamic action ends or a
+   *  client reports a task result, else periodically.
    */
   protected void pauseBlocking() {
-    MasterController.sleepForMs( 2000 );
+    this.seenResultCount = awaitResult( this.seenResultCount, 2000 );
   }
 
   /**
@@ -861,6 +925,9 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
   private long maxwaitingreporttime = 0;
   private long lastblockingreporttime = 0;
 
+  /** result count as of the last time this scheduler paused */
+  private long seenResultCount = 0;
+
   /** reason this scheduler is terminating */
   protected String termination;
 
@@ -900,4 +967,15 @@ public abstract class BaseTaskScheduler implements TaskScheduler {
 
   /** True if a client encountered a dynamic action hang. */
   private static volatile boolean HadDynamicActionHang = false;
+
+  /**
+   * Lock for waiting on and signalling task results.  Results are signalled
+   * through a global count rather than per scheduler, since a scheduler can
+   * wait on clients in dynamic vms whose results are reported to a dynamic
+   * scheduler.
+   */
+  private static final Object ResultLock = new Object();
+
+  /** Number of task results reported so far. */
+  private static long ResultCount = 0;
 }
@@ -23,6 +23,8 @@ import java.rmi.RemoteException;
 import java.rmi.UnmarshalException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -32,6 +34,12 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.geode.LogWriter;
 
@@ -147,18 +155,85 @@ public class ClientMgr {
   }
 
   /**
-   *  Fires up the given client vms for the stated purpose.
+   *  Fires up the given client vms for the stated purpose, up to
+   *  <code>Prms.maxClientStartupThreads</code> at a time.
    */
-  protected static void startClients( String purpose, Map vms ) {
+  protected static void startClients( final String purpose, Map vms ) {
     // @todo lises put a timeout on this step
-    log().info( "Starting " + vms.size() + " client VMs" );
+    int numThreads = tab().intAt( Prms.maxClientStartupThreads, 1 );
+    log().info( "Starting " + vms.size() + " client VMs using up to "
+              + numThreads + " threads" );
+    List ops = new ArrayList();
     for ( Iterator i = vms.values().iterator(); i.hasNext(); ) {
-      ClientVmRecord vm = (ClientVmRecord) i.next();
-      startClient( vm, purpose );
+      final ClientVmRecord vm = (ClientVmRecord) i.next();
+      ops.add( new Callable() {
+        public Object call() {
+          startClient( vm, purpose );
+          return null;
+        }
+      });
     }
+    invokeAll( ops, numThreads, "Client VM Launcher" );
     log().info( "Started " + vms.size() + " client VMs" );
   }
 
+  /**
+   *  Runs the given operations using up to the given number of threads and
+   *  returns their results, in order, once all of them are done.  Rethrows
+   *  the first exception thrown by an operation.
+   */
+  private static List invokeAll( List ops, int numThreads,
+                                 final String threadName ) {
+    List results = new ArrayList();
+    int n = Math.min( numThreads, ops.size() );
+    if ( n <= 1 ) {
+      for ( Iterator i = ops.iterator(); i.hasNext(); ) {
+        try {
+          results.add( ((Callable) i.next()).call() );
+        } catch( RuntimeException e ) {
+          throw e;
+        } catch( Exception e ) {
+          throw new HydraRuntimeException( threadName + " failed", e );
+        }
+      }
+      return results;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool( n,
+      new ThreadFactory() {
+        private int count = 0;
+        public synchronized Thread newThread( Runnable r ) {
+          Thread t = new Thread( r, threadName + " " + (++count) );
+          t.setDaemon( true );
+          return t;
+        }
+      });
+    try {
+      List futures = pool.invokeAll( ops );
+      for ( Iterator i = futures.iterator(); i.hasNext(); ) {
+        try {
+          results.add( ((Future) i.next()).get() );
+        } catch( ExecutionException e ) {
+          Throwable cause = e.getCause();
+          if ( cause instanceof RuntimeException ) {
+            throw (RuntimeException) cause;
+          } else if ( cause instanceof Error ) {
+            throw (Error) cause;
+          } else {
+            throw new HydraRuntimeException( threadName + " failed",
+                                             (Exception) cause );
+          }
+        }
+      }
+      return results;
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new HydraRuntimeException( "Interrupted while waiting for "
+                                     + threadName + " threads", e );
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   /**
    *  Fires up the client vm based on its record and description.
    */
@@ -171,7 +246,9 @@ public class ClientMgr {
       }
       String masterHost = HostHelper.getCanonicalHostName();
       int masterPid = ProcessMgr.getProcessId();
+      vm.recordSpawnStart();
       int pid = Java.javaRemoteTestModule( masterHost, masterPid, vm, purpose );
+      vm.recordSpawnEnd();
       vm.setPid( pid );
       vm.setState( ClientVmRecord.PENDING );
       vm.bumpVersion();
@@ -199,23 +276,83 @@ public class ClientMgr {
     }
     log().info( "Within " + waitSec + " seconds, all " + vms.size()
               + " client vms have registered." );
+    log().info( getStartupTimeline( vms ) );
   }
 
   /**
    *  Waits until the specified timeout for a client vm to start and register
    *  all its client threads with master.  Returns true if it does so in time.
+   *  The vm is notified by {@link #registerClient} when it goes live.
    */
   private static boolean waitForPendingClient( ClientVmRecord vm,
                                                long timeoutMs ) {
-    while ( System.currentTimeMillis() < timeoutMs ) {
+    boolean interrupted = false;
+    try {
       synchronized( vm ) {
-        if ( vm.getState() == ClientVmRecord.LIVE ) {
-          return true;
+        while ( vm.getState() != ClientVmRecord.LIVE ) {
+          long waitMs = timeoutMs - System.currentTimeMillis();
+          if ( waitMs <= 0 ) {
+            return false;
+          }
+          try {
+            vm.wait( waitMs );
+          } catch( InterruptedException e ) {
+            interrupted = true;
+          }
         }
+        return true;
+      }
+    } finally {
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
       }
-      MasterController.sleepForMs(250);
     }
-    return false;
+  }
+
+  /**
+   *  Returns a report of the most recent startup of the given client vms,
+   *  showing for each vm the time taken to spawn it, for its JVM to come up
+   *  and contact master, and for its client threads to register, in order
+   *  of registration.  Times are in milliseconds, relative to the earliest
+   *  spawn.
+   */
+  private static String getStartupTimeline( Map vms ) {
+    List sorted = new ArrayList( vms.values() );
+    Collections.sort( sorted, new Comparator() {
+      public int compare( Object o1, Object o2 ) {
+        long t1 = ((ClientVmRecord) o1).getRegisteredMs();
+        long t2 = ((ClientVmRecord) o2).getRegisteredMs();
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+    });
+    long base = Long.MAX_VALUE;
+    for ( Iterator i = sorted.iterator(); i.hasNext(); ) {
+      long t = ((ClientVmRecord) i.next()).getSpawnStartMs();
+      if ( t != 0 && t < base ) {
+        base = t;
+      }
+    }
+    StringBuffer buf = new StringBuffer();
+    buf.append( "Client VM startup timeline (ms):\n" );
+    buf.append( String.format( "%-10s %-20s %8s %8s %8s %8s %8s %8s\n",
+                "vm", "host", "pid", "start", "spawn", "jvmInit",
+                "register", "live" ) );
+    for ( Iterator i = sorted.iterator(); i.hasNext(); ) {
+      ClientVmRecord vm = (ClientVmRecord) i.next();
+      long start = vm.getSpawnStartMs();
+      long spawned = vm.getSpawnEndMs();
+      long registered = vm.getRegisteredMs();
+      if ( start == 0 || spawned == 0 || registered == 0 ) {
+        continue; // not spawned by master, e.g. reconnected
+      }
+      // the vm cannot get its pid until master records it
+      long contacted = Math.max( vm.getPidRequestMs(), spawned );
+      buf.append( String.format( "%-10s %-20s %8d %8d %8d %8d %8d %8d\n",
+                  vm, vm.getHost(), vm.getPid(), start - base,
+                  spawned - start, contacted - spawned,
+                  registered - contacted, registered - base ) );
+    }
+    return buf.toString();
   }
 
   /**
@@ -271,6 +408,7 @@ public class ClientMgr {
   protected static int getPid( int vmid ) {
     ClientVmRecord vm = (ClientVmRecord) ClientVms.get( new Integer( vmid ) );
     synchronized( vm ) {
+      vm.recordPidRequest();
       return vm.getPid();
     }
   }
@@ -290,7 +428,9 @@ public class ClientMgr {
     synchronized( vm ) {
       vm.registerClient();
       if ( vm.fullyRegistered() ) {
+        vm.recordRegistered();
         vm.setState( ClientVmRecord.LIVE );
+        vm.notifyAll();
       }
     }
     return new HydraThreadGroupInfo( cr.getThreadGroupName(),
@@ -305,6 +445,7 @@ public class ClientMgr {
     ClientVmRecord vm = getClientVm(vmid);
     synchronized(vm) {
       vm.registerDisconnect();
+      vm.notifyAll();
     }
   }
 
@@ -440,12 +581,23 @@ public class ClientMgr {
     int waitSec = tab().intAt( Prms.maxClientShutdownWaitSec );
     log().info( "Waiting " + waitSec + " seconds for " + vms.size()
               + " client VMs to stop." );
-    long timeoutMs = System.currentTimeMillis() + waitSec * 1000;
-    for ( Iterator i = vms.values().iterator(); i.hasNext(); ) {
-      ClientVmRecord vm = (ClientVmRecord) i.next();
-      if ( ! waitForClientToDie( vm, timeoutMs ) ) {
+    final long timeoutMs = System.currentTimeMillis() + waitSec * 1000;
+    List ops = new ArrayList();
+    final List vmList = new ArrayList( vms.values() );
+    for ( Iterator i = vmList.iterator(); i.hasNext(); ) {
+      final ClientVmRecord vm = (ClientVmRecord) i.next();
+      ops.add( new Callable() {
+        public Object call() {
+          return Boolean.valueOf( waitForClientToDie( vm, timeoutMs ) );
+        }
+      });
+    }
+    int numThreads = tab().intAt( Prms.maxClientStartupThreads, 1 );
+    List results = invokeAll( ops, numThreads, "Client VM Reaper" );
+    for ( int i = 0; i < results.size(); i++ ) {
+      if ( ! ((Boolean) results.get( i )).booleanValue() ) {
         String s = "Failed to stop client vms within " + waitSec
-                 + " seconds, starting with " + vm;
+                 + " seconds, starting with " + vmList.get( i );
         throw new HydraTimeoutException( s );
       }
     }
@@ -496,14 +648,28 @@ public class ClientMgr {
     if (pid == ClientVmRecord.NO_PID) { // killed off previously
       return true;
     }
-    do {
-      if (vm.registeredDisconnect()) {
-        Log.getLogWriter().info(vm + " has registered disconnect");
-        return true;
+    boolean interrupted = false;
+    try {
+      synchronized (vm) {
+        while (!vm.registeredDisconnect()) {
+          long waitMs = timeoutMs - System.currentTimeMillis();
+          if (waitMs <= 0) {
+            return false;
+          }
+          try {
+            vm.wait(waitMs);
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
       }
-      MasterController.sleepForMs(250);
-    } while (System.currentTimeMillis() < timeoutMs);
-    return false;
+      Log.getLogWriter().info(vm + " has registered disconnect");
+      return true;
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
   }
 
   /**
@@ -820,6 +986,7 @@ public class ClientMgr {
       synchronized( DynamicActionLock ) {
         --DynamicActionCount;
       }
+      BaseTaskScheduler.signalDynamicActionEnd();
     }
   }
 
@@ -850,6 +1017,7 @@ public class ClientMgr {
       synchronized( DynamicActionLock ) {
         --DynamicActionCount;
       }
+      BaseTaskScheduler.signalDynamicActionEnd();
     }
   }
 
@@ -1411,6 +1579,7 @@ public class ClientMgr {
       synchronized (DynamicActionLock) {
         --DynamicActionCount;
       }
+      BaseTaskScheduler.signalDynamicActionEnd();
     }
   }
 
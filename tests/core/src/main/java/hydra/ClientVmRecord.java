@@ -126,6 +126,15 @@ public class ClientVmRecord implements Serializable {
    */
   private volatile boolean disconnected;
 
+  /**
+   *  Milestones for the most recent startup of this vm, in milliseconds since
+   *  the epoch, or 0 if not yet reached.  Used for the startup timeline.
+   */
+  private volatile long spawnStartMs;   // launch requested
+  private volatile long spawnEndMs;     // pid known
+  private volatile long pidRequestMs;   // vm asked master for its pid
+  private volatile long registeredMs;   // all clients registered
+
   //////////////////////////////////////////////////////////////////////////////
   ////    CONSTRUCTORS
   //////////////////////////////////////////////////////////////////////////////
@@ -442,6 +451,40 @@ public class ClientVmRecord implements Serializable {
     this.disconnected = false;
   }
 
+  //////////////////////////////////////////////////////////////////////////////
+  ////    STARTUP TIMELINE
+  //////////////////////////////////////////////////////////////////////////////
+
+  protected void recordSpawnStart() {
+    this.spawnStartMs = System.currentTimeMillis();
+    this.spawnEndMs = 0;
+    this.pidRequestMs = 0;
+    this.registeredMs = 0;
+  }
+  protected void recordSpawnEnd() {
+    this.spawnEndMs = System.currentTimeMillis();
+  }
+  protected void recordPidRequest() {
+    if (this.pidRequestMs == 0) {
+      this.pidRequestMs = System.currentTimeMillis();
+    }
+  }
+  protected void recordRegistered() {
+    this.registeredMs = System.currentTimeMillis();
+  }
+  protected long getSpawnStartMs() {
+    return this.spawnStartMs;
+  }
+  protected long getSpawnEndMs() {
+    return this.spawnEndMs;
+  }
+  protected long getPidRequestMs() {
+    return this.pidRequestMs;
+  }
+  protected long getRegisteredMs() {
+    return this.registeredMs;
+  }
+
   //////////////////////////////////////////////////////////////////////////////
   ////    MATCHING
   //////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package hydra;
+
+import java.util.*;
+
+/**
+*
+* A configuration parameter value compiled into a typed accessor.  Used by
+* {@link ConfigHashtable} to answer the "at" methods for a key without
+* repeating type checks and string parsing on every lookup.
+* <p>
+* Constant values are converted to each type once, so a lookup costs a field
+* read.  A {@link Range} or {@link OneOf} costs a single draw from the random
+* number generator, and a {@link RobinG} still asks the master for its next
+* value.  Other values fall back to the static "for" methods in {@link
+* ConfigHashtable}, which also supply the exceptions for values that cannot
+* be converted to the requested type.
+*
+*/
+abstract class CompiledParameter {
+
+  protected final Object val;
+  protected final Long key;
+
+  protected CompiledParameter( Object val, Long key ) {
+    this.val = val;
+    this.key = key;
+  }
+
+  /**
+   *  Compiles the value of the parameter with the given key.
+   */
+  protected static CompiledParameter compile( Object val, Long key ) {
+    if ( val instanceof Integer || val instanceof Long ||
+         val instanceof Double  || val instanceof String ||
+         val instanceof Boolean ) {
+      return new Constant( val, key );
+    } else if ( val instanceof Range ) {
+      return new RangeParameter( (Range) val, key );
+    } else if ( val instanceof OneOf ) {
+      return new OneOfParameter( (OneOf) val, key );
+    } else {
+      return new Uncompiled( val, key );
+    }
+  }
+
+  public int intValue( GsRandom rand ) {
+    return ConfigHashtable.intFor( this.val, rand, this.key );
+  }
+  public long longValue( GsRandom rand ) {
+    return ConfigHashtable.longFor( this.val, rand, this.key );
+  }
+  public double doubleValue( GsRandom rand ) {
+    return ConfigHashtable.doubleFor( this.val, rand, this.key );
+  }
+  public boolean booleanValue( GsRandom rand ) {
+    return ConfigHashtable.booleanFor( this.val, rand, this.key );
+  }
+  public String stringValue( GsRandom rand ) {
+    return ConfigHashtable.stringFor( this.val, rand, this.key );
+  }
+
+  public String toString() {
+    return getClass().getName() + "(" + BasePrms.nameForKey( this.key )
+                                + "=" + this.val + ")";
+  }
+
+  //////////////////////////////////////////////////////////////////////////////
+  ////    ACCESSORS
+  //////////////////////////////////////////////////////////////////////////////
+
+  /**
+   *  A value that is looked up the same way it always was, such as a {@link
+   *  RobinG}.
+   */
+  private static class Uncompiled extends CompiledParameter {
+    Uncompiled( Object val, Long key ) {
+      super( val, key );
+    }
+  }
+
+  /**
+   *  A constant value, converted to each type up front.  Conversions that fail
+   *  are left to the superclass so they throw the usual exceptions.
+   */
+  private static class Constant extends CompiledParameter {
+    private int intVal;
+    private long longVal;
+    private double doubleVal;
+    private boolean booleanVal;
+    private String stringVal;
+    private boolean isInt, isLong, isDouble, isBoolean, isString;
+
+    Constant( Object val, Long key ) {
+      super( val, key );
+      try {
+        this.intVal = ConfigHashtable.intFor( val, null, key );
+        this.isInt = true;
+      } catch( HydraConfigException e ) {
+      } catch( HydraTypeException e ) {
+      }
+      try {
+        this.longVal = ConfigHashtable.longFor( val, null, key );
+        this.isLong = true;
+      } catch( HydraConfigException e ) {
+      } catch( HydraTypeException e ) {
+      }
+      try {
+        this.doubleVal = ConfigHashtable.doubleFor( val, null, key );
+        this.isDouble = true;
+      } catch( HydraConfigException e ) {
+      } catch( HydraTypeException e ) {
+      }
+      try {
+        this.booleanVal = ConfigHashtable.booleanFor( val, null, key );
+        this.isBoolean = true;
+      } catch( HydraConfigException e ) {
+      } catch( HydraTypeException e ) {
+      }
+      try {
+        this.stringVal = ConfigHashtable.stringFor( val, null, key );
+        this.isString = true;
+      } catch( HydraConfigException e ) {
+      } catch( HydraTypeException e ) {
+      }
+    }
+    public int intValue( GsRandom rand ) {
+      return this.isInt ? this.intVal : super.intValue( rand );
+    }
+    public long longValue( GsRandom rand ) {
+      return this.isLong ? this.longVal : super.longValue( rand );
+    }
+    public double doubleValue( GsRandom rand ) {
+      return this.isDouble ? this.doubleVal : super.doubleValue( rand );
+    }
+    public boolean booleanValue( GsRandom rand ) {
+      return this.isBoolean ? this.booleanVal : super.booleanValue( rand );
+    }
+    public String stringValue( GsRandom rand ) {
+      return this.isString ? this.stringVal : super.stringValue( rand );
+    }
+  }
+
+  /**
+   *  A {@link Range}, which draws numeric values directly.
+   */
+  private static class RangeParameter extends CompiledParameter {
+    private final Range range;
+
+    RangeParameter( Range range, Long key ) {
+      super( range, key );
+      this.range = range;
+    }
+    public int intValue( GsRandom rand ) {
+      return this.range.nextInt( rand );
+    }
+    public long longValue( GsRandom rand ) {
+      return this.range.nextLong( rand );
+    }
+    public double doubleValue( GsRandom rand ) {
+      return this.range.nextDouble( rand );
+    }
+  }
+
+  /**
+   *  A {@link OneOf}, which draws an index into its compiled values.
+   */
+  private static class OneOfParameter extends CompiledParameter {
+    private final OneOf oneof;
+    private final CompiledParameter[] values;
+
+    OneOfParameter( OneOf oneof, Long key ) {
+      super( oneof, key );
+      this.oneof = oneof;
+      Vector v = oneof.getValues();
+      this.values = new CompiledParameter[ v.size() ];
+      for ( int i = 0; i < this.values.length; i++ ) {
+        this.values[i] = compile( v.elementAt( i ), key );
+      }
+    }
+    private CompiledParameter next( GsRandom rand ) {
+      return this.values[ this.oneof.nextIndex( rand ) ];
+    }
+    public int intValue( GsRandom rand ) {
+      return next( rand ).intValue( rand );
+    }
+    public long longValue( GsRandom rand ) {
+      return next( rand ).longValue( rand );
+    }
+    public double doubleValue( GsRandom rand ) {
+      return next( rand ).doubleValue( rand );
+    }
+    public boolean booleanValue( GsRandom rand ) {
+      return next( rand ).booleanValue( rand );
+    }
+    public String stringValue( GsRandom rand ) {
+      return next( rand ).stringValue( rand );
+    }
+  }
+}
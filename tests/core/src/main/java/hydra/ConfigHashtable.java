@@ -19,6 +19,7 @@ package hydra;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
 *
@@ -41,6 +42,12 @@ public class ConfigHashtable implements Serializable {
 
   private Map _mytab;
 
+  /** Parameters compiled on first lookup, see {@link #getCompiled} */
+  private transient volatile ConcurrentHashMap compiled;
+
+  /** Marks a parameter in {@link #compiled} as not set */
+  private static final Object NOT_SET = new Object();
+
   public ConfigHashtable() {
     _mytab = new HashMap();
   }
@@ -54,17 +61,17 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public int intAt( Long key ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       throw new HydraConfigException("No config param found for key \"" + BasePrms.nameForKey( key ) + "\"");
-    return intFor( val, getRandGen(), key );
+    return param.intValue( getRandGen() );
   }
   public int intAt( Long key, int defaultVal ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       return defaultVal;
     else
-      return intFor( val, getRandGen(), key );
+      return param.intValue( getRandGen() );
   }
   public static int intFor( Object val, GsRandom rand, Long key ) {
 
@@ -126,17 +133,17 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public long longAt( Long key ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       throw new HydraConfigException("No config param found for key \"" + BasePrms.nameForKey( key ) + "\"");
-    return longFor( val, getRandGen(), key );
+    return param.longValue( getRandGen() );
   }
   public long longAt( Long key, long defaultVal ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       return defaultVal;
     else
-      return longFor( val, getRandGen(), key );
+      return param.longValue( getRandGen() );
   }
   public static long longFor( Object val, GsRandom rand, Long key ) {
 
@@ -201,17 +208,17 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public double doubleAt( Long key ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       throw new HydraConfigException("No config param found for key \"" + BasePrms.nameForKey( key ) + "\"");
-    return doubleFor( val, getRandGen(), key );
+    return param.doubleValue( getRandGen() );
   }
   public double doubleAt( Long key, double defaultVal ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       return defaultVal;
     else
-      return doubleFor( val, getRandGen(), key );
+      return param.doubleValue( getRandGen() );
   }
   public static double doubleFor( Object val, GsRandom rand, Long key ) {
 
@@ -268,17 +275,17 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public boolean booleanAt( Long key ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       throw new HydraConfigException("No config param found for key \"" + BasePrms.nameForKey( key ) + "\"");
-    return booleanFor( val, getRandGen(), key );
+    return param.booleanValue( getRandGen() );
   }
   public boolean booleanAt( Long key, boolean defaultVal ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       return defaultVal;
     else
-      return booleanFor( val, getRandGen(), key );
+      return param.booleanValue( getRandGen() );
   }
   public static boolean booleanFor( Object val, GsRandom rand, Long key ) {
 
@@ -326,17 +333,17 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public String stringAt( Long key ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       throw new HydraConfigException("No config param found for key \"" + BasePrms.nameForKey( key ) + "\"");
-    return stringFor( val, getRandGen(), key );
+    return param.stringValue( getRandGen() );
   }
   public String stringAt( Long key, String defaultVal ) {
-    Object val = this.get( key );
-    if ( val == null )
+    CompiledParameter param = this.getCompiled( key );
+    if ( param == null )
       return defaultVal;
     else
-      return stringFor( val, getRandGen(), key );
+      return param.stringValue( getRandGen() );
   }
   public static String stringFor( Object val, GsRandom rand, Long key ) {
 
@@ -921,8 +928,32 @@ public class ConfigHashtable implements Serializable {
   *
   */
   public void put( Long key, Object val ) {
-    if ( val != null )
+    if ( val != null ) {
       _mytab.put( key, val );
+      this.compiled = null;
+    }
+  }
+
+  /**
+  *
+  * Return the parameter with the given key compiled into a typed accessor,
+  * or null if there isn't one.  The accessor is compiled once and reused
+  * until the table is modified.
+  *
+  */
+  protected CompiledParameter getCompiled( Long key ) {
+    ConcurrentHashMap map = this.compiled;
+    if ( map == null ) {
+      map = new ConcurrentHashMap();
+      this.compiled = map;
+    }
+    Object param = map.get( key );
+    if ( param == null ) {
+      Object val = _mytab.get( key );
+      param = ( val == null ) ? NOT_SET : CompiledParameter.compile( val, key );
+      map.put( key, param );
+    }
+    return ( param == NOT_SET ) ? null : (CompiledParameter) param;
   }
 
   /**
@@ -934,17 +965,26 @@ public class ConfigHashtable implements Serializable {
   * The seed is obtained from {@link Prms#randomSeed} if it exists.
   * Otherwise the seed is <code>System.currentTimeMillis()</code>.
   *
+  * When invoked from a hydra client thread, returns a generator owned by
+  * that logical thread, seeded from the base seed and the thread id.  Each
+  * thread then draws from its own stream, so draws do not contend and do
+  * not depend on how threads in the same vm are interleaved.  Subthreads
+  * share the stream of the thread that spawned them.  Other threads share
+  * a generator for the vm.
+  *
   */
   public GsRandom getRandGen() {
+    Thread t = Thread.currentThread();
+    if ( t instanceof HydraThread ) {
+      RemoteTestModule mod = ( (HydraThread) t ).getRemoteMod();
+      GsRandom threadRandGen = mod.randGen;
+      if ( threadRandGen == null ) {
+        threadRandGen = createThreadRandGen( mod );
+      }
+      return threadRandGen;
+    }
     if ( randGen == null ) {
-      long seed = -1;
-      Object val = this.get( Prms.randomSeed );
-      if ( val instanceof Long )
-        seed = ( (Long) val ).longValue();
-      else if ( val instanceof String )
-        seed = Long.parseLong( (String) val );
-      else
-        throw new HydraTypeException( "Cannot getRandGen seed from " + val.getClass().getName() );
+      long seed = getSeed();
 
       // perturb the seed in a predictable way so each client vm has a different one
       String clientName = System.getProperty(ClientPrms.CLIENT_NAME_PROPERTY);
@@ -957,6 +997,37 @@ public class ConfigHashtable implements Serializable {
     return randGen;
   }
 
+  /**
+  *
+  * Creates the random number generator for the logical hydra thread, if it
+  * does not have one yet.
+  *
+  */
+  private static synchronized GsRandom createThreadRandGen( RemoteTestModule mod ) {
+    if ( mod.randGen == null ) {
+      // spread the thread ids so nearby threads get unrelated seeds
+      long seed = TestConfig.tab().getSeed()
+                ^ ( 0x9E3779B97F4A7C15L * ( mod.getThreadId() + 1 ) );
+      mod.randGen = new GsRandom( seed );
+    }
+    return mod.randGen;
+  }
+
+  /**
+  *
+  * Returns the base random seed from {@link Prms#randomSeed}.
+  *
+  */
+  private long getSeed() {
+    Object val = this.get( Prms.randomSeed );
+    if ( val instanceof Long )
+      return ( (Long) val ).longValue();
+    else if ( val instanceof String )
+      return Long.parseLong( (String) val );
+    else
+      throw new HydraTypeException( "Cannot getRandGen seed from " + val.getClass().getName() );
+  }
+
   public String toString() {
     StringBuffer buf = new StringBuffer();
     SortedMap map = this.toSortedMap();
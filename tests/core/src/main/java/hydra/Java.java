@@ -310,6 +310,12 @@ public class Java {
     cmd += "-D" + MasterController.RMI_PORT_PROPERTY + "="
         + System.getProperty(MasterController.RMI_PORT_PROPERTY) + " ";
 
+    // give the port range, if any
+    String portRange = System.getProperty(PortHelper.PORT_RANGE_PROPERTY);
+    if (portRange != null) {
+      cmd += "-D" + PortHelper.PORT_RANGE_PROPERTY + "=" + portRange + " ";
+    }
+
     // give the logical host name
     String hostName = hd.getName();
     cmd += "-D" + HostPrms.HOST_NAME_PROPERTY + "=" + hostName + " ";
@@ -438,6 +444,12 @@ public class Java {
     cmd += "-D" + MasterController.RMI_PORT_PROPERTY + "="
         + System.getProperty(MasterController.RMI_PORT_PROPERTY) + " ";
 
+    // give the port range, if any
+    String portRange = System.getProperty(PortHelper.PORT_RANGE_PROPERTY);
+    if (portRange != null) {
+      cmd += "-D" + PortHelper.PORT_RANGE_PROPERTY + "=" + portRange + " ";
+    }
+
     // give the user dir
     cmd += "-Duser.dir=" + hd.getUserDir() + " ";
 
@@ -113,9 +113,33 @@ public class Log {
                                                         boolean fileLogging,
                                                         String fileLogLevelName,
                                                         int fileMaxKBPerVM ) {
+    return createLogWriter( name, filePrefix, fileLogging, fileLogLevelName,
+                            fileMaxKBPerVM, false, 0 );
+  }
+  /**
+  * Creates a singleton log writer that logs to a file, optionally writing
+  * asynchronously.  See {@link hydra.log.LogPrms#file_async}.
+  * @param name the name of the singleton log writer.
+  * @param filePrefix the prefix for files created by this log writer.
+  * @param fileAsync whether to write to the file asynchronously.
+  * @param fileAsyncQueueSize the maximum number of writes waiting to be written.
+  *
+  * @return the singleton log writer.
+  * @throws HydraRuntimeException if file can't be created or if log writer has
+  *         already been created.
+  * @throws IllegalArgumentException if level is illegal.
+  */
+  public synchronized static LogWriter createLogWriter( String name,
+                                                        String filePrefix,
+                                                        boolean fileLogging,
+                                                        String fileLogLevelName,
+                                                        int fileMaxKBPerVM,
+                                                        boolean fileAsync,
+                                                        int fileAsyncQueueSize ) {
     if ( logWriter == null ) {
       logWriter = new AnyLogWriter( filePrefix, fileLogging, fileLogLevelName,
-                                    fileMaxKBPerVM );
+                                    fileMaxKBPerVM, fileAsync,
+                                    fileAsyncQueueSize );
     } else {
       throw new HydraRuntimeException( "Log writer has already been created" );
     }
@@ -131,6 +155,7 @@ public class Log {
     if ( logWriter == null ) {
       throw new HydraRuntimeException( "Log writer does not exist" );
     } else {
+      logWriter.drain();
       logName = null;
       logWriter = null;
     }
@@ -185,6 +210,17 @@ public class Log {
     return logWriter;
   }
   /**
+  * Waits until all messages logged so far by the singleton log writer have
+  * been written, if it writes asynchronously.  Does nothing if there is no
+  * singleton log writer.
+  */
+  public static void drainLogWriter() {
+    AnyLogWriter lw = logWriter;
+    if ( lw != null ) {
+      lw.drain();
+    }
+  }
+  /**
   *
   * Fetches the current log level of the singleton log writer.
   *
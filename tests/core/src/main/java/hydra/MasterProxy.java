@@ -46,6 +46,10 @@ public class MasterProxy extends UnicastRemoteObject implements MasterProxyIF
     return TestConfig.getHostAgentInstanceFromMaster();
   }
 
+  public byte[] getSharedTestConfig() throws RemoteException {
+    return TestConfig.getSharedInstanceBytesFromMaster();
+  }
+
   //////////////////////////////////////////////////////////////////////////////
   ////    LOCATOR AGENTS                                                    ////
   //////////////////////////////////////////////////////////////////////////////
@@ -27,6 +27,7 @@ public interface MasterProxyIF extends Remote {
 
    public TestConfig getTestConfig() throws RemoteException;
    public TestConfig getHostAgentTestConfig() throws RemoteException;
+   public byte[] getSharedTestConfig() throws RemoteException;
 
    //// gemfirelocatoragent management
 
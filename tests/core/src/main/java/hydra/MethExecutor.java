@@ -22,6 +22,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.geode.SystemFailure;
 
@@ -35,6 +37,64 @@ public class MethExecutor {
 
    // @todo lises add static args method
 
+  /**
+   * Accessible methods already found by {@link #getAccessibleMethod}, keyed
+   * by {@link MethodKey}.  Saves searching the class hierarchy each time a
+   * task is executed.
+   */
+  private static final ConcurrentHashMap methodCache = new ConcurrentHashMap();
+
+  /**
+   * Returns the method found by {@link #getMethod}, made accessible.  Caches
+   * the method for the next lookup with the same class, name and parameter
+   * types.
+   *
+   * @throws NoSuchMethodException
+   *         If the method cannot be found
+   */
+  private static Method getAccessibleMethod(Class c, String methodName,
+                                            Class[] paramTypes)
+  throws NoSuchMethodException {
+    MethodKey key = new MethodKey(c, methodName, paramTypes);
+    Method m = (Method)methodCache.get(key);
+    if (m == null) {
+      m = getMethod(c, methodName, paramTypes);
+      m.setAccessible(true);
+      methodCache.put(key, m);
+    }
+    return m;
+  }
+
+  /**
+   * Key for {@link #methodCache}.
+   */
+  private static class MethodKey {
+    private final Class c;
+    private final String methodName;
+    private final Class[] paramTypes;
+    private final int hash;
+
+    MethodKey(Class c, String methodName, Class[] paramTypes) {
+      this.c = c;
+      this.methodName = methodName;
+      this.paramTypes = paramTypes;
+      this.hash = (31 * c.hashCode() + methodName.hashCode()) * 31
+                + Arrays.hashCode(paramTypes);
+    }
+    public int hashCode() {
+      return this.hash;
+    }
+    public boolean equals(Object o) {
+      if (!(o instanceof MethodKey)) {
+        return false;
+      }
+      MethodKey other = (MethodKey)o;
+      return this.c == other.c
+          && this.methodName.equals(other.methodName)
+          && Arrays.equals(this.paramTypes, other.paramTypes);
+    }
+  }
+
   /**
    * Helper method that searches a class (and its superclasses) for a
    * method with the given name and parameter types.
@@ -193,8 +253,7 @@ public class MethExecutor {
         }
 
         Method theMethod =
-          getMethod(receiverClass, selector, paramTypes);
-        theMethod.setAccessible(true);
+          getAccessibleMethod(receiverClass, selector, paramTypes);
         res = theMethod.invoke(receiverClass, args);
         return new MethExecutorResult( res );
 
@@ -262,8 +321,7 @@ public class MethExecutor {
         }
 
         Method theMethod =
-          getMethod(receiverClass, selector, paramTypes);
-        theMethod.setAccessible(true);
+          getAccessibleMethod(receiverClass, selector, paramTypes);
         res = theMethod.invoke(target, args);
         return new MethExecutorResult( res );
 
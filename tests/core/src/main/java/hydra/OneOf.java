@@ -39,8 +39,17 @@ public class OneOf implements Serializable {
      this.values = v;
   }
   public Object next( GsRandom rng ) {
-     int i = rng(rng).nextInt(0, values.size() - 1);
-     return values.elementAt( i ); 
+     return values.elementAt( nextIndex( rng ) ); 
+  }
+  /**
+   * Returns the index of the next value, making the same random draw as
+   * {@link #next(GsRandom)}.
+   */
+  protected int nextIndex( GsRandom rng ) {
+     return rng(rng).nextInt(0, values.size() - 1);
+  }
+  protected Vector getValues() {
+     return values;
   }
   public String toString() {
      String str = "ONEOF ";
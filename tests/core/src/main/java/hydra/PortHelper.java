@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * This class provides support to hydra client for selecting ports.
@@ -38,18 +39,36 @@ public class PortHelper {
   public static final long MAX_RETRY_MS = 120000; // two minutes
   public static final long THROTTLE_MS = 1000; // 1 second
 
+  /**
+   * System property restricting the ports selected by {@link #getRandomPort}
+   * to a range of the form "low-high", inclusive.  Batterytest sets it when
+   * running tests in parallel, so that concurrent tests use disjoint ports.
+   * The master passes it on to the VMs it starts.
+   */
+  public static final String PORT_RANGE_PROPERTY = "hydra.portRange";
+
   private static Map<String,List<Integer>> ReservedPorts = new HashMap();
 
+  private static int[] PortRange;
+  private static boolean PortRangeInitialized = false;
+
   /**
-   * Selects a random port not already in use on the local host.
+   * Selects a random port not already in use on the local host, in the range
+   * given by {@link #PORT_RANGE_PROPERTY}, if any.
    */
   public static int getRandomPort() {
     String host = HostHelper.getLocalHost();
     InetAddress addr = HostHelper.getIPAddress();
+    int[] range = getPortRange();
     int port = -1;
     boolean reserved = false;
     while (!reserved) {
-      port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET, addr);
+      if (range == null) {
+        port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET, addr);
+      } else {
+        port = AvailablePort.getRandomAvailablePortInRange(range[0], range[1],
+                                                         AvailablePort.SOCKET);
+      }
       if (RemoteTestModule.Master == null) {
         reserved = reservePort(host, port);
       } else {
@@ -64,6 +83,59 @@ public class PortHelper {
     return port;
   }
 
+  /**
+   * Selects a random multicast port not already in use for the given
+   * multicast address, in the range given by {@link #PORT_RANGE_PROPERTY},
+   * if any.
+   */
+  public static int getRandomMcastPort(InetAddress addr) {
+    int[] range = getPortRange();
+    if (range == null) {
+      return AvailablePort.getRandomAvailablePort(AvailablePort.JGROUPS, addr);
+    }
+    int size = range[1] - range[0] + 1;
+    int start = new Random().nextInt(size);
+    for (int i = 0; i < size; i++) {
+      int port = range[0] + (start + i) % size;
+      if (AvailablePort.isPortAvailable(port, AvailablePort.JGROUPS, addr)) {
+        return port;
+      }
+    }
+    String s = "No multicast port available for " + addr + " in range "
+             + range[0] + "-" + range[1];
+    throw new HydraRuntimeException(s);
+  }
+
+  /**
+   * Returns the port range given by {@link #PORT_RANGE_PROPERTY}, or null if
+   * the property is not set.
+   */
+  private static synchronized int[] getPortRange() {
+    if (!PortRangeInitialized) {
+      String val = System.getProperty(PORT_RANGE_PROPERTY);
+      if (val != null) {
+        int dash = val.indexOf('-');
+        try {
+          int low = Integer.parseInt(val.substring(0, dash).trim());
+          int high = Integer.parseInt(val.substring(dash + 1).trim());
+          if (low <= 0 || high < low || high > 65535) {
+            String s = "Illegal port range: " + PORT_RANGE_PROPERTY + "=" + val;
+            throw new HydraConfigException(s);
+          }
+          PortRange = new int[]{low, high};
+        } catch (NumberFormatException e) {
+          String s = "Illegal port range: " + PORT_RANGE_PROPERTY + "=" + val;
+          throw new HydraConfigException(s, e);
+        } catch (IndexOutOfBoundsException e) {
+          String s = "Illegal port range: " + PORT_RANGE_PROPERTY + "=" + val;
+          throw new HydraConfigException(s, e);
+        }
+      }
+      PortRangeInitialized = true;
+    }
+    return PortRange;
+  }
+
   public static synchronized boolean reservePort(String host, int port) {
     List<Integer> ports = ReservedPorts.get(host);
     if (ports == null) {
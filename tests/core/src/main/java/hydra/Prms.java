@@ -327,6 +327,16 @@ public class Prms extends BasePrms {
      */
     public static Long maxClientStartupWaitSec;
 
+    /**
+     *  (int)
+     *  The maximum number of client vms hydra launches at a time.  Client vms
+     *  are spawned concurrently by a pool of this many threads, and register
+     *  with the master controller as they come up.  Use 1 to launch them one
+     *  at a time.  Also bounds the number of client vms hydra watches at a
+     *  time while waiting for them to shut down.
+     */
+    public static Long maxClientStartupThreads;
+
     /**
      *  (int)
      *  The maximum time, in seconds, hydra should wait for any client vm to
@@ -397,6 +407,18 @@ public class Prms extends BasePrms {
    */
   public static Long clientShutdownHook;
 
+  /**
+   * (boolean:false)
+   * Whether each hydra client thread executes its tasks in a single
+   * long-lived thread.  If false, a new thread is created for each task.
+   * <p>
+   * {@link HydraThreadLocal}s behave the same either way.  Note that when
+   * threads are reused, ordinary <code>ThreadLocal</code>s and other state
+   * tied to the thread, such as a transaction left open, carry over from one
+   * task to the next on the same logical hydra thread.
+   */
+  public static Long reuseTaskThreads;
+
     /**
      *  (boolean)
      *  True (default) if hydra should log a failed hydra run if a GemFire
@@ -412,6 +434,32 @@ public class Prms extends BasePrms {
      */
     public static Long derbyServerClassPath;
 
+  /**
+   * (Comma-separated list of String)
+   * Names of RMI blackboards whose counters are batched in hydra client VMs,
+   * for example "OperationCounters_Blackboard".  Defaults to null (none).
+   * <p>
+   * Increments and decrements of batched counters are combined in a local
+   * buffer and applied to the master in a single remote call at least every
+   * {@link #batchedBlackboardCounterFlushMs}, at the end of each task, and
+   * whenever the VM reads or otherwise updates the counters.  This removes
+   * the master round trip from counters bumped on every cache operation.
+   * <p>
+   * Counters are only guaranteed to include updates from other VMs once
+   * those VMs have finished their current tasks or invoked {@link
+   * hydra.blackboard.SharedCounters#flush}, so do not use batching for
+   * counters that are read concurrently to coordinate threads in different
+   * VMs.
+   */
+  public static Long batchedBlackboardCounters;
+
+  /**
+   * (int:1000)
+   * Maximum time, in milliseconds, that a hydra client VM holds updates to
+   * {@link #batchedBlackboardCounters} before flushing them to the master.
+   */
+  public static Long batchedBlackboardCounterFlushMs;
+
     static {
         setValues( Prms.class );
     }
@@ -17,6 +17,7 @@
 
 package hydra;
 
+import hydra.blackboard.BatchedSharedCountersImpl;
 import hydra.log.LogPrms;
 import hydra.timeserver.TimeClient;
 import hydra.timeserver.TimeServerPrms;
@@ -27,11 +28,14 @@ import java.rmi.server.UnicastRemoteObject;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.geode.LogWriter;
 import org.apache.geode.SystemFailure;
 import org.apache.geode.distributed.DistributedSystem;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.internal.NanoTimer;
 
 import util.TestHelper;
 
@@ -103,6 +107,12 @@ private static Class c = RMIHydraSocketFactory.class;
 /** The current task */ 
  protected TestTask currentTask;
 
+/** The thread that executes tasks for this client, when reused */
+ private HydraThread taskThread;
+
+/** The tasks waiting for the task thread */
+ private BlockingQueue taskQueue;
+
 /** Id identifying the current client thread uniquely to the master */
  protected int myTid = -1;
 
@@ -118,6 +128,9 @@ private static Class c = RMIHydraSocketFactory.class;
 /** Hydra thread local variables */
  Map hydraThreadLocals;
 
+/** Random number generator for this logical thread, see ConfigHashtable#getRandGen */
+ volatile GsRandom randGen;
+
 
   public RemoteTestModule() throws RemoteException { super(); }
 
@@ -210,10 +223,11 @@ private static Class c = RMIHydraSocketFactory.class;
   }
 
   /**
-   *  Spawns a new thread to execute the task.
+   *  Executes the task in a separate thread, either the task thread for this
+   *  client or, if {@link Prms#reuseTaskThreads} is false, a new thread.
    */
   protected synchronized void executeTask(final int tsid, final TestTask task) {
-    HydraThread myThread = new HydraThread( this, this.myThreadName ) {
+    Runnable taskRunner = new Runnable() {
         public void run() {
 
           log.info( "Received task: " + task.toShortString() );
@@ -224,8 +238,16 @@ private static Class c = RMIHydraSocketFactory.class;
           // execute task
           TestTaskResult result = task.execute();
 
+          // make batched counter updates visible to later tasks
+          try {
+            BatchedSharedCountersImpl.flushAll();
+          } catch( HydraRuntimeException e ) {
+            log.severe( "Unable to flush batched blackboard counters", e );
+          }
+
           // print result in client log
           ResultLogger.logTaskResult( task, result );
+          Log.drainLogWriter();
 
           // report result to master controller
           try {
@@ -238,7 +260,52 @@ private static Class c = RMIHydraSocketFactory.class;
           }
         }
     };
-    myThread.start();
+    if (tab().booleanAt(Prms.reuseTaskThreads, false)) {
+      if (this.taskThread == null || !this.taskThread.isAlive()) {
+        startTaskThread();
+      }
+      this.taskQueue.add(taskRunner);
+    } else {
+      HydraThread myThread =
+        new HydraThread(taskRunner, this, this.myThreadName);
+      myThread.start();
+    }
+  }
+
+  /**
+   *  Starts the thread that executes tasks for this client, one at a time, as
+   *  they are added to the task queue.  Reusing the thread saves creating one
+   *  per task.  The thread is a daemon that runs until the VM shuts down.
+   */
+  private void startTaskThread() {
+    final BlockingQueue queue = new LinkedBlockingQueue();
+    Runnable taskLoop = new Runnable() {
+      public void run() {
+        while (true) {
+          Runnable taskRunner;
+          try {
+            taskRunner = (Runnable)queue.take();
+          } catch (InterruptedException e) {
+            continue; // the thread lives until the VM shuts down
+          }
+          try {
+            taskRunner.run();
+          } catch (VirtualMachineError e) {
+            SystemFailure.initiateFailure(e);
+            throw e;
+          } catch (Throwable t) {
+            log.severe("Unexpected exception in task thread", t);
+          } finally {
+            // do not carry an interrupt over to the next task
+            Thread.interrupted();
+          }
+        }
+      }
+    };
+    this.taskQueue = queue;
+    this.taskThread = new HydraThread(taskLoop, this, this.myThreadName);
+    this.taskThread.setDaemon(true);
+    this.taskThread.start();
   }
 
  /** 
@@ -480,15 +547,27 @@ private static Class c = RMIHydraSocketFactory.class;
   
   protected void shutdown() {
     log.info( "Shutting down from RemoteTestModule" );
+    BatchedSharedCountersImpl.flushAll();
     // sleep if asked
     int sleepTime = tab().intAt( Prms.finalClientSleepSec );
     if (sleepTime > 0) {
        log.info("Sleeping for " + sleepTime + " seconds.");
        MasterController.sleepForMs(sleepTime * 1000);
     }
+    Log.drainLogWriter();
     System.exit(0);
   }
 
+  private static int getAsyncLogQueueSize() {
+    Long key = LogPrms.file_asyncQueueSize;
+    int val = tab().intAt( key, 10000 );
+    if ( val <= 0 ) {
+      String s = "Illegal value for " + BasePrms.nameForKey( key ) + ": " + val;
+      throw new HydraConfigException( s );
+    }
+    return val;
+  }
+
   //////////////////////////////////////////////////////////////////////////////
   //    ACCESSORS
   //////////////////////////////////////////////////////////////////////////////
@@ -540,6 +619,20 @@ private static Class c = RMIHydraSocketFactory.class;
     }
   }
 
+  /**
+   * Returns the current time in nanoseconds corrected for the clock skew
+   * between this VM and the master, so that timestamps taken in different
+   * VMs can be compared.  Returns {@link NanoTimer#getTime} if there is no
+   * time client.
+   */
+  public static long correctedNanoTime() {
+    if (MyTimeClient != null) {
+      return MyTimeClient.correctedNanoTime();
+    } else {
+      return NanoTimer.getTime();
+    }
+  }
+
   public static void openClockSkewStatistics() {
     if (MyTimeClient != null) {
       MyTimeClient.openStatistics();
@@ -713,7 +806,9 @@ private static Class c = RMIHydraSocketFactory.class;
                                MyLogFileName,
                                tab().booleanAt( LogPrms.file_logging ),
                                tab().stringAt(  LogPrms.file_logLevel ),
-                               tab().intAt(     LogPrms.file_maxKBPerVM ) );
+                               tab().intAt(     LogPrms.file_maxKBPerVM ),
+                               tab().booleanAt( LogPrms.file_async, false ),
+                               getAsyncLogQueueSize() );
 
     // re-log info for this vm
     log.info( ProcessMgr.processAndBuildInfoString() );
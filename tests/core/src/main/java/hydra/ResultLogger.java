@@ -170,6 +170,7 @@ public class ResultLogger {
       err += "no information available\n";
     }
     Log.getLogWriter().severe( err );
+    Log.drainLogWriter();
     err = "THREAD " + Thread.currentThread().getName() + "\n" + err;
     writeErrorFile( err );
     writeHangFile();
@@ -275,7 +276,16 @@ public class ResultLogger {
     String brief = "-DBrief=" +
       TestConfig.tab().booleanAt(PerfReportPrms.generateBriefReport, false);
 
-    cd.getVmDescription().setExtraVMArgs( heap + " " + brief );
+    String extraArgs = heap + " " + brief;
+    String resultStore =
+      TestConfig.tab().stringAt( PerfReportPrms.resultStore, null );
+    if ( resultStore != null ) {
+      resultStore = EnvHelper.expandEnvVars( resultStore );
+      extraArgs += " -DresultStore="
+                 + FileUtil.absoluteFilenameFor( resultStore );
+    }
+
+    cd.getVmDescription().setExtraVMArgs( extraArgs );
 
     int pid = Java.java( cd, "perffmwk.PerfReporter" );
     Log.getLogWriter().info( "Done generating performance report...see "
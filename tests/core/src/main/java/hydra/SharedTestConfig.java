@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package hydra;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import org.apache.geode.LogWriter;
+
+/**
+ *  Writes and reads the compact form of the hydra client {@link TestConfig}.
+ *  The master writes it once, next to <code>testConfig.obj</code>, and each
+ *  client vm maps the file read-only, so the pages are shared by all vms on a
+ *  host.
+ *  <p>
+ *  The file holds one record for the test configuration itself, minus the
+ *  contents of its description maps, plus one record per description.  A
+ *  client vm decodes the first record on startup, and each description only
+ *  when it is first looked up, so most vms never decode most descriptions.
+ *  Descriptions refer to other descriptions by record number, so each one is
+ *  decoded at most once and shared just as it is in the master.
+ *  <p>
+ *  Records use Java serialization, with class descriptors replaced by indexes
+ *  into a class table in the file header, and longer strings by indexes into
+ *  a string table, so that values used by many descriptions are stored and
+ *  decoded once.  The file is only ever read by the build that wrote it.
+ */
+public class SharedTestConfig {
+
+  /** Name of the compact test configuration file */
+  public static final String FILE_NAME = "testConfig.bin";
+
+  private static final int MAGIC = 0x48544346; // HTCF
+  private static final int VERSION = 1;
+
+  /** Record number for a null description */
+  private static final int NULL_RECORD = -1;
+
+  /** Strings at least this long go in the string table */
+  private static final int MIN_TABLE_STRING_LENGTH = 8;
+
+  /** The mapped file */
+  private final ByteBuffer buf;
+
+  /** The class table */
+  private final String[] classNames;
+
+  /** String table positions in the mapped file, and decoded strings */
+  private final int[] stringOffsets;
+  private final String[] strings;
+
+  /** Record positions and lengths in the mapped file */
+  private final int[] offsets;
+  private final int[] lengths;
+
+  /** Decoded records, guarded by this reader */
+  private final Object[] decoded;
+
+  /** Whether each record is being decoded, to detect cyclic references */
+  private final boolean[] decoding;
+
+  private SharedTestConfig(ByteBuffer buf) throws IOException {
+    this.buf = buf;
+    DataInputStream in = new DataInputStream(new BufferInputStream(buf));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a compact test configuration");
+    }
+    this.classNames = new String[in.readInt()];
+    for (int i = 0; i < this.classNames.length; i++) {
+      this.classNames[i] = in.readUTF();
+    }
+    int numStrings = in.readInt();
+    this.stringOffsets = new int[numStrings];
+    for (int i = 0; i < numStrings; i++) {
+      this.stringOffsets[i] = in.readInt();
+    }
+    this.strings = new String[numStrings];
+    int numRecords = in.readInt();
+    this.offsets = new int[numRecords];
+    this.lengths = new int[numRecords];
+    for (int i = 0; i < numRecords; i++) {
+      this.offsets[i] = in.readInt();
+      this.lengths[i] = in.readInt();
+    }
+    int base = buf.limit() - in.available();
+    for (int i = 0; i < numStrings; i++) {
+      this.stringOffsets[i] += base;
+    }
+    for (int i = 0; i < numRecords; i++) {
+      this.offsets[i] += base;
+    }
+    this.decoded = new Object[numRecords];
+    this.decoding = new boolean[numRecords];
+  }
+
+//------------------------------------------------------------------------------
+// Writing
+//------------------------------------------------------------------------------
+
+  /**
+   *  Writes the compact form of the test configuration to the given file,
+   *  replacing it only once it is complete.  Decodes the contents fully first
+   *  to make sure clients can use them, and removes the file if not, in which
+   *  case clients fall back to <code>testConfig.obj</code>.
+   *
+   *  @return true if the file was written.
+   */
+  protected static boolean write(TestConfig tc, String fn) {
+    File file = new File(fn);
+    File tmp = new File(fn + ".tmp");
+    try {
+      // number the records, writing a description in several maps only once
+      List records = new ArrayList();
+      records.add(tc);
+      Map<Object,Integer> refs = new IdentityHashMap();
+      Map<Map,Section> sections = new IdentityHashMap();
+      for (Map m : getDescriptionMaps(tc)) {
+        if (sections.containsKey(m)) {
+          continue;
+        }
+        String[] names = new String[m.size()];
+        int[] numbers = new int[m.size()];
+        int n = 0;
+        for (Iterator i = m.entrySet().iterator(); i.hasNext(); n++) {
+          Map.Entry entry = (Map.Entry)i.next();
+          Object value = entry.getValue();
+          Integer number = (value == null) ? Integer.valueOf(NULL_RECORD)
+                                           : refs.get(value);
+          if (number == null) {
+            number = Integer.valueOf(records.size());
+            records.add(value);
+            refs.put(value, number);
+          }
+          names[n] = (String)entry.getKey();
+          numbers[n] = number.intValue();
+        }
+        sections.put(m, new Section(names, numbers));
+      }
+
+      // write the records, then the string table after them
+      Tables tables = new Tables();
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      int[] offsets = new int[records.size()];
+      int[] lengths = new int[records.size()];
+      for (int i = 0; i < records.size(); i++) {
+        Object record = records.get(i);
+        offsets[i] = data.size();
+        RecordOutputStream out = new RecordOutputStream(data, record,
+                                     sections, refs, tables);
+        out.writeObject(record);
+        out.close();
+        lengths[i] = data.size() - offsets[i];
+      }
+      int[] stringOffsets = new int[tables.strings.size()];
+      DataOutputStream strs = new DataOutputStream(data);
+      for (int i = 0; i < stringOffsets.length; i++) {
+        stringOffsets[i] = data.size();
+        strs.writeUTF(tables.strings.get(i));
+      }
+      strs.flush();
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream hdr = new DataOutputStream(bytes);
+      hdr.writeInt(MAGIC);
+      hdr.writeInt(VERSION);
+      hdr.writeInt(tables.classNames.size());
+      for (String className : tables.classNames) {
+        hdr.writeUTF(className);
+      }
+      hdr.writeInt(stringOffsets.length);
+      for (int i = 0; i < stringOffsets.length; i++) {
+        hdr.writeInt(stringOffsets[i]);
+      }
+      hdr.writeInt(records.size());
+      for (int i = 0; i < records.size(); i++) {
+        hdr.writeInt(offsets[i]);
+        hdr.writeInt(lengths[i]);
+      }
+      hdr.close();
+      data.writeTo(bytes);
+      byte[] contents = bytes.toByteArray();
+
+      // make sure it can be read
+      SharedTestConfig reader = new SharedTestConfig(ByteBuffer.wrap(contents));
+      for (int i = 0; i < records.size(); i++) {
+        reader.get(i);
+      }
+
+      // write the file
+      OutputStream fos = new FileOutputStream(tmp);
+      try {
+        fos.write(contents);
+      } finally {
+        fos.close();
+      }
+      if (!tmp.renameTo(file)) {
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+      }
+      log().info("Wrote compact test configuration with " + refs.size()
+                + " descriptions in " + contents.length + " bytes to " + fn);
+      return true;
+    } catch (Exception e) {
+      log().warning("Unable to write compact test configuration to " + fn
+                   + ", client vms will use the serialized one", e);
+      tmp.delete();
+      file.delete();
+      return false;
+    }
+  }
+
+  /**
+   *  Returns the description maps in the test configuration, that is, the
+   *  maps held in its fields named "...Descriptions".
+   */
+  private static List<Map> getDescriptionMaps(TestConfig tc)
+  throws IllegalAccessException {
+    List<Map> maps = new ArrayList();
+    for (Field field : TestConfig.class.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers())
+          && Map.class.isAssignableFrom(field.getType())
+          && field.getName().endsWith("Descriptions")) {
+        field.setAccessible(true);
+        Map m = (Map)field.get(tc);
+        if (m != null) {
+          maps.add(m);
+        }
+      }
+    }
+    return maps;
+  }
+
+  /**
+   *  The class and string tables built while writing the records.
+   */
+  private static class Tables {
+    final List<String> classNames = new ArrayList();
+    final Map<String,Integer> classIds = new HashMap();
+    final List<String> strings = new ArrayList();
+    final Map<String,Integer> stringIds = new HashMap();
+
+    int classId(String className) {
+      return id(className, this.classNames, this.classIds);
+    }
+
+    int stringId(String str) {
+      return id(str, this.strings, this.stringIds);
+    }
+
+    private static int id(String s, List<String> table, Map<String,Integer> ids) {
+      Integer id = ids.get(s);
+      if (id == null) {
+        id = Integer.valueOf(table.size());
+        table.add(s);
+        ids.put(s, id);
+      }
+      return id.intValue();
+    }
+  }
+
+  /**
+   *  Writes one record, replacing description maps, descriptions other than
+   *  the record itself, and longer strings with tokens, and class descriptors
+   *  with indexes into the class table.
+   */
+  private static class RecordOutputStream extends ObjectOutputStream {
+    private final Object record;
+    private final Map<Map,Section> sections;
+    private final Map<Object,Integer> refs;
+    private final Tables tables;
+
+    RecordOutputStream(OutputStream out, Object record,
+                       Map<Map,Section> sections, Map<Object,Integer> refs,
+                       Tables tables)
+    throws IOException {
+      super(out);
+      this.record = record;
+      this.sections = sections;
+      this.refs = refs;
+      this.tables = tables;
+      enableReplaceObject(true);
+    }
+
+    protected Object replaceObject(Object obj) {
+      if (obj == this.record) {
+        return obj;
+      }
+      if (obj instanceof String) {
+        String s = (String)obj;
+        return s.length() < MIN_TABLE_STRING_LENGTH
+               ? s : new Str(this.tables.stringId(s));
+      }
+      Section section = this.sections.get(obj);
+      if (section != null) {
+        return section;
+      }
+      Integer number = this.refs.get(obj);
+      return number == null ? obj : new Ref(number.intValue());
+    }
+
+    protected void writeClassDescriptor(ObjectStreamClass desc)
+    throws IOException {
+      writeInt(this.tables.classId(desc.getName()));
+    }
+  }
+
+  /** Stands for a description in another record */
+  private static class Ref implements Serializable {
+    final int number;
+    Ref(int number) {
+      this.number = number;
+    }
+  }
+
+  /** Stands for a string in the string table */
+  private static class Str implements Serializable {
+    final int id;
+    Str(int id) {
+      this.id = id;
+    }
+  }
+
+  /** Stands for a description map, holding its keys and record numbers */
+  private static class Section implements Serializable {
+    final String[] names;
+    final int[] numbers;
+    Section(String[] names, int[] numbers) {
+      this.names = names;
+      this.numbers = numbers;
+    }
+  }
+
+//------------------------------------------------------------------------------
+// Reading
+//------------------------------------------------------------------------------
+
+  /**
+   *  Returns the test configuration in the given compact file.  Descriptions
+   *  are decoded as they are looked up.
+   */
+  protected static TestConfig read(String fn) {
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(fn, "r");
+      FileChannel channel = raf.getChannel();
+      MappedByteBuffer buf =
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return (TestConfig)new SharedTestConfig(buf).get(0);
+    } catch (IOException e) {
+      throw new HydraRuntimeException("Unable to read " + fn, e);
+    } finally {
+      if (raf != null) {
+        try {
+          raf.close(); // the mapping stays valid
+        } catch (IOException ignore) {
+        }
+      }
+    }
+  }
+
+  /**
+   *  Returns the contents of the given compact file, for client vms on hosts
+   *  that do not share the master's file system.
+   */
+  protected static byte[] readBytes(String fn) {
+    try {
+      RandomAccessFile raf = new RandomAccessFile(fn, "r");
+      try {
+        byte[] bytes = new byte[(int)raf.length()];
+        raf.readFully(bytes);
+        return bytes;
+      } finally {
+        raf.close();
+      }
+    } catch (IOException e) {
+      throw new HydraRuntimeException("Unable to read " + fn, e);
+    }
+  }
+
+  /**
+   *  Writes contents fetched from the master to the given compact file, unless
+   *  another vm on this host already has, replacing it only once it is
+   *  complete.
+   */
+  protected static void writeBytes(byte[] bytes, String fn) {
+    File file = new File(fn);
+    if (file.exists()) {
+      return;
+    }
+    File tmp = new File(fn + "." + ProcessMgr.getProcessId() + ".tmp");
+    try {
+      OutputStream fos = new FileOutputStream(tmp);
+      try {
+        fos.write(bytes);
+      } finally {
+        fos.close();
+      }
+      if (!tmp.renameTo(file) && !file.exists()) {
+        throw new IOException("Unable to rename " + tmp + " to " + file);
+      }
+    } catch (IOException e) {
+      throw new HydraRuntimeException("Unable to write " + fn, e);
+    } finally {
+      tmp.delete();
+    }
+  }
+
+  /**
+   *  Returns the given record, decoding it if needed.
+   */
+  private synchronized Object get(int number) {
+    if (number == NULL_RECORD) {
+      return null;
+    }
+    Object obj = this.decoded[number];
+    if (obj == null) {
+      if (this.decoding[number]) {
+        String s = "Cyclic test configuration record: " + number;
+        throw new HydraInternalException(s);
+      }
+      this.decoding[number] = true;
+      try {
+        ByteBuffer record = this.buf.duplicate();
+        record.position(this.offsets[number]);
+        record.limit(this.offsets[number] + this.lengths[number]);
+        RecordInputStream in = new RecordInputStream(record);
+        obj = in.readObject();
+        in.close();
+      } catch (IOException e) {
+        String s = "Unable to decode test configuration record: " + number;
+        throw new HydraRuntimeException(s, e);
+      } catch (ClassNotFoundException e) {
+        String s = "Unable to decode test configuration record: " + number;
+        throw new HydraRuntimeException(s, e);
+      } finally {
+        this.decoding[number] = false;
+      }
+      this.decoded[number] = obj;
+    }
+    return obj;
+  }
+
+  /**
+   *  Returns the given string from the string table, decoding it if needed.
+   */
+  private synchronized String getString(int id) throws IOException {
+    String s = this.strings[id];
+    if (s == null) {
+      ByteBuffer str = this.buf.duplicate();
+      str.position(this.stringOffsets[id]);
+      s = new DataInputStream(new BufferInputStream(str)).readUTF();
+      this.strings[id] = s;
+    }
+    return s;
+  }
+
+  /**
+   *  Reads one record, resolving the tokens and class descriptor indexes
+   *  written by {@link RecordOutputStream}.
+   */
+  private class RecordInputStream extends ObjectInputStream {
+
+    RecordInputStream(ByteBuffer buf) throws IOException {
+      super(new BufferInputStream(buf));
+      enableResolveObject(true);
+    }
+
+    protected Object resolveObject(Object obj) throws IOException {
+      if (obj instanceof Str) {
+        return getString(((Str)obj).id);
+      } else if (obj instanceof Ref) {
+        return get(((Ref)obj).number);
+      } else if (obj instanceof Section) {
+        return new DescriptionMap((Section)obj);
+      }
+      return obj;
+    }
+
+    protected ObjectStreamClass readClassDescriptor()
+    throws IOException, ClassNotFoundException {
+      String className = classNames[readInt()];
+      Class cls = Class.forName(className, false,
+                                SharedTestConfig.class.getClassLoader());
+      ObjectStreamClass desc = ObjectStreamClass.lookup(cls);
+      if (desc == null) {
+        throw new InvalidClassException(className, "not serializable");
+      }
+      return desc;
+    }
+  }
+
+  /**
+   *  A description map whose descriptions are decoded as they are looked up.
+   *  Looking up descriptions by name decodes only the description asked for.
+   *  Anything else that needs the descriptions, such as iterating over them,
+   *  decodes all of them first.
+   */
+  private class DescriptionMap extends AbstractMap
+                               implements SortedMap, Serializable {
+    private final Map<String,Integer> numbers = new HashMap();
+    private volatile TreeMap all;
+
+    DescriptionMap(Section section) {
+      for (int i = 0; i < section.names.length; i++) {
+        this.numbers.put(section.names[i],
+                         Integer.valueOf(section.numbers[i]));
+      }
+    }
+
+    private TreeMap all() {
+      synchronized (SharedTestConfig.this) {
+        if (this.all == null) {
+          TreeMap m = new TreeMap();
+          for (Map.Entry<String,Integer> entry : this.numbers.entrySet()) {
+            m.put(entry.getKey(), SharedTestConfig.this.get(
+                                  entry.getValue().intValue()));
+          }
+          this.all = m;
+        }
+        return this.all;
+      }
+    }
+
+    public Object get(Object name) {
+      TreeMap m = this.all;
+      if (m != null) {
+        return m.get(name);
+      }
+      Integer number = this.numbers.get(name);
+      return number == null ? null
+                            : SharedTestConfig.this.get(number.intValue());
+    }
+
+    public boolean containsKey(Object name) {
+      TreeMap m = this.all;
+      return m == null ? this.numbers.containsKey(name) : m.containsKey(name);
+    }
+
+    public int size() {
+      TreeMap m = this.all;
+      return m == null ? this.numbers.size() : m.size();
+    }
+
+    public Object put(Object key, Object value) {
+      return all().put(key, value);
+    }
+
+    public Object remove(Object key) {
+      return all().remove(key);
+    }
+
+    public Set entrySet() {
+      return all().entrySet();
+    }
+
+    public Set keySet() {
+      return all().keySet();
+    }
+
+    public Collection values() {
+      return all().values();
+    }
+
+    public Comparator comparator() {
+      return null;
+    }
+
+    public SortedMap subMap(Object fromKey, Object toKey) {
+      return all().subMap(fromKey, toKey);
+    }
+
+    public SortedMap headMap(Object toKey) {
+      return all().headMap(toKey);
+    }
+
+    public SortedMap tailMap(Object fromKey) {
+      return all().tailMap(fromKey);
+    }
+
+    public Object firstKey() {
+      return all().firstKey();
+    }
+
+    public Object lastKey() {
+      return all().lastKey();
+    }
+
+    /**
+     *  Serializes as an ordinary map, e.g. when a client passes it to master.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+      return new TreeMap(all());
+    }
+  }
+
+  /**
+   *  Reads a byte buffer, without changing the position of the original.
+   */
+  private static class BufferInputStream extends InputStream {
+    private final ByteBuffer buf;
+
+    BufferInputStream(ByteBuffer buf) {
+      this.buf = buf.duplicate();
+    }
+
+    public int read() {
+      return this.buf.hasRemaining() ? this.buf.get() & 0xff : -1;
+    }
+
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!this.buf.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, this.buf.remaining());
+      this.buf.get(b, off, n);
+      return n;
+    }
+
+    public int available() {
+      return this.buf.remaining();
+    }
+  }
+
+  private static LogWriter log() {
+    return Log.getLogWriter();
+  }
+}
@@ -172,20 +172,43 @@ public class TestConfig implements Serializable {
 
   /**
    *  Gets the singleton instance of the test configuration.  Lazily
-   *  deserializes the configuration from a file upon first access.
-   *  Handles {@link Prms#noNFS} case by using master proxy if necessary.
+   *  deserializes the configuration from a file upon first access, preferring
+   *  the compact {@link SharedTestConfig} when the master wrote one.
+   *  Handles {@link Prms#noNFS} case by using master proxy if necessary, and
+   *  leaves the compact configuration in "user.dir" for other vms to map.
    */
   public static synchronized TestConfig getInstance() {
     if ( singleton == null ) {
+      String shared = getTestConfigFilename(SharedTestConfig.FILE_NAME);
       String config = getTestConfigFilename("testConfig.obj");
-      if (config == null) {
-        Log.getLogWriter().info("Deserializing test configuration via master...");
+      if (shared != null) {
+        Log.getLogWriter().info("Mapping shared test configuration...");
+        singleton = SharedTestConfig.read(shared);
+      } else if (config == null) {
+        MasterProxyIF master = RmiRegistryHelper.lookupMaster();
+        byte[] bytes = null;
         try {
-          singleton = RmiRegistryHelper.lookupMaster().getTestConfig();
+          bytes = master.getSharedTestConfig();
         } catch (RemoteException e) {
           String s = "Unable to access master to get test configuration";
           throw new HydraRuntimeException(s, e);
         }
+        if (bytes != null) {
+          // leave it for the other vms on this host
+          shared = System.getProperty("user.dir") + File.separator
+                 + SharedTestConfig.FILE_NAME;
+          Log.getLogWriter().info("Mapping shared test configuration from master...");
+          SharedTestConfig.writeBytes(bytes, shared);
+          singleton = SharedTestConfig.read(shared);
+        } else {
+          Log.getLogWriter().info("Deserializing test configuration via master...");
+          try {
+            singleton = master.getTestConfig();
+          } catch (RemoteException e) {
+            String s = "Unable to access master to get test configuration";
+            throw new HydraRuntimeException(s, e);
+          }
+        }
       } else {
         Log.getLogWriter().info("Deserializing test configuration...");
         singleton = (TestConfig) FileUtil.deserialize(config);
@@ -198,6 +221,14 @@ public class TestConfig implements Serializable {
     Log.getLogWriter().info("Deserializing test configuration...");
     return (TestConfig)FileUtil.deserialize(config);
   }
+  /**
+   * Returns the contents of the shared test configuration file, or null if
+   * the master did not write one.
+   */
+  protected static byte[] getSharedInstanceBytesFromMaster() {
+    String shared = getTestConfigFilename(SharedTestConfig.FILE_NAME);
+    return shared == null ? null : SharedTestConfig.readBytes(shared);
+  }
   /**
    * Returns the path to the given config.  Looks first in "user.dir", and if not
    * found, tries "test.dir" as an alternate to support manual GFMon testing.
@@ -261,6 +292,8 @@ public class TestConfig implements Serializable {
                     .getHostDescription().getUserDir();
     String config = userDir + "/testConfig.obj";
     FileUtil.serialize( singleton, config );
+    SharedTestConfig.write( singleton,
+                            userDir + "/" + SharedTestConfig.FILE_NAME );
     String latest = userDir + "/latest.prop";
     String content = singleton.toString();
     content = content.replace( '\\', '/' );
@@ -2093,9 +2126,8 @@ public class TestConfig implements Serializable {
 		log().error("The port specified: " + port + " is already in use!  Test results will be invalid");
               }
             } else {
-	      // port not specified in test config
-	      port = AvailablePort.getRandomAvailablePort(AvailablePort.JGROUPS,
-                                   addr);
+	      // port not specified in test config, use the port range if any
+	      port = PortHelper.getRandomMcastPort(addr);
             }
             log().info("assigning mcast port: " + port + " to distributed system: " + dsName);
 	    dsMcastPorts.put( dsName, new Integer(port) );
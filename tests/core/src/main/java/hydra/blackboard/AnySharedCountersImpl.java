@@ -265,4 +265,41 @@ public class AnySharedCountersImpl implements SharedCounters {
       default: throw new HydraInternalException( "Illegal transport type: " + this.type );
     }
   }
+  /**
+   *  Implements {@link SharedCounters#flush}.  This is a no-op since updates
+   *  are applied immediately.
+   */
+  public void flush() {
+  }
+  /**
+   *  Implements {@link SharedCounters#waitForSum}.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs ) {
+    switch( this.type ) {
+      case Blackboard.RMI:
+        try {
+          return this.rmicounters.waitForSum( indexes, comparison, value,
+                                              waitMs );
+        } catch( RemoteException e ) {
+          throw new HydraRuntimeException( "Unable to access RMI counters: " + this.name, e );
+        }
+      default: throw new HydraInternalException( "Illegal transport type: " + this.type );
+    }
+  }
+  /**
+   *  Adds each of the <code>deltas</code> to the counter at the same index.
+   */
+  public void addAll( long[] deltas ) {
+    switch( this.type ) {
+      case Blackboard.RMI:
+        try {
+          this.rmicounters.addAll( deltas );
+        } catch( RemoteException e ) {
+          throw new HydraRuntimeException( "Unable to access RMI counters: " + this.name, e );
+        }
+        break;
+      default: throw new HydraInternalException( "Illegal transport type: " + this.type );
+    }
+  }
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package hydra.blackboard;
+
+import hydra.HydraRuntimeException;
+import hydra.Log;
+import hydra.Prms;
+import hydra.TestConfig;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+*
+* Shared counters that combine increments and decrements in a VM-local buffer
+* and apply them to the underlying counters in batches.  See {@link
+* hydra.Prms#batchedBlackboardCounters}.
+* <p>
+* Pending updates are held in a small number of striped cells so that threads
+* in the same VM rarely contend.  They are flushed periodically by a daemon
+* thread, on {@link #flush}, and before any operation that reads or returns a
+* counter value, so a VM always reads its own writes.
+*
+*/
+
+public class BatchedSharedCountersImpl implements SharedCounters {
+
+  /** The batched counters in this VM, mapped by name */
+  private static final Map Instances = new HashMap();
+
+  /** The daemon thread that flushes the batched counters in this VM */
+  private static Thread Flusher;
+
+  private String                name;
+  private AnySharedCountersImpl counters;
+  private int                   numCounters;
+
+  /** Pending deltas, one cell per counter per stripe */
+  private AtomicLongArray[] stripes;
+
+  /** Serializes flushes so batches are applied in order */
+  private final Object flushLock = new Object();
+
+  private BatchedSharedCountersImpl( String name,
+                                     AnySharedCountersImpl counters ) {
+    this.name = name;
+    this.counters = counters;
+    this.numCounters = counters.getCounterValues().length;
+    int numStripes = 1;
+    int numProcs = Runtime.getRuntime().availableProcessors();
+    while ( numStripes < numProcs && numStripes < 16 ) {
+      numStripes <<= 1;
+    }
+    this.stripes = new AtomicLongArray[ numStripes ];
+    for ( int i = 0; i < numStripes; i++ ) {
+      this.stripes[i] = new AtomicLongArray( this.numCounters );
+    }
+  }
+
+  /**
+   *  Returns the batched counters with the given name for this VM, creating
+   *  them on top of the given shared counters if needed.
+   */
+  protected static SharedCounters getInstance( String name,
+                                               SharedCounters counters ) {
+    synchronized( Instances ) {
+      BatchedSharedCountersImpl bsci =
+        (BatchedSharedCountersImpl) Instances.get( name );
+      if ( bsci == null ) {
+        bsci = new BatchedSharedCountersImpl( name,
+                                          (AnySharedCountersImpl) counters );
+        Instances.put( name, bsci );
+        startFlusher();
+        Log.getLogWriter().info( "Batching updates to " + name );
+      }
+      return bsci;
+    }
+  }
+
+  /**
+   *  Flushes all batched counters in this VM.  Invoked by hydra at the end of
+   *  each task.
+   */
+  public static void flushAll() {
+    List instances;
+    synchronized( Instances ) {
+      if ( Instances.size() == 0 ) {
+        return;
+      }
+      instances = new ArrayList( Instances.values() );
+    }
+    for ( Iterator i = instances.iterator(); i.hasNext(); ) {
+      BatchedSharedCountersImpl bsci = (BatchedSharedCountersImpl) i.next();
+      bsci.flush();
+    }
+  }
+
+  /**
+   *  Starts the daemon thread that periodically flushes the batched counters.
+   *  Must be invoked while synchronized on {@link #Instances}.
+   */
+  private static void startFlusher() {
+    if ( Flusher == null ) {
+      final int flushMs = TestConfig.tab().intAt(
+                          Prms.batchedBlackboardCounterFlushMs, 1000 );
+      Flusher = new Thread( new Runnable() {
+        public void run() {
+          while ( true ) {
+            try {
+              Thread.sleep( flushMs );
+              flushAll();
+            } catch( InterruptedException e ) {
+              return;
+            } catch( HydraRuntimeException e ) {
+              // the master might be gone, so just log it
+              Log.getLogWriter().warning( "Unable to flush batched counters",
+                                          e );
+            }
+          }
+        }
+      }, "Batched Blackboard Counter Flusher" );
+      Flusher.setDaemon( true );
+      Flusher.start();
+    }
+  }
+
+  /**
+   *  Returns the stripe of pending deltas used by the current thread.
+   */
+  private AtomicLongArray stripe() {
+    int hash = (int)Thread.currentThread().getId();
+    return this.stripes[ hash & ( this.stripes.length - 1 ) ];
+  }
+
+  /**
+   *  Returns a string describing these counters.
+   */
+  public String toString() {
+    return this.name + "(batched)";
+  }
+
+////////////////////////////////////////////////////////////////////////////////
+////                        SHARED COUNTER INTERFACE                       /////
+////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   *  Implements {@link SharedCounters#flush}.  If the update fails, the
+   *  pending deltas are kept for the next flush.
+   */
+  public void flush() {
+    synchronized( this.flushLock ) {
+      long[] deltas = null;
+      for ( int i = 0; i < this.stripes.length; i++ ) {
+        AtomicLongArray stripe = this.stripes[i];
+        for ( int j = 0; j < this.numCounters; j++ ) {
+          if ( stripe.get( j ) != 0 ) {
+            if ( deltas == null ) {
+              deltas = new long[ this.numCounters ];
+            }
+            deltas[j] += stripe.getAndSet( j, 0 );
+          }
+        }
+      }
+      if ( deltas != null ) {
+        try {
+          this.counters.addAll( deltas );
+        } catch( RuntimeException e ) {
+          // put the deltas back so they are applied by a later flush
+          for ( int j = 0; j < this.numCounters; j++ ) {
+            if ( deltas[j] != 0 ) {
+              this.stripes[0].addAndGet( j, deltas[j] );
+            }
+          }
+          throw e;
+        }
+      }
+    }
+  }
+  /**
+   *  Implements {@link SharedCounters#read(int)}.
+   */
+  public long read( int index ) {
+    flush();
+    return this.counters.read( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#add(int,long)}.  Since this returns the
+   *  new value, it flushes and goes to the master.
+   */
+  public long add( int index, long i ) {
+    flush();
+    return this.counters.add( index, i );
+  }
+  /**
+   *  Implements {@link SharedCounters#subtract(int,long)}.  Since this returns
+   *  the new value, it flushes and goes to the master.
+   */
+  public long subtract( int index, long i ) {
+    flush();
+    return this.counters.subtract( index, i );
+  }
+  /**
+   *  Implements {@link SharedCounters#increment(int)}.  The update is
+   *  batched.
+   */
+  public void increment( int index ) {
+    if ( index < 0 || index >= this.numCounters ) {
+      throw new ArrayIndexOutOfBoundsException( index );
+    }
+    stripe().incrementAndGet( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#decrement(int)}.  The update is
+   *  batched.
+   */
+  public void decrement( int index ) {
+    if ( index < 0 || index >= this.numCounters ) {
+      throw new ArrayIndexOutOfBoundsException( index );
+    }
+    stripe().decrementAndGet( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#incrementAndRead(int)}.
+   */
+  public long incrementAndRead( int index ) {
+    flush();
+    return this.counters.incrementAndRead( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#decrementAndRead(int)}.
+   */
+  public long decrementAndRead( int index ) {
+    flush();
+    return this.counters.decrementAndRead( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#zero(int)}.
+   */
+  public void zero( int index ) {
+    flush();
+    this.counters.zero( index );
+  }
+  /**
+   *  Implements {@link SharedCounters#setIfLarger(int,long)}.
+   */
+  public void setIfLarger( int index, long i ) {
+    flush();
+    this.counters.setIfLarger( index, i );
+  }
+  /**
+   *  Implements {@link SharedCounters#setIfSmaller(int,long)}.
+   */
+  public void setIfSmaller( int index, long i ) {
+    flush();
+    this.counters.setIfSmaller( index, i );
+  }
+  /**
+   *  Implements {@link SharedCounters#getCounterValues}.
+   */
+  public long[] getCounterValues() {
+    flush();
+    return this.counters.getCounterValues();
+  }
+  /**
+   *  Implements {@link SharedCounters#waitForSum}.  Flushes first, so the
+   *  wait sees updates from this VM.  Updates batched by other VMs are seen
+   *  as they are flushed.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs ) {
+    flush();
+    return this.counters.waitForSum( indexes, comparison, value, waitMs );
+  }
+}
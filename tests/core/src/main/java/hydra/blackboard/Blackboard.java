@@ -138,9 +138,23 @@ public abstract class Blackboard {
         invoke(classname, methodname, types, args);
       }
       this.sharedCounters = AnySharedCountersImpl.lookup( this.sharedCountersName, this.type );
+      if ( useBatchedCounters() ) {
+        this.sharedCounters = BatchedSharedCountersImpl.getInstance( this.sharedCountersName, this.sharedCounters );
+      }
     }
     return this.sharedCounters;
   }
+  /**
+   *  Returns true if this is a client VM and the counters for this blackboard
+   *  are configured in {@link Prms#batchedBlackboardCounters}.
+   */
+  protected boolean useBatchedCounters() {
+    if ( this.type != RMI || RemoteTestModule.Master == null ) {
+      return false;
+    }
+    Vector names = TestConfig.tab().vecAt( Prms.batchedBlackboardCounters, null );
+    return names != null && names.contains( this.name );
+  }
   /**
    *  Returns the index of the sharedCounter for the given shared counter name.
    *
@@ -80,4 +80,16 @@ public interface RmiSharedCounters extends Remote {
    */
   public long[] getCounterValues() throws RemoteException;
 
+  /**
+   *  Adds each of the <code>deltas</code> to the counter at the same index.
+   *  Used by {@link BatchedSharedCountersImpl} to apply a batch of updates
+   *  in one remote call.
+   */
+  public void addAll( long[] deltas ) throws RemoteException;
+
+  /**
+   *  RMI version of {@link SharedCounters#waitForSum(int[],int,long,long)}.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs ) throws RemoteException;
 }
@@ -34,9 +34,22 @@ public class RmiSharedCountersImpl extends UnicastRemoteObject implements RmiSha
 
   private SharedCounters counters;
 
+  /** One lock per counter, so updates to different counters do not contend */
+  private Object[] locks;
+
+  /** Signaled on updates while there are threads in {@link #waitForSum} */
+  private final Object waitLock = new Object();
+
+  /** The number of threads in {@link #waitForSum} */
+  private volatile int numWaiters = 0;
+
   public RmiSharedCountersImpl( long[] initialValues ) throws RemoteException {
     super();
     this.counters = new SharedCountersImpl( initialValues );
+    this.locks = new Object[ initialValues.length ];
+    for ( int i = 0; i < this.locks.length; i++ ) {
+      this.locks[i] = new Object();
+    }
   }
   protected static void bind( String name, RmiSharedCounters value ) {
     RmiRegistryHelper.bindInMaster(name, value);
@@ -62,7 +75,7 @@ public class RmiSharedCountersImpl extends UnicastRemoteObject implements RmiSha
    *  Implements {@link RmiSharedCounters#read(int)}.
    */
   public long read( int index ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       return counters.read( index );
     }
   }
@@ -70,80 +83,175 @@ public class RmiSharedCountersImpl extends UnicastRemoteObject implements RmiSha
    *  Implements {@link RmiSharedCounters#add(int,long)}.
    */
   public long add( int index, long i ) throws RemoteException {
-    synchronized( counters ) {
-      return counters.add( index, i );
+    long result;
+    synchronized( this.locks[index] ) {
+      result = counters.add( index, i );
     }
+    signalWaiters();
+    return result;
   }
   /**
    *  Implements {@link RmiSharedCounters#subtract(int,long)}.
    */
   public long subtract( int index, long i ) throws RemoteException {
-    synchronized( counters ) {
-      return counters.subtract( index, i );
+    long result;
+    synchronized( this.locks[index] ) {
+      result = counters.subtract( index, i );
     }
+    signalWaiters();
+    return result;
   }
   /**
    *  Implements {@link RmiSharedCounters#increment(int)}.
    */
   public void increment( int index ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       counters.increment( index );
     }
+    signalWaiters();
   }
   /**
    *  Implements {@link RmiSharedCounters#decrement(int)}.
    */
   public void decrement( int index ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       counters.decrement( index );
     }
+    signalWaiters();
   }
   /**
    *  Implements {@link RmiSharedCounters#incrementAndRead(int)}.
    */
   public long incrementAndRead( int index ) throws RemoteException {
-    synchronized( counters ) {
-      return counters.incrementAndRead( index );
+    long result;
+    synchronized( this.locks[index] ) {
+      result = counters.incrementAndRead( index );
     }
+    signalWaiters();
+    return result;
   }
   /**
    *  Implements {@link RmiSharedCounters#decrementAndRead(int)}.
    */
   public long decrementAndRead( int index ) throws RemoteException {
-    synchronized( counters ) {
-      return counters.decrementAndRead( index );
+    long result;
+    synchronized( this.locks[index] ) {
+      result = counters.decrementAndRead( index );
     }
+    signalWaiters();
+    return result;
   }
   /**
    *  Implements {@link RmiSharedCounters#zero(int)}.
    */
   public void zero( int index ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       counters.zero( index );
     }
+    signalWaiters();
   }
   /**
    *  Implements {@link RmiSharedCounters#setIfLarger(int,long)}.
    */
   public void setIfLarger( int index, long i ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       counters.setIfLarger( index, i );
     }
+    signalWaiters();
   }
   /**
    *  Implements {@link RmiSharedCounters#setIfSmaller(int,long)}.
    */
   public void setIfSmaller( int index, long i ) throws RemoteException {
-    synchronized( counters ) {
+    synchronized( this.locks[index] ) {
       counters.setIfSmaller( index, i );
     }
+    signalWaiters();
   }
   /**
    *  Implements {@link RmiSharedCounters#getCounterValues}.
    */
   public long[] getCounterValues() throws RemoteException {
-    synchronized( counters ) {
-      return counters.getCounterValues();
+    long[] values = new long[ this.locks.length ];
+    for ( int i = 0; i < values.length; i++ ) {
+      synchronized( this.locks[i] ) {
+        values[i] = counters.read( i );
+      }
+    }
+    return values;
+  }
+  /**
+   *  Implements {@link RmiSharedCounters#addAll(long[])}.
+   */
+  public void addAll( long[] deltas ) throws RemoteException {
+    for ( int i = 0; i < deltas.length; i++ ) {
+      if ( deltas[i] != 0 ) {
+        synchronized( this.locks[i] ) {
+          counters.add( i, deltas[i] );
+        }
+      }
+    }
+    signalWaiters();
+  }
+  /**
+   *  Implements {@link RmiSharedCounters#waitForSum(int[],int,long,long)}.
+   *  The calling thread waits in the master until an update satisfies the
+   *  condition, rather than the client polling with repeated reads.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs ) throws RemoteException {
+    long deadline = System.currentTimeMillis() + waitMs;
+    boolean interrupted = false;
+    synchronized( this.waitLock ) {
+      ++this.numWaiters;
+      try {
+        while ( true ) {
+          long sum = sum( indexes );
+          if ( SharedCountersImpl.satisfies( sum, comparison, value ) ) {
+            return sum;
+          }
+          long remainingMs = deadline - System.currentTimeMillis();
+          if ( remainingMs <= 0 ) {
+            return sum;
+          }
+          try {
+            this.waitLock.wait( remainingMs );
+          } catch( InterruptedException e ) {
+            interrupted = true;
+            return sum( indexes );
+          }
+        }
+      } finally {
+        --this.numWaiters;
+        if ( interrupted ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+  /**
+   *  Returns the sum of the counters at the given indexes.
+   */
+  private long sum( int[] indexes ) {
+    long sum = 0;
+    for ( int i = 0; i < indexes.length; i++ ) {
+      synchronized( this.locks[ indexes[i] ] ) {
+        sum += counters.read( indexes[i] );
+      }
+    }
+    return sum;
+  }
+  /**
+   *  Wakes up any threads in {@link #waitForSum} to check their conditions.
+   *  Invoked after each update, outside the counter lock.  A waiter checks
+   *  its condition while holding the wait lock, so it either sees the update
+   *  or is already waiting when this signals.
+   */
+  private void signalWaiters() {
+    if ( this.numWaiters > 0 ) {
+      synchronized( this.waitLock ) {
+        this.waitLock.notifyAll();
+      }
     }
   }
 }
@@ -19,6 +19,12 @@ package hydra.blackboard;
 
 public interface SharedCounters {
 
+  /** Comparison for {@link #waitForSum}: the sum equals the value */
+  public static final int EQUALS = 0;
+
+  /** Comparison for {@link #waitForSum}: the sum is at least the value */
+  public static final int AT_LEAST = 1;
+
   /**
    *  Returns the current value of the counter at index.
    */
@@ -77,4 +83,27 @@ public interface SharedCounters {
    *  Returns the values of the counters in an array.
    */
   public long[] getCounterValues();
+
+  /**
+   *  Pushes any updates made by this VM that have not yet been applied to the
+   *  shared counters.  This is a no-op unless the counters are batched (see
+   *  {@link hydra.Prms#batchedBlackboardCounters}).  Reads through this
+   *  interface always see prior updates from the same VM, but updates from
+   *  other VMs are only guaranteed to be visible once those VMs have flushed.
+   */
+  public void flush();
+
+  /**
+   *  Waits until the sum of the counters at <code>indexes</code> compares to
+   *  <code>value</code> as given by <code>comparison</code> ({@link #EQUALS}
+   *  or {@link #AT_LEAST}), or until <code>waitMs</code> milliseconds have
+   *  passed, whichever comes first.  The wait takes place where the counters
+   *  are kept, which is signaled on each update, so the caller makes one
+   *  call rather than polling.  The caller must check the returned sum to
+   *  tell whether the condition was met.
+   *
+   *  @return the sum of the counters when the wait ended.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs );
 }
@@ -17,6 +17,8 @@
 
 package hydra.blackboard;
 
+import hydra.HydraInternalException;
+
 //import java.util.*;
 
 /**
@@ -112,4 +114,33 @@ public class SharedCountersImpl implements SharedCounters {
   public long[] getCounterValues() {
     return this.counters;
   }
+  /**
+   *  Implements {@link SharedCounters#flush}.  This is a no-op since updates
+   *  are applied immediately.
+   */
+  public void flush() {
+  }
+  /**
+   *  Implements {@link SharedCounters#waitForSum}.  Since instances are not
+   *  thread-safe, this does not wait, but returns the current sum.
+   */
+  public long waitForSum( int[] indexes, int comparison, long value,
+                          long waitMs ) {
+    long sum = 0;
+    for ( int i = 0; i < indexes.length; i++ ) {
+      sum += counters[ indexes[i] ];
+    }
+    return sum;
+  }
+  /**
+   *  Answers whether the sum compares to the value as given by the comparison
+   *  ({@link SharedCounters#EQUALS} or {@link SharedCounters#AT_LEAST}).
+   */
+  protected static boolean satisfies( long sum, int comparison, long value ) {
+    switch( comparison ) {
+      case EQUALS:   return sum == value;
+      case AT_LEAST: return sum >= value;
+      default: throw new HydraInternalException( "Illegal comparison: " + comparison );
+    }
+  }
 }
@@ -20,6 +20,7 @@ package hydra.log;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 
 import org.apache.geode.LogWriter;
@@ -43,6 +44,7 @@ public class AnyLogWriter implements LogWriter, LogWriterI18n {
   private boolean FILE_LOGGING;
 //  private String filePrefix;
   private LogWriter file;
+  private AsyncOutputStream async;
 
   /**
    *  Create a log writer to stdout.
@@ -104,6 +106,25 @@ public class AnyLogWriter implements LogWriter, LogWriterI18n {
    */
   public AnyLogWriter( String filePrefix, boolean fileLogging,
                        String fileLogLevelName, int fileMaxKBPerVM ) {
+    this( filePrefix, fileLogging, fileLogLevelName, fileMaxKBPerVM,
+          false, 0 );
+  }
+
+  /**
+   *  Create a log writer to a file.  May be circular.  May write to the file
+   *  asynchronously, in which case callers should {@link #drain} the writer
+   *  at points where the log must be complete.
+   *  @param filePrefix the prefix for names of files created by this logwriter.
+   *  @param fileLogging turn on logging to the file.
+   *  @param fileLogLevelName name of the file log level.
+   *  @param fileMaxKBPerVM the maximum size of the file log per VM, in kilobytes .
+   *  @param fileAsync write to the file asynchronously.
+   *  @param fileAsyncQueueSize the maximum number of writes waiting to be
+   *                            written when asynchronous.
+   */
+  public AnyLogWriter( String filePrefix, boolean fileLogging,
+                       String fileLogLevelName, int fileMaxKBPerVM,
+                       boolean fileAsync, int fileAsyncQueueSize ) {
 
 //    this.filePrefix = filePrefix;
     if ( fileLogging ) {
@@ -118,9 +139,25 @@ public class AnyLogWriter implements LogWriter, LogWriterI18n {
       } catch( IOException e ) {
         throw new HydraRuntimeException( "Unable to create " + fn, e );
       }
+      OutputStream os = cos;
+      if ( fileAsync ) {
+        this.async = new AsyncOutputStream( cos, fileAsyncQueueSize,
+                                            "Async Log Writer for " + fn );
+        os = this.async;
+      }
       // create a local log writer using the circular file
       int level = LogWriterImpl.levelNameToCode( fileLogLevelName );
-      this.file = new LocalLogWriter( level, new PrintStream( cos ) );
+      this.file = new LocalLogWriter( level, new PrintStream( os ) );
+    }
+  }
+
+  /**
+   *  Waits until all messages logged so far have been written to the file,
+   *  if this writer writes asynchronously.  Otherwise returns immediately.
+   */
+  public void drain() {
+    if ( this.async != null ) {
+      this.async.drain();
     }
   }
 
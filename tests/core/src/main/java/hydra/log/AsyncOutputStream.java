@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package hydra.log;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ *  Implements an output stream that hands the bytes written to it to a single
+ *  writer thread, which writes them to the underlying stream in batches and
+ *  flushes it after each batch.  Writers block only when the bounded queue is
+ *  full, so no bytes are ever dropped.
+ *  <p>
+ *  Since the writer thread flushes on its own, {@link #flush} returns without
+ *  waiting.  Use {@link #drain} to wait until everything written so far has
+ *  reached the underlying stream.  The stream also drains itself from a
+ *  shutdown hook when the VM exits.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+  /** The maximum number of chunks written per batch */
+  private static final int MAX_BATCH_SIZE = 1024;
+
+  /** The maximum time the shutdown hook waits for the stream to drain */
+  private static final long SHUTDOWN_DRAIN_MS = 10000;
+
+  private final OutputStream out;
+  private final BlockingQueue queue;
+  private final Thread writer;
+
+  /** The number of chunks queued, guarded by this stream */
+  private long queued = 0;
+
+  /** The number of chunks written, guarded by {@link #writtenLock} */
+  private long written = 0;
+  private final Object writtenLock = new Object();
+
+  /** The first failure writing to the underlying stream, if any */
+  private volatile IOException failure;
+
+  private volatile boolean closed = false;
+
+  /**
+   *  Constructs a new asynchronous output stream.
+   *  @param out the stream to write to.
+   *  @param queueSize the maximum number of writes waiting to be written.
+   *  @param name the name of the writer thread.
+   */
+  public AsyncOutputStream( OutputStream out, int queueSize, String name ) {
+    if ( queueSize <= 0 ) {
+      throw new IllegalArgumentException( "Illegal queue size: " + queueSize );
+    }
+    this.out = out;
+    this.queue = new ArrayBlockingQueue( queueSize );
+    this.writer = new Thread( name ) {
+      public void run() {
+        writeBatches();
+      }
+    };
+    this.writer.setDaemon( true );
+    this.writer.start();
+    Runtime.getRuntime().addShutdownHook( new Thread( name + " Drainer" ) {
+      public void run() {
+        drain( SHUTDOWN_DRAIN_MS );
+      }
+    });
+  }
+
+  /**
+   *  Implements {@link java.io.OutputStream#write(byte[],int,int)}.
+   */
+  @Override
+  public synchronized void write( byte[] b, int off, int len )
+  throws IOException {
+    checkFailure();
+    byte[] chunk = new byte[len];
+    System.arraycopy( b, off, chunk, 0, len );
+    enqueue( chunk );
+  }
+
+  /**
+   *  Implements {@link java.io.OutputStream#write(int)}.
+   */
+  @Override
+  public synchronized void write( int b ) throws IOException {
+    checkFailure();
+    enqueue( new byte[] { (byte)b } );
+  }
+
+  /**
+   *  Implements {@link java.io.OutputStream#flush}.  Returns without waiting,
+   *  since the writer thread flushes after each batch.
+   */
+  @Override
+  public void flush() throws IOException {
+    checkFailure();
+  }
+
+  /**
+   *  Implements {@link java.io.OutputStream#close}.  Drains the stream, then
+   *  closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    drain();
+    this.closed = true;
+    this.writer.interrupt();
+    this.out.close();
+    checkFailure();
+  }
+
+  /**
+   *  Waits until everything written to this stream before the call has been
+   *  written to the underlying stream and flushed.
+   */
+  public void drain() {
+    drain( 0 );
+  }
+
+  /**
+   *  Waits up to the given number of milliseconds, or forever if 0, until
+   *  everything written to this stream before the call has been written to
+   *  the underlying stream and flushed.
+   *  @return true if the stream was drained.
+   */
+  public boolean drain( long timeoutMs ) {
+    long target;
+    synchronized( this ) {
+      target = this.queued;
+    }
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    boolean interrupted = false;
+    try {
+      synchronized( this.writtenLock ) {
+        while ( this.written < target && this.writer.isAlive() ) {
+          long waitMs = 0;
+          if ( timeoutMs > 0 ) {
+            waitMs = deadline - System.currentTimeMillis();
+            if ( waitMs <= 0 ) {
+              return false;
+            }
+          }
+          try {
+            this.writtenLock.wait( waitMs );
+          } catch( InterruptedException e ) {
+            interrupted = true;
+          }
+        }
+        return this.written >= target;
+      }
+    } finally {
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   *  Queues the chunk for the writer thread, waiting for space if needed.
+   *  Invoked while synchronized on this stream, so chunks are counted in the
+   *  order they are queued.
+   */
+  private void enqueue( byte[] chunk ) throws IOException {
+    if ( this.closed ) {
+      throw new IOException( "Stream is closed" );
+    }
+    boolean interrupted = false;
+    while ( true ) {
+      try {
+        this.queue.put( chunk );
+        break;
+      } catch( InterruptedException e ) {
+        interrupted = true;
+      }
+    }
+    ++this.queued;
+    if ( interrupted ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   *  Writes queued chunks to the underlying stream in batches until closed.
+   *  After a failure, keeps consuming chunks so that writers and drainers do
+   *  not block, and reports the failure on the next write.
+   */
+  private void writeBatches() {
+    List batch = new ArrayList( MAX_BATCH_SIZE );
+    while ( ! this.closed ) {
+      try {
+        batch.add( this.queue.take() );
+      } catch( InterruptedException e ) {
+        continue; // check for close
+      }
+      this.queue.drainTo( batch, MAX_BATCH_SIZE - 1 );
+      if ( this.failure == null ) {
+        try {
+          for ( int i = 0; i < batch.size(); i++ ) {
+            this.out.write( (byte[])batch.get( i ) );
+          }
+          this.out.flush();
+        } catch( IOException e ) {
+          this.failure = e;
+        }
+      }
+      synchronized( this.writtenLock ) {
+        this.written += batch.size();
+        this.writtenLock.notifyAll();
+      }
+      batch.clear();
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    IOException e = this.failure;
+    if ( e != null ) {
+      throw new IOException( "Unable to write asynchronously", e );
+    }
+  }
+}
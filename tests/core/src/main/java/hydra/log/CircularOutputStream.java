@@ -17,10 +17,23 @@
 package hydra.log;
 
 import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  *  Implements a circular output stream with an upper limit on the number of bytes
  *  it contains.
+ *  <p>
+ *  When the stream is rolling, the file is memory-mapped at its full size
+ *  and a marker character follows the most recently written byte, so the
+ *  oldest bytes are the ones just after the marker.  A write copies into the
+ *  mapping and moves the marker, with no system calls.  The operating system
+ *  writes the pages back on its own schedule, so the log is readable after
+ *  the VM crashes, and {@link #close} forces it to disk.  Since the file is
+ *  mapped at its full size, the part of it that has not yet been written
+ *  holds zeroes until {@link #close} truncates the file to the bytes
+ *  actually written and releases the mapping.
  */
 public class CircularOutputStream extends OutputStream {
   
@@ -31,6 +44,16 @@ public class CircularOutputStream extends OutputStream {
   boolean rolling = false;
   RandomAccessFile raf;
 
+  /** The mapped file, when rolling */
+  MappedByteBuffer buffer;
+
+  /** The position of the marker in the mapped file */
+  int pos = 0;
+
+  /** The number of bytes at the start of the mapped file that have been
+   *  written, including the marker */
+  int highWater = 0;
+
   /**
    *  Constructs a new circular output stream.
    *  @param name the name of the output stream.
@@ -49,25 +72,45 @@ public class CircularOutputStream extends OutputStream {
       throw new IOException( "Unable to create stream named " + name );
     }
     if ( this.rolling ) {
+      this.buffer = this.raf.getChannel()
+                        .map( FileChannel.MapMode.READ_WRITE, 0, maxBytes );
       // write the initial marker
-      this.raf.write( marker );
+      this.buffer.put( this.pos, marker );
+      this.highWater = 1;
     }
   }
   /**
    *  Implements {@link java.io.OutputStream#close}.
    */
-  /*
-  public void close() {
+  @Override
+  public void close() throws IOException {
+    if ( this.buffer != null ) {
+      this.buffer.force();
+      unmap( this.buffer );
+      this.buffer = null;
+      // drop the zeroes past the last byte written if the log never wrapped
+      if ( this.highWater < this.maxBytes ) {
+        this.raf.setLength( this.highWater );
+      }
+    }
     this.raf.close();
   }
-  */
   /**
-   *  Implements {@link java.io.OutputStream#flush}.
+   *  Releases the given mapping now rather than when it is garbage collected,
+   *  if the JDK allows it.  The buffer must not be used afterwards.
    */
-  /*
-  public void flush() {
+  private static void unmap( MappedByteBuffer mapped ) {
+    try {
+      Method cleanerMethod = mapped.getClass().getMethod( "cleaner" );
+      cleanerMethod.setAccessible( true );
+      Object cleaner = cleanerMethod.invoke( mapped );
+      if ( cleaner != null ) {
+        cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+      }
+    } catch( Exception e ) {
+      // leave it to the garbage collector
+    }
   }
-  */
   /**
    *  Implements {@link java.io.OutputStream#write(byte[])}.
    */
@@ -81,23 +124,20 @@ public class CircularOutputStream extends OutputStream {
   @Override
   public void write( byte[] b, int off, int len ) throws IOException {
     if ( this.rolling ) {
-      // back over marker character
-      long fptr = this.raf.getFilePointer() - 1;
-      this.raf.seek( fptr );
-      // write bytes
-      int space = (int)( this.maxBytes - fptr );
-      if ( len <= space ) {
-        this.raf.write( b, off, len );
-      } else {
-        this.raf.write( b, off, space );
-        this.raf.seek(0);
-        this.raf.write( b, off + space, len - space );
+      // write bytes over the marker, wrapping around as needed
+      while ( len > 0 ) {
+        int n = Math.min( len, this.maxBytes - this.pos );
+        this.buffer.position( this.pos );
+        this.buffer.put( b, off, n );
+        off += n;
+        len -= n;
+        this.pos += n;
+        if ( this.pos == this.maxBytes )
+          this.pos = 0;
+        this.highWater = Math.max( this.highWater, this.pos == 0 ? this.maxBytes : this.pos + 1 );
       }
-      // wrap around if landed at the end
-      if ( this.raf.getFilePointer() == this.maxBytes )
-        this.raf.seek(0);
       // write marker character
-      this.raf.write( marker );
+      this.buffer.put( this.pos, marker );
     } else {
       this.raf.write( b, off, len );
     }
@@ -107,16 +147,18 @@ public class CircularOutputStream extends OutputStream {
    */
   @Override
   public void write( int b ) throws IOException {
-    // back over marker character
-    long fptr = this.raf.getFilePointer() - 1;
-    this.raf.seek( fptr );
-    // write byte
-    this.raf.writeByte( b );
-    // wrap around if landed at the end
-    if ( this.raf.getFilePointer() == this.maxBytes )
-      this.raf.seek(0);
-    // write marker character
-    this.raf.write( marker );
+    if ( this.rolling ) {
+      // write byte over the marker
+      this.buffer.put( this.pos, (byte)b );
+      // wrap around if landed at the end
+      if ( ++this.pos == this.maxBytes )
+        this.pos = 0;
+      this.highWater = Math.max( this.highWater, this.pos == 0 ? this.maxBytes : this.pos + 1 );
+      // write marker character
+      this.buffer.put( this.pos, marker );
+    } else {
+      this.raf.write( b );
+    }
   }
 
   public static void main( String[] args ) throws IOException {
@@ -52,6 +52,25 @@ public class LogPrms extends BasePrms {
      */
     public static Long file_maxKBPerVM;
 
+    /**
+     *  (boolean)
+     *  Whether client VMs write their task logs asynchronously.  When true,
+     *  log messages are formatted by the logging thread, then queued for a
+     *  single writer thread that writes them to the file in batches, so that
+     *  threads do not wait on disk I/O.  The queue is drained at the end of
+     *  each task, when a hang is reported, and when the VM exits, so no
+     *  messages are lost.  Default is false.
+     */
+    public static Long file_async;
+
+    /**
+     *  (int)
+     *  Maximum number of writes waiting in the queue when {@link #file_async}
+     *  is true.  Logging threads wait when the queue is full.  Default is
+     *  10000.  Must be positive.
+     */
+    public static Long file_asyncQueueSize;
+
     /**
      *  (String)
      *  Whether to create a merged log file after the test run.
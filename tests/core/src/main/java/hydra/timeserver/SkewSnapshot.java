@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package hydra.timeserver;
+
+/**
+ * An immutable estimate of the clock skew between this VM and the time
+ * server, published by {@link TimeClient} each time it is updated.  Readers
+ * get a consistent skew, drift, and reference time from a single volatile
+ * read, without locking.
+ * <p>
+ * The skew is the local time minus the server time, in nanoseconds, at the
+ * reference time.  The drift is the rate at which the skew changes, in
+ * nanoseconds per nanosecond, and is used to extrapolate the skew between
+ * updates.
+ */
+public class SkewSnapshot {
+
+  private final long skew;
+  private final double drift;
+  private final long referenceTime;
+  private final long networkLatency;
+
+  public SkewSnapshot(long skew, double drift, long referenceTime,
+                      long networkLatency) {
+    this.skew = skew;
+    this.drift = drift;
+    this.referenceTime = referenceTime;
+    this.networkLatency = networkLatency;
+  }
+
+  /** Returns the skew at the reference time, in nanoseconds */
+  public long getSkew() {
+    return this.skew;
+  }
+
+  /** Returns the drift, in nanoseconds of skew per nanosecond */
+  public double getDrift() {
+    return this.drift;
+  }
+
+  /** Returns the local time at which the skew was measured */
+  public long getReferenceTime() {
+    return this.referenceTime;
+  }
+
+  /** Returns the one-way network latency of the measurement */
+  public long getNetworkLatency() {
+    return this.networkLatency;
+  }
+
+  /**
+   * Returns the skew extrapolated to the given local time.
+   */
+  public long skewAt(long localTime) {
+    return this.skew + (long)(this.drift * (localTime - this.referenceTime));
+  }
+
+  /**
+   * Returns the server time corresponding to the given local time.
+   */
+  public long toServerTime(long localTime) {
+    return localTime - skewAt(localTime);
+  }
+
+  public String toString() {
+    return "skew=" + this.skew + " drift=" + this.drift
+         + " latency=" + this.networkLatency;
+  }
+}
@@ -21,7 +21,6 @@ import hydra.Log;
 import hydra.timeserver.TimeProtocolHandler.SkewData;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.net.SocketTimeoutException;
 
 import org.apache.geode.SystemFailure;
@@ -30,6 +29,14 @@ import org.apache.geode.internal.NanoTimer;
 /**
  * A thread that fetches the time from the time server on the specified host
  * and port with the given frequency.
+ * <p>
+ * The skew is estimated from windows of samples.  Round trips that are
+ * delayed by network jitter, garbage collection, or scheduling only ever make
+ * a sample less accurate, so each window uses the sample with the smallest
+ * round trip, as NTP's clock filter does.  Successive estimates give the
+ * drift between the clocks, which is smoothed and used to extrapolate the
+ * skew between updates.  Each update is published as an immutable {@link
+ * SkewSnapshot}, so readers such as latency listeners never lock.
  */
 public class TimeClient extends Thread {
 
@@ -39,16 +46,30 @@ public class TimeClient extends Thread {
   private final int latencyThresholdMs; //threshold to filter out round trips which are too high (due to network jitter, gc, etc).
   private final int samplesToAverage; //number of requests to make before setting the clock skew.
   
+  /** minimum time between estimates used to compute the drift */
+  private static final long MIN_DRIFT_INTERVAL_NS = 1000000000L;
+
+  /** the largest drift believed, 500 ppm as in NTP */
+  private static final double MAX_DRIFT = 500e-6;
+
+  /** weight of the newest drift sample in the smoothed drift is 1/this */
+  private static final int DRIFT_SMOOTHING = 4;
+
   ClockSkewStats statistics;
 
-  // current skew between this host and the server
-  private long clockSkew = Long.MAX_VALUE;
-  private long networkLatency = Long.MAX_VALUE;
-  /** big integer is required because the sum can be greater than Long.MAX_VALUE
-    * and we need full precision */
-  public BigInteger skewSum = BigInteger.valueOf(0);
-  public long networkLatencySum = 0;
-  public long packetCount = 0;
+  // current skew estimate, null until the first window is complete, volatile
+  // so that readers need not synchronize on every event
+  private volatile SkewSnapshot snapshot;
+
+  // the sample with the smallest round trip in the current window
+  private SkewData bestSample;
+  private int windowCount = 0;
+
+  // the previous estimate, for computing the drift
+  private long lastSkew;
+  private long lastReferenceTime;
+  private boolean haveDrift = false;
+  private double drift = 0;
   
   public TimeClient(String host, int port, int frequencyMs, int latencyThresholdMs, int samplesToAverage) throws IOException {
     super("TimeClient");
@@ -63,25 +84,92 @@ public class TimeClient extends Thread {
     return this.frequencyMs;
   }
   
-  public synchronized long getClockSkew() {
-    return this.clockSkew;
+  /**
+   * Returns the current skew estimate, or null if there is none yet.
+   */
+  public SkewSnapshot getSkewSnapshot() {
+    return this.snapshot;
   }
-  
-  public synchronized long getNetworkLatency() {
-    return this.networkLatency;
-    
+
+  /**
+   * Returns the current skew in nanoseconds, or Long.MAX_VALUE if there is
+   * no estimate yet.
+   */
+  public long getClockSkew() {
+    SkewSnapshot s = this.snapshot;
+    return s == null ? Long.MAX_VALUE : s.skewAt(NanoTimer.getTime());
   }
-  
-  private synchronized void setClockSkew(long skew, long networkLatency) {
-    boolean initialization = this.clockSkew == Long.MAX_VALUE;
-    this.clockSkew = skew;
-    this.networkLatency = networkLatency;
+
+  /**
+   * Returns the one-way network latency of the current skew estimate in
+   * nanoseconds, or Long.MAX_VALUE if there is no estimate yet.
+   */
+  public long getNetworkLatency() {
+    SkewSnapshot s = this.snapshot;
+    return s == null ? Long.MAX_VALUE : s.getNetworkLatency();
+  }
+
+  /**
+   * Returns the current time in nanoseconds on the time server's clock, as
+   * estimated from the local clock.  Returns the local time if there is no
+   * estimate yet.
+   */
+  public long correctedNanoTime() {
+    long now = NanoTimer.getTime();
+    SkewSnapshot s = this.snapshot;
+    return s == null ? now : s.toServerTime(now);
+  }
+
+  /**
+   * Adds a sample to the current window, and publishes a new estimate when
+   * the window is complete.
+   */
+  private void addSample(SkewData sample) {
+    if (this.bestSample == null
+        || sample.getLatency() < this.bestSample.getLatency()) {
+      this.bestSample = sample;
+    }
+    if (++this.windowCount < this.samplesToAverage) {
+      return;
+    }
+    long skew = this.bestSample.getSkew();
+    long referenceTime = this.bestSample.getLocalStartTime()
+                       + this.bestSample.getLatency();
+    long latency = this.bestSample.getLatency();
+    this.bestSample = null;
+    this.windowCount = 0;
+
+    SkewSnapshot previous = this.snapshot;
+    if (previous == null) {
+      this.lastSkew = skew;
+      this.lastReferenceTime = referenceTime;
+    } else {
+      long interval = referenceTime - this.lastReferenceTime;
+      if (interval >= MIN_DRIFT_INTERVAL_NS) {
+        double sampleDrift = (double)(skew - this.lastSkew) / interval;
+        sampleDrift = Math.max(-MAX_DRIFT, Math.min(MAX_DRIFT, sampleDrift));
+        if (this.haveDrift) {
+          this.drift += (sampleDrift - this.drift) / DRIFT_SMOOTHING;
+        } else {
+          this.drift = sampleDrift;
+          this.haveDrift = true;
+        }
+        this.lastSkew = skew;
+        this.lastReferenceTime = referenceTime;
+      }
+    }
+    publish(new SkewSnapshot(skew, this.drift, referenceTime, latency));
+  }
+
+  private synchronized void publish(SkewSnapshot s) {
+    boolean initialization = this.snapshot == null;
+    this.snapshot = s;
     if (this.statistics != null) {
-      this.statistics.setClockSkew(skew);
-      this.statistics.setLatency(networkLatency);
+      this.statistics.setClockSkew(s.getSkew());
+      this.statistics.setLatency(s.getNetworkLatency());
     }
-    if(initialization) {
-      this.notify();
+    if (initialization) {
+      this.notifyAll();
     }
   }
   
@@ -97,13 +185,13 @@ public class TimeClient extends Thread {
     }
   }
   public String toString() {
-    long skew = getClockSkew();
-    if (skew == Long.MAX_VALUE) {
+    SkewSnapshot s = this.snapshot;
+    if (s == null) {
       return serverHost + ":" + serverPort + " (every " + frequencyMs + " ms)"
                         + " with current skew uninitialized";
     } else {
       return serverHost + ":" + serverPort + " (every " + frequencyMs + " ms)"
-                        + " with current skew " + getClockSkew();
+                        + " with current " + s;
     }
   }
   public void run() {
@@ -127,21 +215,7 @@ public class TimeClient extends Thread {
           }
           else
           {
-            packetCount++;
-            networkLatencySum += skewData.getLatency();
-            skewSum = skewSum.add(BigInteger.valueOf(skewData.getSkew()));
-
-            //average several samples into a clock skew
-            if(packetCount % samplesToAverage == 0)
-            {
-              long networkLatency = networkLatencySum / packetCount;
-              long skew =  skewSum.divide(BigInteger.valueOf(packetCount)).longValue();
-              setClockSkew(skew, networkLatency);
-              packetCount = 0;
-              networkLatencySum = 0;
-              skewSum = BigInteger.valueOf(0);
-            }
-
+            addSample(skewData);
           }
 
           // sleep in between requests
@@ -177,15 +251,9 @@ public class TimeClient extends Thread {
   
   private void sleep() throws InterruptedException
   {
-    //  To save time, make the first batch of requests quickly so that we have a clock skew to use.
-    if(packetCount < samplesToAverage)
-    {
-      Thread.sleep(frequencyMs / samplesToAverage);
-    }
-    else
-    {
-      Thread.sleep(frequencyMs);
-    }
+    // spread the samples in each window over the update frequency, so that
+    // the skew is updated every frequencyMs
+    Thread.sleep(frequencyMs / samplesToAverage);
   }
   
   /**
@@ -196,7 +264,7 @@ public class TimeClient extends Thread {
   {
     synchronized(this)
     {
-      while(getClockSkew() == Long.MAX_VALUE)
+      while(this.snapshot == null)
       {
         this.wait();
       }
@@ -97,7 +97,8 @@ public class TimeServerPrms extends BasePrms {
   
   /**
    * (int)
-   * Number of clock skew samples to average for each update to the clock skew
+   * Number of clock skew samples taken for each update to the clock skew.
+   * The sample with the smallest round trip is used.
    * Defaults to {@link #DEFAULT_CLOCK_SKEW_SAMPLES_TO_AVERAGE}
    *
    * @since 5.0
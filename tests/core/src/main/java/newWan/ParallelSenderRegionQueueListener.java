@@ -52,7 +52,7 @@ public class ParallelSenderRegionQueueListener extends SilenceListener {
   WANBlackboard bb = WANBlackboard.getInstance();
   
   public void afterCreate(EntryEvent event) {  
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
 //    super.afterCreate(event);
     // create, update or destroy operation on region in own site.
     // event propogating to other site via this sender.    
@@ -71,7 +71,7 @@ public class ParallelSenderRegionQueueListener extends SilenceListener {
   
   public void afterDestroy(EntryEvent event) {   
 //    super.afterDestroy(event);
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
 
      // Based on #44947, following check is commented. 
 //    GatewaySender sender = getSenderForEvent(event);
@@ -48,7 +48,7 @@ public class SenderRegionQueueListener extends SilenceListener {
   WANBlackboard bb = WANBlackboard.getInstance();
   
   public void afterCreate(EntryEvent event) {  
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
     //super.afterCreate(event);
     // create, update or destroy operation on region in own site.
     // event propogating to other site via this sender.    
@@ -68,7 +68,7 @@ public class SenderRegionQueueListener extends SilenceListener {
   
   public void afterDestroy(EntryEvent event) {   
 //    super.afterDestroy(event);
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
     
     Long currentKey = (Long)event.getKey();    
     if(lastKeyInSender != -1 && (currentKey.longValue() - lastKeyInSender) != 1){
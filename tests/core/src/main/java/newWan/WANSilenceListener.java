@@ -31,7 +31,7 @@ import org.apache.geode.cache.EntryEvent;
 
 public class WANSilenceListener extends SilenceListener {
   public void afterUpdate(EntryEvent event) {
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
     
     Long oldValue = (Long)((ValueHolder)event.getOldValue()).getMyValue();
     Long newValue = (Long)((ValueHolder)event.getNewValue()).getMyValue();
@@ -17,9 +17,7 @@
 
 package objects;
 
-import org.apache.geode.internal.NanoTimer;
 import hydra.*;
-import java.io.*;
 
 /**
  * An array of <code>byte</code>s that encodes an "index".  Note that
@@ -58,24 +56,18 @@ public class ArrayOfByte {
   protected static byte[] init(int index, int size, boolean encodeKey,
                                                     boolean encodeTimestamp) {
     if (encodeKey) {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      DataOutputStream dos = new DataOutputStream(baos);
-      try {
-        dos.writeInt(index);
-        if (encodeTimestamp) {
-          dos.writeLong(NanoTimer.getTime() - RemoteTestModule.getClockSkew());
-        }
-      } catch(IOException e) {
-        String s =  "Unable to write to stream";
-        throw new ObjectCreationException(s, e);
-      }
-      byte[] b = baos.toByteArray();
-      if (b.length > size) {
+      // encode the fields in place, as DataOutputStream would
+      int encodedSize = encodeTimestamp ? INDEX_SIZE + TIMESTAMP_SIZE
+                                        : INDEX_SIZE;
+      if (encodedSize > size) {
         String s = "Unable to encode into byte array of size " + size;
         throw new ObjectCreationException(s);
       }
       byte[] result = new byte[size];
-      System.arraycopy(b, 0, result, 0, b.length);
+      putInt(result, 0, index);
+      if (encodeTimestamp) {
+        putLong(result, INDEX_SIZE, RemoteTestModule.correctedNanoTime());
+      }
       return result;
     } else if (encodeTimestamp) {
       throw new HydraInternalException("Should not happen");
@@ -91,13 +83,8 @@ public class ArrayOfByte {
    *         The index cannot be decoded from <code>bytes</code>
    */
   public static int getIndex(byte[] bytes) {
-    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    DataInputStream dis = new DataInputStream(bais);
-    try {
-      return dis.readInt();
-    } catch (IOException e) {
-      throw new ObjectAccessException("Unable to read from stream", e);
-    }
+    checkLength(bytes, INDEX_SIZE);
+    return getInt(bytes, 0);
   }
 
   /**
@@ -113,49 +100,25 @@ public class ArrayOfByte {
       // added this check for bug 39587
       throw new IllegalArgumentException("the bytes arg was null");
     }
-    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    DataInputStream dis = new DataInputStream(bais);
-    try {
-      dis.readInt(); // advance past the index
-      long timestamp = dis.readLong();
-      if (timestamp == 0) {
-        String s = "Object is not configured to encode timestamp";
-        throw new HydraConfigException(s);
-      }
-      return timestamp;
-    } catch (IOException e) {
-      throw new ObjectAccessException("Unable to read from stream", e);
+    checkLength(bytes, INDEX_SIZE + TIMESTAMP_SIZE);
+    long timestamp = getLong(bytes, INDEX_SIZE);
+    if (timestamp == 0) {
+      String s = "Object is not configured to encode timestamp";
+      throw new HydraConfigException(s);
     }
+    return timestamp;
   }
 
   /**
    * Resets the timestamp to the current time.
    */
   public static void resetTimestamp(byte[] bytes) {
-    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    DataInputStream dis = new DataInputStream(bais);
-    int index;
-    try {
-      index = dis.readInt(); // advance past the index
-      long timestamp = dis.readLong();
-      if (timestamp == 0) {
-        // object is not configured to encode timestamp
-        return;
-      }
-    } catch (IOException e) {
-      throw new ObjectAccessException("Unable to read from stream", e);
+    checkLength(bytes, INDEX_SIZE + TIMESTAMP_SIZE);
+    if (getLong(bytes, INDEX_SIZE) == 0) {
+      // object is not configured to encode timestamp
+      return;
     }
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    DataOutputStream dos = new DataOutputStream(baos);
-    try {
-      dos.writeInt(index);
-      dos.writeLong(NanoTimer.getTime() - RemoteTestModule.getClockSkew());
-    } catch(IOException e) {
-      String s =  "Unable to write to stream";
-      throw new ObjectCreationException(s, e);
-    }
-    byte[] b = baos.toByteArray();
-    System.arraycopy(b, 0, bytes, 0, b.length);
+    putLong(bytes, INDEX_SIZE, RemoteTestModule.correctedNanoTime());
   }
 
   /**
@@ -171,4 +134,41 @@ public class ArrayOfByte {
       throw new ObjectValidationException( "Expected index " + index + ", got " + encodedIndex + " (make sure that " + BasePrms.nameForKey(ArrayOfBytePrms.encodeKey) + " is set to true)" );
     }
   }
+
+  //----------------------------------------------------------------------------
+  // Encoding, big-endian like DataOutputStream
+  //----------------------------------------------------------------------------
+
+  private static final int INDEX_SIZE = 4;
+  private static final int TIMESTAMP_SIZE = 8;
+
+  private static void checkLength(byte[] bytes, int length) {
+    if (bytes.length < length) {
+      String s = "Unable to read " + length + " bytes from byte array of size "
+               + bytes.length;
+      throw new ObjectAccessException(s);
+    }
+  }
+
+  private static void putInt(byte[] bytes, int off, int val) {
+    bytes[off]     = (byte)(val >>> 24);
+    bytes[off + 1] = (byte)(val >>> 16);
+    bytes[off + 2] = (byte)(val >>> 8);
+    bytes[off + 3] = (byte)val;
+  }
+
+  private static void putLong(byte[] bytes, int off, long val) {
+    putInt(bytes, off, (int)(val >>> 32));
+    putInt(bytes, off + 4, (int)val);
+  }
+
+  private static int getInt(byte[] bytes, int off) {
+    return ((bytes[off] & 0xff) << 24) | ((bytes[off + 1] & 0xff) << 16)
+         | ((bytes[off + 2] & 0xff) << 8) | (bytes[off + 3] & 0xff);
+  }
+
+  private static long getLong(byte[] bytes, int off) {
+    return ((long)getInt(bytes, off) << 32)
+         | (getInt(bytes, off + 4) & 0xffffffffL);
+  }
 }
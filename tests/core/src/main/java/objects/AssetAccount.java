@@ -16,7 +16,6 @@
  */
 package objects;
 
-import org.apache.geode.internal.NanoTimer;
 import hydra.BasePrms;
 import hydra.RemoteTestModule;
 import java.io.Serializable;
@@ -55,7 +54,7 @@ public class AssetAccount implements ConfigurableObject, TimestampedObject, Upda
     }
 
     if (encodeTimestamp) {
-      this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+      this.timestamp = RemoteTestModule.correctedNanoTime();
     }
   }
 
@@ -106,7 +105,7 @@ public class AssetAccount implements ConfigurableObject, TimestampedObject, Upda
 
   public void resetTimestamp() {
     if (encodeTimestamp) {
-      this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+      this.timestamp = RemoteTestModule.correctedNanoTime();
     } else {
       String s = BasePrms.nameForKey(FastAssetAccountPrms.encodeTimestamp)
                + " is false, cannot reset timestamp";
@@ -19,7 +19,6 @@ package objects;
 
 import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
-import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.util.Sizeof;
 import org.apache.geode.cache.util.ObjectSizer;
 import hydra.*;
@@ -61,7 +60,7 @@ ObjectSizer, DataSerializable
    */
   public void init(int anIndex) {
     this.index = anIndex;
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
     this.batch = anIndex/BatchStringPrms.getBatchSize();
     this.byteArray = new byte[BatchObjectPrms.getSize()];
   }
@@ -101,7 +100,7 @@ ObjectSizer, DataSerializable
   }
 
   public void resetTimestamp() {
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
   }
 
   public String toString() {
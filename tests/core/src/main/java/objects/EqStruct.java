@@ -21,7 +21,6 @@ import java.io.*;
 
 import org.apache.geode.DataSerializable;
 //import org.apache.geode.Instantiator;
-import org.apache.geode.internal.NanoTimer;
 import hydra.RemoteTestModule;
 
 /**
@@ -97,7 +96,7 @@ public class EqStruct implements ConfigurableObject, DataSerializable, Timestamp
   public void init( int index ) {
     this.myIndex = index;  // index
     this.state = "1";
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
     this.executedPriceSum = 5.5;
     this.cxlQty = 10;
     this.isSyntheticOrder = 0;
@@ -334,6 +333,6 @@ public class EqStruct implements ConfigurableObject, DataSerializable, Timestamp
   }
 
   public void resetTimestamp() {
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
   }
 }
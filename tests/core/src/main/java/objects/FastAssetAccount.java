@@ -20,7 +20,6 @@ import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
 import org.apache.geode.Instantiator;
 import org.apache.geode.cache.util.ObjectSizer;
-import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.util.Sizeof;
 import hydra.BasePrms;
 import hydra.Log;
@@ -75,7 +74,7 @@ public class FastAssetAccount implements ConfigurableObject, TimestampedObject,
     }
 
     if (encodeTimestamp) {
-      this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+      this.timestamp = RemoteTestModule.correctedNanoTime();
     }
   }
 
@@ -126,7 +125,7 @@ public class FastAssetAccount implements ConfigurableObject, TimestampedObject,
 
   public void resetTimestamp() {
     if (encodeTimestamp) {
-      this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+      this.timestamp = RemoteTestModule.correctedNanoTime();
     } else {
       String s = BasePrms.nameForKey(FastAssetAccountPrms.encodeTimestamp)
                + " is false, cannot reset timestamp";
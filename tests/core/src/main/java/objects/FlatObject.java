@@ -19,8 +19,6 @@ package objects;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 
 import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
@@ -12797,192 +12795,201 @@ public class FlatObject implements ConfigurableObject, DataSerializable
   shortfield148 = in.readShort();
   shortfield149 = in.readShort();
   }
+  /**
+   * Formats the index with at least five digits, padded with zeroes, as
+   * DecimalFormat("#####") with five minimum integer digits would, without
+   * creating a formatter.  Callers copy the result into each field, since
+   * the fields of a generated object were always distinct strings.
+   */
+  private static String formatIndex(int i) {
+    String s = String.valueOf(i);
+    return (s.length() >= 5) ? s : "00000".substring(s.length()) + s;
+  }
   public static FlatObject[] genObjects(int msgNum)  throws IOException{
-  NumberFormat format=new DecimalFormat("#####");
-  format.setMinimumIntegerDigits(5);
   FlatObject[] result=new FlatObject[msgNum];
   for(int i=0;i<msgNum;i++){
+  String str=formatIndex(i);
   result[i]=new FlatObject();
-  result[i].strfield0=format.format(i);
-  result[i].strfield1=format.format(i);
-  result[i].strfield2=format.format(i);
-  result[i].strfield3=format.format(i);
-  result[i].strfield4=format.format(i);
-  result[i].strfield5=format.format(i);
-  result[i].strfield6=format.format(i);
-  result[i].strfield7=format.format(i);
-  result[i].strfield8=format.format(i);
-  result[i].strfield9=format.format(i);
-  result[i].strfield10=format.format(i);
-  result[i].strfield11=format.format(i);
-  result[i].strfield12=format.format(i);
-  result[i].strfield13=format.format(i);
-  result[i].strfield14=format.format(i);
-  result[i].strfield15=format.format(i);
-  result[i].strfield16=format.format(i);
-  result[i].strfield17=format.format(i);
-  result[i].strfield18=format.format(i);
-  result[i].strfield19=format.format(i);
-  result[i].strfield20=format.format(i);
-  result[i].strfield21=format.format(i);
-  result[i].strfield22=format.format(i);
-  result[i].strfield23=format.format(i);
-  result[i].strfield24=format.format(i);
-  result[i].strfield25=format.format(i);
-  result[i].strfield26=format.format(i);
-  result[i].strfield27=format.format(i);
-  result[i].strfield28=format.format(i);
-  result[i].strfield29=format.format(i);
-  result[i].strfield30=format.format(i);
-  result[i].strfield31=format.format(i);
-  result[i].strfield32=format.format(i);
-  result[i].strfield33=format.format(i);
-  result[i].strfield34=format.format(i);
-  result[i].strfield35=format.format(i);
-  result[i].strfield36=format.format(i);
-  result[i].strfield37=format.format(i);
-  result[i].strfield38=format.format(i);
-  result[i].strfield39=format.format(i);
-  result[i].strfield40=format.format(i);
-  result[i].strfield41=format.format(i);
-  result[i].strfield42=format.format(i);
-  result[i].strfield43=format.format(i);
-  result[i].strfield44=format.format(i);
-  result[i].strfield45=format.format(i);
-  result[i].strfield46=format.format(i);
-  result[i].strfield47=format.format(i);
-  result[i].strfield48=format.format(i);
-  result[i].strfield49=format.format(i);
-  result[i].strfield50=format.format(i);
-  result[i].strfield51=format.format(i);
-  result[i].strfield52=format.format(i);
-  result[i].strfield53=format.format(i);
-  result[i].strfield54=format.format(i);
-  result[i].strfield55=format.format(i);
-  result[i].strfield56=format.format(i);
-  result[i].strfield57=format.format(i);
-  result[i].strfield58=format.format(i);
-  result[i].strfield59=format.format(i);
-  result[i].strfield60=format.format(i);
-  result[i].strfield61=format.format(i);
-  result[i].strfield62=format.format(i);
-  result[i].strfield63=format.format(i);
-  result[i].strfield64=format.format(i);
-  result[i].strfield65=format.format(i);
-  result[i].strfield66=format.format(i);
-  result[i].strfield67=format.format(i);
-  result[i].strfield68=format.format(i);
-  result[i].strfield69=format.format(i);
-  result[i].strfield70=format.format(i);
-  result[i].strfield71=format.format(i);
-  result[i].strfield72=format.format(i);
-  result[i].strfield73=format.format(i);
-  result[i].strfield74=format.format(i);
-  result[i].strfield75=format.format(i);
-  result[i].strfield76=format.format(i);
-  result[i].strfield77=format.format(i);
-  result[i].strfield78=format.format(i);
-  result[i].strfield79=format.format(i);
-  result[i].strfield80=format.format(i);
-  result[i].strfield81=format.format(i);
-  result[i].strfield82=format.format(i);
-  result[i].strfield83=format.format(i);
-  result[i].strfield84=format.format(i);
-  result[i].strfield85=format.format(i);
-  result[i].strfield86=format.format(i);
-  result[i].strfield87=format.format(i);
-  result[i].strfield88=format.format(i);
-  result[i].strfield89=format.format(i);
-  result[i].strfield90=format.format(i);
-  result[i].strfield91=format.format(i);
-  result[i].strfield92=format.format(i);
-  result[i].strfield93=format.format(i);
-  result[i].strfield94=format.format(i);
-  result[i].strfield95=format.format(i);
-  result[i].strfield96=format.format(i);
-  result[i].strfield97=format.format(i);
-  result[i].strfield98=format.format(i);
-  result[i].strfield99=format.format(i);
-  result[i].strfield100=format.format(i);
-  result[i].strfield101=format.format(i);
-  result[i].strfield102=format.format(i);
-  result[i].strfield103=format.format(i);
-  result[i].strfield104=format.format(i);
-  result[i].strfield105=format.format(i);
-  result[i].strfield106=format.format(i);
-  result[i].strfield107=format.format(i);
-  result[i].strfield108=format.format(i);
-  result[i].strfield109=format.format(i);
-  result[i].strfield110=format.format(i);
-  result[i].strfield111=format.format(i);
-  result[i].strfield112=format.format(i);
-  result[i].strfield113=format.format(i);
-  result[i].strfield114=format.format(i);
-  result[i].strfield115=format.format(i);
-  result[i].strfield116=format.format(i);
-  result[i].strfield117=format.format(i);
-  result[i].strfield118=format.format(i);
-  result[i].strfield119=format.format(i);
-  result[i].strfield120=format.format(i);
-  result[i].strfield121=format.format(i);
-  result[i].strfield122=format.format(i);
-  result[i].strfield123=format.format(i);
-  result[i].strfield124=format.format(i);
-  result[i].strfield125=format.format(i);
-  result[i].strfield126=format.format(i);
-  result[i].strfield127=format.format(i);
-  result[i].strfield128=format.format(i);
-  result[i].strfield129=format.format(i);
-  result[i].strfield130=format.format(i);
-  result[i].strfield131=format.format(i);
-  result[i].strfield132=format.format(i);
-  result[i].strfield133=format.format(i);
-  result[i].strfield134=format.format(i);
-  result[i].strfield135=format.format(i);
-  result[i].strfield136=format.format(i);
-  result[i].strfield137=format.format(i);
-  result[i].strfield138=format.format(i);
-  result[i].strfield139=format.format(i);
-  result[i].strfield140=format.format(i);
-  result[i].strfield141=format.format(i);
-  result[i].strfield142=format.format(i);
-  result[i].strfield143=format.format(i);
-  result[i].strfield144=format.format(i);
-  result[i].strfield145=format.format(i);
-  result[i].strfield146=format.format(i);
-  result[i].strfield147=format.format(i);
-  result[i].strfield148=format.format(i);
-  result[i].strfield149=format.format(i);
-  result[i].strfield150=format.format(i);
-  result[i].strfield151=format.format(i);
-  result[i].strfield152=format.format(i);
-  result[i].strfield153=format.format(i);
-  result[i].strfield154=format.format(i);
-  result[i].strfield155=format.format(i);
-  result[i].strfield156=format.format(i);
-  result[i].strfield157=format.format(i);
-  result[i].strfield158=format.format(i);
-  result[i].strfield159=format.format(i);
-  result[i].strfield160=format.format(i);
-  result[i].strfield161=format.format(i);
-  result[i].strfield162=format.format(i);
-  result[i].strfield163=format.format(i);
-  result[i].strfield164=format.format(i);
-  result[i].strfield165=format.format(i);
-  result[i].strfield166=format.format(i);
-  result[i].strfield167=format.format(i);
-  result[i].strfield168=format.format(i);
-  result[i].strfield169=format.format(i);
-  result[i].strfield170=format.format(i);
-  result[i].strfield171=format.format(i);
-  result[i].strfield172=format.format(i);
-  result[i].strfield173=format.format(i);
-  result[i].strfield174=format.format(i);
-  result[i].strfield175=format.format(i);
-  result[i].strfield176=format.format(i);
-  result[i].strfield177=format.format(i);
-  result[i].strfield178=format.format(i);
-  result[i].strfield179=format.format(i);
+  result[i].strfield0=new String(str);
+  result[i].strfield1=new String(str);
+  result[i].strfield2=new String(str);
+  result[i].strfield3=new String(str);
+  result[i].strfield4=new String(str);
+  result[i].strfield5=new String(str);
+  result[i].strfield6=new String(str);
+  result[i].strfield7=new String(str);
+  result[i].strfield8=new String(str);
+  result[i].strfield9=new String(str);
+  result[i].strfield10=new String(str);
+  result[i].strfield11=new String(str);
+  result[i].strfield12=new String(str);
+  result[i].strfield13=new String(str);
+  result[i].strfield14=new String(str);
+  result[i].strfield15=new String(str);
+  result[i].strfield16=new String(str);
+  result[i].strfield17=new String(str);
+  result[i].strfield18=new String(str);
+  result[i].strfield19=new String(str);
+  result[i].strfield20=new String(str);
+  result[i].strfield21=new String(str);
+  result[i].strfield22=new String(str);
+  result[i].strfield23=new String(str);
+  result[i].strfield24=new String(str);
+  result[i].strfield25=new String(str);
+  result[i].strfield26=new String(str);
+  result[i].strfield27=new String(str);
+  result[i].strfield28=new String(str);
+  result[i].strfield29=new String(str);
+  result[i].strfield30=new String(str);
+  result[i].strfield31=new String(str);
+  result[i].strfield32=new String(str);
+  result[i].strfield33=new String(str);
+  result[i].strfield34=new String(str);
+  result[i].strfield35=new String(str);
+  result[i].strfield36=new String(str);
+  result[i].strfield37=new String(str);
+  result[i].strfield38=new String(str);
+  result[i].strfield39=new String(str);
+  result[i].strfield40=new String(str);
+  result[i].strfield41=new String(str);
+  result[i].strfield42=new String(str);
+  result[i].strfield43=new String(str);
+  result[i].strfield44=new String(str);
+  result[i].strfield45=new String(str);
+  result[i].strfield46=new String(str);
+  result[i].strfield47=new String(str);
+  result[i].strfield48=new String(str);
+  result[i].strfield49=new String(str);
+  result[i].strfield50=new String(str);
+  result[i].strfield51=new String(str);
+  result[i].strfield52=new String(str);
+  result[i].strfield53=new String(str);
+  result[i].strfield54=new String(str);
+  result[i].strfield55=new String(str);
+  result[i].strfield56=new String(str);
+  result[i].strfield57=new String(str);
+  result[i].strfield58=new String(str);
+  result[i].strfield59=new String(str);
+  result[i].strfield60=new String(str);
+  result[i].strfield61=new String(str);
+  result[i].strfield62=new String(str);
+  result[i].strfield63=new String(str);
+  result[i].strfield64=new String(str);
+  result[i].strfield65=new String(str);
+  result[i].strfield66=new String(str);
+  result[i].strfield67=new String(str);
+  result[i].strfield68=new String(str);
+  result[i].strfield69=new String(str);
+  result[i].strfield70=new String(str);
+  result[i].strfield71=new String(str);
+  result[i].strfield72=new String(str);
+  result[i].strfield73=new String(str);
+  result[i].strfield74=new String(str);
+  result[i].strfield75=new String(str);
+  result[i].strfield76=new String(str);
+  result[i].strfield77=new String(str);
+  result[i].strfield78=new String(str);
+  result[i].strfield79=new String(str);
+  result[i].strfield80=new String(str);
+  result[i].strfield81=new String(str);
+  result[i].strfield82=new String(str);
+  result[i].strfield83=new String(str);
+  result[i].strfield84=new String(str);
+  result[i].strfield85=new String(str);
+  result[i].strfield86=new String(str);
+  result[i].strfield87=new String(str);
+  result[i].strfield88=new String(str);
+  result[i].strfield89=new String(str);
+  result[i].strfield90=new String(str);
+  result[i].strfield91=new String(str);
+  result[i].strfield92=new String(str);
+  result[i].strfield93=new String(str);
+  result[i].strfield94=new String(str);
+  result[i].strfield95=new String(str);
+  result[i].strfield96=new String(str);
+  result[i].strfield97=new String(str);
+  result[i].strfield98=new String(str);
+  result[i].strfield99=new String(str);
+  result[i].strfield100=new String(str);
+  result[i].strfield101=new String(str);
+  result[i].strfield102=new String(str);
+  result[i].strfield103=new String(str);
+  result[i].strfield104=new String(str);
+  result[i].strfield105=new String(str);
+  result[i].strfield106=new String(str);
+  result[i].strfield107=new String(str);
+  result[i].strfield108=new String(str);
+  result[i].strfield109=new String(str);
+  result[i].strfield110=new String(str);
+  result[i].strfield111=new String(str);
+  result[i].strfield112=new String(str);
+  result[i].strfield113=new String(str);
+  result[i].strfield114=new String(str);
+  result[i].strfield115=new String(str);
+  result[i].strfield116=new String(str);
+  result[i].strfield117=new String(str);
+  result[i].strfield118=new String(str);
+  result[i].strfield119=new String(str);
+  result[i].strfield120=new String(str);
+  result[i].strfield121=new String(str);
+  result[i].strfield122=new String(str);
+  result[i].strfield123=new String(str);
+  result[i].strfield124=new String(str);
+  result[i].strfield125=new String(str);
+  result[i].strfield126=new String(str);
+  result[i].strfield127=new String(str);
+  result[i].strfield128=new String(str);
+  result[i].strfield129=new String(str);
+  result[i].strfield130=new String(str);
+  result[i].strfield131=new String(str);
+  result[i].strfield132=new String(str);
+  result[i].strfield133=new String(str);
+  result[i].strfield134=new String(str);
+  result[i].strfield135=new String(str);
+  result[i].strfield136=new String(str);
+  result[i].strfield137=new String(str);
+  result[i].strfield138=new String(str);
+  result[i].strfield139=new String(str);
+  result[i].strfield140=new String(str);
+  result[i].strfield141=new String(str);
+  result[i].strfield142=new String(str);
+  result[i].strfield143=new String(str);
+  result[i].strfield144=new String(str);
+  result[i].strfield145=new String(str);
+  result[i].strfield146=new String(str);
+  result[i].strfield147=new String(str);
+  result[i].strfield148=new String(str);
+  result[i].strfield149=new String(str);
+  result[i].strfield150=new String(str);
+  result[i].strfield151=new String(str);
+  result[i].strfield152=new String(str);
+  result[i].strfield153=new String(str);
+  result[i].strfield154=new String(str);
+  result[i].strfield155=new String(str);
+  result[i].strfield156=new String(str);
+  result[i].strfield157=new String(str);
+  result[i].strfield158=new String(str);
+  result[i].strfield159=new String(str);
+  result[i].strfield160=new String(str);
+  result[i].strfield161=new String(str);
+  result[i].strfield162=new String(str);
+  result[i].strfield163=new String(str);
+  result[i].strfield164=new String(str);
+  result[i].strfield165=new String(str);
+  result[i].strfield166=new String(str);
+  result[i].strfield167=new String(str);
+  result[i].strfield168=new String(str);
+  result[i].strfield169=new String(str);
+  result[i].strfield170=new String(str);
+  result[i].strfield171=new String(str);
+  result[i].strfield172=new String(str);
+  result[i].strfield173=new String(str);
+  result[i].strfield174=new String(str);
+  result[i].strfield175=new String(str);
+  result[i].strfield176=new String(str);
+  result[i].strfield177=new String(str);
+  result[i].strfield178=new String(str);
+  result[i].strfield179=new String(str);
   result[i].id=i;
   result[i].intfield1=i;
   result[i].intfield2=i;
@@ -21,7 +21,6 @@ import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
 //import org.apache.geode.Instantiator;
 import org.apache.geode.cache.util.ObjectSizer;
-import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.util.Sizeof;
 import hydra.*;
 import java.io.*;
@@ -65,7 +64,7 @@ public class Message implements ConfigurableObject, TimestampedObject, ObjectSiz
       buf.append( c );
       this.content = buf.toString();
     }
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
   }
   public int getIndex() {
     if ( this.content == null ) {
@@ -94,7 +93,7 @@ public class Message implements ConfigurableObject, TimestampedObject, ObjectSiz
     return this.timestamp;
   }
   public void resetTimestamp() {
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
   }
   public String toString() {
     if ( this.content == null ) {
@@ -18,6 +18,8 @@
 package objects;
 
 import hydra.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  *
@@ -77,29 +79,7 @@ public class ObjectHelper {
    *         message for more details.
    */
   public static Object createName(String classname, int index) {
-    // skip reflection for common and special types
-    if (classname.equals("java.lang.Long")) {
-      return Long.valueOf(index);
-    } else if (classname.equals("java.lang.Integer")) {
-      return Integer.valueOf(index);
-    } else if (classname.equals("java.lang.String")) {
-      return String.valueOf( index );
-    } else if (classname.equals("objects.BatchString")) {
-      return BatchString.init(index);
-    } else if ( classname.equals( "objects.PosNegInteger" ) ) {
-      return PosNegInteger.init( index );
-    } else {
-      try {
-	Class cls = Class.forName(classname);
-	return cls.newInstance();
-      } catch (ClassNotFoundException e ) {
-	throw new HydraConfigException("Unable to find class for type " + classname, e);
-      } catch (IllegalAccessException e) {
-	throw new ObjectCreationException("Unable to instantiate object of type " + classname, e);
-      } catch (InstantiationException e ) {
-	throw new ObjectCreationException("Unable to instantiate object of type " + classname, e);
-      }
-    }
+    return getFactory(nameFactories, classname, true).create(index);
   }
 
 
@@ -116,39 +96,142 @@ public class ObjectHelper {
    *          message for more details.
    */
   public static Object createObject( String classname, int index ) {
-    if ( classname.equals( "objects.FlatObject" ) ) {
+    return getFactory( objectFactories, classname, false ).create( index );
+  }
+
+  //----------------------------------------------------------------------------
+  // Factories
+  //----------------------------------------------------------------------------
+
+  /**
+   *  Creates objects of a single type.  Each type is resolved to a factory the
+   *  first time it is used, so later calls skip the class name comparisons
+   *  and the class lookup.
+   */
+  private static abstract class Factory {
+    abstract Object create( int index );
+  }
+
+  /** Factories for names, by class name */
+  private static final ConcurrentMap nameFactories = new ConcurrentHashMap();
+
+  /** Factories for objects, by class name */
+  private static final ConcurrentMap objectFactories = new ConcurrentHashMap();
+
+  /**
+   *  Returns the factory for the class name, creating it if needed.
+   */
+  private static Factory getFactory( ConcurrentMap factories,
+                                     String classname, boolean forName ) {
+    Factory factory = (Factory)factories.get( classname );
+    if ( factory == null ) {
+      factory = forName ? newNameFactory( classname )
+                        : newObjectFactory( classname );
+      Factory existing = (Factory)factories.putIfAbsent( classname, factory );
+      if ( existing != null ) {
+        factory = existing;
+      }
+    }
+    return factory;
+  }
+
+  private static Factory newNameFactory( final String classname ) {
+    // skip reflection for common and special types
+    if (classname.equals("java.lang.Long")) {
+      return new Factory() {
+        Object create(int index) { return Long.valueOf(index); }
+      };
+    } else if (classname.equals("java.lang.Integer")) {
+      return new Factory() {
+        Object create(int index) { return Integer.valueOf(index); }
+      };
+    } else if (classname.equals("java.lang.String")) {
+      return new Factory() {
+        Object create(int index) { return String.valueOf( index ); }
+      };
+    } else if (classname.equals("objects.BatchString")) {
+      return new Factory() {
+        Object create(int index) { return BatchString.init(index); }
+      };
+    } else if ( classname.equals( "objects.PosNegInteger" ) ) {
+      return new Factory() {
+        Object create(int index) { return PosNegInteger.init( index ); }
+      };
+    } else {
+      final Class cls;
       try {
-        FlatObject[] obj = FlatObject.genObjects(1);
-        FlatObject result = obj[0];
-        result.setId(index);
-        return result;
-      } catch (java.io.IOException e) {
-        throw new HydraRuntimeException("Creating FlatObject", e);
+	cls = Class.forName(classname);
+      } catch (ClassNotFoundException e ) {
+	throw new HydraConfigException("Unable to find class for type " + classname, e);
       }
+      return new Factory() {
+        Object create(int index) {
+          try {
+            return cls.newInstance();
+          } catch (IllegalAccessException e) {
+            throw new ObjectCreationException("Unable to instantiate object of type " + classname, e);
+          } catch (InstantiationException e ) {
+            throw new ObjectCreationException("Unable to instantiate object of type " + classname, e);
+          }
+        }
+      };
+    }
+  }
+
+  private static Factory newObjectFactory( final String classname ) {
+    if ( classname.equals( "objects.FlatObject" ) ) {
+      return new Factory() {
+        Object create( int index ) {
+          try {
+            FlatObject[] obj = FlatObject.genObjects(1);
+            FlatObject result = obj[0];
+            result.setId(index);
+            return result;
+          } catch (java.io.IOException e) {
+            throw new HydraRuntimeException("Creating FlatObject", e);
+          }
+        }
+      };
     } else if ( classname.equals( "objects.ArrayOfByte" ) ) {
-      return ArrayOfByte.init( index );
+      return new Factory() {
+        Object create( int index ) { return ArrayOfByte.init( index ); }
+      };
     } else if ( classname.equals( "objects.SizedString" ) ) {
-      return SizedString.init( index );
+      return new Factory() {
+        Object create( int index ) { return SizedString.init( index ); }
+      };
     } else if ( classname.equals( "objects.BatchString" ) ) {
-      return BatchString.init( index );
+      return new Factory() {
+        Object create( int index ) { return BatchString.init( index ); }
+      };
     } else if ( classname.equals( "objects.TestInteger" ) ) {
-      return TestInteger.init( index );
+      return new Factory() {
+        Object create( int index ) { return TestInteger.init( index ); }
+      };
 
     } else {
+      final Class cls;
       try {
-	Class cls = Class.forName( classname, true, Thread.currentThread().getContextClassLoader());
-	ConfigurableObject obj = (ConfigurableObject) cls.newInstance();
-	obj.init( index );
-	return obj;
-      } catch( ClassCastException e ) {
-	throw new HydraConfigException( classname + " is neither a specially supported type nor a ConfigurableObject", e );
+	cls = Class.forName( classname, true, Thread.currentThread().getContextClassLoader());
       } catch( ClassNotFoundException e ) {
 	throw new HydraConfigException( "Unable to find class for type " + classname, e );
-      } catch( IllegalAccessException e ) {
-	throw new ObjectCreationException( "Unable to instantiate object of type " + classname, e );
-      } catch( InstantiationException e ) {
-	throw new ObjectCreationException( "Unable to instantiate object of type " + classname, e );
       }
+      if ( ! ConfigurableObject.class.isAssignableFrom( cls ) ) {
+	throw new HydraConfigException( classname + " is neither a specially supported type nor a ConfigurableObject" );
+      }
+      return new Factory() {
+        Object create( int index ) {
+          try {
+            ConfigurableObject obj = (ConfigurableObject) cls.newInstance();
+            obj.init( index );
+            return obj;
+          } catch( IllegalAccessException e ) {
+            throw new ObjectCreationException( "Unable to instantiate object of type " + classname, e );
+          } catch( InstantiationException e ) {
+            throw new ObjectCreationException( "Unable to instantiate object of type " + classname, e );
+          }
+        }
+      };
     }
   }
 
@@ -20,7 +20,6 @@ package objects;
 import org.apache.geode.DataSerializable;
 import org.apache.geode.DataSerializer;
 //import org.apache.geode.Instantiator;
-import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.util.Sizeof;
 import org.apache.geode.cache.util.ObjectSizer;
 import hydra.*;
@@ -68,7 +67,7 @@ public class PSTObject implements ConfigurableObject, TimestampedObject, Updatab
       boolean encodeKey = true;
       this.byteArray = ArrayOfByte.init(index, size, encodeKey, false);
     }
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
     GsRandom random = TestConfig.tab().getRandGen();
     this.field1 = random.nextInt();
     this.field2 = random.nextChar();
@@ -125,7 +124,7 @@ public class PSTObject implements ConfigurableObject, TimestampedObject, Updatab
   }
 
   public void resetTimestamp() {
-    this.timestamp = NanoTimer.getTime() - RemoteTestModule.getClockSkew();
+    this.timestamp = RemoteTestModule.correctedNanoTime();
   }
 
   public String toString() {
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package parReg;
+
+import hydra.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pdx.PdxTest;
+import util.BaseValueHolder;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.FunctionAdapter;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.PartitionedRegionHelper;
+import org.apache.geode.pdx.PdxInstance;
+
+/** Function that computes a digest of each primary bucket of a partitioned
+ *  region in the members that host it, along with helpers to compute the
+ *  same digests from a region snapshot and compare them.
+ *
+ *  A bucket digest is the number of entries in the bucket and the sum of a
+ *  hash of each key and value, so it does not depend on iteration order.
+ *  Values are reduced to the myValue field of a ValueHolder the same way
+ *  the region snapshot is written, and an entry with no value hashes its
+ *  value as null.  Equal digests mean the bucket almost certainly matches
+ *  the snapshot; unequal digests mean the bucket must be checked key by key.
+ */
+public class BucketDigestFcn extends FunctionAdapter {
+
+public void execute(FunctionContext context) {
+   RegionFunctionContext prContext = (RegionFunctionContext)context;
+   PartitionedRegion pr = (PartitionedRegion)prContext.getDataSet();
+   Region localData = PartitionRegionHelper.getLocalDataForContext(prContext);
+   Map digests = new HashMap();
+   Iterator it = localData.keySet().iterator();
+   while (it.hasNext()) {
+      Object key = it.next();
+      Object value = null;
+      if (localData.containsValueForKey(key)) {
+         value = localData.get(key);
+      }
+      if ((value instanceof BaseValueHolder) || (value instanceof PdxInstance)) {
+         value = PdxTest.toValueHolder(value).myValue;
+      }
+      addEntry(digests, bucketFor(pr, key), key, value);
+   }
+   Log.getLogWriter().info("Computed digests for " + digests.size() + " buckets of " + pr.getFullPath());
+   prContext.getResultSender().lastResult(digests);
+}
+
+public String getId() {
+   return "BucketDigestFcn";
+}
+
+public boolean optimizeForWrite() {
+   // run against primaries so each bucket is digested exactly once
+   return true;
+}
+
+public boolean isHA() {
+   return false;
+}
+
+/** Return the digests of the buckets of the given partitioned region,
+ *  computed in the members that host them.
+ *
+ *  @return A Map of Integer bucket ids to long[] digests.
+ */
+public static Map getRegionDigests(Region aRegion) {
+   List results = (List)FunctionService.onRegion(aRegion).execute(new BucketDigestFcn()).getResult();
+   Map digests = new HashMap();
+   for (int i = 0; i < results.size(); i++) {
+      digests.putAll((Map)results.get(i));
+   }
+   return digests;
+}
+
+/** Return the digests that the buckets of the given partitioned region
+ *  would have if it contained exactly the entries in the snapshot.
+ *
+ *  @return A Map of Integer bucket ids to long[] digests.
+ */
+public static Map getSnapshotDigests(Region aRegion, Map snapshot) {
+   Map digests = new HashMap();
+   addSnapshotDigests(digests, aRegion, snapshot);
+   return digests;
+}
+
+/** Add the entries of the given snapshot, or of one chunk of it, to the
+ *  given bucket digests.  Digests are sums, so adding each chunk of a
+ *  snapshot in turn gives the digests of the whole snapshot.
+ */
+public static void addSnapshotDigests(Map digests, Region aRegion, Map snapshot) {
+   PartitionedRegion pr = (PartitionedRegion)aRegion;
+   Iterator it = snapshot.entrySet().iterator();
+   while (it.hasNext()) {
+      Map.Entry entry = (Map.Entry)it.next();
+      addEntry(digests, bucketFor(pr, entry.getKey()), entry.getKey(), entry.getValue());
+   }
+}
+
+/** Return the ids of the buckets whose digests differ, including buckets
+ *  that are present in only one of the given digests.
+ */
+public static Set getMismatchedBuckets(Map expectedDigests, Map actualDigests) {
+   Set mismatched = new HashSet();
+   Set bucketIds = new HashSet(expectedDigests.keySet());
+   bucketIds.addAll(actualDigests.keySet());
+   Iterator it = bucketIds.iterator();
+   while (it.hasNext()) {
+      Object bucketId = it.next();
+      long[] expected = (long[])expectedDigests.get(bucketId);
+      long[] actual = (long[])actualDigests.get(bucketId);
+      if (expected == null || actual == null || !Arrays.equals(expected, actual)) {
+         mismatched.add(bucketId);
+      }
+   }
+   return mismatched;
+}
+
+/** Return the id of the bucket that holds the given key.
+ */
+public static Integer bucketFor(PartitionedRegion pr, Object key) {
+   return Integer.valueOf(PartitionedRegionHelper.getHashKey(pr, null, key, null, null));
+}
+
+/** Add the given entry to the digest of its bucket.
+ */
+private static void addEntry(Map digests, Integer bucketId, Object key, Object value) {
+   long[] digest = (long[])digests.get(bucketId);
+   if (digest == null) {
+      digest = new long[2];
+      digests.put(bucketId, digest);
+   }
+   digest[0]++;
+   digest[1] += mix((31L * key.hashCode()) + hashOf(value));
+}
+
+/** Return a hash of the given value that is the same in every vm for
+ *  equal values.
+ */
+private static long hashOf(Object value) {
+   if (value == null) {
+      return 0x5bd1e995L;
+   } else if (value instanceof byte[]) {
+      return Arrays.hashCode((byte[])value);
+   } else {
+      return value.hashCode();
+   }
+}
+
+/** Spread the bits of the given hash so that sums of hashes rarely collide.
+ */
+private static long mix(long h) {
+   h ^= (h >>> 33);
+   h *= 0xff51afd7ed558ccdL;
+   h ^= (h >>> 33);
+   h *= 0xc4ceb9fe1a85ec53L;
+   h ^= (h >>> 33);
+   return h;
+}
+
+}
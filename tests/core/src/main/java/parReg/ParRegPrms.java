@@ -18,6 +18,7 @@ package parReg;
 
 import hydra.BasePrms;
 import hydra.ClientVmMgr;
+import hydra.HydraConfigException;
 import hydra.TestConfig;
 import util.*;
 
@@ -379,6 +380,41 @@ public static boolean getLimitPutAllToOne() {
     return value;
   }
   
+  /**
+   * (int) The number of key-partitioned chunks used to write the region
+   *       snapshot to the blackboard (see {@link RegionSnapshotStore}).
+   *       Defaults to 0, which writes the snapshot as a single map under
+   *       {@link ParRegBB#RegionSnapshot}.  Use a larger value with large
+   *       regions so that no single blackboard operation carries the whole
+   *       snapshot and unchanged chunks are not rewritten between rounds.
+   *       With chunks, data stores in concurrent tests verify only their
+   *       local primary buckets, so every data store must verify.  Chunks
+   *       line up with buckets when this divides the number of buckets.
+   */
+  public static Long numSnapshotChunks;
+  public static int getNumSnapshotChunks() {
+    Long key = numSnapshotChunks;
+    int value = tab().intAt(key, 0);
+    if (value < 0) {
+      throw new HydraConfigException("Illegal value for " + nameForKey(key) + ": " + value);
+    }
+    return value;
+  }
+  
+  /**
+   * (boolean) If true, verifying a partitioned region from the snapshot
+   *           first compares per-bucket digests computed in the data stores
+   *           with digests of the snapshot (see {@link BucketDigestFcn}),
+   *           and only checks the keys of buckets whose digests differ.
+   *           Defaults to false, which checks every key.
+   */
+  public static Long verifyWithDigests;
+  public static boolean getVerifyWithDigests() {
+    Long key = verifyWithDigests;
+    boolean value = tasktab().booleanAt(key, tab().booleanAt(key, false));
+    return value;
+  }
+  
 // ================================================================================
 static {
    BasePrms.setValues(ParRegPrms.class);
@@ -696,8 +696,8 @@ public void initializeInstance() {
                            "hasPRCacheLoader " + hasPRCacheLoader + "," +
                            "uniqueHostsOn " + uniqueHostsOn);
    if (isSerialExecution) { // initialize for verification
-      regionSnapshot = new HashMap();
-      destroyedKeys = new HashSet();
+      regionSnapshot = RegionSnapshotStore.newSnapshot();
+      destroyedKeys = RegionSnapshotStore.newDestroyedKeys();
    }
 }
 
@@ -1082,8 +1082,7 @@ public static void HydraTask_prepareForValidation() {
     }
     Log.getLogWriter().info("Writing regionSnapshot to blackboard, snapshot size is " + 
         regionSnapshot.size() + ": " + regionSnapshot);
-    ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot); 
-    ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, new HashSet()); 
+    RegionSnapshotStore.write(regionSnapshot, new HashSet());
   }
 }
 
@@ -1352,8 +1351,7 @@ public static void HydraTask_prepareForValidation() {
 
       // this is a bit inefficient to write to the bb, but
       // verifyFromSnapshot expects to read the regionSnapshot from the blackboard
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot); 
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, destroyedKeys); 
+      RegionSnapshotStore.write(regionSnapshot, destroyedKeys);
       verifyFromSnapshot();
     } else { // not serial; backup was taken during concurrent ops, so we
       // don't know exactly which keys/values should be there; cannot
@@ -1547,9 +1545,8 @@ public void doRROpsAndVerify() {
 
       // write the expected region state to the blackboard
       Log.getLogWriter().info("Writing regionSnapshot to blackboard, snapshot size is " + regionSnapshot.size() + ": " + regionSnapshot);
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot); 
       Log.getLogWriter().info("Writing destroyedKeys to blackboard: " + destroyedKeys);
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, destroyedKeys); 
+      RegionSnapshotStore.write(regionSnapshot, destroyedKeys);
       if (!isThinClient && !isEmptyClient) {
         ParRegUtil.verifySize(aRegion, regionSnapshot.size());
       }
@@ -2535,8 +2532,7 @@ protected void recoveryController() {
   }
   Log.getLogWriter().info("Writing regionSnapshot to blackboard, snapshot size is " + 
       rSnapshot.size() + ": " + rSnapshot);
-  ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, rSnapshot); 
-  ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, new HashSet()); 
+  RegionSnapshotStore.write(rSnapshot, new HashSet());
   ParRegBB.getBB().getSharedCounters().zero(ParRegBB.FinishedVerify);
   
   // disconnect myself; now no vm is a member
@@ -2630,6 +2626,11 @@ protected void recoveryEntryOps() {
 protected void doEntryOperations(Region r) {
 
    Log.getLogWriter().info("In doEntryOperations with " + r.getFullPath());
+   if (isSerialExecution && (regionSnapshot == null)) {
+      // the last verification did not keep the snapshot
+      regionSnapshot = RegionSnapshotStore.read();
+      destroyedKeys = RegionSnapshotStore.readDestroyedKeys();
+   }
    numThreadsInClients = RemoteTestModule.getCurrentThread().getCurrentTask().getTotalThreads();
    Log.getLogWriter().info("numThreadsInClients = " + numThreadsInClients);
    long startTime = System.currentTimeMillis();
@@ -5016,62 +5017,74 @@ public void verifyFromSnapshotOnly() {
      return;
    }
    StringBuffer aStr = new StringBuffer();
-   regionSnapshot = (Map)(ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot));
-   destroyedKeys = (Set)(ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys));
-
-   int snapshotSize = regionSnapshot.size();
    int regionSize = aRegion.size();
-   Log.getLogWriter().info("Verifying from snapshot containing " + snapshotSize + " entries...");
-
-   if (snapshotSize != regionSize) {
-      aStr.append("Expected region " + aRegion.getFullPath() + " to be size " + snapshotSize + 
-           ", but it is " + regionSize + "\n");
-      ((LocalRegion)aRegion).dumpBackingMap();
-   }
 
    Set inDoubtOps = ParRegBB.getBB().getFailedOps(ParRegBB.INDOUBT_TXOPS);
    if (inDoubtOps.size() > 0) {
       Log.getLogWriter().info(inDoubtOps.size() + " TransactionInDoubtExceptions occurred on the following keys:" + inDoubtOps);
    }
-   Iterator it = regionSnapshot.entrySet().iterator();
-   while (it.hasNext()) { // iterating the expected keys
-      Map.Entry entry = (Map.Entry)it.next();
-      Object key = entry.getKey();
-      Object expectedValue = entry.getValue();
-
-      // containsKey
-      boolean anyFailures = false;
-      try {
-         ParRegUtil.verifyContainsKey(aRegion, key, true);
-      } catch (TestException e) {
-         aStr.append(e.getMessage() + "\n");
-//         anyFailures = true;
+   int snapshotSize;
+   if (ParRegPrms.getVerifyWithDigests() && (aRegion instanceof PartitionedRegion)) {
+      snapshotSize = verifyFromSnapshotWithDigests(regionSize, aStr);
+   } else {
+      Set localBuckets = getLocalBucketsToVerify();
+      if (localBuckets == null) {
+         snapshotSize = verifyAllFromSnapshot(regionSize, aStr);
+      } else {
+         snapshotSize = verifyLocalBucketsFromSnapshot(localBuckets, regionSize, aStr);
       }
-//      if (anyFailures) {
-//        ((LocalRegion)aRegion).dumpBackingMap();
-//      }
+   }
 
-      // containsValueForKey
-      boolean containsValueForKey = aRegion.containsValueForKey(key);
-      try {
-         ParRegUtil.verifyContainsValueForKey(aRegion, key, (expectedValue != null));
-      } catch (TestException e) {
-         aStr.append(e.getMessage() + "\n");
-      }
+   // after either kind of verification, so bridge clients always check the server
+   if (isBridgeClient) {
+     try {
+       verifyServerKeysFromSnapshot();
+     } catch (TestException e) {
+       aStr.append(e.getMessage() + "\n");
+     }
+   }
 
-      // do a get on the partitioned region if a loader won't get invoked; test its value
-      if (containsValueForKey || !hasPRCacheLoader) {
-         // loader won't be invoked if we have a value for this key (whether or not a loader
-         // is installed), or if we don't have a loader at all
-         try {
-            Object actualValue = aRegion.get(key);
-            ParRegUtil.verifyMyValue(key, expectedValue, actualValue, ParRegUtil.EQUAL);
-         } catch (TestException e) {
-            aStr.append(e.getMessage() + "\n");
-         }
-      }
+   if (aStr.length() > 0) {
+      // shutdownHook will cause all members to dump partitioned region info
+     ((LocalRegion)aRegion).dumpBackingMap();
+      throw new TestException(aStr.toString());
    }
- 
+   Log.getLogWriter().info("Done verifying from snapshot containing " + snapshotSize + " entries...");
+}
+
+/** Return the ids of the buckets this member verifies, or null if it
+ *  verifies every key.  In concurrent tests that chunk the snapshot, a data
+ *  store of a partitioned region verifies only its local primary buckets;
+ *  every data store verifies, so together they cover the region.  Serial
+ *  tests verify every key, since the last verifier in a round becomes the
+ *  next writer and needs the whole snapshot.
+ */
+protected Set getLocalBucketsToVerify() {
+   if (isSerialExecution || !RegionSnapshotStore.isChunked() ||
+       !(aRegion instanceof PartitionedRegion) || (((PartitionedRegion)aRegion).getDataStore() == null)) {
+      return null;
+   }
+   return new HashSet(((PartitionedRegion)aRegion).getDataStore().getAllLocalPrimaryBucketIds());
+}
+
+/** Verify every key of the region against the whole snapshot, keeping the
+ *  snapshot and destroyed keys for this test instance.
+ *
+ *  @return The size of the snapshot.
+ */
+protected int verifyAllFromSnapshot(int regionSize, StringBuffer aStr) {
+   regionSnapshot = RegionSnapshotStore.read();
+   destroyedKeys = RegionSnapshotStore.readDestroyedKeys();
+   Log.getLogWriter().info("Verifying from snapshot in " + RegionSnapshotStore.getNumChunks() + " chunk(s)...");
+
+   Set prKeySet = new HashSet(keySetWithoutCreates(aRegion)); // must be a HashSet to support removeAll below
+   int prKeySetSize = prKeySet.size();
+   Iterator it = regionSnapshot.entrySet().iterator();
+   while (it.hasNext()) { // iterating the expected keys
+      Map.Entry entry = (Map.Entry)it.next();
+      verifyEntryFromSnapshot(entry.getKey(), entry.getValue(), aStr);
+   }
+
    // check that destroyedKeys are not in the region
    it = destroyedKeys.iterator();
    while (it.hasNext()) {
@@ -5082,13 +5095,20 @@ public void verifyFromSnapshotOnly() {
          aStr.append(e.getMessage() + "\n");
       }
    }
+   prKeySet.removeAll(regionSnapshot.keySet());
+
+   int snapshotSize = regionSnapshot.size();
+   if (snapshotSize != regionSize) {
+      aStr.append("Expected region " + aRegion.getFullPath() + " to be size " + snapshotSize + 
+           ", but it is " + regionSize + "\n");
+      ((LocalRegion)aRegion).dumpBackingMap();
+   }
 
    // check the size
 //   ((LocalRegion)aRegion).dumpBackingMap();
-   Set prKeySet = new HashSet(keySetWithoutCreates(aRegion)); // must be a HashSet to support removeAll below
-   if (prKeySet.size() != regionSize) {
+   if (prKeySetSize != regionSize) {
       aStr.append("Size for " + aRegion.getFullPath() + " is " + regionSize +
-         ", but its keySet size is " + prKeySet.size() + "\n");
+         ", but its keySet size is " + prKeySetSize + "\n");
       
       ((LocalRegion)aRegion).dumpBackingMap();
 
@@ -5096,27 +5116,234 @@ public void verifyFromSnapshotOnly() {
    }
 
    // check for extra keys in PR that were not in the snapshot
-   Set snapshotKeys = regionSnapshot.keySet();
-   prKeySet.removeAll(snapshotKeys);
    if (prKeySet.size() != 0) {
       aStr.append("Found the following unexpected keys in " + aRegion.getFullPath() + 
                   ": " + prKeySet + "\n");
    }
+   return snapshotSize;
+}
 
-   if (isBridgeClient) {
-     try {
-       verifyServerKeysFromSnapshot();
-     } catch (TestException e) {
-       aStr.append(e.getMessage() + "\n");
-     }
+/** Verify the keys of the given local primary buckets against only the
+ *  snapshot chunks that hold them, and the region size against the size of
+ *  the whole snapshot.  When the snapshot chunks line up with the buckets
+ *  (default routing, and the number of chunks divides the number of
+ *  buckets), bucket b is read from chunk (b % numChunks) only; otherwise
+ *  every chunk is read but only the local keys are checked.
+ *
+ *  @return The size of the snapshot.
+ */
+protected int verifyLocalBucketsFromSnapshot(Set localBuckets, int regionSize, StringBuffer aStr) {
+   PartitionedRegion pr = (PartitionedRegion)aRegion;
+   RegionSnapshotStore.Manifest manifest = RegionSnapshotStore.readManifest();
+   int numChunks = manifest.getNumChunks();
+   boolean bucketAligned = (pr.getPartitionResolver() == null) && !pr.isFixedPartitionedRegion() &&
+                           ((pr.getTotalNumberOfBuckets() % numChunks) == 0);
+   boolean[] chunksToRead = new boolean[numChunks];
+   Iterator it = localBuckets.iterator();
+   while (it.hasNext()) {
+      int bucketId = ((Integer)it.next()).intValue();
+      for (int chunk = 0; chunk < numChunks; chunk++) {
+         if (!bucketAligned || (chunk == (bucketId % numChunks))) {
+            chunksToRead[chunk] = true;
+         }
+      }
    }
 
-   if (aStr.length() > 0) {
-      // shutdownHook will cause all members to dump partitioned region info
-     ((LocalRegion)aRegion).dumpBackingMap();
-      throw new TestException(aStr.toString());
+   int snapshotSize = manifest.getSnapshotSize();
+   Log.getLogWriter().info("Verifying " + localBuckets.size() + " local primary buckets " + localBuckets +
+       " from " + manifest + ", bucketAligned " + bucketAligned);
+   if (snapshotSize != regionSize) {
+      aStr.append("Expected region " + aRegion.getFullPath() + " to be size " + snapshotSize + 
+           ", but it is " + regionSize + "\n");
    }
-   Log.getLogWriter().info("Done verifying from snapshot containing " + snapshotSize + " entries...");
+
+   Set localKeySet = new HashSet(PartitionRegionHelper.getLocalPrimaryData(aRegion).keySet());
+   int numChunksRead = 0;
+   for (int chunk = 0; chunk < numChunks; chunk++) {
+      if (!chunksToRead[chunk]) {
+         continue;
+      }
+      numChunksRead++;
+      it = manifest.readChunk(chunk).entrySet().iterator();
+      while (it.hasNext()) { // iterating the expected keys
+         Map.Entry entry = (Map.Entry)it.next();
+         Object key = entry.getKey();
+         if (localBuckets.contains(BucketDigestFcn.bucketFor(pr, key))) {
+            verifyEntryFromSnapshot(key, entry.getValue(), aStr);
+            localKeySet.remove(key);
+         }
+      }
+
+      // check that destroyedKeys are not in the region
+      it = manifest.readDestroyedKeysChunk(chunk).iterator();
+      while (it.hasNext()) {
+         Object key = it.next();
+         if (localBuckets.contains(BucketDigestFcn.bucketFor(pr, key))) {
+            try {
+               ParRegUtil.verifyContainsKey(aRegion, key, false);
+            } catch (TestException e) {
+               aStr.append(e.getMessage() + "\n");
+            }
+         }
+      }
+   }
+   Log.getLogWriter().info("Read " + numChunksRead + " of " + numChunks + " snapshot chunks");
+
+   // check for extra keys in the local buckets that were not in the snapshot
+   if (localKeySet.size() != 0) {
+      aStr.append("Found the following unexpected keys in the local primary buckets of " +
+                  aRegion.getFullPath() + ": " + localKeySet + "\n");
+   }
+
+   // the primaries must not have moved, or some buckets went unverified
+   Set nowLocalBuckets = getLocalBucketsToVerify();
+   if (!localBuckets.equals(nowLocalBuckets)) {
+      Log.getLogWriter().info("Local primary buckets changed from " + localBuckets + " to " +
+          nowLocalBuckets + " during verification, verifying every key");
+      return verifyAllFromSnapshot(regionSize, aStr);
+   }
+   return snapshotSize;
+}
+
+/** Verify one expected entry of the snapshot against the region, appending
+ *  any failures to aStr.
+ */
+protected void verifyEntryFromSnapshot(Object key, Object expectedValue, StringBuffer aStr) {
+   // containsKey
+   boolean anyFailures = false;
+   try {
+      ParRegUtil.verifyContainsKey(aRegion, key, true);
+   } catch (TestException e) {
+      aStr.append(e.getMessage() + "\n");
+//      anyFailures = true;
+   }
+//   if (anyFailures) {
+//     ((LocalRegion)aRegion).dumpBackingMap();
+//   }
+
+   // containsValueForKey
+   boolean containsValueForKey = aRegion.containsValueForKey(key);
+   try {
+      ParRegUtil.verifyContainsValueForKey(aRegion, key, (expectedValue != null));
+   } catch (TestException e) {
+      aStr.append(e.getMessage() + "\n");
+   }
+
+   // do a get on the partitioned region if a loader won't get invoked; test its value
+   if (containsValueForKey || !hasPRCacheLoader) {
+      // loader won't be invoked if we have a value for this key (whether or not a loader
+      // is installed), or if we don't have a loader at all
+      try {
+         Object actualValue = aRegion.get(key);
+         ParRegUtil.verifyMyValue(key, expectedValue, actualValue, ParRegUtil.EQUAL);
+      } catch (TestException e) {
+         aStr.append(e.getMessage() + "\n");
+      }
+   }
+}
+
+/** Verify the partitioned region contents against the blackboard by comparing
+ *  a digest of each bucket with a digest of the snapshot entries for that
+ *  bucket, then checking key by key only the buckets whose digests differ.
+ *  The snapshot digests are computed one chunk at a time, and only the
+ *  chunks that can hold a differing bucket are read again for the key by key
+ *  check, so the whole snapshot is never held here.  When every digest
+ *  matches, this does one function execution instead of several remote
+ *  operations per entry.
+ *
+ *  @return The size of the snapshot.
+ */
+protected int verifyFromSnapshotWithDigests(int regionSize, StringBuffer aStr) {
+   PartitionedRegion pr = (PartitionedRegion)aRegion;
+   int numChunks = RegionSnapshotStore.getNumChunks();
+   Map expectedDigests = new HashMap();
+   int snapshotSize = 0;
+   for (int chunk = 0; chunk < numChunks; chunk++) {
+      Map snapshotChunk = RegionSnapshotStore.readChunk(chunk);
+      BucketDigestFcn.addSnapshotDigests(expectedDigests, aRegion, snapshotChunk);
+      snapshotSize += snapshotChunk.size();
+   }
+   Log.getLogWriter().info("Verifying from snapshot containing " + snapshotSize + " entries in " +
+       numChunks + " chunk(s) using bucket digests...");
+
+   if (snapshotSize != regionSize) {
+      aStr.append("Expected region " + aRegion.getFullPath() + " to be size " + snapshotSize + 
+           ", but it is " + regionSize + "\n");
+   }
+
+   Map actualDigests = BucketDigestFcn.getRegionDigests(aRegion);
+   Set mismatched = BucketDigestFcn.getMismatchedBuckets(expectedDigests, actualDigests);
+   Log.getLogWriter().info("Digests differ for " + mismatched.size() + " of " + expectedDigests.size() +
+       " expected buckets: " + mismatched);
+
+   if (mismatched.size() > 0) {
+      // read again only the chunks that hold the mismatched buckets, or all
+      // of them if the chunks do not line up with the buckets
+      boolean bucketAligned = RegionSnapshotStore.isChunked() && (pr.getPartitionResolver() == null) &&
+          !pr.isFixedPartitionedRegion() && ((pr.getTotalNumberOfBuckets() % numChunks) == 0);
+      Set chunksToRead = new HashSet();
+      Iterator it = mismatched.iterator();
+      while (it.hasNext()) {
+         int bucketId = ((Integer)it.next()).intValue();
+         for (int chunk = 0; chunk < numChunks; chunk++) {
+            if (!bucketAligned || (chunk == (bucketId % numChunks))) {
+               chunksToRead.add(Integer.valueOf(chunk));
+            }
+         }
+      }
+
+      // check the expected entries and destroyed keys in the mismatched buckets
+      Set expectedKeys = new HashSet();
+      it = chunksToRead.iterator();
+      while (it.hasNext()) {
+         int chunk = ((Integer)it.next()).intValue();
+         Iterator entryIt = RegionSnapshotStore.readChunk(chunk).entrySet().iterator();
+         while (entryIt.hasNext()) {
+            Map.Entry entry = (Map.Entry)entryIt.next();
+            if (mismatched.contains(BucketDigestFcn.bucketFor(pr, entry.getKey()))) {
+               verifyEntryFromSnapshot(entry.getKey(), entry.getValue(), aStr);
+               expectedKeys.add(entry.getKey());
+            }
+         }
+         Iterator keyIt = RegionSnapshotStore.readDestroyedKeysChunk(chunk).iterator();
+         while (keyIt.hasNext()) {
+            Object key = keyIt.next();
+            if (mismatched.contains(BucketDigestFcn.bucketFor(pr, key))) {
+               try {
+                  ParRegUtil.verifyContainsKey(aRegion, key, false);
+               } catch (TestException e) {
+                  aStr.append(e.getMessage() + "\n");
+               }
+            }
+         }
+      }
+      Log.getLogWriter().info("Read " + chunksToRead.size() + " of " + numChunks +
+          " snapshot chunks to check buckets with differing digests");
+
+      // check for extra keys in the mismatched buckets that were not in the snapshot
+      Set extraKeys = new HashSet();
+      it = keySetWithoutCreates(aRegion).iterator();
+      while (it.hasNext()) {
+         Object key = it.next();
+         if (!expectedKeys.contains(key) && mismatched.contains(BucketDigestFcn.bucketFor(pr, key))) {
+            extraKeys.add(key);
+         }
+      }
+      if (extraKeys.size() != 0) {
+         aStr.append("Found the following unexpected keys in " + aRegion.getFullPath() + 
+                     ": " + extraKeys + "\n");
+      }
+
+      if (aStr.length() == 0) {
+         // the digests are only a shortcut; the keys are what count
+         Log.getLogWriter().info("All keys verified in buckets with differing digests " + mismatched);
+      }
+   }
+
+   // the snapshot was not kept; the next writer reads it (see doEntryOperations)
+   regionSnapshot = null;
+   destroyedKeys = null;
+   return snapshotSize;
 }
 
 /** HDFS version (cannot use region.size, containsKey, containsValueForKey)
@@ -5179,8 +5406,8 @@ public void verifyFromSnapshotOnly() {
  */
 public void verifyServerKeysFromSnapshot() {
   StringBuffer aStr = new StringBuffer();
-  regionSnapshot = (Map)(ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot));
-  destroyedKeys = (Set)(ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys));
+  regionSnapshot = RegionSnapshotStore.read();
+  destroyedKeys = RegionSnapshotStore.readDestroyedKeys();
   Set serverKeys = aRegion.keySetOnServer();
   int snapshotSize = regionSnapshot.size();
   int numServerKeys = serverKeys.size();
@@ -5299,8 +5526,8 @@ public void verifyInternalPRState() {
  */
 public void verifyThinClientFromSnapshot() {
   StringBuffer aStr = new StringBuffer();
-  regionSnapshot = (Map)(ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot));
-  destroyedKeys = (Set)(ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys));
+  regionSnapshot = RegionSnapshotStore.read();
+  destroyedKeys = RegionSnapshotStore.readDestroyedKeys();
   int snapshotSize = regionSnapshot.size();
   int regionSize = aRegion.size();
   Log.getLogWriter().info("Verifying thin client from snapshot containing " + snapshotSize + " entries, verifying only those present");
@@ -5403,8 +5630,8 @@ protected void concVerify() {
       //   return;
       // }
 
-      regionSnapshot = new HashMap();
-      destroyedKeys = new HashSet();
+      regionSnapshot = RegionSnapshotStore.newSnapshot();
+      destroyedKeys = RegionSnapshotStore.newDestroyedKeys();
       Log.getLogWriter().info("This thread is the concurrentLeader, creating region snapshot..."); 
       Set keySet = aRegion.keySet();
       Iterator it = keySet.iterator();
@@ -5421,9 +5648,8 @@ protected void concVerify() {
          }
       }
       Log.getLogWriter().info("Done creating region snapshot with " + regionSnapshot.size() + " entries; " + regionSnapshot);
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot);
       Log.getLogWriter().info("Done creating destroyed keys with " + destroyedKeys.size() + " keys");
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, destroyedKeys);
+      RegionSnapshotStore.write(regionSnapshot, destroyedKeys);
       long snapshotWritten = ParRegBB.getBB().getSharedCounters().incrementAndRead(ParRegBB.SnapshotWritten);
       Log.getLogWriter().info("Incremented SnapshotWritten, now is " + snapshotWritten);
    } else { 
@@ -0,0 +1,569 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package parReg;
+
+import hydra.Log;
+import hydra.blackboard.SharedMap;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import util.TestException;
+
+/** Reads and writes the expected region state (the region snapshot and
+ *  the destroyed keys) in the ParRegBB shared map.
+ *
+ *  When ParRegPrms.numSnapshotChunks is 0 the snapshot is written as a single
+ *  map under ParRegBB.RegionSnapshot and the destroyed keys as a single set
+ *  under ParRegBB.DestroyedKeys, as it always was.  Otherwise the keys are
+ *  partitioned into that many chunks the same way a partitioned region with
+ *  default routing partitions keys into buckets, so when the number of chunks
+ *  divides the number of buckets each bucket lies in exactly one chunk.
+ *
+ *  Each chunk is written under a shared map key that includes the version it
+ *  was written in, and a Manifest naming the current version of every chunk
+ *  is written last, so readers see either the old snapshot or the new one,
+ *  never a mix.  Entries superseded by the previous write are removed.
+ *
+ *  The maps and sets returned by newSnapshot(), newDestroyedKeys(), read()
+ *  and readDestroyedKeys() keep their keys by chunk and remember which
+ *  chunks have changed; writing one of them back when it is based on the
+ *  current version writes only the changed chunks.
+ */
+public class RegionSnapshotStore {
+
+// shared map key for the manifest of the chunked snapshot
+static final String ManifestKey = ParRegBB.RegionSnapshot + "_manifest";
+
+// the number of times to read the manifest again when a chunk it names has
+// been removed by a writer
+private static final int MAX_READ_ATTEMPTS = 5;
+
+/** Return the shared map key for the given version of a snapshot chunk.
+ */
+static String snapshotKey(int chunk, long version) {
+   return ParRegBB.RegionSnapshot + "_" + chunk + "_" + version;
+}
+
+/** Return the shared map key for the given version of a destroyed keys chunk.
+ */
+static String destroyedKeysKey(int chunk, long version) {
+   return ParRegBB.DestroyedKeys + "_" + chunk + "_" + version;
+}
+
+/** Return the chunk that holds the given key.  This is computed the way a
+ *  partitioned region with default routing computes the bucket of a key,
+ *  so bucket b lies in chunk (b % numChunks) when numChunks divides the
+ *  number of buckets.
+ */
+public static int chunkFor(Object key, int numChunks) {
+   return Math.abs(key.hashCode() % numChunks);
+}
+
+/** Return a new, empty region snapshot to be filled in and written with
+ *  write(Map, Set).
+ */
+public static Map newSnapshot() {
+   if (isChunked()) {
+      return new ChunkedMap(ParRegPrms.getNumSnapshotChunks());
+   }
+   return new HashMap();
+}
+
+/** Return a new, empty set of destroyed keys to be filled in and written
+ *  with write(Map, Set).
+ */
+public static Set newDestroyedKeys() {
+   if (isChunked()) {
+      return new ChunkedSet(ParRegPrms.getNumSnapshotChunks());
+   }
+   return new HashSet();
+}
+
+/** Write the region snapshot and destroyed keys to the blackboard.
+ *
+ *  @param snapshot The expected keys and values of the region.
+ *  @param destroyedKeys The keys expected to be absent from the region.
+ */
+public static synchronized void write(Map snapshot, Set destroyedKeys) {
+   SharedMap sharedMap = ParRegBB.getBB().getSharedMap();
+   int numChunks = ParRegPrms.getNumSnapshotChunks();
+   if (numChunks == 0) {
+      sharedMap.put(ParRegBB.RegionSnapshot, snapshot);
+      sharedMap.put(ParRegBB.DestroyedKeys, destroyedKeys);
+      return;
+   }
+
+   ChunkedMap snapshotChunks = ChunkedMap.of(snapshot, numChunks);
+   ChunkedSet destroyedChunks = ChunkedSet.of(destroyedKeys, numChunks);
+   Manifest current = (Manifest)sharedMap.get(ManifestKey);
+   boolean sameChunking = (current != null) && (current.chunkVersions.length == numChunks);
+   long version = (current == null) ? 0 : current.version;
+
+   // write only the changed chunks if both were read or last written as the
+   // current version, otherwise write them all
+   boolean delta = sameChunking && (snapshotChunks.baseVersion == version) &&
+                   (destroyedChunks.baseVersion == version);
+   long newVersion = version + 1;
+   long[] chunkVersions = new long[numChunks];
+   long[] previousChunkVersions = new long[numChunks];
+   int numWritten = 0;
+   for (int i = 0; i < numChunks; i++) {
+      previousChunkVersions[i] = sameChunking ? current.chunkVersions[i] : -1;
+      if (delta && !snapshotChunks.dirty[i] && !destroyedChunks.dirty[i]) {
+         chunkVersions[i] = current.chunkVersions[i];
+      } else {
+         sharedMap.put(snapshotKey(i, newVersion), new HashMap(snapshotChunks.chunks[i]));
+         sharedMap.put(destroyedKeysKey(i, newVersion), new HashSet(destroyedChunks.chunks[i]));
+         chunkVersions[i] = newVersion;
+         numWritten++;
+      }
+   }
+
+   // publish the new version, then remove the chunks that the version just
+   // replaced had already superseded; readers of that version do not need them
+   sharedMap.put(ManifestKey, new Manifest(newVersion, chunkVersions, previousChunkVersions,
+                                           snapshotChunks.size()));
+   if (sameChunking) {
+      for (int i = 0; i < numChunks; i++) {
+         long superseded = current.previousChunkVersions[i];
+         if ((superseded >= 0) && (superseded != current.chunkVersions[i])) {
+            sharedMap.remove(snapshotKey(i, superseded));
+            sharedMap.remove(destroyedKeysKey(i, superseded));
+         }
+      }
+   }
+   snapshotChunks.written(newVersion);
+   destroyedChunks.written(newVersion);
+   Log.getLogWriter().info("Wrote " + numWritten + " of " + numChunks +
+       " region snapshot chunks to the blackboard as version " + newVersion +
+       ", snapshot size is " + snapshotChunks.size());
+}
+
+/** Return the manifest of the chunked snapshot on the blackboard.
+ *
+ *  @throws TestException if this test does not write the snapshot in chunks
+ *          or no snapshot has been written.
+ */
+public static Manifest readManifest() {
+   Manifest manifest = null;
+   if (isChunked()) {
+      manifest = (Manifest)ParRegBB.getBB().getSharedMap().get(ManifestKey);
+   }
+   if (manifest == null) {
+      throw new TestException("No chunked region snapshot has been written to the blackboard");
+   }
+   return manifest;
+}
+
+/** Return the number of chunks in the snapshot on the blackboard. A snapshot
+ *  written as a single map has one chunk.
+ */
+public static int getNumChunks() {
+   return isChunked() ? ParRegPrms.getNumSnapshotChunks() : 1;
+}
+
+/** Return the given chunk of the current snapshot on the blackboard.
+ */
+public static Map readChunk(int chunk) {
+   if (isChunked()) {
+      return readManifest().readChunk(chunk);
+   }
+   return (Map)ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot);
+}
+
+/** Return the given chunk of the current destroyed keys on the blackboard.
+ */
+public static Set readDestroyedKeysChunk(int chunk) {
+   if (isChunked()) {
+      return readManifest().readDestroyedKeysChunk(chunk);
+   }
+   return (Set)ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys);
+}
+
+/** Return the entire snapshot on the blackboard.
+ */
+public static Map read() {
+   if (!isChunked()) {
+      return (Map)ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot);
+   }
+   for (int attempt = 1; ; attempt++) {
+      Manifest manifest = readManifest();
+      ChunkedMap snapshot = new ChunkedMap(manifest.getNumChunks());
+      try {
+         for (int i = 0; i < manifest.getNumChunks(); i++) {
+            snapshot.chunks[i].putAll(manifest.readChunk(i));
+         }
+      } catch (SnapshotChangedException e) {
+         if (attempt == MAX_READ_ATTEMPTS) {
+            throw e;
+         }
+         continue;
+      }
+      snapshot.written(manifest.version);
+      return snapshot;
+   }
+}
+
+/** Return all destroyed keys on the blackboard.
+ */
+public static Set readDestroyedKeys() {
+   if (!isChunked()) {
+      return (Set)ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys);
+   }
+   for (int attempt = 1; ; attempt++) {
+      Manifest manifest = readManifest();
+      ChunkedSet destroyedKeys = new ChunkedSet(manifest.getNumChunks());
+      try {
+         for (int i = 0; i < manifest.getNumChunks(); i++) {
+            destroyedKeys.chunks[i].addAll(manifest.readDestroyedKeysChunk(i));
+         }
+      } catch (SnapshotChangedException e) {
+         if (attempt == MAX_READ_ATTEMPTS) {
+            throw e;
+         }
+         continue;
+      }
+      destroyedKeys.written(manifest.version);
+      return destroyedKeys;
+   }
+}
+
+/** Return true if this test writes the snapshot in chunks.
+ */
+public static boolean isChunked() {
+   return ParRegPrms.getNumSnapshotChunks() > 0;
+}
+
+/** The version of every chunk of one write of the chunked snapshot, and the
+ *  size of the whole snapshot.  Chunks read through a manifest all belong to
+ *  the same write.
+ */
+public static class Manifest implements Serializable {
+   private final long version;
+   private final long[] chunkVersions;
+   private final long[] previousChunkVersions;
+   private final int snapshotSize;
+
+   Manifest(long version, long[] chunkVersions, long[] previousChunkVersions, int snapshotSize) {
+      this.version = version;
+      this.chunkVersions = chunkVersions;
+      this.previousChunkVersions = previousChunkVersions;
+      this.snapshotSize = snapshotSize;
+   }
+
+   /** Return the version of the write this manifest describes.
+    */
+   public long getVersion() {
+      return version;
+   }
+
+   /** Return the number of chunks in the snapshot.
+    */
+   public int getNumChunks() {
+      return chunkVersions.length;
+   }
+
+   /** Return the number of entries in the whole snapshot.
+    */
+   public int getSnapshotSize() {
+      return snapshotSize;
+   }
+
+   /** Return the given chunk of the snapshot.
+    *
+    *  @throws SnapshotChangedException if the chunk was removed because
+    *          the snapshot has been written twice since this manifest.
+    */
+   public Map readChunk(int chunk) {
+      Map snapshotChunk = (Map)ParRegBB.getBB().getSharedMap().get(snapshotKey(chunk, chunkVersions[chunk]));
+      if (snapshotChunk == null) {
+         throw new SnapshotChangedException("Region snapshot chunk " + chunk + " of version " +
+               version + " is no longer on the blackboard");
+      }
+      return snapshotChunk;
+   }
+
+   /** Return the given chunk of the destroyed keys.
+    *
+    *  @throws SnapshotChangedException if the chunk was removed because
+    *          the snapshot has been written twice since this manifest.
+    */
+   public Set readDestroyedKeysChunk(int chunk) {
+      Set destroyedKeysChunk = (Set)ParRegBB.getBB().getSharedMap().get(destroyedKeysKey(chunk, chunkVersions[chunk]));
+      if (destroyedKeysChunk == null) {
+         throw new SnapshotChangedException("Destroyed keys chunk " + chunk + " of version " +
+               version + " is no longer on the blackboard");
+      }
+      return destroyedKeysChunk;
+   }
+
+   public String toString() {
+      return "Manifest(version=" + version + ", numChunks=" + chunkVersions.length +
+             ", snapshotSize=" + snapshotSize + ")";
+   }
+}
+
+/** Thrown when a chunk named by a manifest has been removed from the
+ *  blackboard by later writes.
+ */
+public static class SnapshotChangedException extends TestException {
+   public SnapshotChangedException(String msg) {
+      super(msg);
+   }
+}
+
+/** A map kept as one HashMap per chunk, remembering which chunks have
+ *  changed since it was read or written.  Its views are read-only; it
+ *  serializes as a plain HashMap.
+ */
+static class ChunkedMap extends AbstractMap implements Serializable {
+   final HashMap[] chunks;
+   final boolean[] dirty;
+   long baseVersion = -1;
+
+   ChunkedMap(int numChunks) {
+      chunks = new HashMap[numChunks];
+      dirty = new boolean[numChunks];
+      for (int i = 0; i < numChunks; i++) {
+         chunks[i] = new HashMap();
+      }
+   }
+
+   /** Return the given map if it is a ChunkedMap with numChunks chunks,
+    *  otherwise a ChunkedMap copy of it.
+    */
+   static ChunkedMap of(Map aMap, int numChunks) {
+      if ((aMap instanceof ChunkedMap) && (((ChunkedMap)aMap).chunks.length == numChunks)) {
+         return (ChunkedMap)aMap;
+      }
+      ChunkedMap copy = new ChunkedMap(numChunks);
+      copy.putAll(aMap);
+      return copy;
+   }
+
+   /** Record that this map was read or written as the given version.
+    */
+   void written(long version) {
+      baseVersion = version;
+      for (int i = 0; i < dirty.length; i++) {
+         dirty[i] = false;
+      }
+   }
+
+   private HashMap chunkOf(Object key) {
+      return chunks[chunkFor(key, chunks.length)];
+   }
+
+   public int size() {
+      int size = 0;
+      for (int i = 0; i < chunks.length; i++) {
+         size += chunks[i].size();
+      }
+      return size;
+   }
+
+   public boolean containsKey(Object key) {
+      return chunkOf(key).containsKey(key);
+   }
+
+   public Object get(Object key) {
+      return chunkOf(key).get(key);
+   }
+
+   public Object put(Object key, Object value) {
+      int chunk = chunkFor(key, chunks.length);
+      dirty[chunk] = true;
+      return chunks[chunk].put(key, value);
+   }
+
+   public Object remove(Object key) {
+      int chunk = chunkFor(key, chunks.length);
+      if (!chunks[chunk].containsKey(key)) {
+         return null;
+      }
+      dirty[chunk] = true;
+      return chunks[chunk].remove(key);
+   }
+
+   public void clear() {
+      for (int i = 0; i < chunks.length; i++) {
+         if (chunks[i].size() > 0) {
+            chunks[i].clear();
+            dirty[i] = true;
+         }
+      }
+   }
+
+   public Set entrySet() {
+      return new AbstractSet() {
+         public Iterator iterator() {
+            Collection[] views = new Collection[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+               views[i] = Collections.unmodifiableMap(chunks[i]).entrySet();
+            }
+            return new ChunkIterator(views, dirty);
+         }
+         public int size() {
+            return ChunkedMap.this.size();
+         }
+      };
+   }
+
+   private Object writeReplace() {
+      return new HashMap(this);
+   }
+}
+
+/** A set kept as one HashSet per chunk, remembering which chunks have
+ *  changed since it was read or written.  It serializes as a plain HashSet.
+ */
+static class ChunkedSet extends AbstractSet implements Serializable {
+   final HashSet[] chunks;
+   final boolean[] dirty;
+   long baseVersion = -1;
+
+   ChunkedSet(int numChunks) {
+      chunks = new HashSet[numChunks];
+      dirty = new boolean[numChunks];
+      for (int i = 0; i < numChunks; i++) {
+         chunks[i] = new HashSet();
+      }
+   }
+
+   /** Return the given set if it is a ChunkedSet with numChunks chunks,
+    *  otherwise a ChunkedSet copy of it.
+    */
+   static ChunkedSet of(Set aSet, int numChunks) {
+      if ((aSet instanceof ChunkedSet) && (((ChunkedSet)aSet).chunks.length == numChunks)) {
+         return (ChunkedSet)aSet;
+      }
+      ChunkedSet copy = new ChunkedSet(numChunks);
+      copy.addAll(aSet);
+      return copy;
+   }
+
+   /** Record that this set was read or written as the given version.
+    */
+   void written(long version) {
+      baseVersion = version;
+      for (int i = 0; i < dirty.length; i++) {
+         dirty[i] = false;
+      }
+   }
+
+   public int size() {
+      int size = 0;
+      for (int i = 0; i < chunks.length; i++) {
+         size += chunks[i].size();
+      }
+      return size;
+   }
+
+   public boolean contains(Object key) {
+      return chunks[chunkFor(key, chunks.length)].contains(key);
+   }
+
+   public boolean add(Object key) {
+      int chunk = chunkFor(key, chunks.length);
+      boolean added = chunks[chunk].add(key);
+      if (added) {
+         dirty[chunk] = true;
+      }
+      return added;
+   }
+
+   public boolean remove(Object key) {
+      int chunk = chunkFor(key, chunks.length);
+      boolean removed = chunks[chunk].remove(key);
+      if (removed) {
+         dirty[chunk] = true;
+      }
+      return removed;
+   }
+
+   public void clear() {
+      for (int i = 0; i < chunks.length; i++) {
+         if (chunks[i].size() > 0) {
+            chunks[i].clear();
+            dirty[i] = true;
+         }
+      }
+   }
+
+   public Iterator iterator() {
+      return new ChunkIterator(chunks, dirty);
+   }
+
+   private Object writeReplace() {
+      return new HashSet(this);
+   }
+}
+
+/** Iterates the given chunks in order, marking a chunk dirty when an
+ *  element is removed from it through this iterator.
+ */
+private static class ChunkIterator implements Iterator {
+   private final Collection[] chunks;
+   private final boolean[] dirty;
+   private int chunk = -1;
+   private int lastChunk = -1;
+   private Iterator current = Collections.emptySet().iterator();
+   private Iterator last = null;
+
+   ChunkIterator(Collection[] chunks, boolean[] dirty) {
+      this.chunks = chunks;
+      this.dirty = dirty;
+   }
+
+   public boolean hasNext() {
+      while (!current.hasNext() && (chunk + 1 < chunks.length)) {
+         chunk++;
+         current = chunks[chunk].iterator();
+      }
+      return current.hasNext();
+   }
+
+   public Object next() {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+      last = current;
+      lastChunk = chunk;
+      return current.next();
+   }
+
+   public void remove() {
+      if (last == null) {
+         throw new IllegalStateException();
+      }
+      last.remove();
+      dirty[lastChunk] = true;
+      last = null;
+   }
+}
+
+}
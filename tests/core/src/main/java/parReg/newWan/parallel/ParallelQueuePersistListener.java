@@ -25,7 +25,7 @@ import org.apache.geode.cache.EntryEvent;
 
 public class ParallelQueuePersistListener extends SilenceListener {
   public void afterUpdate(EntryEvent event) {
-    SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+    SilenceListenerBB.recordEvent();
 
     Long oldValue = (Long)((ValueHolder)event.getOldValue()).getMyValue();
     Long newValue = (Long)((ValueHolder)event.getNewValue()).getMyValue();
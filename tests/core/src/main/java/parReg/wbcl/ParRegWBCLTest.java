@@ -458,8 +458,8 @@ public class ParRegWBCLTest extends ParRegTest {
     WBCLEventListener.waitForSilence(30, 5000);
 
     StringBuffer aStr = new StringBuffer();
-    regionSnapshot = (Map)(ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot));
-    destroyedKeys = (Set)(ParRegBB.getBB().getSharedMap().get(ParRegBB.DestroyedKeys));
+    regionSnapshot = RegionSnapshotStore.read();
+    destroyedKeys = RegionSnapshotStore.readDestroyedKeys();
     Set localKeySet = new HashSet(wbclRegion.keySet()); // must be wrapped in HashSet to invoke removeAll below
     int snapshotSize = regionSnapshot.size();
     int numLocalKeys = localKeySet.size();
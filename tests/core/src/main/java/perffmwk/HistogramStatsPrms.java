@@ -39,6 +39,21 @@ public class HistogramStatsPrms extends BasePrms {
     return tasktab().booleanAt(key, tab().booleanAt(key, false));
   }
 
+  /**
+   * (boolean)
+   * Whether to record the time of each operation in a {@link
+   * LatencyHistogramStats}, for tasks that use them, so that latency
+   * percentiles are reported.  Defaults to false.  Open-loop tasks always
+   * record their corrected latencies (see {@link
+   * cacheperf.CachePerfPrms#openLoopOpsPerSec}).  Can be enabled or disabled
+   * on a per-task basis using task attributes.
+   */
+  public static Long enableLatencyHistogram;
+  public static boolean enableLatencyHistogram() {
+    Long key = enableLatencyHistogram;
+    return tasktab().booleanAt(key, tab().booleanAt(key, false));
+  }
+
   /**
    * (boolean)
    * Whether to log warnings when the highest latencies occur, with the
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package perffmwk;
+
+import org.apache.geode.StatisticDescriptor;
+import org.apache.geode.StatisticsType;
+
+/**
+ * Implements a latency histogram with log-linear bins, in the style of
+ * HdrHistogram.  Each power of two is split into {@link #SUB_BINS} linear
+ * bins, so a value is recorded with a relative error of at most
+ * 1/{@link #SUB_BINS}, from 0 up to 2^{@link #MAX_VALUE_BITS} ns.  Larger
+ * values are counted in the last bin.
+ * <p>
+ * Unlike {@link HistogramStats}, the bins are fixed, so recording a value
+ * computes the bin index with a few shifts and increments the bin by
+ * statistic id, with no search, string lookup, or allocation.  Since the
+ * bins are the same in every instance, counts can be merged across threads
+ * and VMs by adding them, which is how {@link PerfReporter} reports the
+ * percentiles for each histogram in each trim interval.  As with {@link
+ * HistogramStats}, tasks typically use {@link HistogramStatsPrms#enable} to
+ * decide whether to record.
+ */
+public class LatencyHistogramStats extends PerformanceStatistics {
+
+  private static final int SCOPE = THREAD_SCOPE;
+
+  /** The number of bits of precision within each power of two */
+  public static final int SUB_BIN_BITS = 3;
+
+  /** The number of linear bins within each power of two */
+  public static final int SUB_BINS = 1 << SUB_BIN_BITS;
+
+  /** The largest value recorded without clamping is 2^MAX_VALUE_BITS - 1 */
+  public static final int MAX_VALUE_BITS = 40;
+
+  /** The number of bins */
+  public static final int NUM_BINS = (MAX_VALUE_BITS - SUB_BIN_BITS + 1)
+                                   << SUB_BIN_BITS;
+
+  /** The prefix of the name of each bin statistic */
+  protected static final String BIN = "bin";
+
+  protected static final String OPERATIONS = "operations";
+  protected static final String OPERATION_TIME = "operationTime";
+
+  /** Statistic ids, the same for all instances of the type */
+  private static int[] binIds;
+  private static int opsId;
+  private static int opTimeId;
+
+//------------------------------------------------------------------------------
+// static methods
+
+  /**
+   * Returns the statistic descriptors for <code>LatencyHistogramStats</code>
+   */
+  public static StatisticDescriptor[] getStatisticDescriptors() {
+    StatisticDescriptor[] descriptors = new StatisticDescriptor[NUM_BINS + 2];
+    for (int i = 0; i < NUM_BINS; i++) {
+      String desc = (i == NUM_BINS - 1)
+        ? "Number of ops taking at least " + lowestValueFor(i) + " ns."
+        : "Number of ops taking from " + lowestValueFor(i) + " to "
+                                       + highestValueFor(i) + " ns.";
+      descriptors[i] = factory().createLongCounter(BIN + i, desc, "ops",
+                                                   false);
+    }
+    descriptors[NUM_BINS] = factory().createLongCounter(OPERATIONS,
+      "Total number of ops included in the histogram", "ops", true);
+    descriptors[NUM_BINS + 1] = factory().createLongCounter(OPERATION_TIME,
+      "Total time taken by ops included in the histogram", "nanoseconds",
+      false);
+    return descriptors;
+  }
+
+  /**
+   * Creates an instance with thread scope using the thread name as
+   * the display name.
+   */
+  public static LatencyHistogramStats getInstance() {
+    return (LatencyHistogramStats)getInstance(LatencyHistogramStats.class,
+                                              SCOPE);
+  }
+
+  /**
+   * Creates an instance with the specified scope using the thread name as
+   * the display name.
+   */
+  public static LatencyHistogramStats getInstance(int scope) {
+    return (LatencyHistogramStats)getInstance(LatencyHistogramStats.class,
+                                              scope);
+  }
+
+  /**
+   * Creates an instance with thread scope using the specified display name.
+   */
+  public static LatencyHistogramStats getInstance(String name) {
+    return (LatencyHistogramStats)getInstance(LatencyHistogramStats.class,
+                                              SCOPE, name);
+  }
+
+  /**
+   * Creates an instance with thread scope using the specified display name
+   * and associated with the specified trim specification.
+   */
+  public static LatencyHistogramStats getInstance(String name,
+                                                  String trimspecName) {
+    return (LatencyHistogramStats)getInstance(LatencyHistogramStats.class,
+                                              SCOPE, name, trimspecName);
+  }
+
+  /**
+   * Returns the index of the bin for the given value.
+   */
+  public static int indexFor(long value) {
+    if (value < SUB_BINS) {
+      return value < 0 ? 0 : (int)value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BIN_BITS;
+    int index = ((shift + 1) << SUB_BIN_BITS)
+              + (int)((value >>> shift) - SUB_BINS);
+    return index < NUM_BINS ? index : NUM_BINS - 1;
+  }
+
+  /**
+   * Returns the lowest value counted in the bin with the given index.
+   */
+  public static long lowestValueFor(int index) {
+    if (index < SUB_BINS) {
+      return index;
+    }
+    int shift = (index >> SUB_BIN_BITS) - 1;
+    return (long)(SUB_BINS + (index & (SUB_BINS - 1))) << shift;
+  }
+
+  /**
+   * Returns the highest value counted in the bin with the given index.  The
+   * last bin also counts the clamped values, so its highest value is
+   * reported as the clamp bound, 2^{@link #MAX_VALUE_BITS}, and any value
+   * based on it is saturated.
+   */
+  public static long highestValueFor(int index) {
+    return (index == NUM_BINS - 1) ? 1L << MAX_VALUE_BITS
+                                   : lowestValueFor(index + 1) - 1;
+  }
+
+  /**
+   * Adds the bin counts in <code>other</code> to <code>counts</code>.
+   */
+  public static void add(long[] counts, long[] other) {
+    for (int i = 0; i < NUM_BINS; i++) {
+      counts[i] += other[i];
+    }
+  }
+
+  /**
+   * Returns the value at the given percentile (0-100) of the given bin
+   * counts, as the highest value in the bin that holds it.  Returns -1 if
+   * the counts are empty.  The value at percentile 100 is the maximum.  A
+   * value in the last bin is saturated at 2^{@link #MAX_VALUE_BITS}, since
+   * larger values are clamped into that bin.
+   */
+  public static long valueAtPercentile(long[] counts, double percentile) {
+    long total = 0;
+    for (int i = 0; i < NUM_BINS; i++) {
+      total += counts[i];
+    }
+    if (total == 0) {
+      return -1;
+    }
+    long rank = (long)Math.ceil((percentile / 100.0) * total);
+    if (rank < 1) {
+      rank = 1;
+    }
+    long seen = 0;
+    int last = 0;
+    for (int i = 0; i < NUM_BINS; i++) {
+      if (counts[i] != 0) {
+        seen += counts[i];
+        last = i;
+        if (seen >= rank) {
+          return highestValueFor(i);
+        }
+      }
+    }
+    return highestValueFor(last);
+  }
+
+  /**
+   * Initializes the statistic ids from the type.
+   */
+  private static synchronized void initIds(StatisticsType type) {
+    if (binIds == null) {
+      int[] ids = new int[NUM_BINS];
+      for (int i = 0; i < NUM_BINS; i++) {
+        ids[i] = type.nameToId(BIN + i);
+      }
+      opsId = type.nameToId(OPERATIONS);
+      opTimeId = type.nameToId(OPERATION_TIME);
+      binIds = ids;
+    }
+  }
+
+//------------------------------------------------------------------------------
+// instance methods
+
+  private final int[] ids;
+
+  public LatencyHistogramStats(Class cls, StatisticsType type, int scope,
+                    String instanceName, String trimspecName) {
+    super(cls, type, scope, instanceName, trimspecName);
+    initIds(type);
+    this.ids = binIds;
+  }
+
+  /**
+   * Only the operation count and time are registered as runtime statistics
+   * specifications.  The bins are reported as percentiles instead.
+   */
+  protected boolean isReported(StatisticDescriptor statDesc) {
+    return !statDesc.getName().startsWith(BIN);
+  }
+
+  /**
+   * Records an operation that took the given time, in nanoseconds.
+   */
+  public void record(long t) {
+    this.statistics.incLong(this.ids[indexFor(t)], 1);
+    this.statistics.incLong(opsId, 1);
+    this.statistics.incLong(opTimeId, t);
+  }
+
+  /**
+   * Returns the current bin counts for this instance.
+   */
+  public long[] getCounts() {
+    long[] counts = new long[NUM_BINS];
+    for (int i = 0; i < NUM_BINS; i++) {
+      counts[i] = this.statistics.getLong(this.ids[i]);
+    }
+    return counts;
+  }
+}
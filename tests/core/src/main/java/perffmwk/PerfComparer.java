@@ -21,6 +21,11 @@ import org.apache.geode.LogWriter;
 import hydra.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import util.TestHelper;
 
 /**
@@ -80,6 +85,13 @@ import util.TestHelper;
  * default to "perfcomparison.csv" in the working directory.  The <code>csvFile
  * </code> system property can be used to override with a different file.
  * <p>
+ * Set <code>useCache</code> true to keep the statistic values for each test
+ * in a {@link StatValueCache} file in the test directory.  Later comparisons
+ * read the values from the cache instead of the statistic archives, unless
+ * the statspecs or the archives have changed.  The values for the tests are
+ * read <code>readerThreads</code> tests at a time, which defaults to the
+ * number of processors.
+ * <p>
  * Log messages for the tool are appended to "perfcomparer.log" in the working
  * directory.  Use <code>logLevel</code> to change the verbosity of the log.
  * <p>
@@ -99,6 +111,8 @@ import util.TestHelper;
  *        [-DstatSpecFile=&lt;stat_spec_filename&gt;]
  *        [-DgenerateCSVFile=&lt;whether_to_generate_csv_file(default:false)&gt;]
  *        [-DcsvFile=&lt;csv_filename(default:$pwd/perfcomparison.csv)&gt;]
+ *        [-DuseCache=&lt;whether_to_cache_stat_values(default:false)&gt;]
+ *        [-DreaderThreads=&lt;tests_to_read_at_a_time(default:#processors)&gt;]
  *        perffmwk.PerfComparer
  *        &lt;two_or_more_comparable_test_directories&gt;
  * </pre></blockquote>
@@ -169,6 +183,14 @@ public class PerfComparer extends Formatter
   private static final String CSV_FILE_PROP = "csvFile";
   private static String CSVFile;
 
+  // Whether to cache stat values in the test directories.
+  private static final String USE_CACHE_PROP = "useCache";
+  private static boolean UseCache;
+
+  // Number of tests whose stat values are read at a time.
+  private static final String READER_THREADS_PROP = "readerThreads";
+  private static int ReaderThreads;
+
   // The test container directories given as arguments, in the order given.
   private static List TestContainerDirs;
 
@@ -288,6 +310,21 @@ public class PerfComparer extends Formatter
       configuration.append("\ncvsFile = " + CSVFile);
     }
 
+    // use cache
+    UseCache = Boolean.getBoolean(USE_CACHE_PROP);
+    configuration.append("\nuseCache = " + UseCache);
+
+    // reader threads
+    {
+      ReaderThreads = Integer.getInteger(READER_THREADS_PROP,
+                      Runtime.getRuntime().availableProcessors()).intValue();
+      if (ReaderThreads < 1) {
+        usage("Illegal readerThreads: " + ReaderThreads);
+        return false;
+      }
+      configuration.append("\nreaderThreads = " + ReaderThreads);
+    }
+
     // test container dirs, in order given, without duplicates
     if (args.length == 0) {
       usage("No directories specified");
@@ -345,6 +382,10 @@ public class PerfComparer extends Formatter
                       + "=<whether_to_generate_csv_file(default:false)>");
     buf.append("\n-D" + CSV_FILE_PROP
                       + "=<csv_filename(default:$pwd/perfcomparison.csv)>");
+    buf.append("\n-D" + USE_CACHE_PROP
+                      + "=<whether_to_cache_stat_values(default:false)>");
+    buf.append("\n-D" + READER_THREADS_PROP
+                      + "=<tests_to_read_at_a_time(default:#processors)>");
     System.out.println( buf.toString());
   }
 
@@ -1276,6 +1317,65 @@ public class PerfComparer extends Formatter
     throw new PerfComparisonException(s);
   }
 
+  /**
+   * Reads the stat values for the tests in the test containers, using up to
+   * the given number of threads.  Must be invoked after the statspecs are
+   * made consistent, since the values depend on them.
+   */
+  private static void readStatValues(List testContainers,
+                                     final boolean useCache, int numThreads) {
+    log.info("Reading stat values" + (useCache ? " using cache..." : "..."));
+    List tasks = new ArrayList();
+    for (Iterator i = testContainers.iterator(); i.hasNext();) {
+      TestContainer testContainer = (TestContainer)i.next();
+      for (Iterator j = testContainer.getTests().iterator(); j.hasNext();) {
+        final Test test = (Test)j.next();
+        tasks.add(new Callable() {
+          public Object call() {
+            test.readStatValues(useCache);
+            return null;
+          }
+        });
+      }
+    }
+    int n = Math.min(numThreads, tasks.size());
+    if (n <= 1) {
+      for (Iterator i = tasks.iterator(); i.hasNext();) {
+        try {
+          ((Callable)i.next()).call();
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new PerfComparisonException("Unable to read stat values", e);
+        }
+      }
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(n);
+    try {
+      List futures = pool.invokeAll(tasks);
+      for (Iterator i = futures.iterator(); i.hasNext();) {
+        try {
+          ((Future)i.next()).get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+          } else if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          throw new PerfComparisonException("Unable to read stat values",
+                                            (Exception)cause);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PerfComparisonException("Interrupted reading stat values", e);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   /**
    * Returns a list of {@link ValueComparator}s for the given test container
    * with values for relevant statistics.  Used for special case.
@@ -1401,6 +1501,9 @@ public class PerfComparer extends Formatter
         // make the statspecs consistent
         resetStatSpecs(testIds, testContainers, StatSpecFile);
 
+        // read the stat values for all tests, using the cache if requested
+        readStatValues(testContainers, UseCache, ReaderThreads);
+
         // do the comparison
         List testComparisons = compare(testIds, testContainers, MarkFailedTests);
 
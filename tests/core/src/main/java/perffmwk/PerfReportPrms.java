@@ -68,6 +68,16 @@ public class PerfReportPrms extends BasePrms {
    *  Whether to use an auto-generated file for stats specification.
    */
   public static Long useAutoGeneratedStatisticsSpecification;
+
+  /**
+   *  (String)
+   *  Directory of a {@link PerfResultStore} to which the values in the
+   *  performance report are written, one segment per test directory, for
+   *  trend analysis across runs.
+   *  Defaults to null (none).  Only used when {@link
+   *  #generatePerformanceReport} is true.
+   */
+  public static Long resultStore;
     static {
         setValues( PerfReportPrms.class );
     }
@@ -71,6 +71,7 @@ import util.TestHelper;
  *         [-DlogLevel=&lt;perf_reporter_log_level(default:info)&gt;]
  *         [-DBrief=&lt;brief_summar_report(default:false)&gt;]
  *         [-DuseWorkaround=&lt;use_workaround_for_bug_30288(default:true)&gt;]
+ *         [-DresultStore=&lt;result_store_directory&gt;]
  *         [user_defined_system_properties]
  *         perffmwk.PerfReporter
  *         [&lt;test_directories&gt;]
@@ -99,6 +100,10 @@ import util.TestHelper;
  * <p>
  * If <code>useWorkaround</code> is true (default), a workaround is used for
  * Bug 30288 to allow active stats to flush to the archive.
+ * <p>
+ * If <code>resultStore</code> is set, the values in each report are also
+ * written to the {@link PerfResultStore} in that directory, replacing those
+ * from any earlier report on the same test directory.
  * <P>
  *
  * A "brief" performance report (specified with the "Brief" system
@@ -127,6 +132,9 @@ public class PerfReporter extends Formatter {
 
   private static boolean useWorkaround = true;
 
+  /** The result store directory, if any */
+  private static String resultStore = null;
+
   private static LogWriter log;
 
   public static void main( String[] args ) {
@@ -184,6 +192,7 @@ public class PerfReporter extends Formatter {
 
     useWorkaround = Boolean.getBoolean("useWorkaround");
     brief = Boolean.getBoolean("Brief");
+    resultStore = System.getProperty("resultStore");
 
     // open the reporter log file, append if it already exists
     log = Log.createLogWriter( "perfreporter", "perfreporter", logLevel, true );
@@ -196,6 +205,7 @@ public class PerfReporter extends Formatter {
 	      "\nperfReportFile = " + perfReportFile +
 	      "\nlogLevel = " + logLevel +
 	      "\nBrief = " + brief +
+	      "\nresultStore = " + resultStore +
 	      "\ntestDirs = " + testDirs );
 
     // generate a report for each test directory provided
@@ -212,10 +222,21 @@ public class PerfReporter extends Formatter {
       if ( statconfig != null ) {
 	SortedMap statvalues = getStatValues( statconfig );
 	if ( statvalues != null ) {
-	  String statreport = getStatReport( statconfig, statvalues );
+	  SortedMap histograms =
+	    PerfStatReader.processLatencyHistograms( statconfig );
+	  String statreport = getStatReport( statconfig, statvalues, histograms );
 	  if ( statreport != null ) {
 	    printStatReport( statconfig, statreport );
 	  }
+	  if ( resultStore != null ) {
+	    try {
+	      File segment = PerfResultStore.append( resultStore, statconfig,
+	                                             statvalues, histograms );
+	      log().info( "Wrote results to " + segment );
+	    } catch( HydraRuntimeException e ) {
+	      log().warning( "Unable to write results for " + testDir, e );
+	    }
+	  }
 	}
       }
     }
@@ -356,7 +377,8 @@ public class PerfReporter extends Formatter {
     throw new HydraInternalException("Should not happen");
   }
 
-  private static String getStatReport( StatConfig statconfig, SortedMap statvalues ) {
+  private static String getStatReport( StatConfig statconfig, SortedMap statvalues,
+                                       SortedMap histograms ) {
     StringWriter sw = new StringWriter();
     PrintWriter pw = new PrintWriter( sw, true );
     printTitleInfo( statconfig, pw );
@@ -375,6 +397,7 @@ public class PerfReporter extends Formatter {
     center( "Statistics Values", pw );
     pw.println( DIVIDER );
     printStatisticsValues( statconfig, statvalues, pw );
+    printLatencyPercentiles( histograms, pw );
     pw.flush();
     return sw.toString();
   }
@@ -647,6 +670,41 @@ public class PerfReporter extends Formatter {
       pw.println( DIVIDER );
     }
   }
+  /**
+   *  Adds the percentiles of each {@link LatencyHistogramStats} histogram
+   *  for each trim interval to the report, if there are any.  Values are in
+   *  nanoseconds and are the highest value in the bin holding the percentile,
+   *  so they can overstate by up to 1/{@link LatencyHistogramStats#SUB_BINS}.
+   */
+  private static void printLatencyPercentiles( SortedMap histograms, PrintWriter pw ) {
+    if ( histograms == null || histograms.size() == 0 ) {
+      return;
+    }
+    center( "Latency Percentiles (ns)", pw );
+    pw.println( DIVIDER );
+    for ( Iterator i = histograms.keySet().iterator(); i.hasNext(); ) {
+      String trimspecName = (String) i.next();
+      SortedMap histogramsForTrim = (SortedMap) histograms.get( trimspecName );
+      for ( Iterator j = histogramsForTrim.keySet().iterator(); j.hasNext(); ) {
+        String histogramName = (String) j.next();
+        long[] counts = (long[]) histogramsForTrim.get( histogramName );
+        long ops = 0;
+        for ( int k = 0; k < counts.length; k++ ) {
+          ops += counts[k];
+        }
+        if ( ops == 0 ) {
+          continue;
+        }
+        pw.println( histogramName + " trimspec=" + trimspecName
+                  + " ops=" + ops
+                  + " p50=" + LatencyHistogramStats.valueAtPercentile( counts, 50 )
+                  + " p99=" + LatencyHistogramStats.valueAtPercentile( counts, 99 )
+                  + " p99.9=" + LatencyHistogramStats.valueAtPercentile( counts, 99.9 )
+                  + " max=" + LatencyHistogramStats.valueAtPercentile( counts, 100 ) );
+      }
+    }
+    pw.println( DIVIDER );
+  }
   private static LogWriter log() {
     return Log.getLogWriter();
   }
@@ -657,7 +715,7 @@ public class PerfReporter extends Formatter {
 
   private static void usage(String s) {
     System.out.println("\n** " + s + "\n");
-    System.out.println( "Usage: java -Dgemfire.home=<path_to_gemfire_product_tree> -DJTESTS=<path_to_test_classes> [-DstatSpecFile=<statistics_specification_filename>] [-DperfReportFile=<perf_report_filename>] [-DlogLevel=<log_level(default:info)>] [-DuseWorkaround=<use_workaround_for_bug_30288(default:true)>] perffmwk.PerfReporter [test_directories]" );
+    System.out.println( "Usage: java -Dgemfire.home=<path_to_gemfire_product_tree> -DJTESTS=<path_to_test_classes> [-DstatSpecFile=<statistics_specification_filename>] [-DperfReportFile=<perf_report_filename>] [-DlogLevel=<log_level(default:info)>] [-DuseWorkaround=<use_workaround_for_bug_30288(default:true)>] [-DresultStore=<result_store_directory>] perffmwk.PerfReporter [test_directories]" );
   }
   private static void logError( String msg ) {
     if ( log == null )
@@ -0,0 +1,733 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package perffmwk;
+
+import hydra.FileUtil;
+import hydra.HydraRuntimeException;
+import java.io.*;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A columnar store of performance results across test runs, for trend
+ * analysis without parsing performance reports.
+ * <p>
+ * The store is a directory.  {@link PerfReporter} writes one segment file to
+ * it for each test run it reports on, when the <code>resultStore</code>
+ * system property names the directory (see {@link
+ * PerfReportPrms#resultStore}).  The segment is named for the test directory,
+ * so reporting on the same run again replaces its segment rather than adding
+ * another.  Segments are written under a temporary name and renamed when
+ * complete, so runs on different hosts can share a store.
+ * <p>
+ * A segment starts with the run properties: the test directory, test name,
+ * test start time, report time, build and source versions, and the test
+ * properties, prefixed with {@link #TEST_PROPERTY_PREFIX}.  The start time is
+ * when hydra wrote latest.prop in the test directory.  It then holds one row per statistic
+ * value and operation, plus one row per latency percentile, in these columns,
+ * each compressed separately:
+ * <blockquote><pre>
+ *   statspec   the statspec or latency histogram name
+ *   trimspec   the trimspec name
+ *   trimStart  the trim start time in milliseconds, or -1
+ *   trimEnd    the trim end time in milliseconds, or -1
+ *   index      the index of the value among those for the statspec
+ *   op         min, max, max-min, mean, stddev, p50, p99, p99.9, or p100
+ *   value      the value
+ *   samples    the number of samples, or operations for a percentile
+ * </pre></blockquote>
+ * String columns are dictionary encoded.  A scan reads the run properties of
+ * each segment first, and decompresses only the columns it needs from the
+ * segments that match.
+ * <p>
+ * Usage:
+ * <blockquote><pre>
+ *   java perffmwk.PerfResultStore &lt;store_directory&gt;
+ *        [-test &lt;test_name_regex&gt;]
+ *        [-stat &lt;statspec_regex&gt;]
+ *        [-op &lt;op&gt;]
+ *        [-since &lt;yyyy-MM-dd&gt;] [-until &lt;yyyy-MM-dd&gt;]
+ *        [-prop &lt;name&gt;=&lt;value&gt;]...
+ * </pre></blockquote>
+ * prints the matching rows as CSV, one per line, in test start time order.
+ * The dates select runs by test start time.  For example, the p99 put latency
+ * for all parReg runs started since January:
+ * <blockquote><pre>
+ *   java perffmwk.PerfResultStore /export/results
+ *        -test parReg -stat put -op p99 -since 2015-01-01
+ * </pre></blockquote>
+ */
+public class PerfResultStore {
+
+  /** File name suffix for segments */
+  public static final String SEGMENT_SUFFIX = ".prs";
+
+  /** Prefix for test properties in the run properties */
+  public static final String TEST_PROPERTY_PREFIX = "prop.";
+
+  public static final String TEST_DIR     = "testDir";
+  public static final String TEST_NAME    = "testName";
+  public static final String START_TIME   = "startTime";
+  public static final String REPORT_TIME  = "reportTime";
+  public static final String BUILD        = "buildVersion";
+  public static final String SOURCE       = "sourceVersion";
+
+  public static final String STATSPEC     = "statspec";
+  public static final String TRIMSPEC     = "trimspec";
+  public static final String TRIM_START   = "trimStart";
+  public static final String TRIM_END     = "trimEnd";
+  public static final String INDEX        = "index";
+  public static final String OP           = "op";
+  public static final String VALUE        = "value";
+  public static final String SAMPLES      = "samples";
+
+  private static final int MAGIC = 0x50525331; // PRS1
+
+  private static final byte STRING_TYPE = 0;
+  private static final byte LONG_TYPE   = 1;
+  private static final byte DOUBLE_TYPE = 2;
+
+  private static final double[] PERCENTILES = { 50, 99, 99.9, 100 };
+  private static final String[] PERCENTILE_OPS = { "p50", "p99", "p99.9",
+                                                   "p100" };
+
+//------------------------------------------------------------------------------
+// Writing
+//------------------------------------------------------------------------------
+
+  /**
+   * Writes a segment with the given results for a test run to the store in
+   * the given directory, creating the directory if needed, and replacing the
+   * segment from any earlier report on the same test directory.
+   *
+   * @param statvalues the values from {@link PerfStatReader#processStatConfig}.
+   * @param histograms the histograms from {@link
+   *        PerfStatReader#processLatencyHistograms}, or null.
+   * @return the segment file.
+   * @throws HydraRuntimeException if the segment cannot be written.
+   */
+  public static File append(String storeDir, StatConfig statconfig,
+                            SortedMap statvalues, SortedMap histograms) {
+    File dir = new File(storeDir);
+    if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+      throw new HydraRuntimeException("Unable to create " + dir);
+    }
+    long now = System.currentTimeMillis();
+    String testDir = statconfig.getTestDir();
+    String name = segmentNameFor(testDir);
+    long startTime = new File(testDir, "latest.prop").lastModified();
+
+    // run properties
+    SortedMap props = new TreeMap();
+    props.put(TEST_DIR, testDir);
+    props.put(TEST_NAME, String.valueOf(statconfig.getTestName()));
+    props.put(START_TIME, String.valueOf(startTime == 0 ? now : startTime));
+    props.put(REPORT_TIME, String.valueOf(now));
+    props.put(BUILD, String.valueOf(statconfig.getBuildVersion()));
+    props.put(SOURCE, statconfig.getSourceRepository() + ":"
+                    + statconfig.getSourceRevision());
+    Properties testProps = statconfig.getTestProperties();
+    if (testProps != null) {
+      for (Iterator i = testProps.keySet().iterator(); i.hasNext();) {
+        String key = (String)i.next();
+        props.put(TEST_PROPERTY_PREFIX + key, testProps.getProperty(key));
+      }
+    }
+
+    // rows
+    Columns columns = new Columns();
+    for (Iterator i = statvalues.keySet().iterator(); i.hasNext();) {
+      String statspecName = (String)i.next();
+      List values = (List)statvalues.get(statspecName);
+      for (int index = 0; index < values.size(); index++) {
+        PerfStatValue psv = (PerfStatValue)values.get(index);
+        int samples = psv.samples == null ? 0 : psv.samples.intValue();
+        columns.add(statspecName, psv.trimspec, index, "min", psv.min, samples);
+        columns.add(statspecName, psv.trimspec, index, "max", psv.max, samples);
+        columns.add(statspecName, psv.trimspec, index, "max-min",
+                    psv.maxminusmin, samples);
+        columns.add(statspecName, psv.trimspec, index, "mean", psv.mean,
+                    samples);
+        columns.add(statspecName, psv.trimspec, index, "stddev", psv.stddev,
+                    samples);
+      }
+    }
+    if (histograms != null) {
+      for (Iterator i = histograms.keySet().iterator(); i.hasNext();) {
+        String trimspecName = (String)i.next();
+        TrimSpec trimspec = statconfig.getTrimSpec(trimspecName);
+        SortedMap histogramsForTrim = (SortedMap)histograms.get(trimspecName);
+        for (Iterator j = histogramsForTrim.keySet().iterator(); j.hasNext();) {
+          String histogramName = (String)j.next();
+          long[] counts = (long[])histogramsForTrim.get(histogramName);
+          long ops = 0;
+          for (int k = 0; k < counts.length; k++) {
+            ops += counts[k];
+          }
+          if (ops == 0) {
+            continue;
+          }
+          for (int k = 0; k < PERCENTILES.length; k++) {
+            long v = LatencyHistogramStats.valueAtPercentile(counts,
+                                                             PERCENTILES[k]);
+            columns.add(histogramName, trimspec, 0, PERCENTILE_OPS[k],
+                        Double.valueOf(v), ops);
+          }
+        }
+      }
+    }
+
+    File tmp = new File(dir, "." + name + ".tmp");
+    File segment = new File(dir, name + SEGMENT_SUFFIX);
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                  new FileOutputStream(tmp)));
+      try {
+        columns.write(props, out);
+      } finally {
+        out.close();
+      }
+      if (!tmp.renameTo(segment)) {
+        // some platforms do not rename over an existing file
+        if (!segment.delete() || !tmp.renameTo(segment)) {
+          throw new IOException("Unable to rename " + tmp + " to " + segment);
+        }
+      }
+    } catch (IOException e) {
+      tmp.delete();
+      String s = "Unable to write " + segment;
+      throw new HydraRuntimeException(s, e);
+    }
+    return segment;
+  }
+
+  /**
+   * Returns the segment name for the given test directory: its name, plus a
+   * hash of its full path so that test directories with the same name in
+   * different places get different segments.
+   */
+  private static String segmentNameFor(String testDir) {
+    File dir = new File(testDir);
+    return dir.getName() + "-"
+         + Integer.toHexString(dir.getAbsolutePath().hashCode());
+  }
+
+  /**
+   * The columns of a segment being written.
+   */
+  private static class Columns {
+    final List statspecs = new ArrayList();
+    final List trimspecs = new ArrayList();
+    final List ops = new ArrayList();
+    long[] trimStarts = new long[64];
+    long[] trimEnds = new long[64];
+    long[] indexes = new long[64];
+    long[] samples = new long[64];
+    double[] values = new double[64];
+    int rows = 0;
+
+    /** Adds a row, unless the value is not present */
+    void add(String statspec, TrimSpec trimspec, int index, String op,
+             Double value, long numSamples) {
+      if (value == null) {
+        return;
+      }
+      if (this.rows == this.values.length) {
+        int n = this.rows * 2;
+        this.trimStarts = Arrays.copyOf(this.trimStarts, n);
+        this.trimEnds = Arrays.copyOf(this.trimEnds, n);
+        this.indexes = Arrays.copyOf(this.indexes, n);
+        this.samples = Arrays.copyOf(this.samples, n);
+        this.values = Arrays.copyOf(this.values, n);
+      }
+      this.statspecs.add(statspec);
+      this.trimspecs.add(trimspec == null ? "" : trimspec.getName());
+      this.ops.add(op);
+      this.trimStarts[this.rows] = trimspec == null ? -1 : trimspec.getStart();
+      this.trimEnds[this.rows] = trimspec == null ? -1 : trimspec.getEnd();
+      this.indexes[this.rows] = index;
+      this.samples[this.rows] = numSamples;
+      this.values[this.rows] = value.doubleValue();
+      ++this.rows;
+    }
+
+    void write(SortedMap props, DataOutputStream out) throws IOException {
+      out.writeInt(MAGIC);
+      out.writeInt(props.size());
+      for (Iterator i = props.keySet().iterator(); i.hasNext();) {
+        String key = (String)i.next();
+        writeString(key, out);
+        writeString((String)props.get(key), out);
+      }
+      out.writeInt(this.rows);
+      out.writeInt(8);
+      writeColumn(STATSPEC, STRING_TYPE, encodeStrings(this.statspecs), out);
+      writeColumn(TRIMSPEC, STRING_TYPE, encodeStrings(this.trimspecs), out);
+      writeColumn(TRIM_START, LONG_TYPE, encodeLongs(this.trimStarts), out);
+      writeColumn(TRIM_END, LONG_TYPE, encodeLongs(this.trimEnds), out);
+      writeColumn(INDEX, LONG_TYPE, encodeLongs(this.indexes), out);
+      writeColumn(OP, STRING_TYPE, encodeStrings(this.ops), out);
+      writeColumn(VALUE, DOUBLE_TYPE, encodeDoubles(this.values), out);
+      writeColumn(SAMPLES, LONG_TYPE, encodeLongs(this.samples), out);
+    }
+
+    private byte[] encodeStrings(List strings) throws IOException {
+      Map codes = new HashMap();
+      List dictionary = new ArrayList();
+      int[] encoded = new int[strings.size()];
+      for (int i = 0; i < encoded.length; i++) {
+        Object s = strings.get(i);
+        Integer code = (Integer)codes.get(s);
+        if (code == null) {
+          code = Integer.valueOf(dictionary.size());
+          codes.put(s, code);
+          dictionary.add(s);
+        }
+        encoded[i] = code.intValue();
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+      out.writeInt(dictionary.size());
+      for (int i = 0; i < dictionary.size(); i++) {
+        writeString((String)dictionary.get(i), out);
+      }
+      for (int i = 0; i < encoded.length; i++) {
+        out.writeInt(encoded[i]);
+      }
+      out.close();
+      return bytes.toByteArray();
+    }
+
+    private byte[] encodeLongs(long[] longs) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+      for (int i = 0; i < this.rows; i++) {
+        out.writeLong(longs[i]);
+      }
+      out.close();
+      return bytes.toByteArray();
+    }
+
+    private byte[] encodeDoubles(double[] doubles) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+      for (int i = 0; i < this.rows; i++) {
+        out.writeDouble(doubles[i]);
+      }
+      out.close();
+      return bytes.toByteArray();
+    }
+
+    private void writeColumn(String name, byte type, byte[] data,
+                             DataOutputStream out) throws IOException {
+      writeString(name, out);
+      out.writeByte(type);
+      out.writeInt(data.length);
+      out.write(data);
+    }
+  }
+
+//------------------------------------------------------------------------------
+// Reading
+//------------------------------------------------------------------------------
+
+  /**
+   * Selects runs and rows to scan.  Null criteria match everything.  The
+   * patterns are searched for, not matched against the whole string.
+   */
+  public static class Query {
+    Pattern testName;
+    Pattern statspec;
+    String op;
+    long since = Long.MIN_VALUE;
+    long until = Long.MAX_VALUE;
+    Map props = new HashMap();
+
+    public Query setTestName(String regex) {
+      this.testName = Pattern.compile(regex);
+      return this;
+    }
+    public Query setStatSpec(String regex) {
+      this.statspec = Pattern.compile(regex);
+      return this;
+    }
+    public Query setOp(String op) {
+      this.op = op;
+      return this;
+    }
+    /** Selects runs started at or after the given time */
+    public Query setSince(long ms) {
+      this.since = ms;
+      return this;
+    }
+    /** Selects runs started before the given time */
+    public Query setUntil(long ms) {
+      this.until = ms;
+      return this;
+    }
+    /** Selects runs with the given test property value */
+    public Query addTestProperty(String key, String value) {
+      this.props.put(TEST_PROPERTY_PREFIX + key, value);
+      return this;
+    }
+
+    boolean matchesRun(Map runProps) {
+      if (this.testName != null && !find(this.testName,
+                                         (String)runProps.get(TEST_NAME))) {
+        return false;
+      }
+      long t = startTimeOf(runProps);
+      if (t < this.since || t >= this.until) {
+        return false;
+      }
+      for (Iterator i = this.props.keySet().iterator(); i.hasNext();) {
+        String key = (String)i.next();
+        if (!this.props.get(key).equals(runProps.get(key))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean find(Pattern pattern, String s) {
+      return s != null && pattern.matcher(s).find();
+    }
+  }
+
+  /**
+   * A row returned by a scan.
+   */
+  public static class Row {
+    final Map runProps;
+    final String statspec;
+    final String trimspec;
+    final long trimStart;
+    final long trimEnd;
+    final int index;
+    final String op;
+    final double value;
+    final long samples;
+
+    Row(Map runProps, String statspec, String trimspec, long trimStart,
+        long trimEnd, int index, String op, double value, long samples) {
+      this.runProps = runProps;
+      this.statspec = statspec;
+      this.trimspec = trimspec;
+      this.trimStart = trimStart;
+      this.trimEnd = trimEnd;
+      this.index = index;
+      this.op = op;
+      this.value = value;
+      this.samples = samples;
+    }
+    /** Returns the run property with the given name */
+    public String getRunProperty(String name) {
+      return (String)this.runProps.get(name);
+    }
+    public String getTestDir() {
+      return getRunProperty(TEST_DIR);
+    }
+    public String getTestName() {
+      return getRunProperty(TEST_NAME);
+    }
+    public long getStartTime() {
+      return startTimeOf(this.runProps);
+    }
+    public long getReportTime() {
+      return Long.parseLong(getRunProperty(REPORT_TIME));
+    }
+    public String getStatSpec() {
+      return this.statspec;
+    }
+    public String getTrimSpec() {
+      return this.trimspec;
+    }
+    public long getTrimStart() {
+      return this.trimStart;
+    }
+    public long getTrimEnd() {
+      return this.trimEnd;
+    }
+    public int getIndex() {
+      return this.index;
+    }
+    public String getOp() {
+      return this.op;
+    }
+    public double getValue() {
+      return this.value;
+    }
+    public long getSamples() {
+      return this.samples;
+    }
+    /** Returns the row as a line of CSV */
+    public String toCSV() {
+      return csv(getTestDir()) + "," + csv(getTestName()) + ","
+           + getStartTime() + "," + getReportTime() + ","
+           + csv(this.statspec) + ","
+           + csv(this.trimspec) + "," + this.index + "," + this.op + ","
+           + this.value + "," + this.samples;
+    }
+    public String toString() {
+      return toCSV();
+    }
+  }
+
+  /**
+   * Returns the rows in the store that match the query, in order of test
+   * start time.
+   */
+  public static List scan(String storeDir, Query query) throws IOException {
+    File[] files = new File(storeDir).listFiles();
+    if (files == null) {
+      throw new FileNotFoundException("Not a directory: " + storeDir);
+    }
+    List segments = new ArrayList();
+    for (int i = 0; i < files.length; i++) {
+      if (files[i].getName().endsWith(SEGMENT_SUFFIX)) {
+        segments.add(files[i]);
+      }
+    }
+    List runs = new ArrayList();
+    for (Iterator i = segments.iterator(); i.hasNext();) {
+      List runRows = new ArrayList();
+      scan((File)i.next(), query, runRows);
+      if (runRows.size() > 0) {
+        runs.add(runRows);
+      }
+    }
+    Collections.sort(runs, new Comparator() {
+      public int compare(Object o1, Object o2) {
+        long t1 = ((Row)((List)o1).get(0)).getStartTime();
+        long t2 = ((Row)((List)o2).get(0)).getStartTime();
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+    });
+    List rows = new ArrayList();
+    for (Iterator i = runs.iterator(); i.hasNext();) {
+      rows.addAll((List)i.next());
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the test start time in the run properties, or the report time
+   * for segments written before the start time was recorded.
+   */
+  private static long startTimeOf(Map runProps) {
+    String t = (String)runProps.get(START_TIME);
+    if (t == null) {
+      t = (String)runProps.get(REPORT_TIME);
+    }
+    return Long.parseLong(t);
+  }
+
+  /**
+   * Adds the rows in the segment that match the query to the list.
+   */
+  private static void scan(File segment, Query query, List rows)
+  throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+                                             new FileInputStream(segment)));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a result store segment: " + segment);
+      }
+      Map runProps = new HashMap();
+      int numProps = in.readInt();
+      for (int i = 0; i < numProps; i++) {
+        runProps.put(readString(in), readString(in));
+      }
+      if (!query.matchesRun(runProps)) {
+        return;
+      }
+      int numRows = in.readInt();
+      int numColumns = in.readInt();
+      Map columns = new HashMap();
+      for (int i = 0; i < numColumns; i++) {
+        String name = readString(in);
+        byte type = in.readByte();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        columns.put(name, new Object[] { Byte.valueOf(type), data });
+      }
+
+      // decode the filtered columns first, then the rest only if needed
+      String[] statspecs = (String[])decode(columns, STATSPEC, numRows);
+      String[] ops = (String[])decode(columns, OP, numRows);
+      boolean[] selected = new boolean[numRows];
+      int numSelected = 0;
+      for (int r = 0; r < numRows; r++) {
+        if ((query.statspec == null || query.statspec.matcher(statspecs[r]).find())
+            && (query.op == null || query.op.equals(ops[r]))) {
+          selected[r] = true;
+          ++numSelected;
+        }
+      }
+      if (numSelected == 0) {
+        return;
+      }
+      String[] trimspecs = (String[])decode(columns, TRIMSPEC, numRows);
+      long[] trimStarts = (long[])decode(columns, TRIM_START, numRows);
+      long[] trimEnds = (long[])decode(columns, TRIM_END, numRows);
+      long[] indexes = (long[])decode(columns, INDEX, numRows);
+      double[] values = (double[])decode(columns, VALUE, numRows);
+      long[] samples = (long[])decode(columns, SAMPLES, numRows);
+      for (int r = 0; r < numRows; r++) {
+        if (selected[r]) {
+          rows.add(new Row(runProps, statspecs[r], trimspecs[r], trimStarts[r],
+                           trimEnds[r], (int)indexes[r], ops[r], values[r],
+                           samples[r]));
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static Object decode(Map columns, String name, int numRows)
+  throws IOException {
+    Object[] column = (Object[])columns.get(name);
+    if (column == null) {
+      throw new IOException("Missing column: " + name);
+    }
+    byte type = ((Byte)column[0]).byteValue();
+    DataInputStream in = new DataInputStream(new GZIPInputStream(
+                         new ByteArrayInputStream((byte[])column[1])));
+    switch (type) {
+      case STRING_TYPE:
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+          dictionary[i] = readString(in);
+        }
+        String[] strings = new String[numRows];
+        for (int i = 0; i < numRows; i++) {
+          strings[i] = dictionary[in.readInt()];
+        }
+        return strings;
+      case LONG_TYPE:
+        long[] longs = new long[numRows];
+        for (int i = 0; i < numRows; i++) {
+          longs[i] = in.readLong();
+        }
+        return longs;
+      case DOUBLE_TYPE:
+        double[] doubles = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+          doubles[i] = in.readDouble();
+        }
+        return doubles;
+      default:
+        throw new IOException("Unknown type for column " + name + ": " + type);
+    }
+  }
+
+//------------------------------------------------------------------------------
+// Support
+//------------------------------------------------------------------------------
+
+  /** Writes a string of any length as UTF-8 */
+  private static void writeString(String s, DataOutputStream out)
+  throws IOException {
+    byte[] bytes = s.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private static String csv(String s) {
+    if (s == null) {
+      return "";
+    }
+    if (s.indexOf(',') == -1 && s.indexOf('"') == -1) {
+      return s;
+    }
+    return "\"" + s.replaceAll("\"", "\"\"") + "\"";
+  }
+
+  private static void usage(String s) {
+    System.out.println("\n** " + s + "\n");
+    System.out.println("Usage: java perffmwk.PerfResultStore <store_directory> [-test <test_name_regex>] [-stat <statspec_regex>] [-op <op>] [-since <yyyy-MM-dd>] [-until <yyyy-MM-dd>] [-prop <name>=<value>]...");
+  }
+
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      usage("Missing store directory");
+      System.exit(1);
+    }
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+    Query query = new Query();
+    try {
+      for (int i = 1; i < args.length; i++) {
+        String arg = args[i];
+        if (i + 1 == args.length) {
+          usage("Missing value for " + arg);
+          System.exit(1);
+        }
+        String value = args[++i];
+        if (arg.equals("-test")) {
+          query.setTestName(value);
+        } else if (arg.equals("-stat")) {
+          query.setStatSpec(value);
+        } else if (arg.equals("-op")) {
+          query.setOp(value);
+        } else if (arg.equals("-since")) {
+          query.setSince(format.parse(value).getTime());
+        } else if (arg.equals("-until")) {
+          query.setUntil(format.parse(value).getTime());
+        } else if (arg.equals("-prop")) {
+          int eq = value.indexOf('=');
+          if (eq == -1) {
+            usage("Illegal property: " + value);
+            System.exit(1);
+          }
+          query.addTestProperty(value.substring(0, eq),
+                                value.substring(eq + 1));
+        } else {
+          usage("Unknown option: " + arg);
+          System.exit(1);
+        }
+      }
+    } catch (ParseException e) {
+      usage("Illegal date: " + e.getMessage());
+      System.exit(1);
+    }
+    try {
+      List rows = scan(FileUtil.absoluteFilenameFor(args[0]), query);
+      PrintStream out = System.out;
+      out.println("testDir,testName,startTime,reportTime,statspec,trimspec,index,op,value,samples");
+      for (Iterator i = rows.iterator(); i.hasNext();) {
+        out.println(((Row)i.next()).toCSV());
+      }
+      out.flush();
+    } catch (IOException e) {
+      System.err.println("Unable to scan " + args[0] + ": " + e);
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+}
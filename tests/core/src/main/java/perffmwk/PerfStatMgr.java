@@ -202,7 +202,9 @@ public final class PerfStatMgr {
     List statspecs = new ArrayList();
     for ( int i = 0; i < statDescs.length; i++ ) {
       StatisticDescriptor statDesc = statDescs[i];
-      statspecs.add( new RuntimeStatSpec( statInst, statDesc ) );
+      if ( statInst.isReported( statDesc ) ) {
+        statspecs.add( new RuntimeStatSpec( statInst, statDesc ) );
+      }
     }
     try {
       delegate.registerStatistics(statspecs);
@@ -22,8 +22,15 @@ import org.apache.geode.internal.*;
 import hydra.Log;
 
 import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 //import java.util.regex.*;
 
 /**
@@ -81,14 +88,12 @@ public class PerfStatReader {
     }
     Map rawValues = new HashMap();
     try {
-      StatArchiveReader reader = new StatArchiveReader(
-          (File[])archives.toArray(new File[archives.size()]),
-          (StatSpec[])statspecs.toArray(new StatSpec[statspecs.size()]),
-          true);
+      Map matches = matchSpecs(archives, statspecs);
       Iterator it = statspecs.iterator();
       while (it.hasNext()) {
         StatSpec spec = (StatSpec)it.next();
-        StatArchiveReader.StatValue[] values = reader.matchSpec(spec);
+        StatArchiveReader.StatValue[] values =
+          (StatArchiveReader.StatValue[])matches.get(spec);
         if (Log.getLogWriter().finestEnabled()) {
           for (int i = 0; i < values.length; i++) {
             StatArchiveReader.StatValue value = values[i];
@@ -219,6 +224,335 @@ public class PerfStatReader {
     return processedValues;
   }
 
+  /**
+   *  Reads the bins of all {@link LatencyHistogramStats} instances in the
+   *  archives and merges them by histogram name for each trim specification.
+   *  Instances are merged when their names differ only in the thread or
+   *  process id suffix.  Returns a map keyed by trim specification name,
+   *  where the value is a map of histogram name to the bin counts for the
+   *  trim interval, or null if there are no archives.
+   */
+  protected static SortedMap processLatencyHistograms( StatConfig statconfig ) {
+    List archives = statconfig.getStatisticArchivesAsList();
+    if (archives == null || archives.size() == 0) {
+      return null;
+    }
+    final String typeName = LatencyHistogramStats.class.getName();
+    StatArchiveReader.ValueFilter filter = new StatArchiveReader.ValueFilter() {
+      public boolean archiveMatches(File archive) {
+        return true;
+      }
+      public boolean typeMatches(String type) {
+        return type.equals(typeName);
+      }
+      public boolean statMatches(String statName) {
+        return true;
+      }
+      public boolean instanceMatches(String textId, long numericId) {
+        return true;
+      }
+    };
+    SortedMap histograms = new TreeMap();
+    try {
+      StatArchiveReader.ValueFilter[][] filters =
+        new StatArchiveReader.ValueFilter[archives.size()][];
+      Arrays.fill(filters, new StatArchiveReader.ValueFilter[] { filter });
+      StatArchiveReader[] readers = readArchives(archives, filters);
+      List insts = new ArrayList();
+      for (int r = 0; r < readers.length; r++) {
+        insts.addAll(readers[r].getResourceInstList());
+      }
+      for (Iterator i = insts.iterator(); i.hasNext();) {
+        StatArchiveReader.ResourceInst inst =
+          (StatArchiveReader.ResourceInst)i.next();
+        if (!inst.getType().getName().equals(typeName)) {
+          continue;
+        }
+        String histogramName = histogramNameFor(inst.getName());
+        for (Iterator j = statconfig.getTrimSpecs().values().iterator(); j.hasNext();) {
+          TrimSpec trimspec = (TrimSpec)j.next();
+          long[] counts = getLatencyCounts(inst, trimspec);
+          if (counts == null) {
+            continue;
+          }
+          SortedMap histogramsForTrim = (SortedMap)histograms.get(trimspec.getName());
+          if (histogramsForTrim == null) {
+            histogramsForTrim = new TreeMap();
+            histograms.put(trimspec.getName(), histogramsForTrim);
+          }
+          long[] merged = (long[])histogramsForTrim.get(histogramName);
+          if (merged == null) {
+            histogramsForTrim.put(histogramName, counts);
+          } else {
+            LatencyHistogramStats.add(merged, counts);
+          }
+        }
+      }
+    } catch( IOException e ) {
+      throw new StatConfigException( "Unable to read archive", e );
+    }
+    return histograms;
+  }
+
+//------------------------------------------------------------------------------
+// Archive reading
+//------------------------------------------------------------------------------
+
+  /**
+   *  The system property for the number of archives to read at a time.
+   *  Defaults to the number of processors.
+   */
+  public static final String READER_THREADS_PROP = "perfStatReaderThreads";
+
+  /**
+   *  Returns the values for each statistics specification, keyed by the
+   *  specification, as a single reader over all of the archives would return
+   *  them from {@link StatArchiveReader#matchSpec}.
+   *  <p>
+   *  The archives are decoded in parallel, one reader per archive.  Each
+   *  reader is given only the specifications that match its archive, so it
+   *  keeps only the series they match.  The values from each archive are
+   *  then concatenated in archive order, and combined across archives for
+   *  specifications with combine type {@link
+   *  StatArchiveReader.StatSpec#GLOBAL}, the same way the single reader
+   *  does.  If the combination is not available from this version of the
+   *  product, falls back to a single reader.
+   */
+  private static Map matchSpecs(List archives, List statspecs)
+  throws IOException {
+    Map matches = new HashMap();
+    Constructor combo = getComboValueConstructor();
+    if (getNumReaderThreads() == 1 || archives.size() == 1 || combo == null) {
+      StatArchiveReader reader = new StatArchiveReader(
+          (File[])archives.toArray(new File[archives.size()]),
+          (StatSpec[])statspecs.toArray(new StatSpec[statspecs.size()]),
+          true);
+      for (Iterator i = statspecs.iterator(); i.hasNext();) {
+        StatSpec spec = (StatSpec)i.next();
+        matches.put(spec, reader.matchSpec(spec));
+      }
+      return matches;
+    }
+
+    // index the specs by archive, reading each spec's values uncombined
+    StatArchiveReader.StatSpec[] rawspecs =
+      new StatArchiveReader.StatSpec[statspecs.size()];
+    for (int i = 0; i < rawspecs.length; i++) {
+      StatSpec spec = (StatSpec)statspecs.get(i);
+      rawspecs[i] = (spec.getCombineType() == StatSpec.GLOBAL)
+                  ? new RawStatSpec(spec) : (StatArchiveReader.StatSpec)spec;
+    }
+    StatArchiveReader.ValueFilter[][] filters =
+      new StatArchiveReader.ValueFilter[archives.size()][];
+    for (int a = 0; a < filters.length; a++) {
+      File archive = (File)archives.get(a);
+      List specsForArchive = new ArrayList();
+      for (int i = 0; i < rawspecs.length; i++) {
+        if (rawspecs[i].archiveMatches(archive)) {
+          specsForArchive.add(rawspecs[i]);
+        }
+      }
+      filters[a] = (StatArchiveReader.ValueFilter[])specsForArchive.toArray(
+                    new StatArchiveReader.ValueFilter[specsForArchive.size()]);
+    }
+    StatArchiveReader[] readers = readArchives(archives, filters);
+
+    // match each spec against the archives in order
+    for (int i = 0; i < rawspecs.length; i++) {
+      StatSpec spec = (StatSpec)statspecs.get(i);
+      List values = new ArrayList();
+      for (int a = 0; a < readers.length; a++) {
+        if (readers[a] != null && rawspecs[i].archiveMatches((File)archives.get(a))) {
+          values.addAll(Arrays.asList(readers[a].matchSpec(rawspecs[i])));
+        }
+      }
+      StatArchiveReader.StatValue[] result = (StatArchiveReader.StatValue[])
+        values.toArray(new StatArchiveReader.StatValue[values.size()]);
+      if (spec.getCombineType() == StatSpec.GLOBAL && result.length != 0) {
+        result = new StatArchiveReader.StatValue[] { combine(combo, result) };
+      }
+      matches.put(spec, result);
+    }
+    return matches;
+  }
+
+  /**
+   *  Returns a reader for each archive, reading the archives in parallel with
+   *  the given filters.  The reader is null for archives with no filters.
+   */
+  private static StatArchiveReader[] readArchives(List archives,
+      final StatArchiveReader.ValueFilter[][] filters) throws IOException {
+    final StatArchiveReader[] readers = new StatArchiveReader[archives.size()];
+    List tasks = new ArrayList();
+    for (int a = 0; a < readers.length; a++) {
+      if (filters[a].length == 0) {
+        continue;
+      }
+      final int index = a;
+      final File archive = (File)archives.get(a);
+      tasks.add(new Callable() {
+        public Object call() throws IOException {
+          readers[index] = new StatArchiveReader(new File[] { archive },
+                                                 filters[index], true);
+          return null;
+        }
+      });
+    }
+    int numThreads = Math.min(getNumReaderThreads(), tasks.size());
+    if (numThreads <= 1) {
+      for (Iterator i = tasks.iterator(); i.hasNext();) {
+        try {
+          ((Callable)i.next()).call();
+        } catch (IOException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new PerfStatException("Unable to read archive", e);
+        }
+      }
+      return readers;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+    try {
+      List futures = pool.invokeAll(tasks);
+      for (Iterator i = futures.iterator(); i.hasNext();) {
+        try {
+          ((Future)i.next()).get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException)cause;
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+          } else if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          throw new PerfStatException("Unable to read archive", cause);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PerfStatException("Interrupted reading archives", e);
+    } finally {
+      pool.shutdownNow();
+    }
+    return readers;
+  }
+
+  private static int getNumReaderThreads() {
+    int n = Integer.getInteger(READER_THREADS_PROP,
+            Runtime.getRuntime().availableProcessors()).intValue();
+    return Math.max(n, 1);
+  }
+
+  /**
+   *  Returns the constructor the product uses to combine values across
+   *  archives, or null if it is not available.
+   */
+  private static Constructor getComboValueConstructor() {
+    Class[] classes = StatArchiveReader.class.getDeclaredClasses();
+    for (int i = 0; i < classes.length; i++) {
+      if (classes[i].getSimpleName().equals("ComboValue")) {
+        try {
+          Constructor c = classes[i].getDeclaredConstructor(
+                          new Class[] { StatArchiveReader.StatValue[].class });
+          c.setAccessible(true);
+          return c;
+        } catch (NoSuchMethodException e) {
+          break;
+        } catch (SecurityException e) {
+          break;
+        }
+      }
+    }
+    Log.getLogWriter().fine("PerfStatReader: reading archives serially,"
+                           + " unable to combine values across readers");
+    return null;
+  }
+
+  private static StatArchiveReader.StatValue combine(Constructor combo,
+                                      StatArchiveReader.StatValue[] values) {
+    try {
+      return (StatArchiveReader.StatValue)combo.newInstance(
+                                          new Object[] { values });
+    } catch (InvocationTargetException e) {
+      throw new PerfStatException("Unable to combine values",
+                                  e.getTargetException());
+    } catch (InstantiationException e) {
+      throw new PerfStatException("Unable to combine values", e);
+    } catch (IllegalAccessException e) {
+      throw new PerfStatException("Unable to combine values", e);
+    }
+  }
+
+  /**
+   *  Matches the same values as a statistics specification, without
+   *  combining them, so they can be combined across readers.
+   */
+  private static class RawStatSpec implements StatArchiveReader.StatSpec {
+    private final StatArchiveReader.StatSpec spec;
+    RawStatSpec(StatArchiveReader.StatSpec spec) {
+      this.spec = spec;
+    }
+    public int getCombineType() {
+      return NONE;
+    }
+    public boolean archiveMatches(File archive) {
+      return this.spec.archiveMatches(archive);
+    }
+    public boolean typeMatches(String typeName) {
+      return this.spec.typeMatches(typeName);
+    }
+    public boolean statMatches(String statName) {
+      return this.spec.statMatches(statName);
+    }
+    public boolean instanceMatches(String textId, long numericId) {
+      return this.spec.instanceMatches(textId, numericId);
+    }
+  }
+
+  /**
+   *  Returns the bin counts recorded by the given histogram instance during
+   *  the given trim interval, or null if it has no samples in the interval.
+   */
+  private static long[] getLatencyCounts( StatArchiveReader.ResourceInst inst,
+                                          TrimSpec trimspec ) {
+    long[] counts = new long[LatencyHistogramStats.NUM_BINS];
+    boolean sampled = false;
+    for (int i = 0; i < counts.length; i++) {
+      StatArchiveReader.StatValue sv =
+        inst.getStatValue(LatencyHistogramStats.BIN + i);
+      if (sv == null) {
+        continue;
+      }
+      sv = sv.createTrimmed(trimspec.getStart(), trimspec.getEnd());
+      if (sv.getSnapshotsSize() == 0) {
+        continue;
+      }
+      sv.setFilter(StatArchiveReader.StatValue.FILTER_NONE);
+      counts[i] = (long)(sv.getSnapshotsMaximum() - sv.getSnapshotsMinimum());
+      sampled = true;
+    }
+    return sampled ? counts : null;
+  }
+
+  /**
+   *  Returns the histogram name for the given instance name, without the
+   *  thread or process id suffix added by {@link PerformanceStatistics}.
+   */
+  private static String histogramNameFor( String instanceName ) {
+    int dash = instanceName.lastIndexOf('-');
+    if (dash != -1) {
+      String suffix = instanceName.substring(dash + 1);
+      for (int i = 0; i < suffix.length(); i++) {
+        if (!Character.isDigit(suffix.charAt(i))) {
+          return instanceName;
+        }
+      }
+      return instanceName.substring(0, dash);
+    }
+    return instanceName;
+  }
+
   /**
    *  Translates a StatValue into a PerfStatValue with the specified filter,
    *  with the specified operations, and the specified trim.  For the latter,
@@ -321,6 +321,14 @@ public class PerformanceStatistics {
     throw new PerfStatException( "No statistic with name " + statName );
   }
 
+  /**
+   *  Returns true if the given statistic should be registered as a runtime
+   *  statistics specification for reporting purposes.  Defaults to true.
+   */
+  protected boolean isReported( StatisticDescriptor statDesc ) {
+    return true;
+  }
+
   /**
    *  Returns the logical name of the trim specification for these statistics.
    */
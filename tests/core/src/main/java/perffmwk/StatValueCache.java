@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package perffmwk;
+
+import hydra.HydraInternalException;
+import hydra.Log;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Caches the statistic values for a test run in a compact file in the test
+ * directory, so that {@link PerfComparer} only reads the statistic archives
+ * for runs that are new or have changed.
+ * <p>
+ * Each cache entry is keyed by a digest of the statistics specifications and
+ * trim specifications in the {@link StatConfig}, and of the name, size, and
+ * modification time of each statistic archive.  A run compared using a
+ * different statspec file, or whose archives have been written since, simply
+ * misses the cache.  The file keeps the most recently written entries for a
+ * few different statspecs.
+ * <p>
+ * The cached values are the {@link PerfStatValue}s that {@link
+ * PerfStatReader#processStatConfig} returns.  Reading them from the cache
+ * updates the sample counts in the trim specs exactly as reading the archives
+ * would.  A cache file that cannot be read or written is logged and ignored.
+ */
+public class StatValueCache {
+
+  /** Name of the cache file in each test directory */
+  public static final String CACHE_FILE_NAME = "perfcomparer.cache";
+
+  /** Version of the cache file format */
+  private static final int VERSION = 1;
+
+  /** Maximum number of entries kept in a cache file */
+  private static final int MAX_ENTRIES = 4;
+
+  private static final int MIN           = 0x01;
+  private static final int MAX           = 0x02;
+  private static final int MAX_MINUS_MIN = 0x04;
+  private static final int MEAN          = 0x08;
+  private static final int STDDEV        = 0x10;
+  private static final int SAMPLES       = 0x20;
+  private static final int LARGER_BETTER = 0x40;
+  private static final int VERSION_SET   = 0x80;
+
+  /**
+   * Returns the statistic values for the given configuration, as {@link
+   * PerfReporter#getStatValues} does, from the cache in the test directory
+   * when possible.  Values read from the archives are added to the cache.
+   */
+  protected static SortedMap getStatValues(StatConfig statconfig) {
+    if (PerfReporter.brief) { // descriptions are set while reading
+      return PerfReporter.getStatValues(statconfig);
+    }
+    List archives = statconfig.getStatisticArchivesAsList();
+    if (archives == null || archives.size() == 0) {
+      return PerfReporter.getStatValues(statconfig);
+    }
+    File file = new File(statconfig.getTestDir(), CACHE_FILE_NAME);
+    byte[] key = getKey(statconfig, archives);
+    List entries = readEntries(file);
+    for (Iterator i = entries.iterator(); i.hasNext();) {
+      Entry entry = (Entry)i.next();
+      if (Arrays.equals(entry.key, key)) {
+        try {
+          SortedMap values = decode(entry.data, statconfig);
+          if (Log.getLogWriter().fineEnabled()) {
+            Log.getLogWriter().fine("Read cached values from " + file);
+          }
+          return values;
+        } catch (IOException e) {
+          String s = "Ignoring unusable cache entry in " + file + ": " + e;
+          Log.getLogWriter().warning(s);
+          i.remove();
+        }
+      }
+    }
+    SortedMap values = PerfReporter.getStatValues(statconfig);
+    if (values != null) {
+      for (Iterator i = entries.iterator(); i.hasNext();) {
+        if (Arrays.equals(((Entry)i.next()).key, key)) {
+          i.remove();
+        }
+      }
+      entries.add(0, new Entry(key, encode(values)));
+      while (entries.size() > MAX_ENTRIES) {
+        entries.remove(entries.size() - 1);
+      }
+      writeEntries(file, entries);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the digest of everything the values for the configuration
+   * depend on.
+   */
+  private static byte[] getKey(StatConfig statconfig, List archives) {
+    StringBuffer buf = new StringBuffer();
+    buf.append(VERSION).append('\n');
+    buf.append(statconfig.isNativeClient()).append('\n');
+    for (Iterator i = statconfig.getStatSpecs().values().iterator();
+                  i.hasNext();) {
+      buf.append(((StatSpec)i.next()).toSpecString()).append('\n');
+    }
+    for (Iterator i = statconfig.getTrimSpecs().values().iterator();
+                  i.hasNext();) {
+      buf.append(((TrimSpec)i.next()).toSpecString()).append('\n');
+    }
+    for (Iterator i = archives.iterator(); i.hasNext();) {
+      File archive = new File(i.next().toString());
+      buf.append(archive.getAbsolutePath())
+         .append(' ').append(archive.length())
+         .append(' ').append(archive.lastModified()).append('\n');
+    }
+    try {
+      return MessageDigest.getInstance("MD5").digest(
+                                       buf.toString().getBytes("UTF-8"));
+    } catch (NoSuchAlgorithmException e) {
+      throw new PerfStatException("Unable to compute cache key", e);
+    } catch (UnsupportedEncodingException e) {
+      throw new PerfStatException("Unable to compute cache key", e);
+    }
+  }
+
+//------------------------------------------------------------------------------
+// Values
+//------------------------------------------------------------------------------
+
+  /**
+   * Encodes the values, keyed by statspec name.  The statspec and trimspec
+   * of each value are recorded by name.
+   */
+  private static byte[] encode(SortedMap values) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(values.size());
+      for (Iterator i = values.entrySet().iterator(); i.hasNext();) {
+        Map.Entry mapEntry = (Map.Entry)i.next();
+        List list = (List)mapEntry.getValue();
+        out.writeUTF((String)mapEntry.getKey());
+        out.writeInt(list.size());
+        for (Iterator j = list.iterator(); j.hasNext();) {
+          encode((PerfStatValue)j.next(), out);
+        }
+      }
+      out.close();
+    } catch (IOException e) {
+      throw new HydraInternalException("Should not happen", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void encode(PerfStatValue psv, DataOutputStream out)
+  throws IOException {
+    int flags = (psv.min == null ? 0 : MIN)
+              | (psv.max == null ? 0 : MAX)
+              | (psv.maxminusmin == null ? 0 : MAX_MINUS_MIN)
+              | (psv.mean == null ? 0 : MEAN)
+              | (psv.stddev == null ? 0 : STDDEV)
+              | (psv.samples == null ? 0 : SAMPLES)
+              | (psv.isLargerBetter ? LARGER_BETTER : 0)
+              | (psv.productVersion == null ? 0 : VERSION_SET);
+    out.writeByte(flags);
+    out.writeUTF(psv.statspec.getName());
+    out.writeUTF(psv.trimspec.getName());
+    if (psv.min != null)         out.writeDouble(psv.min.doubleValue());
+    if (psv.max != null)         out.writeDouble(psv.max.doubleValue());
+    if (psv.maxminusmin != null) out.writeDouble(psv.maxminusmin.doubleValue());
+    if (psv.mean != null)        out.writeDouble(psv.mean.doubleValue());
+    if (psv.stddev != null)      out.writeDouble(psv.stddev.doubleValue());
+    if (psv.samples != null)     out.writeInt(psv.samples.intValue());
+    if (psv.productVersion != null) out.writeUTF(psv.productVersion);
+    if (psv.archives == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(psv.archives.size());
+      for (Iterator i = psv.archives.iterator(); i.hasNext();) {
+        out.writeUTF((String)i.next());
+      }
+    }
+  }
+
+  /**
+   * Decodes the values, resolving statspecs and trimspecs by name in the
+   * given configuration.
+   */
+  private static SortedMap decode(byte[] data, StatConfig statconfig)
+  throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+    SortedMap values = new TreeMap();
+    int numKeys = in.readInt();
+    for (int i = 0; i < numKeys; i++) {
+      String name = in.readUTF();
+      int size = in.readInt();
+      List list = new ArrayList(size);
+      for (int j = 0; j < size; j++) {
+        list.add(decodeValue(in, statconfig));
+      }
+      values.put(name, list);
+    }
+    return values;
+  }
+
+  private static PerfStatValue decodeValue(DataInputStream in,
+                                           StatConfig statconfig)
+  throws IOException {
+    int flags = in.readUnsignedByte();
+    String statspecName = in.readUTF();
+    String trimspecName = in.readUTF();
+    StatSpec statspec = statconfig.getStatSpec(statspecName);
+    if (statspec == null) {
+      throw new IOException("Unknown statspec: " + statspecName);
+    }
+    PerfStatValue psv = new PerfStatValue(statspec,
+                                          statconfig.getTrimSpec(trimspecName));
+    psv.setIsLargerBetter((flags & LARGER_BETTER) != 0);
+    if ((flags & MIN) != 0)           psv.setMin(in.readDouble());
+    if ((flags & MAX) != 0)           psv.setMax(in.readDouble());
+    if ((flags & MAX_MINUS_MIN) != 0) psv.setMaxMinusMin(in.readDouble());
+    if ((flags & MEAN) != 0)          psv.setMean(in.readDouble());
+    if ((flags & STDDEV) != 0)        psv.setStddev(in.readDouble());
+    if ((flags & SAMPLES) != 0)       psv.setSamples(in.readInt());
+    if ((flags & VERSION_SET) != 0)   psv.setProductVersion(in.readUTF());
+    int numArchives = in.readInt();
+    if (numArchives >= 0) {
+      SortedSet archives = new TreeSet();
+      for (int i = 0; i < numArchives; i++) {
+        archives.add(in.readUTF());
+      }
+      psv.setArchives(archives);
+    }
+    return psv;
+  }
+
+//------------------------------------------------------------------------------
+// Cache file
+//------------------------------------------------------------------------------
+
+  private static class Entry {
+    final byte[] key;
+    final byte[] data;
+    Entry(byte[] key, byte[] data) {
+      this.key = key;
+      this.data = data;
+    }
+  }
+
+  /**
+   * Returns the entries in the cache file, most recent first, or an empty
+   * list if there is no usable cache file.
+   */
+  private static List readEntries(File file) {
+    List entries = new ArrayList();
+    if (!file.exists()) {
+      return entries;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(
+                               new FileInputStream(file)));
+      if (in.readInt() != VERSION) {
+        return entries;
+      }
+      int numEntries = in.readInt();
+      for (int i = 0; i < numEntries; i++) {
+        byte[] key = new byte[in.readInt()];
+        in.readFully(key);
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        entries.add(new Entry(key, data));
+      }
+    } catch (IOException e) {
+      String s = "Ignoring unusable cache file " + file + ": " + e;
+      Log.getLogWriter().warning(s);
+      entries.clear();
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException ignore) {
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Writes the entries to the cache file, replacing it only once the new
+   * file is complete.
+   */
+  private static void writeEntries(File file, List entries) {
+    File tmp = new File(file.getPath() + ".tmp");
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                  new FileOutputStream(tmp)));
+      try {
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Iterator i = entries.iterator(); i.hasNext();) {
+          Entry entry = (Entry)i.next();
+          out.writeInt(entry.key.length);
+          out.write(entry.key);
+          out.writeInt(entry.data.length);
+          out.write(entry.data);
+        }
+      } finally {
+        out.close();
+      }
+      if (!tmp.renameTo(file)) {
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+      }
+    } catch (IOException e) {
+      String s = "Unable to write cache file " + file + ": " + e;
+      Log.getLogWriter().warning(s);
+      tmp.delete();
+    }
+  }
+}
@@ -39,6 +39,8 @@ public class Test implements ComparisonConstants, Comparable<Test> {
   private String buildJDK;
   private String runtimeJDK;
   private String javaVMName;
+  private SortedMap statValues;
+  private boolean statValuesRead;
 
   public Test(String testDir, boolean compareByKey) {
     this.testDir = testDir;
@@ -105,10 +107,31 @@ public class Test implements ComparisonConstants, Comparable<Test> {
                                                  this.statSpecFile);
     SortedMap distilled = this.statConfig.distillStatSpecsForComparison();
     this.statConfig.setStatSpecs(distilled);
+    this.statValues = null;
+    this.statValuesRead = false;
   }
   public SortedMap getStatSpecs() {
     return this.statConfig.getStatSpecs();
   }
+  /**
+   * Reads the values of the statistics in the current statspecs, using the
+   * {@link StatValueCache} if requested.
+   */
+  public void readStatValues(boolean useCache) {
+    this.statValues = useCache ? StatValueCache.getStatValues(this.statConfig)
+                               : PerfReporter.getStatValues(this.statConfig);
+    this.statValuesRead = true;
+  }
+  /**
+   * Returns the values of the statistics in the current statspecs, reading
+   * them from the archives if they have not been read yet.
+   */
+  public SortedMap getStatValues() {
+    if (!this.statValuesRead) {
+      readStatValues(false);
+    }
+    return this.statValues;
+  }
   public String getSourceVersion() {
     return this.sourceVersion;
   }
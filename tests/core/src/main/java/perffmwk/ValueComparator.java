@@ -58,11 +58,11 @@ public class ValueComparator {
   }
 
   /**
-   * Reads the statistic archives for the test run and creates the {@link
-   * PerfStatValue}s.
+   * Gets the {@link PerfStatValue}s for the test run, reading the statistic
+   * archives unless they have already been read.
    */
   public void readArchives() {
-    this.statValues = PerfReporter.getStatValues(this.test.getStatConfig());
+    this.statValues = this.test.getStatValues();
   }
 
   /**
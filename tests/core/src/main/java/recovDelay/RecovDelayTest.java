@@ -189,8 +189,7 @@ protected void initAfterLoad() {
       Object value = aRegion.get(key);
       regionSnapshot.put(key, ((BaseValueHolder)value).myValue);
    }
-   ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot);
-   ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, new HashSet());
+   RegionSnapshotStore.write(regionSnapshot, new HashSet());
 
    // init the hostMap
    Map sharedMap = RecovDelayBB.getBB().getSharedMap().getMap();
@@ -475,7 +474,7 @@ protected void validatePRAfterStopping(int numStoppedThisTime) {
        "total num stopped vms: " + stoppedVMs.size() + "\n" +
        "expect recovery: " + expectRecovery);
 
-   Map regionSnapshot = (Map)(ParRegBB.getBB().getSharedMap().get(ParRegBB.RegionSnapshot));
+   Map regionSnapshot = RegionSnapshotStore.read();
    int expectedRedundantCopies = 0;
    if (expectRecovery) {
       expectedRedundantCopies = Math.min(currentNumDataStoreVMs-1, redundantCopies);
@@ -498,7 +497,7 @@ protected void validatePRAfterStopping(int numStoppedThisTime) {
    // even when recovery runs
 
    Log.getLogWriter().info("Num expected bucket copies (not including primary): " + expectedRedundantCopies);
-   ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot);
+   RegionSnapshotStore.write(regionSnapshot, RegionSnapshotStore.readDestroyedKeys());
    // need to set the follow for the verifyFromSnapshot to verify correctly for us
    parRegTestInstance.redundantCopies = expectedRedundantCopies; 
    parRegTestInstance.verifyFromSnapshot();
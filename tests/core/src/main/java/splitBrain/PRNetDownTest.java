@@ -242,9 +242,8 @@ protected void concVerify() {
             regionSnapshot.put(key, value);
       }
       Log.getLogWriter().info("Done creating region snapshot with " + regionSnapshot.size() + " entries; " + regionSnapshot);
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.RegionSnapshot, regionSnapshot);
       Log.getLogWriter().info("Done creating destroyed keys with " + destroyedKeys.size() + " keys");
-      ParRegBB.getBB().getSharedMap().put(ParRegBB.DestroyedKeys, destroyedKeys);
+      RegionSnapshotStore.write(regionSnapshot, destroyedKeys);
       long snapshotWritten = ParRegBB.getBB().getSharedCounters().incrementAndRead(ParRegBB.SnapshotWritten);
       Log.getLogWriter().info("Incremented SnapshotWritten, now is " + snapshotWritten);
    } else { 
@@ -32,43 +32,44 @@ import org.apache.geode.cache.RegionEvent;
 public class InvisibleSilenceListener extends util.SilenceListener implements CacheListener, Declarable {
 
 public void afterCreate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterDestroy(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterInvalidate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterRegionDestroy(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterRegionInvalidate(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterUpdate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void close() {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
+   SilenceListenerBB.publishEvents();
 }
 
 public void afterRegionClear(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterRegionCreate(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
 }
 
 public void afterRegionLive(RegionEvent event) {
-  SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+  SilenceListenerBB.recordEvent();
 }
 
 public void init(java.util.Properties prop) {
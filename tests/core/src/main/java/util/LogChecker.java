@@ -16,18 +16,19 @@
  */
 package util;
 
+import batterytest.greplogs.LogScanner;
+import batterytest.greplogs.MultiStringMatcher;
 import hydra.Log;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.geode.InternalGemFireError;
 import org.apache.geode.management.ManagementException;
 
-import resultsUtil.FileLineReader;
-
 /**
  * Class to check the gemfire logs for suspicious strings. This provides early
  * detection of suspect strings.
@@ -39,6 +40,8 @@ public class LogChecker {
 
   private static List<String> suspectStrings = null;
   private static List<String> excludeStrings = null;
+  private static MultiStringMatcher suspectMatcher = null;
+  private static MultiStringMatcher excludeMatcher = null;
 
   static {
     suspectStrings = new ArrayList<String>();
@@ -56,6 +59,9 @@ public class LogChecker {
     excludeStrings.add("[fine");
     // work around bug 48904
     excludeStrings.add("Cannot have overlapping ranges");
+
+    suspectMatcher = new MultiStringMatcher(suspectStrings);
+    excludeMatcher = new MultiStringMatcher(excludeStrings);
   }
 
   /**
@@ -68,36 +74,48 @@ public class LogChecker {
     }
     Log.getLogWriter().info("Checking the logs...");
     List<File> logsToCheck = getLogs();
+    List<SuspectScan> scans = new ArrayList<SuspectScan>();
     for (File aFile : logsToCheck) {
       Log.getLogWriter().info("Checking " + aFile.getAbsolutePath());
-      FileLineReader reader;
-      try {
-        reader = new FileLineReader(aFile);
-      } catch (FileNotFoundException e) {
-        throw new TestException(TestHelper.getStackTrace(e));
+      scans.add(new SuspectScan(aFile));
+    }
+    LogScanner.scan(scans, LogScanner.getDefaultNumThreads());
+    for (SuspectScan scan : scans) {
+      if (scan.exception != null) {
+        throw new TestException(TestHelper.getStackTrace(scan.exception));
       }
-      String line = reader.readNextLine();
-      while (line != null) {
-        if (contains(suspectStrings, line) && !contains(excludeStrings, line)) {
-          throw new TestException(aFile.getAbsolutePath() + " contains " + line);
-        }
-        line = reader.readNextLine();
+      if (scan.suspectLine != null) {
+        throw new TestException(scan.getFile().getAbsolutePath() + " contains " + scan.suspectLine);
       }
     }
   }
 
-  /** Return true if aStr contains any of the strings in targetStrs, false otherwise.
-   *
-   *  @param targetStrs - A List of Strings containing text of interest.
-   *  @param aStr - The string to test.
+  /** Scans a log for the first line that contains a suspect string and no
+   *  exclude string.
    */
-  private static boolean contains(List<String> targetStrs, String aStr) {
-    for (String target: targetStrs) {
-      if (aStr.contains(target)) {
-        return true;
+  private static class SuspectScan extends LogScanner.FileScan {
+    String suspectLine = null;
+    IOException exception = null;
+
+    SuspectScan(File aFile) {
+      super(aFile);
+    }
+
+    protected boolean line(String line) {
+      if (suspectMatcher.matchesAny(line) && !excludeMatcher.matchesAny(line)) {
+        suspectLine = line;
+        return false;
+      }
+      return true;
+    }
+
+    protected void failed(IOException e, int lineNumber) {
+      if (e instanceof FileNotFoundException) {
+        exception = e;
+      } else { // treat as the end of the log, as FileLineReader does
+        Log.getLogWriter().info("Caught " + e + " reading " + file.getAbsolutePath());
       }
     }
-    return false;
   }
 
   private static List<File> getLogs() {
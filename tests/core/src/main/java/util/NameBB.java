@@ -38,6 +38,19 @@ public static int NEGATIVE_NAME_COUNTER;
 public static int REGION_NAME_COUNTER;
 public static int LISTENER_NAME_COUNTER;
 
+// Counters of names handed out when names are leased in blocks
+public static int POSITIVE_NAMES_ISSUED;
+public static int NEGATIVE_NAMES_ISSUED;
+
+/**
+ *  Batches the counters in client VMs when {@link NameFactory} leases names,
+ *  so counting names handed out locally does not cost a remote call.
+ */
+protected boolean useBatchedCounters() {
+   return super.useBatchedCounters()
+       || (hydra.RemoteTestModule.Master != null && NameFactory.getNameBlockSize() > 1);
+}
+
 public long incrementAndRead(int whichCounter) {
    hydra.blackboard.SharedCounters sharedCounters = this.getSharedCounters();
    long nextCounter = sharedCounters.incrementAndRead(whichCounter);
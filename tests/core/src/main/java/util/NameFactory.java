@@ -17,6 +17,8 @@
 package util;
 
 //import hydra.Log;
+import hydra.TestConfig;
+import hydra.blackboard.SharedCounters;
 import java.util.*;
 import org.apache.geode.cache.*;
 
@@ -53,17 +55,17 @@ public static String getObjectNameForCounter(long counter) {
 }
 
 public static String getNextPositiveObjectName() {
-   long counter = NameBB.getBB().incrementAndRead(NameBB.POSITIVE_NAME_COUNTER);
+   long counter = nextPositiveCounter();
    return getObjectNameForCounter(counter);
 }
 
 public static String getNextPositiveObjectNameInLimit(int limit) {
-   long counter = NameBB.getBB().incrementAndRead(NameBB.POSITIVE_NAME_COUNTER);
+   long counter = nextPositiveCounter();
    return getObjectNameForCounter((counter % limit));
 }
 
 public static String getNextNegativeObjectName() { 
-   long counter = NameBB.getBB().decrementAndRead(NameBB.NEGATIVE_NAME_COUNTER);
+   long counter = nextNegativeCounter();
    return getObjectNameForCounter(counter);
 }
 
@@ -78,12 +80,108 @@ public static long getNegativeNameCounter() {
 }
 
 public static long getTotalNameCounter() {
+   if (getNameBlockSize() > 1) {
+      long positiveNames = NameBB.getBB().read(NameBB.POSITIVE_NAMES_ISSUED);
+      long negativeNames = NameBB.getBB().read(NameBB.NEGATIVE_NAMES_ISSUED);
+      return positiveNames + negativeNames;
+   }
    long positiveCounter = NameBB.getBB().read(NameBB.POSITIVE_NAME_COUNTER);
    long negativeCounter = NameBB.getBB().read(NameBB.NEGATIVE_NAME_COUNTER);
    long numNames = positiveCounter + Math.abs(negativeCounter);
    return numNames;
 }
 
+//================================================================================
+// Name leasing
+
+/** The number of names leased at a time, or 0 if not yet read */
+private static volatile int nameBlockSize = 0;
+
+/** Whether each thread leases its own names */
+private static boolean leaseNamesPerThread = false;
+
+/** The leases shared by all threads in this VM */
+private static final NameLease positiveLease = new NameLease(true);
+private static final NameLease negativeLease = new NameLease(false);
+
+/** The leases for each thread, used with NameFactoryPrms.leaseNamesPerThread */
+private static final ThreadLocal positiveThreadLease = new ThreadLocal() {
+   protected Object initialValue() {
+      return new NameLease(true);
+   }
+};
+private static final ThreadLocal negativeThreadLease = new ThreadLocal() {
+   protected Object initialValue() {
+      return new NameLease(false);
+   }
+};
+
+/** Returns the value of {@link NameFactoryPrms#nameBlockSize}.
+ */
+protected static int getNameBlockSize() {
+   if (nameBlockSize == 0) {
+      synchronized (NameFactory.class) {
+         if (nameBlockSize == 0) {
+            leaseNamesPerThread = TestConfig.tab().booleanAt(NameFactoryPrms.leaseNamesPerThread, false);
+            nameBlockSize = Math.max(1, TestConfig.tab().intAt(NameFactoryPrms.nameBlockSize, 1));
+         }
+      }
+   }
+   return nameBlockSize;
+}
+
+private static long nextPositiveCounter() {
+   int blockSize = getNameBlockSize();
+   if (blockSize == 1) {
+      return NameBB.getBB().incrementAndRead(NameBB.POSITIVE_NAME_COUNTER);
+   }
+   NameLease lease = leaseNamesPerThread ? (NameLease)positiveThreadLease.get() : positiveLease;
+   return lease.next(blockSize);
+}
+
+private static long nextNegativeCounter() {
+   int blockSize = getNameBlockSize();
+   if (blockSize == 1) {
+      return NameBB.getBB().decrementAndRead(NameBB.NEGATIVE_NAME_COUNTER);
+   }
+   NameLease lease = leaseNamesPerThread ? (NameLease)negativeThreadLease.get() : negativeLease;
+   return lease.next(blockSize);
+}
+
+/** A contiguous range of name counters leased from the NameBB.
+ */
+private static class NameLease {
+   private final boolean positive;
+   private long next = 1;  // absolute value of the next counter to hand out
+   private long last = 0;  // absolute value of the last counter in the lease
+
+   NameLease(boolean positive) {
+      this.positive = positive;
+   }
+
+   /** Returns the next counter in the lease, leasing a new block of the
+    *  given size first if the lease is used up.
+    */
+   synchronized long next(int blockSize) {
+      SharedCounters counters = NameBB.getBB().getSharedCounters();
+      if (next > last) {
+         if (positive) {
+            last = counters.add(NameBB.POSITIVE_NAME_COUNTER, blockSize);
+         } else {
+            last = -counters.subtract(NameBB.NEGATIVE_NAME_COUNTER, blockSize);
+         }
+         next = last - blockSize + 1;
+      }
+      if (positive) {
+         counters.increment(NameBB.POSITIVE_NAMES_ISSUED);
+         return next++;
+      } else {
+         counters.increment(NameBB.NEGATIVE_NAMES_ISSUED);
+         return -(next++);
+      }
+   }
+}
+
 public static String getKeySetDiscrepancies(Region aRegion, Set keySet) {
    long positiveCounter = NameBB.getBB().read(NameBB.POSITIVE_NAME_COUNTER);
    long negativeCounter = NameBB.getBB().read(NameBB.NEGATIVE_NAME_COUNTER);
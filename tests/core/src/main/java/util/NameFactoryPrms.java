@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2010-2015 Pivotal Software, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package util;
+
+import hydra.BasePrms;
+
+public class NameFactoryPrms extends BasePrms {
+
+/** (int) The number of object names that {@link NameFactory} leases from
+ *  {@link NameBB} in one remote call, then hands out locally.  Defaults to 1,
+ *  which allocates each name directly from the blackboard.
+ *  <p>
+ *  With blocks larger than 1, names are unique but are not allocated in
+ *  order across VMs or threads, and names in unfinished leases are never
+ *  created.  {@link NameFactory#getPositiveNameCounter} and {@link
+ *  NameFactory#getNegativeNameCounter} still bound every name allocated,
+ *  and {@link NameFactory#getTotalNameCounter} still returns the number of
+ *  names handed out once the client tasks that allocated them have ended.
+ *  Validation that expects every name up to the counter to exist, such as
+ *  {@link NameFactory#getKeySetDiscrepancies}, should not use leasing.
+ */
+public static Long nameBlockSize;
+
+/** (boolean) Whether each thread leases its own block of names rather than
+ *  sharing a block with the other threads in its VM.  Defaults to false.
+ *  Only used when {@link #nameBlockSize} is greater than 1.
+ */
+public static Long leaseNamesPerThread;
+
+// ================================================================================
+static {
+   BasePrms.setValues(NameFactoryPrms.class);
+}
+
+}
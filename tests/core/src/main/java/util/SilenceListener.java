@@ -17,6 +17,7 @@
 package util; 
 
 import hydra.Log;
+import hydra.blackboard.SharedCounters;
 
 import java.io.Serializable;
 
@@ -28,52 +29,53 @@ import org.apache.geode.cache.RegionEvent;
 public class SilenceListener extends util.AbstractListener implements CacheListener, Declarable, Serializable {
 
 public void afterCreate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterCreate", event);
 }
 
 public void afterDestroy(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterDestroy", event);
 }
 
 public void afterInvalidate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterInvalidate", event);
 }
 
 public void afterRegionDestroy(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterRegionDestroy", event);
 }
 
 public void afterRegionInvalidate(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterRegionInvalidate", event);
 }
 
 public void afterUpdate(EntryEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterUpdate", event);
 }
 
 public void close() {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
+   SilenceListenerBB.publishEvents();
    logCall("close", null);
 }
 
 public void afterRegionClear(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterRegionClear", event);
 }
 
 public void afterRegionCreate(RegionEvent event) {
-   SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+   SilenceListenerBB.recordEvent();
    logCall("afterRegionCreate", event);
 }
 
 public void afterRegionLive(RegionEvent event) {
-  SilenceListenerBB.getBB().getSharedCounters().setIfLarger(SilenceListenerBB.lastEventTime, System.currentTimeMillis());
+  SilenceListenerBB.recordEvent();
   logCall("afterRegionLive", event);
 }
 
@@ -83,24 +85,43 @@ public void init(java.util.Properties prop) {
 
 /** Return when no events have been invoked for the given number of seconds.
  *
- *  @param sleepMS The number of milliseonds to sleep between checks for
- *         silence.
+ *  Each VM publishes the time of its latest event every
+ *  {@link SilenceListenerBB#HEARTBEAT_MS} millis, so the wait is extended by
+ *  that much to see events that happened near its end.  Rather than sleeping
+ *  between reads, this waits in the master for a later event time.
+ *
+ *  @param sleepMS Ignored.  The master signals when a later event time is
+ *         published.
+ *  @deprecated sleepMS is ignored; use {@link #waitForSilence(long)}.
  */
 public static void waitForSilence(long desiredSilenceSec, long sleepMS) {
+   waitForSilence(desiredSilenceSec);
+}
+
+/** Return when no events have been invoked for the given number of seconds.
+ *
+ *  Each VM publishes the time of its latest event every
+ *  {@link SilenceListenerBB#HEARTBEAT_MS} millis, so the wait is extended by
+ *  that much to see events that happened near its end.  Rather than sleeping
+ *  between reads, this waits in the master for a later event time.
+ */
+public static void waitForSilence(long desiredSilenceSec) {
    Log.getLogWriter().info("Waiting for a period of silence for " + desiredSilenceSec + " seconds...");
-   long desiredSilenceMS = desiredSilenceSec * 1000;
+   long desiredSilenceMS = desiredSilenceSec * 1000 + SilenceListenerBB.HEARTBEAT_MS;
+   SilenceListenerBB.publishEvents();
+   SharedCounters counters = SilenceListenerBB.getBB().getSharedCounters();
+   int[] whichCounters = new int[] {SilenceListenerBB.lastEventTime};
 
    long silenceStartTime = System.currentTimeMillis();
    long currentTime = System.currentTimeMillis();
-   long lastEventTime = SilenceListenerBB.getBB().getSharedCounters().read(SilenceListenerBB.lastEventTime);
 
    while (currentTime - silenceStartTime < desiredSilenceMS) {
-      try {
-         Thread.sleep(sleepMS); 
-      } catch (InterruptedException e) {
-         throw new TestException(TestHelper.getStackTrace(e));
+      if (Thread.interrupted()) {
+         throw new TestException(TestHelper.getStackTrace(new InterruptedException()));
       }
-      lastEventTime = SilenceListenerBB.getBB().getSharedCounters().read(SilenceListenerBB.lastEventTime);
+      long waitMS = silenceStartTime + desiredSilenceMS - currentTime;
+      long lastEventTime = counters.waitForSum(whichCounters, SharedCounters.AT_LEAST,
+                                               silenceStartTime + 1, waitMS);
       if (lastEventTime > silenceStartTime) {
          // restart the wait
          silenceStartTime = lastEventTime;
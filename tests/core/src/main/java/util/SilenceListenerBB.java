@@ -16,8 +16,11 @@
  */
 package util;
 
+import hydra.Log;
 import hydra.blackboard.Blackboard;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class SilenceListenerBB extends Blackboard {
    
 // Blackboard creation variables
@@ -26,7 +29,20 @@ static String BB_TYPE = "RMI";
 
 public static SilenceListenerBB bbInstance = null;
 
-public static int lastEventTime;    // updated with current time as each event processed by SilenceListener
+public static int lastEventTime;    // latest event time published by any VM, see recordEvent
+
+/** The number of millis between publishing the local last event time */
+public static final long HEARTBEAT_MS = 1000;
+
+/** The time of the most recent event recorded in this VM */
+private static final AtomicLong localLastEventTime = new AtomicLong(0);
+
+/** The time of the most recent event published by this VM */
+private static long publishedLastEventTime = 0;
+private static final Object publishLock = new Object();
+
+/** The daemon thread that publishes the local last event time */
+private static volatile Thread heartbeat = null;
 
 /**
  *  Get the BB
@@ -37,6 +53,73 @@ public static SilenceListenerBB getBB() {
    return bbInstance;
 }
    
+/**
+ *  Records that an event was processed in this VM.  The time is kept
+ *  locally and published to the blackboard by a heartbeat thread every
+ *  {@link #HEARTBEAT_MS} millis when it has changed, so that listeners do
+ *  not go to the master for each event.
+ */
+public static void recordEvent() {
+   long now = System.currentTimeMillis();
+   long last = localLastEventTime.get();
+   while (now > last && !localLastEventTime.compareAndSet(last, now)) {
+      last = localLastEventTime.get();
+   }
+   if (heartbeat == null) {
+      startHeartbeat();
+   }
+}
+
+/**
+ *  Publishes the time of the most recent event recorded in this VM to
+ *  {@link #lastEventTime}, if it has not already been published.
+ */
+public static void publishEvents() {
+   synchronized (publishLock) {
+      long last = localLastEventTime.get();
+      if (last > publishedLastEventTime) {
+         getBB().getSharedCounters().setIfLarger(lastEventTime, last);
+         publishedLastEventTime = last;
+      }
+   }
+}
+
+/**
+ *  Starts the daemon thread that publishes the local last event time.  The
+ *  thread keeps running through failures to publish, and clears {@link
+ *  #heartbeat} if it exits so that the next event starts a new one.
+ */
+private static synchronized void startHeartbeat() {
+   if (heartbeat == null) {
+      Thread t = new Thread(new Runnable() {
+         public void run() {
+            try {
+               while (true) {
+                  try {
+                     Thread.sleep(HEARTBEAT_MS);
+                     publishEvents();
+                  } catch (InterruptedException e) {
+                     return;
+                  } catch (RuntimeException e) {
+                     // the master might be gone, so just log it
+                     Log.getLogWriter().warning("Unable to publish last event time", e);
+                  }
+               }
+            } finally {
+               synchronized (SilenceListenerBB.class) {
+                  if (heartbeat == Thread.currentThread()) {
+                     heartbeat = null;
+                  }
+               }
+            }
+         }
+      }, "Silence Listener Heartbeat");
+      t.setDaemon(true);
+      t.start();
+      heartbeat = t;
+   }
+}
+
 /**
  *  Zero-arg constructor for remote method invocations.
  */
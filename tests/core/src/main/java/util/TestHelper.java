@@ -513,6 +513,8 @@ public static void waitForCounterSum(hydra.blackboard.Blackboard BB,
        BB.getClass().getName() + "." + counterName2 + " (current value: " + counters.read(whichCounter2) +
        ") to have sum " + requiredCounterSum +
        "; exact=" + exact + "; current counter sum is " + currSum);
+   int[] whichCounters = new int[] {whichCounter1, whichCounter2};
+   int comparison = exact ? SharedCounters.EQUALS : SharedCounters.AT_LEAST;
    boolean done = exact ? (currSum == requiredCounterSum) :
                           (currSum >= requiredCounterSum);
    while (!done) {
@@ -535,16 +537,17 @@ public static void waitForCounterSum(hydra.blackboard.Blackboard BB,
              BB.getClass().getName() + "." + counterName2 + " (current value: " + currCounter2 +
              ") have sum " + currSum + ", but expected it to be " + requiredCounterSum);
       }
-      try {
-         Thread.sleep(100);
-      } catch (InterruptedException e) {
-         throw new TestException(e.toString());
+      if (Thread.interrupted()) {
+         throw new TestException(new InterruptedException().toString());
       }
-      currCounter1 = counters.read(whichCounter1);
-      currCounter2 = counters.read(whichCounter2);
-      currSum = currCounter1 + currCounter2;
+      currSum = counters.waitForSum(whichCounters, comparison, requiredCounterSum,
+                    getCounterWaitMillis(startTime, lastLogTime, logIntervalMillis, waitLimitMS));
       done = exact ? (currSum == requiredCounterSum) :
                      (currSum >= requiredCounterSum);
+      if (!done) {
+         currCounter1 = counters.read(whichCounter1);
+         currCounter2 = counters.read(whichCounter2);
+      }
    }
    Log.getLogWriter().info("Finished waiting for " + BB.getClass().getName() + "." + 
        counterName1 + " (current value: " + counters.read(whichCounter1) + ") and " +
@@ -563,9 +566,12 @@ public static void waitForCounterSum(hydra.blackboard.Blackboard BB,
  *        If false, then the counter's value must be >= requiredCounterValue.
  * @param waitLimitMS If the counter does not have the required value by this many milliseconds
  *        then throw an error.
- * @param sleepMS The number of millis to sleep between each read of the counter.
+ * @param sleepMS Ignored.  The master signals the waiting thread when the counter
+ *        changes, rather than it sleeping between reads.
  *
  * @throws TestException if the counter does not have the required value in waitLimitMS millis.
+ * @deprecated sleepMS is ignored; use {@link #waitForCounter(hydra.blackboard.Blackboard,
+ *             String,int,long,boolean,long)}.
  */
 public static void waitForCounter(hydra.blackboard.Blackboard BB, 
                                   String counterName, 
@@ -574,6 +580,28 @@ public static void waitForCounter(hydra.blackboard.Blackboard BB,
                                   boolean exact,
                                   long waitLimitMS,
                                   long sleepMS) {
+   waitForCounter(BB, counterName, whichCounter, requiredCounterValue, exact, waitLimitMS);
+}
+
+/** Wait for a hydra blackboard counter to have a particular value.
+ *
+ * @param BB The hydra blackboard containing the counters to use.
+ * @param counterName The name of the blackboard counter, used to log information about it.
+ * @param whichCounter The hydra index of the counter.
+ * @param requiredCounterValue The required counter value.
+ * @param exact If true, then the counter value must have exactly the value requiredCounterValue.
+ *        If false, then the counter's value must be >= requiredCounterValue.
+ * @param waitLimitMS If the counter does not have the required value by this many milliseconds
+ *        then throw an error.
+ *
+ * @throws TestException if the counter does not have the required value in waitLimitMS millis.
+ */
+public static void waitForCounter(hydra.blackboard.Blackboard BB, 
+                                  String counterName, 
+                                  int whichCounter, 
+                                  long requiredCounterValue,
+                                  boolean exact,
+                                  long waitLimitMS) {
    SharedCounters counters = BB.getSharedCounters();
    long startTime = System.currentTimeMillis();
    long lastLogTime = startTime;
@@ -581,6 +609,8 @@ public static void waitForCounter(hydra.blackboard.Blackboard BB,
    Log.getLogWriter().info("Waiting for " + BB.getClass().getName() + "." + 
        counterName + " to have value " + requiredCounterValue +
        "; exact=" + exact + "; current counter value is " + counters.read(whichCounter));
+   int[] whichCounters = new int[] {whichCounter};
+   int comparison = exact ? SharedCounters.EQUALS : SharedCounters.AT_LEAST;
    boolean done = exact ? (counters.read(whichCounter) == requiredCounterValue) :
                           (counters.read(whichCounter) >= requiredCounterValue);
    while (!done) {
@@ -596,38 +626,29 @@ public static void waitForCounter(hydra.blackboard.Blackboard BB,
              counters.read(whichCounter) + ", but expected it to become " +
              requiredCounterValue);
       }
-      try {
-         Thread.sleep(sleepMS);
-      } catch (InterruptedException e) {
-         throw new TestException(e.toString());
+      if (Thread.interrupted()) {
+         throw new TestException(new InterruptedException().toString());
       }
-      done = exact ? (counters.read(whichCounter) == requiredCounterValue) :
-                     (counters.read(whichCounter) >= requiredCounterValue);
+      long value = counters.waitForSum(whichCounters, comparison, requiredCounterValue,
+                       getCounterWaitMillis(startTime, lastLogTime, logIntervalMillis, waitLimitMS));
+      done = exact ? (value == requiredCounterValue) :
+                     (value >= requiredCounterValue);
    }
    Log.getLogWriter().info("Finished waiting for " + counterName + " to have value " + requiredCounterValue +
        "; exact=" + exact + "; current counter value is " + counters.read(whichCounter));
 }
 
-/** Wait for a hydra blackboard counter to have a particular value.
- *
- * @param BB The hydra blackboard containing the counters to use.
- * @param counterName The name of the blackboard counter, used to log information about it.
- * @param whichCounter The hydra index of the counter.
- * @param requiredCounterValue The required counter value.
- * @param exact If true, then the counter value must have exactly the value requiredCounterValue.
- *        If false, then the counter's value must be >= requiredCounterValue.
- * @param waitLimitMS If the counter does not have the required value by this many milliseconds
- *        then throw an error.
- *
- * @throws TestException if the counter does not have the required value in waitLimitMS millis.
+/** Returns how long a counter wait can block in the master before it is next
+ *  due to log its progress or to time out.
  */
-public static void waitForCounter(hydra.blackboard.Blackboard BB, 
-                                  String counterName, 
-                                  int whichCounter, 
-                                  long requiredCounterValue,
-                                  boolean exact,
-                                  long waitLimitMS) {
-   waitForCounter(BB, counterName, whichCounter, requiredCounterValue, exact, waitLimitMS, 100);
+private static long getCounterWaitMillis(long startTime, long lastLogTime,
+                                         long logIntervalMillis, long waitLimitMS) {
+   long now = System.currentTimeMillis();
+   long waitMillis = lastLogTime + logIntervalMillis - now;
+   if (waitLimitMS >= 0) {
+      waitMillis = Math.min(waitMillis, startTime + waitLimitMS - now);
+   }
+   return Math.max(waitMillis, 1);
 }
 
 /** Using the given region and key, wait for containsKey to become the same value
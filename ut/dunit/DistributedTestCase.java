@@ -33,8 +33,8 @@ import java.io.Serializable;
 import java.io.StringWriter;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -121,6 +121,10 @@ public abstract class DistributedTestCase extends TestCase
   public static final boolean logPerTest = Boolean
       .getBoolean("dunitLogPerTest");
 
+  /** Whether invokeInEveryVM invokes in one VM at a time */
+  public static final boolean serialInvokeInEveryVM = Boolean
+      .getBoolean("dunitSerialInvokeInEveryVM");
+
   ///////////////////////  Utility Methods  ///////////////////////
   
   public void attachDebugger(VM vm, final String msg) {
@@ -135,19 +139,13 @@ public abstract class DistributedTestCase extends TestCase
 
   /**
    * Invokes a <code>SerializableRunnable</code> in every VM that
-   * DUnit knows about.
+   * DUnit knows about.  The VMs run the work concurrently, see {@link
+   * #invokeInEveryVM(Object, String, Object[])}.
    *
    * @see VM#invoke(Runnable)
    */
   public static void invokeInEveryVM(SerializableRunnable work) {
-    for (int h = 0; h < Host.getHostCount(); h++) {
-      Host host = Host.getHost(h);
-
-      for (int v = 0; v < host.getVMCount(); v++) {
-        VM vm = host.getVM(v);
-        vm.invoke(work);
-      }
-    }
+    invokeInEveryVM(work, "run", new Object[0]);
   }
 
   public static void invokeInLocator(SerializableRunnable work) {
@@ -158,19 +156,12 @@ public abstract class DistributedTestCase extends TestCase
    * Invokes a <code>SerializableCallable</code> in every VM that
    * DUnit knows about.
    *
-   * @return a Map of results, where the key is the VM and the value is the result
+   * @return a Map of results, where the key is the VM and the value is the
+   *         result, in host and VM order
    * @see VM#invoke(Callable)
    */
   protected static Map invokeInEveryVM(SerializableCallable work) {
-    HashMap ret = new HashMap();
-    for (int h = 0; h < Host.getHostCount(); h++) {
-      Host host = Host.getHost(h);
-      for (int v = 0; v < host.getVMCount(); v++) {
-        VM vm = host.getVM(v);
-        ret.put(vm, vm.invoke(work));
-      }
-    }
-    return ret;
+    return invokeInEveryVM(work, "call", new Object[0]);
   }
 
   /**
@@ -179,14 +170,7 @@ public abstract class DistributedTestCase extends TestCase
    * @see VM#invoke(Class, String)
    */
   protected static void invokeInEveryVM(Class c, String method) {
-    for (int h = 0; h < Host.getHostCount(); h++) {
-      Host host = Host.getHost(h);
-
-      for (int v = 0; v < host.getVMCount(); v++) {
-        VM vm = host.getVM(v);
-        vm.invoke(c, method);
-      }
-    }
+    invokeInEveryVM(c, method, new Object[0]);
   }
 
   /**
@@ -195,14 +179,86 @@ public abstract class DistributedTestCase extends TestCase
    * @see VM#invoke(Class, String)
    */
   protected static void invokeInEveryVM(Class c, String method, Object[] methodArgs) {
+    invokeInEveryVM((Object)c, method, methodArgs);
+  }
+
+  /**
+   * Invokes a method in every VM that DUnit knows about.  If the receiver is
+   * a {@link Class}, the method is static.  The invocations are dispatched to
+   * all of the VMs at once using {@link AsyncInvocation}s, then awaited, so
+   * the work runs concurrently in the VMs and every VM runs it even if it
+   * fails in some of them.  If it fails in any VM, this throws the exception
+   * from the first such VM, in host and VM order, with the exceptions from
+   * the others logged and attached as suppressed exceptions.
+   * <p>
+   * Set <code>-DdunitSerialInvokeInEveryVM=true</code> to invoke the method
+   * in one VM at a time instead, stopping at the first failure.
+   *
+   * @return a Map of results, where the key is the VM and the value is the
+   *         result, in host and VM order
+   */
+  private static Map invokeInEveryVM(Object receiver, String method, Object[] methodArgs) {
+    List vms = new ArrayList();
     for (int h = 0; h < Host.getHostCount(); h++) {
       Host host = Host.getHost(h);
 
       for (int v = 0; v < host.getVMCount(); v++) {
-        VM vm = host.getVM(v);
-        vm.invoke(c, method, methodArgs);
+        vms.add(host.getVM(v));
+      }
+    }
+    Map results = new LinkedHashMap();
+    if (serialInvokeInEveryVM) {
+      for (Iterator i = vms.iterator(); i.hasNext();) {
+        VM vm = (VM)i.next();
+        if (receiver instanceof Class) {
+          results.put(vm, vm.invoke((Class)receiver, method, methodArgs));
+        } else {
+          results.put(vm, vm.invoke(receiver, method, methodArgs));
+        }
+      }
+      return results;
+    }
+
+    List invocations = new ArrayList(vms.size());
+    for (Iterator i = vms.iterator(); i.hasNext();) {
+      VM vm = (VM)i.next();
+      if (receiver instanceof Class) {
+        invocations.add(vm.invokeAsync((Class)receiver, method, methodArgs));
+      } else {
+        invocations.add(vm.invokeAsync(receiver, method, methodArgs));
+      }
+    }
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (int i = 0; i < vms.size(); i++) {
+      VM vm = (VM)vms.get(i);
+      AsyncInvocation ai = (AsyncInvocation)invocations.get(i);
+      while (ai.isAlive()) {
+        try {
+          ai.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (!ai.exceptionOccurred()) {
+        results.put(vm, ai.getReturnValue());
+      } else if (failure == null) {
+        failure = ai.exception;
+      } else {
+        getLogWriter().severe("Invocation of " + method + " also failed in "
+                              + vm, ai.exception);
+        failure.addSuppressed(ai.exception);
       }
     }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof Error) {
+      throw (Error)failure;
+    } else if (failure != null) {
+      throw (RuntimeException)failure;
+    }
+    return results;
   }
   
   /**
@@ -227,14 +283,8 @@ public abstract class DistributedTestCase extends TestCase
    * @see VM#invoke(Runnable)
    */
   protected void invokeInEveryVMRepeatingIfNecessary(RepeatableRunnable work) {
-    for (int h = 0; h < Host.getHostCount(); h++) {
-      Host host = Host.getHost(h);
-
-      for (int v = 0; v < host.getVMCount(); v++) {
-        VM vm = host.getVM(v);
-        vm.invokeRepeatingIfNecessary(work, getRepeatTimeoutMs());
-      }
-    }
+    invokeInEveryVM(work, "runRepeatingIfNecessary",
+                    new Object[] {new Long(getRepeatTimeoutMs())});
   }
 
   /** Return the total number of VMs on all hosts */
@@ -171,6 +171,13 @@ public class FakeMaster implements MasterProxyIF {
     return null;
   }
 
+  /* (non-Javadoc)
+   * @see hydra.MasterProxyIF#getSharedTestConfig()
+   */
+  public byte[] getSharedTestConfig() throws RemoteException {
+    return null;
+  }
+
   /* (non-Javadoc)
    * @see hydra.MasterProxyIF#getVmid(String,int)
    */